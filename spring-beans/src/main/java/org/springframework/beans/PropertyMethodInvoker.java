@@ -0,0 +1,185 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.cglib.reflect.FastMethod;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Strategy for invoking bean property read and write methods, used by
+ * {@link BeanWrapperImpl} when generated accessors are activated.
+ *
+ * <p>For public methods on public classes, a CGLIB {@link FastClass} gets
+ * generated per declaring class, dispatching to the property methods through
+ * a plain index switch instead of reflection. Where class generation is not
+ * possible (non-public methods, classes from the bootstrap class loader,
+ * or generation failures), standard reflective invocation is used instead.
+ *
+ * <p>Invokers are cached per {@link Method}, with generated classes cached
+ * per declaring class, both softly referenced so that they can be reclaimed
+ * under memory pressure, allowing for class unloading.
+ *
+ * @since 4.1
+ * @see BeanWrapperImpl#setGeneratedAccessors
+ */
+abstract class PropertyMethodInvoker {
+
+	private static final Log logger = LogFactory.getLog(PropertyMethodInvoker.class);
+
+	private static final Object NO_FAST_CLASS = new Object();
+
+	private static final Map<Class<?>, Object> fastClassCache =
+			new ConcurrentReferenceHashMap<Class<?>, Object>(64);
+
+	private static final Map<Method, PropertyMethodInvoker> invokerCache =
+			new ConcurrentReferenceHashMap<Method, PropertyMethodInvoker>(256);
+
+
+	/**
+	 * Invoke the underlying property method on the given target object.
+	 * @param target the target object to invoke the method on
+	 * @param args the arguments for the method invocation
+	 * @return the return value of the method (or {@code null} for a void method)
+	 * @throws InvocationTargetException if the method itself threw an exception
+	 * @throws IllegalAccessException if reflective access to the method failed
+	 */
+	public abstract Object invoke(Object target, Object[] args)
+			throws InvocationTargetException, IllegalAccessException;
+
+	/**
+	 * Return whether this invoker uses a generated accessor class,
+	 * as opposed to reflective invocation of the underlying method.
+	 */
+	public abstract boolean isGenerated();
+
+
+	/**
+	 * Obtain a (cached) invoker for the given property method.
+	 * @param method the property read or write method
+	 * @return the corresponding invoker (never {@code null})
+	 */
+	public static PropertyMethodInvoker forMethod(Method method) {
+		PropertyMethodInvoker invoker = invokerCache.get(method);
+		if (invoker == null) {
+			invoker = createInvoker(method);
+			invokerCache.put(method, invoker);
+		}
+		return invoker;
+	}
+
+	/**
+	 * Clear the invoker cache, as well as the cache of generated classes.
+	 */
+	static void clearCache() {
+		invokerCache.clear();
+		fastClassCache.clear();
+	}
+
+	private static PropertyMethodInvoker createInvoker(Method method) {
+		Class<?> declaringClass = method.getDeclaringClass();
+		if (Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(declaringClass.getModifiers()) &&
+				declaringClass.getClassLoader() != null) {
+			FastClass fastClass = getFastClass(declaringClass);
+			if (fastClass != null) {
+				try {
+					return new GeneratedInvoker(fastClass.getMethod(method));
+				}
+				catch (Throwable ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Could not resolve generated accessor for method [" + method +
+								"] - falling back to reflection", ex);
+					}
+				}
+			}
+		}
+		return new ReflectiveInvoker(method);
+	}
+
+	private static FastClass getFastClass(Class<?> clazz) {
+		Object fastClass = fastClassCache.get(clazz);
+		if (fastClass == null) {
+			try {
+				fastClass = FastClass.create(clazz.getClassLoader(), clazz);
+			}
+			catch (Throwable ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Could not generate accessor class for [" + clazz.getName() +
+							"] - falling back to reflection", ex);
+				}
+				fastClass = NO_FAST_CLASS;
+			}
+			fastClassCache.put(clazz, fastClass);
+		}
+		return (fastClass != NO_FAST_CLASS ? (FastClass) fastClass : null);
+	}
+
+
+	/**
+	 * Invoker that dispatches through a generated CGLIB {@link FastMethod}.
+	 */
+	private static class GeneratedInvoker extends PropertyMethodInvoker {
+
+		private final FastMethod fastMethod;
+
+		public GeneratedInvoker(FastMethod fastMethod) {
+			this.fastMethod = fastMethod;
+		}
+
+		@Override
+		public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+			return this.fastMethod.invoke(target, args);
+		}
+
+		@Override
+		public boolean isGenerated() {
+			return true;
+		}
+	}
+
+
+	/**
+	 * Invoker that falls back to standard reflective method invocation.
+	 */
+	private static class ReflectiveInvoker extends PropertyMethodInvoker {
+
+		private final Method method;
+
+		public ReflectiveInvoker(Method method) {
+			this.method = method;
+		}
+
+		@Override
+		public Object invoke(Object target, Object[] args) throws InvocationTargetException, IllegalAccessException {
+			return this.method.invoke(target, args);
+		}
+
+		@Override
+		public boolean isGenerated() {
+			return false;
+		}
+	}
+
+}
@@ -73,6 +73,7 @@ import org.springframework.core.GenericTypeResolver;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.ReflectionUtils;
@@ -404,7 +405,15 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 
 		Object result = existingBean;
 		for (BeanPostProcessor beanProcessor : getBeanPostProcessors()) {
-			result = beanProcessor.postProcessBeforeInitialization(result, beanName);
+			StartupStep postProcess = getApplicationStartup().start("spring.beans.post-process")
+					.tag("beanName", beanName).tag("postProcessor", beanProcessor.getClass().getName())
+					.tag("phase", "before-initialization");
+			try {
+				result = beanProcessor.postProcessBeforeInitialization(result, beanName);
+			}
+			finally {
+				postProcess.end();
+			}
 			if (result == null) {
 				return result;
 			}
@@ -418,7 +427,15 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 
 		Object result = existingBean;
 		for (BeanPostProcessor beanProcessor : getBeanPostProcessors()) {
-			result = beanProcessor.postProcessAfterInitialization(result, beanName);
+			StartupStep postProcess = getApplicationStartup().start("spring.beans.post-process")
+					.tag("beanName", beanName).tag("postProcessor", beanProcessor.getClass().getName())
+					.tag("phase", "after-initialization");
+			try {
+				result = beanProcessor.postProcessAfterInitialization(result, beanName);
+			}
+			finally {
+				postProcess.end();
+			}
 			if (result == null) {
 				return result;
 			}
@@ -448,6 +465,24 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		if (logger.isDebugEnabled()) {
 			logger.debug("Creating instance of bean '" + beanName + "'");
 		}
+		StartupStep instantiate = getApplicationStartup().start("spring.beans.instantiate").tag("beanName", beanName);
+		try {
+			return doCreateBeanWithPreparation(beanName, mbd, args);
+		}
+		finally {
+			instantiate.end();
+		}
+	}
+
+	/**
+	 * Resolve the bean class and method overrides, then apply before-instantiation
+	 * post-processors and actually create the bean if none of them returned a proxy.
+	 * @see #resolveBeforeInstantiation
+	 * @see #doCreateBean
+	 */
+	private Object doCreateBeanWithPreparation(String beanName, RootBeanDefinition mbd, Object[] args)
+			throws BeanCreationException {
+
 		// Make sure bean class is actually resolved at this point.
 		resolveBeanClass(mbd, beanName);
 
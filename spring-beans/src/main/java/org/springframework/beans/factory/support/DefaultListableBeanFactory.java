@@ -24,6 +24,10 @@ import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
@@ -32,15 +36,25 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeansException;
 import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -54,16 +68,22 @@ import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.SmartFactoryBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.annotation.OrderUtils;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.CustomizableThreadCreator;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -88,6 +108,12 @@ import org.springframework.util.StringUtils;
  * have a look at {@link StaticListableBeanFactory}, which manages existing
  * bean instances rather than creating new ones based on bean definitions.
  *
+ * <p>Non-lazy singletons are pre-instantiated sequentially by default. With a
+ * {@link #setPreInstantiationConcurrency pre-instantiation concurrency} above 1,
+ * independent singletons are created concurrently on a bounded thread pool
+ * instead, in an order derived from the dependencies declared in their
+ * bean definitions.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @author Sam Brannen
@@ -106,6 +132,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 
 	private static Class<?> javaxInjectProviderClass = null;
 
+	private static final Set<Class<? extends Annotation>> autowiredAnnotationTypes =
+			new LinkedHashSet<Class<? extends Annotation>>(2);
+
 	static {
 		ClassLoader cl = DefaultListableBeanFactory.class.getClassLoader();
 		try {
@@ -114,9 +143,25 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		catch (ClassNotFoundException ex) {
 			// JSR-330 API not available - Provider interface simply not supported then.
 		}
+		// Looked up by name: the annotation package builds on this support package.
+		for (String annotationTypeName : new String[] {
+				"org.springframework.beans.factory.annotation.Autowired", "javax.inject.Inject"}) {
+			try {
+				autowiredAnnotationTypes.add(cl.loadClass(annotationTypeName).asSubclass(Annotation.class));
+			}
+			catch (ClassNotFoundException ex) {
+				// JSR-330 API not available - simply not considered for pre-instantiation order then.
+			}
+		}
 	}
 
 
+	/**
+	 * Maximum number of bean changes to re-match against cached by-type mappings;
+	 * beyond this, the by-type caches will rather be cleared for a full rescan.
+	 */
+	private static final int BY_TYPE_CACHE_CHANGE_LIMIT = 256;
+
 	/** Map from serialized id to factory instance */
 	private static final Map<String, Reference<DefaultListableBeanFactory>> serializableFactories =
 			new ConcurrentHashMap<String, Reference<DefaultListableBeanFactory>>(8);
@@ -143,10 +188,18 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private final Map<String, BeanDefinition> beanDefinitionMap = new ConcurrentHashMap<String, BeanDefinition>(64);
 
 	/** Map of singleton and non-singleton bean names keyed by dependency type */
-	private final Map<Class<?>, String[]> allBeanNamesByType = new ConcurrentHashMap<Class<?>, String[]>(64);
+	private final Map<Class<?>, BeanNamesByType> allBeanNamesByType =
+			new ConcurrentHashMap<Class<?>, BeanNamesByType>(64);
 
 	/** Map of singleton-only bean names keyed by dependency type */
-	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<Class<?>, String[]>(64);
+	private final Map<Class<?>, BeanNamesByType> singletonBeanNamesByType =
+			new ConcurrentHashMap<Class<?>, BeanNamesByType>(64);
+
+	/** Names of beans registered or removed since the by-type caches were last cleared */
+	private final List<String> byTypeCacheChanges = new ArrayList<String>();
+
+	/** Generation of the by-type caches, incremented whenever they get cleared */
+	private volatile int byTypeCacheGeneration = 0;
 
 	/** List of bean definition names, in registration order */
 	private final List<String> beanDefinitionNames = new ArrayList<String>();
@@ -157,6 +210,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Cached array of bean definition names in case of frozen configuration */
 	private String[] frozenBeanDefinitionNames;
 
+	/** Number of threads for pre-instantiating singletons */
+	private int preInstantiationConcurrency = 1;
+
 
 	/**
 	 * Create a new DefaultListableBeanFactory.
@@ -261,6 +317,39 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.autowireCandidateResolver;
 	}
 
+	/**
+	 * Set the number of threads to use for pre-instantiating singletons.
+	 * <p>Default is 1, creating all non-lazy singletons sequentially on the calling
+	 * thread. With a higher value, {@link #preInstantiateSingletons()} creates
+	 * singletons concurrently on a pool of the given size: a singleton is scheduled
+	 * once the singletons it depends on - through {@code depends-on} declarations,
+	 * bean references in property values and constructor arguments, its factory
+	 * bean, and the types of its {@code @Autowired} and {@code @Inject} injection
+	 * points - have been created. Dependencies that are only resolved at creation
+	 * time otherwise are honored as well: a thread that needs a singleton which
+	 * another thread is creating waits for it, with circular references across
+	 * threads resolved through early singleton references. A singleton whose
+	 * creation still runs into a circular reference across threads is created
+	 * on the calling thread once all other singletons have been created.
+	 * <p>Note that bean implementations, including custom BeanPostProcessors and
+	 * init methods, need to be thread-safe with respect to each other in that mode.
+	 * {@link SmartInitializingSingleton} callbacks are still invoked sequentially
+	 * on the calling thread, after all singletons have been created.
+	 * @since 4.1
+	 */
+	public void setPreInstantiationConcurrency(int preInstantiationConcurrency) {
+		Assert.isTrue(preInstantiationConcurrency > 0, "'preInstantiationConcurrency' must be at least 1");
+		this.preInstantiationConcurrency = preInstantiationConcurrency;
+	}
+
+	/**
+	 * Return the number of threads to use for pre-instantiating singletons.
+	 * @since 4.1
+	 */
+	public int getPreInstantiationConcurrency() {
+		return this.preInstantiationConcurrency;
+	}
+
 
 	@Override
 	public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
@@ -271,6 +360,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.autowireCandidateResolver = otherListableFactory.autowireCandidateResolver;
 			this.resolvableDependencies.putAll(otherListableFactory.resolvableDependencies);
+			this.preInstantiationConcurrency = otherListableFactory.preInstantiationConcurrency;
 		}
 	}
 
@@ -353,15 +443,30 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		if (!isConfigurationFrozen() || type == null || !allowEagerInit) {
 			return doGetBeanNamesForType(type, includeNonSingletons, allowEagerInit);
 		}
-		Map<Class<?>, String[]> cache =
+		Map<Class<?>, BeanNamesByType> cache =
 				(includeNonSingletons ? this.allBeanNamesByType : this.singletonBeanNamesByType);
-		String[] resolvedBeanNames = cache.get(type);
-		if (resolvedBeanNames != null) {
-			return resolvedBeanNames;
+		BeanNamesByType cached = cache.get(type);
+		if (cached != null) {
+			String[] changedBeanNames = getByTypeCacheChanges(cached);
+			if (changedBeanNames != null) {
+				if (changedBeanNames.length == 0) {
+					return cached.beanNames;
+				}
+				// Beans registered or removed in the meantime: just re-match those.
+				String[] resolvedBeanNames = cached.beanNames;
+				for (String changedBeanName : changedBeanNames) {
+					resolvedBeanNames = updateBeanNamesForType(
+							resolvedBeanNames, changedBeanName, type, includeNonSingletons);
+				}
+				cache.put(type, new BeanNamesByType(resolvedBeanNames,
+						cached.generation, cached.changeCount + changedBeanNames.length));
+				return resolvedBeanNames;
+			}
 		}
-		resolvedBeanNames = doGetBeanNamesForType(type, includeNonSingletons, allowEagerInit);
+		BeanNamesByType current = getByTypeCacheState();
+		String[] resolvedBeanNames = doGetBeanNamesForType(type, includeNonSingletons, allowEagerInit);
 		if (ClassUtils.isCacheSafe(type, getBeanClassLoader())) {
-			cache.put(type, resolvedBeanNames);
+			cache.put(type, new BeanNamesByType(resolvedBeanNames, current.generation, current.changeCount));
 		}
 		return resolvedBeanNames;
 	}
@@ -376,23 +481,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			// is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
 				try {
-					RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
-					// Only check bean definition if it is complete.
-					if (!mbd.isAbstract() && (allowEagerInit ||
-							((mbd.hasBeanClass() || !mbd.isLazyInit() || this.allowEagerClassLoading)) &&
-									!requiresEagerInitForType(mbd.getFactoryBeanName()))) {
-						// In case of FactoryBean, match object created by FactoryBean.
-						boolean isFactoryBean = isFactoryBean(beanName, mbd);
-						boolean matchFound = (allowEagerInit || !isFactoryBean || containsSingleton(beanName)) &&
-								(includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type);
-						if (!matchFound && isFactoryBean) {
-							// In case of FactoryBean, try to match FactoryBean instance itself next.
-							beanName = FACTORY_BEAN_PREFIX + beanName;
-							matchFound = (includeNonSingletons || mbd.isSingleton()) && isTypeMatch(beanName, type);
-						}
-						if (matchFound) {
-							result.add(beanName);
-						}
+					String matchingName = matchBeanDefinition(beanName, type, includeNonSingletons, allowEagerInit);
+					if (matchingName != null) {
+						result.add(matchingName);
 					}
 				}
 				catch (CannotLoadBeanClassException ex) {
@@ -423,19 +514,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		for (String beanName : singletonNames) {
 			// Only check if manually registered.
 			if (!containsBeanDefinition(beanName)) {
-				// In case of FactoryBean, match object created by FactoryBean.
-				if (isFactoryBean(beanName)) {
-					if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
-						result.add(beanName);
-						// Match found for this bean: do not match FactoryBean itself anymore.
-						continue;
-					}
-					// In case of FactoryBean, try to match FactoryBean itself next.
-					beanName = FACTORY_BEAN_PREFIX + beanName;
-				}
-				// Match raw bean instance (might be raw FactoryBean).
-				if (isTypeMatch(beanName, type)) {
-					result.add(beanName);
+				String matchingName = matchManualSingleton(beanName, type, includeNonSingletons);
+				if (matchingName != null) {
+					result.add(matchingName);
 				}
 			}
 		}
@@ -443,6 +524,110 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return StringUtils.toStringArray(result);
 	}
 
+	/**
+	 * Match the given bean definition against the given type.
+	 * @return the matching name (the bean name, or the FactoryBean name
+	 * with factory prefix), or {@code null} if not matching
+	 */
+	private String matchBeanDefinition(String beanName, Class<?> type,
+			boolean includeNonSingletons, boolean allowEagerInit) {
+
+		RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+		// Only check bean definition if it is complete.
+		if (!mbd.isAbstract() && (allowEagerInit ||
+				((mbd.hasBeanClass() || !mbd.isLazyInit() || this.allowEagerClassLoading)) &&
+						!requiresEagerInitForType(mbd.getFactoryBeanName()))) {
+			// In case of FactoryBean, match object created by FactoryBean.
+			boolean isFactoryBean = isFactoryBean(beanName, mbd);
+			boolean matchFound = (allowEagerInit || !isFactoryBean || containsSingleton(beanName)) &&
+					(includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type);
+			if (!matchFound && isFactoryBean) {
+				// In case of FactoryBean, try to match FactoryBean instance itself next.
+				beanName = FACTORY_BEAN_PREFIX + beanName;
+				matchFound = (includeNonSingletons || mbd.isSingleton()) && isTypeMatch(beanName, type);
+			}
+			if (matchFound) {
+				return beanName;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Match the given manually registered singleton against the given type.
+	 * @return the matching name (the bean name, or the FactoryBean name
+	 * with factory prefix), or {@code null} if not matching
+	 */
+	private String matchManualSingleton(String beanName, Class<?> type, boolean includeNonSingletons) {
+		// In case of FactoryBean, match object created by FactoryBean.
+		if (isFactoryBean(beanName)) {
+			if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
+				// Match found for this bean: do not match FactoryBean itself anymore.
+				return beanName;
+			}
+			// In case of FactoryBean, try to match FactoryBean itself next.
+			beanName = FACTORY_BEAN_PREFIX + beanName;
+		}
+		// Match raw bean instance (might be raw FactoryBean).
+		return (isTypeMatch(beanName, type) ? beanName : null);
+	}
+
+	/**
+	 * Re-match a single changed bean against the given type, updating
+	 * the given array of previously matched bean names accordingly.
+	 * <p>Keeps the order of a full scan: bean definitions in registration
+	 * order, followed by manually registered singletons.
+	 * @param beanNames the previously matched bean names for the type
+	 * @param changedBeanName the name of the bean that has been registered or removed
+	 * @param type the type to match against
+	 * @param includeNonSingletons whether to include prototype or scoped beans too
+	 * @return the updated array of matching bean names
+	 */
+	private String[] updateBeanNamesForType(String[] beanNames, String changedBeanName,
+			Class<?> type, boolean includeNonSingletons) {
+
+		List<String> result = new ArrayList<String>(beanNames.length + 1);
+		String factoryBeanName = FACTORY_BEAN_PREFIX + changedBeanName;
+		for (String beanName : beanNames) {
+			if (!beanName.equals(changedBeanName) && !beanName.equals(factoryBeanName)) {
+				result.add(beanName);
+			}
+		}
+		String matchingName = null;
+		if (containsBeanDefinition(changedBeanName)) {
+			if (!isAlias(changedBeanName)) {
+				matchingName = matchBeanDefinition(changedBeanName, type, includeNonSingletons, true);
+			}
+		}
+		else if (containsSingleton(changedBeanName)) {
+			matchingName = matchManualSingleton(changedBeanName, type, includeNonSingletons);
+		}
+		if (matchingName != null) {
+			int rank = getRegistrationRank(changedBeanName);
+			int index = result.size();
+			while (index > 0 &&
+					getRegistrationRank(BeanFactoryUtils.transformedBeanName(result.get(index - 1))) > rank) {
+				index--;
+			}
+			result.add(index, matchingName);
+		}
+		return StringUtils.toStringArray(result);
+	}
+
+	/**
+	 * Determine the position of the given bean in a full by-type scan:
+	 * bean definitions first, in registration order, then manual singletons.
+	 */
+	private int getRegistrationRank(String beanName) {
+		synchronized (this.beanDefinitionMap) {
+			int index = this.beanDefinitionNames.indexOf(beanName);
+			if (index != -1) {
+				return index;
+			}
+		}
+		return Integer.MAX_VALUE / 2 + Arrays.asList(getSingletonNames()).indexOf(beanName);
+	}
+
 	/**
 	 * Check whether the specified bean would need to be eagerly initialized
 	 * in order to determine its type.
@@ -677,35 +862,381 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			// While this may not be part of the regular factory bootstrap, it does otherwise work fine.
 			beanNames = new ArrayList<String>(this.beanDefinitionNames);
 		}
+
+		// Trigger initialization of all non-lazy singleton beans...
+		if (this.preInstantiationConcurrency > 1) {
+			preInstantiateSingletonsConcurrently(beanNames);
+		}
+		else {
+			for (String beanName : beanNames) {
+				RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+				if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+					preInstantiateSingleton(beanName);
+				}
+			}
+		}
+
+		// Trigger post-initialization callback for all applicable beans...
+		for (String beanName : beanNames) {
+			Object singletonInstance = getSingleton(beanName);
+			if (singletonInstance instanceof SmartInitializingSingleton) {
+				final SmartInitializingSingleton smartSingleton = (SmartInitializingSingleton) singletonInstance;
+				if (System.getSecurityManager() != null) {
+					AccessController.doPrivileged(new PrivilegedAction<Object>() {
+						@Override
+						public Object run() {
+							smartSingleton.afterSingletonsInstantiated();
+							return null;
+						}
+					}, getAccessControlContext());
+				}
+				else {
+					smartSingleton.afterSingletonsInstantiated();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Instantiate the given non-lazy singleton, or just its FactoryBean
+	 * unless that one requests eager initialization of its object.
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		if (isFactoryBean(beanName)) {
+			final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
+			boolean isEagerInit;
+			if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+				isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+					@Override
+					public Boolean run() {
+						return ((SmartFactoryBean<?>) factory).isEagerInit();
+					}
+				}, getAccessControlContext());
+			}
+			else {
+				isEagerInit = (factory instanceof SmartFactoryBean &&
+						((SmartFactoryBean<?>) factory).isEagerInit());
+			}
+			if (isEagerInit) {
+				getBean(beanName);
+			}
+		}
+		else {
+			getBean(beanName);
+		}
+	}
+
+	/**
+	 * Pre-instantiate the non-lazy singletons among the given beans concurrently,
+	 * scheduling each singleton once the singletons that its bean definition
+	 * declares dependencies on have been created.
+	 * @see #setPreInstantiationConcurrency
+	 */
+	private void preInstantiateSingletonsConcurrently(List<String> beanNames) {
+		Map<String, Set<String>> dependencies = new LinkedHashMap<String, Set<String>>();
 		for (String beanName : beanNames) {
 			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
 			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					final FactoryBean<?> factory = (FactoryBean<?>) getBean(FACTORY_BEAN_PREFIX + beanName);
-					boolean isEagerInit;
-					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-						isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
-							@Override
-							public Boolean run() {
-								return ((SmartFactoryBean<?>) factory).isEagerInit();
-							}
-						}, getAccessControlContext());
+				Set<String> declaredDependencies = getDeclaredDependencies(bd);
+				collectAnnotatedDependencies(beanName, bd, declaredDependencies);
+				dependencies.put(beanName, declaredDependencies);
+			}
+		}
+		Map<String, Set<String>> dependentSingletons = new HashMap<String, Set<String>>();
+		Map<String, Integer> pendingDependencies = new HashMap<String, Integer>();
+		for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+			int pending = 0;
+			for (String dependency : entry.getValue()) {
+				if (dependencies.containsKey(dependency) && !dependency.equals(entry.getKey())) {
+					Set<String> dependents = dependentSingletons.get(dependency);
+					if (dependents == null) {
+						dependents = new LinkedHashSet<String>();
+						dependentSingletons.put(dependency, dependents);
 					}
-					else {
-						isEagerInit = (factory instanceof SmartFactoryBean &&
-								((SmartFactoryBean<?>) factory).isEagerInit());
+					dependents.add(entry.getKey());
+					pending++;
+				}
+			}
+			pendingDependencies.put(entry.getKey(), pending);
+		}
+
+		final CustomizableThreadCreator threadCreator = new CustomizableThreadCreator("preInstantiation-");
+		ExecutorService executor = Executors.newFixedThreadPool(this.preInstantiationConcurrency,
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable runnable) {
+						return threadCreator.createThread(runnable);
 					}
-					if (isEagerInit) {
-						getBean(beanName);
+				});
+		CompletionService<String> completionService = new ExecutorCompletionService<String>(executor);
+		final Map<String, Long> creationTimes = new ConcurrentHashMap<String, Long>();
+		Set<String> deferred = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		Set<String> remaining = new LinkedHashSet<String>(dependencies.keySet());
+		long startTime = System.currentTimeMillis();
+		int inFlight = 0;
+		RuntimeException failure = null;
+		setConcurrentSingletonCreation(true);
+		try {
+			for (String beanName : dependencies.keySet()) {
+				if (pendingDependencies.get(beanName) == 0) {
+					submitPreInstantiation(completionService, beanName, creationTimes, deferred);
+					remaining.remove(beanName);
+					inFlight++;
+				}
+			}
+			while (inFlight > 0 || (!remaining.isEmpty() && failure == null)) {
+				if (inFlight == 0) {
+					// Declared dependencies form a cycle: break it up at the first remaining bean.
+					String beanName = remaining.iterator().next();
+					submitPreInstantiation(completionService, beanName, creationTimes, deferred);
+					remaining.remove(beanName);
+					inFlight++;
+				}
+				String completedBean;
+				try {
+					completedBean = completionService.take().get();
+				}
+				catch (ExecutionException ex) {
+					if (failure == null) {
+						failure = asRuntimeException(ex.getCause());
 					}
+					completedBean = null;
 				}
-				else {
-					getBean(beanName);
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new FatalBeanException("Interrupted while pre-instantiating singletons", ex);
+				}
+				inFlight--;
+				if (completedBean != null && failure == null && dependentSingletons.containsKey(completedBean)) {
+					for (String dependent : dependentSingletons.get(completedBean)) {
+						int pending = pendingDependencies.get(dependent) - 1;
+						pendingDependencies.put(dependent, pending);
+						if (pending == 0 && remaining.remove(dependent)) {
+							submitPreInstantiation(completionService, dependent, creationTimes, deferred);
+							inFlight++;
+						}
+					}
+				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+			setConcurrentSingletonCreation(false);
+		}
+		if (failure != null) {
+			throw failure;
+		}
+
+		// Fall back to sequential creation on the calling thread for singletons whose
+		// creation ran into a circular reference across pre-instantiation threads.
+		for (String beanName : beanNames) {
+			if (deferred.contains(beanName)) {
+				if (this.logger.isDebugEnabled()) {
+					this.logger.debug("Creating singleton '" + beanName + "' on the calling thread after " +
+							"circular reference across pre-instantiation threads");
+				}
+				preInstantiateSingleton(beanName);
+			}
+		}
+		if (this.logger.isDebugEnabled()) {
+			logPreInstantiationTimes(creationTimes, System.currentTimeMillis() - startTime);
+		}
+	}
+
+	private void submitPreInstantiation(CompletionService<String> completionService, final String beanName,
+			final Map<String, Long> creationTimes, final Set<String> deferred) {
+
+		completionService.submit(new Callable<String>() {
+			@Override
+			public String call() {
+				long startTime = System.nanoTime();
+				try {
+					preInstantiateSingleton(beanName);
+				}
+				catch (BeanCreationException ex) {
+					if (!ex.contains(BeanCurrentlyInCreationException.class)) {
+						throw ex;
+					}
+					if (logger.isDebugEnabled()) {
+						logger.debug("Deferring creation of singleton '" + beanName + "': " + ex.getMessage());
+					}
+					deferred.add(beanName);
+					return null;
+				}
+				long duration = (System.nanoTime() - startTime) / 1000000;
+				creationTimes.put(beanName, duration);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Pre-instantiated singleton '" + beanName + "' in " + duration + " ms");
+				}
+				return beanName;
+			}
+		});
+	}
+
+	private RuntimeException asRuntimeException(Throwable ex) {
+		if (ex instanceof RuntimeException) {
+			return (RuntimeException) ex;
+		}
+		if (ex instanceof Error) {
+			throw (Error) ex;
+		}
+		return new FatalBeanException("Singleton pre-instantiation failed", ex);
+	}
+
+	private void logPreInstantiationTimes(Map<String, Long> creationTimes, long totalTime) {
+		List<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(creationTimes.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+			@Override
+			public int compare(Map.Entry<String, Long> entry1, Map.Entry<String, Long> entry2) {
+				return entry2.getValue().compareTo(entry1.getValue());
+			}
+		});
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < entries.size() && i < 10; i++) {
+			builder.append(i > 0 ? ", " : "").append(entries.get(i).getKey());
+			builder.append(" (").append(entries.get(i).getValue()).append(" ms)");
+		}
+		this.logger.debug("Pre-instantiated " + creationTimes.size() + " singletons in " + totalTime +
+				" ms using " + this.preInstantiationConcurrency + " threads; slowest: " + builder);
+	}
+
+	/**
+	 * Add the names of the beans matching the types of the {@code @Autowired} and
+	 * {@code @Inject} fields, methods and constructors of the given bean's class.
+	 * <p>Matching is by type only, so this may include more beans than are actually
+	 * injected; this merely affects the order of pre-instantiation.
+	 */
+	private void collectAnnotatedDependencies(String beanName, RootBeanDefinition bd, final Set<String> dependencies) {
+		if (bd.getFactoryMethodName() != null) {
+			return;
+		}
+		Class<?> beanClass;
+		try {
+			beanClass = resolveBeanClass(bd, beanName);
+		}
+		catch (CannotLoadBeanClassException ex) {
+			return;
+		}
+		if (beanClass == null) {
+			return;
+		}
+		ReflectionUtils.doWithFields(beanClass, new ReflectionUtils.FieldCallback() {
+			@Override
+			public void doWith(Field field) {
+				if (isAutowiredMember(field)) {
+					collectBeansOfType(ResolvableType.forField(field), dependencies);
+				}
+			}
+		});
+		ReflectionUtils.doWithMethods(beanClass, new ReflectionUtils.MethodCallback() {
+			@Override
+			public void doWith(Method method) {
+				if (isAutowiredMember(method)) {
+					for (int i = 0; i < method.getParameterTypes().length; i++) {
+						collectBeansOfType(ResolvableType.forMethodParameter(method, i), dependencies);
+					}
+				}
+			}
+		});
+		for (Constructor<?> constructor : beanClass.getDeclaredConstructors()) {
+			if (isAutowiredMember(constructor)) {
+				for (int i = 0; i < constructor.getParameterTypes().length; i++) {
+					collectBeansOfType(ResolvableType.forConstructorParameter(constructor, i), dependencies);
 				}
 			}
 		}
 	}
 
+	private boolean isAutowiredMember(AnnotatedElement member) {
+		for (Class<? extends Annotation> annotationType : autowiredAnnotationTypes) {
+			if (AnnotationUtils.getAnnotation(member, annotationType) != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void collectBeansOfType(ResolvableType type, Set<String> dependencies) {
+		Class<?> rawType = type.resolve();
+		if (rawType == null || ObjectFactory.class == rawType || rawType == javaxInjectProviderClass) {
+			// Lazily resolved: no need to create the target bean first.
+			return;
+		}
+		ResolvableType dependencyType = type;
+		if (type.isArray()) {
+			dependencyType = type.getComponentType();
+		}
+		else if (Collection.class.isAssignableFrom(rawType)) {
+			dependencyType = type.asCollection().getGeneric();
+		}
+		else if (Map.class.isAssignableFrom(rawType)) {
+			dependencyType = type.asMap().getGeneric(1);
+		}
+		Class<?> resolvedType = dependencyType.resolve();
+		if (resolvedType != null && resolvedType != Object.class) {
+			dependencies.addAll(Arrays.asList(getBeanNamesForType(resolvedType, true, false)));
+		}
+	}
+
+	/**
+	 * Determine the names of the beans that the given bean definition declares
+	 * dependencies on: depends-on, its factory bean, and bean references in
+	 * property values and constructor arguments, including inner beans.
+	 */
+	private Set<String> getDeclaredDependencies(BeanDefinition bd) {
+		Set<String> dependencies = new HashSet<String>();
+		collectDeclaredDependencies(bd, dependencies);
+		return dependencies;
+	}
+
+	private void collectDeclaredDependencies(BeanDefinition bd, Set<String> dependencies) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			for (String dependency : dependsOn) {
+				dependencies.add(transformedBeanName(dependency));
+			}
+		}
+		if (bd.getFactoryBeanName() != null) {
+			dependencies.add(transformedBeanName(bd.getFactoryBeanName()));
+		}
+		for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+			collectReferencedBeans(pv.getValue(), dependencies);
+		}
+		ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getIndexedArgumentValues().values()) {
+			collectReferencedBeans(valueHolder.getValue(), dependencies);
+		}
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getGenericArgumentValues()) {
+			collectReferencedBeans(valueHolder.getValue(), dependencies);
+		}
+	}
+
+	private void collectReferencedBeans(Object value, Set<String> dependencies) {
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference ref = (RuntimeBeanReference) value;
+			if (!ref.isToParent()) {
+				dependencies.add(transformedBeanName(ref.getBeanName()));
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectDeclaredDependencies(((BeanDefinitionHolder) value).getBeanDefinition(), dependencies);
+		}
+		else if (value instanceof BeanDefinition) {
+			collectDeclaredDependencies((BeanDefinition) value, dependencies);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectReferencedBeans(element, dependencies);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectReferencedBeans(entry.getKey(), dependencies);
+				collectReferencedBeans(entry.getValue(), dependencies);
+			}
+		}
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
@@ -794,8 +1325,8 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		// (e.g. the default StaticMessageSource in a StaticApplicationContext).
 		destroySingleton(beanName);
 
-		// Remove any assumptions about by-type mappings.
-		clearByTypeCache();
+		// Remove any assumptions about by-type mappings for this bean.
+		addByTypeCacheChange(beanName);
 
 		// Reset all bean definitions that have the given bean as parent (recursively).
 		for (String bdName : this.beanDefinitionNames) {
@@ -804,6 +1335,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 				if (beanName.equals(bd.getParentName())) {
 					resetBeanDefinition(bdName);
 				}
+				else if (beanName.equals(bd.getFactoryBeanName())) {
+					// Type of factory method beans may depend on the factory bean's class.
+					clearByTypeCache();
+				}
 			}
 		}
 	}
@@ -819,21 +1354,75 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		super.registerSingleton(beanName, singletonObject);
-		clearByTypeCache();
+		addByTypeCacheChange(beanName);
 	}
 
 	@Override
 	public void destroySingleton(String beanName) {
 		super.destroySingleton(beanName);
-		clearByTypeCache();
+		addByTypeCacheChange(beanName);
+	}
+
+	/**
+	 * Record a change for the given bean, to be applied to the by-type caches
+	 * on next access: Instead of rescanning all beans, cached by-type mappings
+	 * will simply re-match the changed bean against their type.
+	 * @param beanName the name of the bean that has been registered or removed
+	 */
+	private void addByTypeCacheChange(String beanName) {
+		synchronized (this.byTypeCacheChanges) {
+			if (this.allBeanNamesByType.isEmpty() && this.singletonBeanNamesByType.isEmpty()) {
+				// Nothing cached yet: no need to track changes.
+				this.byTypeCacheChanges.clear();
+				this.byTypeCacheGeneration++;
+			}
+			else if (this.byTypeCacheChanges.size() >= BY_TYPE_CACHE_CHANGE_LIMIT) {
+				// Too many changes to re-match one by one: rather do a full rescan.
+				clearByTypeCache();
+			}
+			else {
+				this.byTypeCacheChanges.add(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Return the names of the beans that have changed since the given
+	 * by-type mapping has been resolved.
+	 * @return the changed bean names (possibly an empty array), or {@code null}
+	 * if the by-type mapping is outdated and needs a full rescan
+	 */
+	private String[] getByTypeCacheChanges(BeanNamesByType cached) {
+		synchronized (this.byTypeCacheChanges) {
+			if (cached.generation != this.byTypeCacheGeneration ||
+					cached.changeCount > this.byTypeCacheChanges.size()) {
+				return null;
+			}
+			return StringUtils.toStringArray(
+					this.byTypeCacheChanges.subList(cached.changeCount, this.byTypeCacheChanges.size()));
+		}
+	}
+
+	/**
+	 * Return the current state of the by-type caches, to be associated
+	 * with newly resolved by-type mappings.
+	 */
+	private BeanNamesByType getByTypeCacheState() {
+		synchronized (this.byTypeCacheChanges) {
+			return new BeanNamesByType(null, this.byTypeCacheGeneration, this.byTypeCacheChanges.size());
+		}
 	}
 
 	/**
 	 * Remove any assumptions about by-type mappings.
 	 */
 	private void clearByTypeCache() {
-		this.allBeanNamesByType.clear();
-		this.singletonBeanNamesByType.clear();
+		synchronized (this.byTypeCacheChanges) {
+			this.allBeanNamesByType.clear();
+			this.singletonBeanNamesByType.clear();
+			this.byTypeCacheChanges.clear();
+			this.byTypeCacheGeneration++;
+		}
 	}
 
 
@@ -1215,6 +1804,26 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * Cached by-type mapping: the matching bean names, along with
+	 * the state of the by-type caches at the time of resolution.
+	 */
+	private static class BeanNamesByType {
+
+		public final String[] beanNames;
+
+		public final int generation;
+
+		public final int changeCount;
+
+		public BeanNamesByType(String[] beanNames, int generation, int changeCount) {
+			this.beanNames = beanNames;
+			this.generation = generation;
+			this.changeCount = changeCount;
+		}
+	}
+
+
 	/**
 	 * Minimal id reference to the factory.
 	 * Resolved to the actual factory instance on deserialization.
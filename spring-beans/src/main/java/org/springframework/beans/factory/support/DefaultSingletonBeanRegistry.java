@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -62,6 +62,15 @@ import org.springframework.util.StringUtils;
  * (which inherit from it). Can alternatively also be used as a nested
  * helper to delegate to.
  *
+ * <p>By default, singleton creation is serialized across all threads. In
+ * {@link #setConcurrentSingletonCreation concurrent creation mode}, different
+ * singletons may be created by different threads at the same time: a thread
+ * requesting a singleton that is currently being created by another thread
+ * waits for it, and a circular reference between such threads is resolved
+ * through early singleton references, just like within a single thread:
+ * whichever of the threads involved is able to obtain an early reference
+ * proceeds, independent of the order in which the threads got there.
+ *
  * @author Juergen Hoeller
  * @since 2.0
  * @see #registerSingleton
@@ -104,6 +113,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** List of suppressed Exceptions, available for associating related causes */
 	private Set<Exception> suppressedExceptions;
 
+	/** Whether different singletons may currently be created concurrently */
+	private volatile boolean concurrentSingletonCreation = false;
+
+	/** Threads creating singletons in concurrent creation mode: bean name --> thread */
+	private final Map<String, Thread> singletonCreationThreads = new HashMap<String, Thread>(16);
+
+	/** Singletons awaited in concurrent creation mode: thread --> bean name */
+	private final Map<Thread, String> awaitedSingletons = new HashMap<Thread, String>(16);
+
+	/** Suppressed Exceptions in concurrent creation mode: thread --> Set of Exceptions */
+	private final Map<Thread, Set<Exception>> suppressedExceptionsByThread = new HashMap<Thread, Set<Exception>>(16);
+
 	/** Flag that indicates whether we're currently within destroySingletons */
 	private boolean singletonsCurrentlyInDestruction = false;
 
@@ -184,20 +205,31 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		Object singletonObject = this.singletonObjects.get(beanName);
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
 			synchronized (this.singletonObjects) {
-				singletonObject = this.earlySingletonObjects.get(beanName);
-				if (singletonObject == null && allowEarlyReference) {
-					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-					if (singletonFactory != null) {
-						singletonObject = singletonFactory.getObject();
-						this.earlySingletonObjects.put(beanName, singletonObject);
-						this.singletonFactories.remove(beanName);
-					}
+				Thread creationThread = this.singletonCreationThreads.get(beanName);
+				if (creationThread != null && creationThread != Thread.currentThread()) {
+					// Being created by another thread: not to be exposed early,
+					// see getSingletonConcurrently for cross-thread circular references.
+					return null;
 				}
+				singletonObject = getEarlySingleton(beanName, allowEarlyReference);
 			}
 		}
 		return (singletonObject != NULL_OBJECT ? singletonObject : null);
 	}
 
+	private Object getEarlySingleton(String beanName, boolean allowEarlyReference) {
+		Object singletonObject = this.earlySingletonObjects.get(beanName);
+		if (singletonObject == null && allowEarlyReference) {
+			ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory != null) {
+				singletonObject = singletonFactory.getObject();
+				this.earlySingletonObjects.put(beanName, singletonObject);
+				this.singletonFactories.remove(beanName);
+			}
+		}
+		return singletonObject;
+	}
+
 	/**
 	 * Return the (raw) singleton object registered under the given name,
 	 * creating and registering a new one if none registered yet.
@@ -208,6 +240,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "'beanName' must not be null");
+		if (this.concurrentSingletonCreation) {
+			return getSingletonConcurrently(beanName, singletonFactory);
+		}
 		synchronized (this.singletonObjects) {
 			Object singletonObject = this.singletonObjects.get(beanName);
 			if (singletonObject == null) {
@@ -247,6 +282,171 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		}
 	}
 
+	/**
+	 * Variant of {@link #getSingleton(String, ObjectFactory)} for concurrent creation
+	 * mode, holding the singleton lock only while checking and registering state
+	 * rather than during the creation of the singleton object itself.
+	 */
+	private Object getSingletonConcurrently(String beanName, ObjectFactory<?> singletonFactory) {
+		Thread currentThread = Thread.currentThread();
+		boolean recordSuppressedExceptions;
+		synchronized (this.singletonObjects) {
+			while (true) {
+				Object singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject != null) {
+					return (singletonObject != NULL_OBJECT ? singletonObject : null);
+				}
+				if (this.singletonsCurrentlyInDestruction) {
+					throw new BeanCreationNotAllowedException(beanName,
+							"Singleton bean creation not allowed while the singletons of this factory are in destruction " +
+							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+				}
+				Thread creationThread = this.singletonCreationThreads.get(beanName);
+				if (creationThread == null || creationThread == currentThread) {
+					break;
+				}
+				if (isWaitingFor(creationThread, currentThread)) {
+					// Circular reference across threads: resolve it through an early reference,
+					// as if the singletons were being created within a single thread.
+					singletonObject = getEarlySingleton(beanName, true);
+					if (singletonObject != null) {
+						return (singletonObject != NULL_OBJECT ? singletonObject : null);
+					}
+					if (!canProceedWithEarlyReference(creationThread, currentThread)) {
+						throw new BeanCurrentlyInCreationException(beanName);
+					}
+					// Another thread in the cycle is able to proceed with an early reference
+					// to a singleton that we are creating: let it re-check and wait for it.
+					this.singletonObjects.notifyAll();
+				}
+				this.awaitedSingletons.put(currentThread, beanName);
+				try {
+					this.singletonObjects.wait();
+				}
+				catch (InterruptedException ex) {
+					currentThread.interrupt();
+					throw new BeanCreationException(beanName,
+							"Interrupted while waiting for singleton creation in thread [" + creationThread.getName() + "]");
+				}
+				finally {
+					this.awaitedSingletons.remove(currentThread);
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+			}
+			beforeSingletonCreation(beanName);
+			this.singletonCreationThreads.put(beanName, currentThread);
+			recordSuppressedExceptions = !this.suppressedExceptionsByThread.containsKey(currentThread);
+			if (recordSuppressedExceptions) {
+				this.suppressedExceptionsByThread.put(currentThread, new LinkedHashSet<Exception>());
+			}
+		}
+		Object singletonObject = null;
+		boolean newSingleton = false;
+		try {
+			singletonObject = singletonFactory.getObject();
+			newSingleton = true;
+		}
+		catch (IllegalStateException ex) {
+			// Has the singleton object implicitly appeared in the meantime ->
+			// if yes, proceed with it since the exception indicates that state.
+			synchronized (this.singletonObjects) {
+				singletonObject = this.singletonObjects.get(beanName);
+			}
+			if (singletonObject == null) {
+				throw ex;
+			}
+		}
+		catch (BeanCreationException ex) {
+			if (recordSuppressedExceptions) {
+				synchronized (this.singletonObjects) {
+					for (Exception suppressedException : this.suppressedExceptionsByThread.get(currentThread)) {
+						ex.addRelatedCause(suppressedException);
+					}
+				}
+			}
+			throw ex;
+		}
+		finally {
+			synchronized (this.singletonObjects) {
+				if (recordSuppressedExceptions) {
+					this.suppressedExceptionsByThread.remove(currentThread);
+				}
+				this.singletonCreationThreads.remove(beanName);
+				afterSingletonCreation(beanName);
+				if (newSingleton) {
+					addSingleton(beanName, singletonObject);
+				}
+				this.singletonObjects.notifyAll();
+			}
+		}
+		return (singletonObject != NULL_OBJECT ? singletonObject : null);
+	}
+
+	/**
+	 * Determine whether the given thread is (transitively) waiting for a
+	 * singleton that the target thread is currently creating.
+	 */
+	private boolean isWaitingFor(Thread thread, Thread targetThread) {
+		Thread waitingThread = thread;
+		for (int i = 0; i <= this.awaitedSingletons.size(); i++) {
+			String awaitedSingleton = this.awaitedSingletons.get(waitingThread);
+			if (awaitedSingleton == null) {
+				return false;
+			}
+			waitingThread = this.singletonCreationThreads.get(awaitedSingleton);
+			if (waitingThread == null) {
+				return false;
+			}
+			if (waitingThread == targetThread) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determine whether any thread on the wait cycle from the given thread back to
+	 * the target thread awaits a singleton that is available as an early reference,
+	 * i.e. whether that thread may proceed once it re-checks the singleton it awaits.
+	 */
+	private boolean canProceedWithEarlyReference(Thread thread, Thread targetThread) {
+		Thread waitingThread = thread;
+		for (int i = 0; i <= this.awaitedSingletons.size() && waitingThread != targetThread; i++) {
+			String awaitedSingleton = this.awaitedSingletons.get(waitingThread);
+			if (awaitedSingleton == null) {
+				return false;
+			}
+			if (this.earlySingletonObjects.containsKey(awaitedSingleton) ||
+					this.singletonFactories.containsKey(awaitedSingleton)) {
+				return true;
+			}
+			waitingThread = this.singletonCreationThreads.get(awaitedSingleton);
+		}
+		return false;
+	}
+
+	/**
+	 * Specify whether different singletons may be created concurrently by different
+	 * threads, rather than serializing all singleton creation.
+	 * <p>Intended to be switched on for a bootstrap phase that is able to drive
+	 * singleton creation from multiple threads, and switched off again once all
+	 * of those threads have completed.
+	 * @since 4.1
+	 */
+	protected void setConcurrentSingletonCreation(boolean concurrentSingletonCreation) {
+		this.concurrentSingletonCreation = concurrentSingletonCreation;
+	}
+
+	/**
+	 * Return whether different singletons may currently be created concurrently.
+	 * @since 4.1
+	 */
+	protected boolean isConcurrentSingletonCreation() {
+		return this.concurrentSingletonCreation;
+	}
+
 	/**
 	 * Register an Exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
@@ -254,8 +454,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	protected void onSuppressedException(Exception ex) {
 		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null) {
-				this.suppressedExceptions.add(ex);
+			Set<Exception> exceptions = (this.concurrentSingletonCreation ?
+					this.suppressedExceptionsByThread.get(Thread.currentThread()) : this.suppressedExceptions);
+			if (exceptions != null) {
+				exceptions.add(ex);
 			}
 		}
 	}
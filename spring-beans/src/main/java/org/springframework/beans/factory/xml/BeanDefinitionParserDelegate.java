@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -302,6 +302,28 @@ public class BeanDefinitionParserDelegate {
 		return this.readerContext.extractSource(ele);
 	}
 
+	/**
+	 * Invoke the {@link org.springframework.beans.factory.parsing.SourceExtractor} to pull the
+	 * source metadata from the supplied source candidate: typically an {@link Element},
+	 * or the current location in case of streamed parsing.
+	 * @since 4.1
+	 * @see StaxBeanDefinitionDocumentReader
+	 */
+	protected Object extractSource(Object sourceCandidate) {
+		if (sourceCandidate instanceof Element) {
+			return extractSource((Element) sourceCandidate);
+		}
+		return this.readerContext.extractSource(sourceCandidate);
+	}
+
+	/**
+	 * Return the current parse state, for tracking the position
+	 * within the bean definition when reporting errors.
+	 */
+	final ParseState getParseState() {
+		return this.parseState;
+	}
+
 	/**
 	 * Report an error with the given message for the given source element.
 	 */
@@ -309,6 +331,24 @@ public class BeanDefinitionParserDelegate {
 		this.readerContext.error(message, source, this.parseState.snapshot());
 	}
 
+	/**
+	 * Report an error with the given message for the given source candidate.
+	 * @since 4.1
+	 * @see #extractSource(Object)
+	 */
+	protected void error(String message, Object source) {
+		this.readerContext.error(message, source, this.parseState.snapshot());
+	}
+
+	/**
+	 * Report an error with the given message for the given source candidate.
+	 * @since 4.1
+	 * @see #extractSource(Object)
+	 */
+	protected void error(String message, Object source, Throwable cause) {
+		this.readerContext.error(message, source, this.parseState.snapshot(), cause);
+	}
+
 	/**
 	 * Report an error with the given message for the given source element.
 	 */
@@ -449,10 +489,31 @@ public class BeanDefinitionParserDelegate {
 	 * {@link org.springframework.beans.factory.parsing.ProblemReporter}.
 	 */
 	public BeanDefinitionHolder parseBeanDefinitionElement(Element ele, BeanDefinition containingBean) {
-		String id = ele.getAttribute(ID_ATTRIBUTE);
-		String nameAttr = ele.getAttribute(NAME_ATTRIBUTE);
-
 		List<String> aliases = new ArrayList<String>();
+		String beanName = determineBeanName(ele.getAttribute(ID_ATTRIBUTE), ele.getAttribute(NAME_ATTRIBUTE), aliases);
+
+		if (containingBean == null) {
+			checkNameUniqueness(beanName, aliases, ele);
+		}
+
+		AbstractBeanDefinition beanDefinition = parseBeanDefinitionElement(ele, beanName, containingBean);
+		if (beanDefinition != null) {
+			return buildBeanDefinitionHolder(beanDefinition, beanName, aliases, containingBean, ele);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Determine the bean name for the given 'id' and 'name' attribute values,
+	 * falling back to the first name if no id has been specified.
+	 * @param id the 'id' attribute value
+	 * @param nameAttr the 'name' attribute value
+	 * @param aliases the list to add the remaining names to, as aliases
+	 * @return the bean name, or an empty/{@code null} String if none specified
+	 * @since 4.1
+	 */
+	protected String determineBeanName(String id, String nameAttr, List<String> aliases) {
 		if (StringUtils.hasLength(nameAttr)) {
 			String[] nameArr = StringUtils.tokenizeToStringArray(nameAttr, MULTI_VALUE_ATTRIBUTE_DELIMITERS);
 			aliases.addAll(Arrays.asList(nameArr));
@@ -466,46 +527,52 @@ public class BeanDefinitionParserDelegate {
 						"' as bean name and " + aliases + " as aliases");
 			}
 		}
+		return beanName;
+	}
 
-		if (containingBean == null) {
-			checkNameUniqueness(beanName, aliases, ele);
-		}
+	/**
+	 * Build a holder for the given parsed bean definition, generating a bean name
+	 * if none has been specified. May return {@code null} if name generation failed.
+	 * @param beanDefinition the parsed bean definition
+	 * @param beanName the specified bean name, if any
+	 * @param aliases the specified aliases (to be extended with a generated alias, if applicable)
+	 * @param containingBean the containing bean definition, if any
+	 * @param source the bean element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected BeanDefinitionHolder buildBeanDefinitionHolder(AbstractBeanDefinition beanDefinition,
+			String beanName, List<String> aliases, BeanDefinition containingBean, Object source) {
 
-		AbstractBeanDefinition beanDefinition = parseBeanDefinitionElement(ele, beanName, containingBean);
-		if (beanDefinition != null) {
-			if (!StringUtils.hasText(beanName)) {
-				try {
-					if (containingBean != null) {
-						beanName = BeanDefinitionReaderUtils.generateBeanName(
-								beanDefinition, this.readerContext.getRegistry(), true);
-					}
-					else {
-						beanName = this.readerContext.generateBeanName(beanDefinition);
-						// Register an alias for the plain bean class name, if still possible,
-						// if the generator returned the class name plus a suffix.
-						// This is expected for Spring 1.2/2.0 backwards compatibility.
-						String beanClassName = beanDefinition.getBeanClassName();
-						if (beanClassName != null &&
-								beanName.startsWith(beanClassName) && beanName.length() > beanClassName.length() &&
-								!this.readerContext.getRegistry().isBeanNameInUse(beanClassName)) {
-							aliases.add(beanClassName);
-						}
-					}
-					if (logger.isDebugEnabled()) {
-						logger.debug("Neither XML 'id' nor 'name' specified - " +
-								"using generated bean name [" + beanName + "]");
+		if (!StringUtils.hasText(beanName)) {
+			try {
+				if (containingBean != null) {
+					beanName = BeanDefinitionReaderUtils.generateBeanName(
+							beanDefinition, this.readerContext.getRegistry(), true);
+				}
+				else {
+					beanName = this.readerContext.generateBeanName(beanDefinition);
+					// Register an alias for the plain bean class name, if still possible,
+					// if the generator returned the class name plus a suffix.
+					// This is expected for Spring 1.2/2.0 backwards compatibility.
+					String beanClassName = beanDefinition.getBeanClassName();
+					if (beanClassName != null &&
+							beanName.startsWith(beanClassName) && beanName.length() > beanClassName.length() &&
+							!this.readerContext.getRegistry().isBeanNameInUse(beanClassName)) {
+						aliases.add(beanClassName);
 					}
 				}
-				catch (Exception ex) {
-					error(ex.getMessage(), ele);
-					return null;
+				if (logger.isDebugEnabled()) {
+					logger.debug("Neither XML 'id' nor 'name' specified - " +
+							"using generated bean name [" + beanName + "]");
 				}
 			}
-			String[] aliasesArray = StringUtils.toStringArray(aliases);
-			return new BeanDefinitionHolder(beanDefinition, beanName, aliasesArray);
+			catch (Exception ex) {
+				error(ex.getMessage(), source);
+				return null;
+			}
 		}
-
-		return null;
+		String[] aliasesArray = StringUtils.toStringArray(aliases);
+		return new BeanDefinitionHolder(beanDefinition, beanName, aliasesArray);
 	}
 
 	/**
@@ -513,6 +580,16 @@ public class BeanDefinitionParserDelegate {
 	 * within the current level of beans element nesting.
 	 */
 	protected void checkNameUniqueness(String beanName, List<String> aliases, Element beanElement) {
+		checkNameUniqueness(beanName, aliases, (Object) beanElement);
+	}
+
+	/**
+	 * Validate that the specified bean name and aliases have not been used already
+	 * within the current level of beans element nesting.
+	 * @param source the bean element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected void checkNameUniqueness(String beanName, List<String> aliases, Object source) {
 		String foundName = null;
 
 		if (StringUtils.hasText(beanName) && this.usedNames.contains(beanName)) {
@@ -522,7 +599,7 @@ public class BeanDefinitionParserDelegate {
 			foundName = CollectionUtils.findFirstMatch(this.usedNames, aliases);
 		}
 		if (foundName != null) {
-			error("Bean name '" + foundName + "' is already used in this <beans> element", beanElement);
+			error("Bean name '" + foundName + "' is already used in this <beans> element", source);
 		}
 
 		this.usedNames.add(beanName);
@@ -693,15 +770,23 @@ public class BeanDefinitionParserDelegate {
 			Node node = nl.item(i);
 			if (isCandidateElement(node) && nodeNameEquals(node, META_ELEMENT)) {
 				Element metaElement = (Element) node;
-				String key = metaElement.getAttribute(KEY_ATTRIBUTE);
-				String value = metaElement.getAttribute(VALUE_ATTRIBUTE);
-				BeanMetadataAttribute attribute = new BeanMetadataAttribute(key, value);
-				attribute.setSource(extractSource(metaElement));
-				attributeAccessor.addMetadataAttribute(attribute);
+				attributeAccessor.addMetadataAttribute(buildMetaAttribute(
+						metaElement.getAttribute(KEY_ATTRIBUTE), metaElement.getAttribute(VALUE_ATTRIBUTE), metaElement));
 			}
 		}
 	}
 
+	/**
+	 * Build a metadata attribute for the given attribute values of a 'meta' element.
+	 * @param source the 'meta' element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected BeanMetadataAttribute buildMetaAttribute(String key, String value, Object source) {
+		BeanMetadataAttribute attribute = new BeanMetadataAttribute(key, value);
+		attribute.setSource(extractSource(source));
+		return attribute;
+	}
+
 	@SuppressWarnings("deprecation")
 	public int getAutowireMode(String attValue) {
 		String att = attValue;
@@ -792,15 +877,23 @@ public class BeanDefinitionParserDelegate {
 			Node node = nl.item(i);
 			if (isCandidateElement(node) && nodeNameEquals(node, LOOKUP_METHOD_ELEMENT)) {
 				Element ele = (Element) node;
-				String methodName = ele.getAttribute(NAME_ATTRIBUTE);
-				String beanRef = ele.getAttribute(BEAN_ELEMENT);
-				LookupOverride override = new LookupOverride(methodName, beanRef);
-				override.setSource(extractSource(ele));
-				overrides.addOverride(override);
+				overrides.addOverride(buildLookupOverride(
+						ele.getAttribute(NAME_ATTRIBUTE), ele.getAttribute(BEAN_ELEMENT), ele));
 			}
 		}
 	}
 
+	/**
+	 * Build a lookup override for the given attribute values of a 'lookup-method' element.
+	 * @param source the 'lookup-method' element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected LookupOverride buildLookupOverride(String methodName, String beanRef, Object source) {
+		LookupOverride override = new LookupOverride(methodName, beanRef);
+		override.setSource(extractSource(source));
+		return override;
+	}
+
 	/**
 	 * Parse replaced-method sub-elements of the given bean element.
 	 */
@@ -810,24 +903,44 @@ public class BeanDefinitionParserDelegate {
 			Node node = nl.item(i);
 			if (isCandidateElement(node) && nodeNameEquals(node, REPLACED_METHOD_ELEMENT)) {
 				Element replacedMethodEle = (Element) node;
-				String name = replacedMethodEle.getAttribute(NAME_ATTRIBUTE);
-				String callback = replacedMethodEle.getAttribute(REPLACER_ATTRIBUTE);
-				ReplaceOverride replaceOverride = new ReplaceOverride(name, callback);
+				ReplaceOverride replaceOverride = buildReplaceOverride(replacedMethodEle.getAttribute(NAME_ATTRIBUTE),
+						replacedMethodEle.getAttribute(REPLACER_ATTRIBUTE), replacedMethodEle);
 				// Look for arg-type match elements.
 				List<Element> argTypeEles = DomUtils.getChildElementsByTagName(replacedMethodEle, ARG_TYPE_ELEMENT);
 				for (Element argTypeEle : argTypeEles) {
-					String match = argTypeEle.getAttribute(ARG_TYPE_MATCH_ATTRIBUTE);
-					match = (StringUtils.hasText(match) ? match : DomUtils.getTextValue(argTypeEle));
-					if (StringUtils.hasText(match)) {
-						replaceOverride.addTypeIdentifier(match);
-					}
+					addArgTypeMatch(replaceOverride,
+							argTypeEle.getAttribute(ARG_TYPE_MATCH_ATTRIBUTE), DomUtils.getTextValue(argTypeEle));
 				}
-				replaceOverride.setSource(extractSource(replacedMethodEle));
 				overrides.addOverride(replaceOverride);
 			}
 		}
 	}
 
+	/**
+	 * Build a replace override for the given attribute values of a 'replaced-method'
+	 * element, to be completed through {@link #addArgTypeMatch}.
+	 * @param source the 'replaced-method' element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected ReplaceOverride buildReplaceOverride(String methodName, String replacer, Object source) {
+		ReplaceOverride replaceOverride = new ReplaceOverride(methodName, replacer);
+		replaceOverride.setSource(extractSource(source));
+		return replaceOverride;
+	}
+
+	/**
+	 * Add the type identifier of an 'arg-type' element to the given replace override.
+	 * @param match the 'match' attribute value (may be empty)
+	 * @param text the text content of the 'arg-type' element, used if there is no 'match' attribute
+	 * @since 4.1
+	 */
+	protected void addArgTypeMatch(ReplaceOverride replaceOverride, String match, String text) {
+		String typeIdentifier = (StringUtils.hasText(match) ? match : text);
+		if (StringUtils.hasText(typeIdentifier)) {
+			replaceOverride.addTypeIdentifier(typeIdentifier);
+		}
+	}
+
 	/**
 	 * Parse a constructor-arg element.
 	 */
@@ -836,52 +949,23 @@ public class BeanDefinitionParserDelegate {
 		String typeAttr = ele.getAttribute(TYPE_ATTRIBUTE);
 		String nameAttr = ele.getAttribute(NAME_ATTRIBUTE);
 		if (StringUtils.hasLength(indexAttr)) {
-			try {
-				int index = Integer.parseInt(indexAttr);
-				if (index < 0) {
-					error("'index' cannot be lower than 0", ele);
+			int index = parseConstructorArgIndex(indexAttr, ele);
+			if (index >= 0) {
+				try {
+					this.parseState.push(new ConstructorArgumentEntry(index));
+					Object value = parsePropertyValue(ele, bd, null);
+					addConstructorArgValue(bd, index, value, typeAttr, nameAttr, ele);
 				}
-				else {
-					try {
-						this.parseState.push(new ConstructorArgumentEntry(index));
-						Object value = parsePropertyValue(ele, bd, null);
-						ConstructorArgumentValues.ValueHolder valueHolder = new ConstructorArgumentValues.ValueHolder(value);
-						if (StringUtils.hasLength(typeAttr)) {
-							valueHolder.setType(typeAttr);
-						}
-						if (StringUtils.hasLength(nameAttr)) {
-							valueHolder.setName(nameAttr);
-						}
-						valueHolder.setSource(extractSource(ele));
-						if (bd.getConstructorArgumentValues().hasIndexedArgumentValue(index)) {
-							error("Ambiguous constructor-arg entries for index " + index, ele);
-						}
-						else {
-							bd.getConstructorArgumentValues().addIndexedArgumentValue(index, valueHolder);
-						}
-					}
-					finally {
-						this.parseState.pop();
-					}
+				finally {
+					this.parseState.pop();
 				}
 			}
-			catch (NumberFormatException ex) {
-				error("Attribute 'index' of tag 'constructor-arg' must be an integer", ele);
-			}
 		}
 		else {
 			try {
 				this.parseState.push(new ConstructorArgumentEntry());
 				Object value = parsePropertyValue(ele, bd, null);
-				ConstructorArgumentValues.ValueHolder valueHolder = new ConstructorArgumentValues.ValueHolder(value);
-				if (StringUtils.hasLength(typeAttr)) {
-					valueHolder.setType(typeAttr);
-				}
-				if (StringUtils.hasLength(nameAttr)) {
-					valueHolder.setName(nameAttr);
-				}
-				valueHolder.setSource(extractSource(ele));
-				bd.getConstructorArgumentValues().addGenericArgumentValue(valueHolder);
+				addConstructorArgValue(bd, null, value, typeAttr, nameAttr, ele);
 			}
 			finally {
 				this.parseState.pop();
@@ -889,25 +973,77 @@ public class BeanDefinitionParserDelegate {
 		}
 	}
 
+	/**
+	 * Parse the given 'index' attribute value of a constructor-arg element.
+	 * @param indexAttr the 'index' attribute value (not empty)
+	 * @param source the constructor-arg element or its location, as source candidate
+	 * @return the index, or -1 if the attribute value was invalid
+	 * (in which case an error has been reported)
+	 * @since 4.1
+	 */
+	protected int parseConstructorArgIndex(String indexAttr, Object source) {
+		try {
+			int index = Integer.parseInt(indexAttr);
+			if (index < 0) {
+				error("'index' cannot be lower than 0", source);
+				return -1;
+			}
+			return index;
+		}
+		catch (NumberFormatException ex) {
+			error("Attribute 'index' of tag 'constructor-arg' must be an integer", source);
+			return -1;
+		}
+	}
+
+	/**
+	 * Add the given value of a constructor-arg element to the given bean definition.
+	 * @param index the index of the constructor argument,
+	 * or {@code null} for a generic argument value
+	 * @param value the parsed value of the constructor-arg element
+	 * @param typeAttr the 'type' attribute value (may be empty)
+	 * @param nameAttr the 'name' attribute value (may be empty)
+	 * @param source the constructor-arg element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected void addConstructorArgValue(BeanDefinition bd, Integer index, Object value,
+			String typeAttr, String nameAttr, Object source) {
+
+		ConstructorArgumentValues.ValueHolder valueHolder = new ConstructorArgumentValues.ValueHolder(value);
+		if (StringUtils.hasLength(typeAttr)) {
+			valueHolder.setType(typeAttr);
+		}
+		if (StringUtils.hasLength(nameAttr)) {
+			valueHolder.setName(nameAttr);
+		}
+		valueHolder.setSource(extractSource(source));
+		if (index == null) {
+			bd.getConstructorArgumentValues().addGenericArgumentValue(valueHolder);
+		}
+		else if (bd.getConstructorArgumentValues().hasIndexedArgumentValue(index)) {
+			error("Ambiguous constructor-arg entries for index " + index, source);
+		}
+		else {
+			bd.getConstructorArgumentValues().addIndexedArgumentValue(index, valueHolder);
+		}
+	}
+
 	/**
 	 * Parse a property element.
 	 */
 	public void parsePropertyElement(Element ele, BeanDefinition bd) {
 		String propertyName = ele.getAttribute(NAME_ATTRIBUTE);
-		if (!StringUtils.hasLength(propertyName)) {
-			error("Tag 'property' must have a 'name' attribute", ele);
+		if (!checkPropertyName(propertyName, ele)) {
 			return;
 		}
 		this.parseState.push(new PropertyEntry(propertyName));
 		try {
-			if (bd.getPropertyValues().contains(propertyName)) {
-				error("Multiple 'property' definitions for property '" + propertyName + "'", ele);
+			if (!checkPropertyUniqueness(propertyName, bd, ele)) {
 				return;
 			}
 			Object val = parsePropertyValue(ele, bd, propertyName);
-			PropertyValue pv = new PropertyValue(propertyName, val);
+			PropertyValue pv = buildPropertyValueHolder(propertyName, val, ele);
 			parseMetaElements(ele, pv);
-			pv.setSource(extractSource(ele));
 			bd.getPropertyValues().addPropertyValue(pv);
 		}
 		finally {
@@ -915,37 +1051,63 @@ public class BeanDefinitionParserDelegate {
 		}
 	}
 
+	/**
+	 * Check that the given 'name' attribute value of a property element is specified.
+	 * @param source the property element or its location, as source candidate
+	 * @return whether the name is valid (otherwise an error has been reported)
+	 * @since 4.1
+	 */
+	protected boolean checkPropertyName(String propertyName, Object source) {
+		if (!StringUtils.hasLength(propertyName)) {
+			error("Tag 'property' must have a 'name' attribute", source);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Check that the given property has not been defined for the given bean definition yet.
+	 * @param source the property element or its location, as source candidate
+	 * @return whether the property is unique (otherwise an error has been reported)
+	 * @since 4.1
+	 */
+	protected boolean checkPropertyUniqueness(String propertyName, BeanDefinition bd, Object source) {
+		if (bd.getPropertyValues().contains(propertyName)) {
+			error("Multiple 'property' definitions for property '" + propertyName + "'", source);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Build the property value holder for the given parsed value of a property element.
+	 * @param source the property element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected PropertyValue buildPropertyValueHolder(String propertyName, Object value, Object source) {
+		PropertyValue pv = new PropertyValue(propertyName, value);
+		pv.setSource(extractSource(source));
+		return pv;
+	}
+
 	/**
 	 * Parse a qualifier element.
 	 */
 	public void parseQualifierElement(Element ele, AbstractBeanDefinition bd) {
 		String typeName = ele.getAttribute(TYPE_ATTRIBUTE);
-		if (!StringUtils.hasLength(typeName)) {
-			error("Tag 'qualifier' must have a 'type' attribute", ele);
+		if (!checkQualifierType(typeName, ele)) {
 			return;
 		}
 		this.parseState.push(new QualifierEntry(typeName));
 		try {
-			AutowireCandidateQualifier qualifier = new AutowireCandidateQualifier(typeName);
-			qualifier.setSource(extractSource(ele));
-			String value = ele.getAttribute(VALUE_ATTRIBUTE);
-			if (StringUtils.hasLength(value)) {
-				qualifier.setAttribute(AutowireCandidateQualifier.VALUE_KEY, value);
-			}
+			AutowireCandidateQualifier qualifier = buildQualifier(typeName, ele.getAttribute(VALUE_ATTRIBUTE), ele);
 			NodeList nl = ele.getChildNodes();
 			for (int i = 0; i < nl.getLength(); i++) {
 				Node node = nl.item(i);
 				if (isCandidateElement(node) && nodeNameEquals(node, QUALIFIER_ATTRIBUTE_ELEMENT)) {
 					Element attributeEle = (Element) node;
-					String attributeName = attributeEle.getAttribute(KEY_ATTRIBUTE);
-					String attributeValue = attributeEle.getAttribute(VALUE_ATTRIBUTE);
-					if (StringUtils.hasLength(attributeName) && StringUtils.hasLength(attributeValue)) {
-						BeanMetadataAttribute attribute = new BeanMetadataAttribute(attributeName, attributeValue);
-						attribute.setSource(extractSource(attributeEle));
-						qualifier.addMetadataAttribute(attribute);
-					}
-					else {
-						error("Qualifier 'attribute' tag must have a 'name' and 'value'", attributeEle);
+					if (!addQualifierAttribute(qualifier, attributeEle.getAttribute(KEY_ATTRIBUTE),
+							attributeEle.getAttribute(VALUE_ATTRIBUTE), attributeEle)) {
 						return;
 					}
 				}
@@ -957,6 +1119,53 @@ public class BeanDefinitionParserDelegate {
 		}
 	}
 
+	/**
+	 * Check that the given 'type' attribute value of a qualifier element is specified.
+	 * @param source the qualifier element or its location, as source candidate
+	 * @return whether the type is valid (otherwise an error has been reported)
+	 * @since 4.1
+	 */
+	protected boolean checkQualifierType(String typeName, Object source) {
+		if (!StringUtils.hasLength(typeName)) {
+			error("Tag 'qualifier' must have a 'type' attribute", source);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Build a qualifier for the given attribute values of a qualifier element,
+	 * to be completed through {@link #addQualifierAttribute}.
+	 * @param value the 'value' attribute value (may be empty)
+	 * @param source the qualifier element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected AutowireCandidateQualifier buildQualifier(String typeName, String value, Object source) {
+		AutowireCandidateQualifier qualifier = new AutowireCandidateQualifier(typeName);
+		qualifier.setSource(extractSource(source));
+		if (StringUtils.hasLength(value)) {
+			qualifier.setAttribute(AutowireCandidateQualifier.VALUE_KEY, value);
+		}
+		return qualifier;
+	}
+
+	/**
+	 * Add the given attribute values of a qualifier's 'attribute' element to the given qualifier.
+	 * @param source the 'attribute' element or its location, as source candidate
+	 * @return whether the attribute was valid (otherwise an error has been reported)
+	 * @since 4.1
+	 */
+	protected boolean addQualifierAttribute(AutowireCandidateQualifier qualifier,
+			String attributeName, String attributeValue, Object source) {
+
+		if (!StringUtils.hasLength(attributeName) || !StringUtils.hasLength(attributeValue)) {
+			error("Qualifier 'attribute' tag must have a 'name' and 'value'", source);
+			return false;
+		}
+		qualifier.addMetadataAttribute(buildMetaAttribute(attributeName, attributeValue, source));
+		return true;
+	}
+
 	/**
 	 * Get the value of a property element. May be a list etc.
 	 * Also used for constructor arguments, "propertyName" being null in this case.
@@ -983,34 +1192,60 @@ public class BeanDefinitionParserDelegate {
 			}
 		}
 
-		boolean hasRefAttribute = ele.hasAttribute(REF_ATTRIBUTE);
-		boolean hasValueAttribute = ele.hasAttribute(VALUE_ATTRIBUTE);
+		String refName = (ele.hasAttribute(REF_ATTRIBUTE) ? ele.getAttribute(REF_ATTRIBUTE) : null);
+		String value = (ele.hasAttribute(VALUE_ATTRIBUTE) ? ele.getAttribute(VALUE_ATTRIBUTE) : null);
+		Object subElementValue = null;
+		if (subElement != null && refName == null && value == null) {
+			subElementValue = parsePropertySubElement(subElement, bd);
+		}
+		return buildPropertyValue(propertyName, refName, value, subElement != null, subElementValue, ele);
+	}
+
+	/**
+	 * Build the value of a property or constructor-arg element from its 'ref' or
+	 * 'value' attribute or from the value of its sub-element, whichever is present.
+	 * @param propertyName the name of the property, or {@code null} for a constructor argument
+	 * @param refName the 'ref' attribute value, or {@code null} if not present
+	 * @param value the 'value' attribute value, or {@code null} if not present
+	 * @param hasSubElement whether a value sub-element is present
+	 * @param subElementValue the parsed value of the sub-element, if applicable
+	 * @param source the property or constructor-arg element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected Object buildPropertyValue(String propertyName, String refName, String value,
+			boolean hasSubElement, Object subElementValue, Object source) {
+
+		String elementName = (propertyName != null) ?
+						"<property> element for property '" + propertyName + "'" :
+						"<constructor-arg> element";
+
+		boolean hasRefAttribute = (refName != null);
+		boolean hasValueAttribute = (value != null);
 		if ((hasRefAttribute && hasValueAttribute) ||
-				((hasRefAttribute || hasValueAttribute) && subElement != null)) {
+				((hasRefAttribute || hasValueAttribute) && hasSubElement)) {
 			error(elementName +
-					" is only allowed to contain either 'ref' attribute OR 'value' attribute OR sub-element", ele);
+					" is only allowed to contain either 'ref' attribute OR 'value' attribute OR sub-element", source);
 		}
 
 		if (hasRefAttribute) {
-			String refName = ele.getAttribute(REF_ATTRIBUTE);
 			if (!StringUtils.hasText(refName)) {
-				error(elementName + " contains empty 'ref' attribute", ele);
+				error(elementName + " contains empty 'ref' attribute", source);
 			}
 			RuntimeBeanReference ref = new RuntimeBeanReference(refName);
-			ref.setSource(extractSource(ele));
+			ref.setSource(extractSource(source));
 			return ref;
 		}
 		else if (hasValueAttribute) {
-			TypedStringValue valueHolder = new TypedStringValue(ele.getAttribute(VALUE_ATTRIBUTE));
-			valueHolder.setSource(extractSource(ele));
+			TypedStringValue valueHolder = new TypedStringValue(value);
+			valueHolder.setSource(extractSource(source));
 			return valueHolder;
 		}
-		else if (subElement != null) {
-			return parsePropertySubElement(subElement, bd);
+		else if (hasSubElement) {
+			return subElementValue;
 		}
 		else {
 			// Neither child element nor "ref" or "value" attribute found.
-			error(elementName + " must specify a ref or value", ele);
+			error(elementName + " must specify a ref or value", source);
 			return null;
 		}
 	}
@@ -1038,29 +1273,8 @@ public class BeanDefinitionParserDelegate {
 			return nestedBd;
 		}
 		else if (nodeNameEquals(ele, REF_ELEMENT)) {
-			// A generic reference to any name of any bean.
-			String refName = ele.getAttribute(BEAN_REF_ATTRIBUTE);
-			boolean toParent = false;
-			if (!StringUtils.hasLength(refName)) {
-				// A reference to the id of another bean in the same XML file.
-				refName = ele.getAttribute(LOCAL_REF_ATTRIBUTE);
-				if (!StringUtils.hasLength(refName)) {
-					// A reference to the id of another bean in a parent context.
-					refName = ele.getAttribute(PARENT_REF_ATTRIBUTE);
-					toParent = true;
-					if (!StringUtils.hasLength(refName)) {
-						error("'bean', 'local' or 'parent' is required for <ref> element", ele);
-						return null;
-					}
-				}
-			}
-			if (!StringUtils.hasText(refName)) {
-				error("<ref> element contains empty target attribute", ele);
-				return null;
-			}
-			RuntimeBeanReference ref = new RuntimeBeanReference(refName, toParent);
-			ref.setSource(extractSource(ele));
-			return ref;
+			return buildBeanReference(ele.getAttribute(BEAN_REF_ATTRIBUTE), ele.getAttribute(LOCAL_REF_ATTRIBUTE),
+					ele.getAttribute(PARENT_REF_ATTRIBUTE), ele);
 		}
 		else if (nodeNameEquals(ele, IDREF_ELEMENT)) {
 			return parseIdRefElement(ele);
@@ -1069,11 +1283,7 @@ public class BeanDefinitionParserDelegate {
 			return parseValueElement(ele, defaultValueType);
 		}
 		else if (nodeNameEquals(ele, NULL_ELEMENT)) {
-			// It's a distinguished null value. Let's wrap it in a TypedStringValue
-			// object in order to preserve the source location.
-			TypedStringValue nullHolder = new TypedStringValue(null);
-			nullHolder.setSource(extractSource(ele));
-			return nullHolder;
+			return buildNullValue(ele);
 		}
 		else if (nodeNameEquals(ele, ARRAY_ELEMENT)) {
 			return parseArrayElement(ele, bd);
@@ -1100,48 +1310,116 @@ public class BeanDefinitionParserDelegate {
 	 * Return a typed String value Object for the given 'idref' element.
 	 */
 	public Object parseIdRefElement(Element ele) {
+		return buildBeanNameReference(ele.getAttribute(BEAN_REF_ATTRIBUTE), ele.getAttribute(LOCAL_REF_ATTRIBUTE), ele);
+	}
+
+	/**
+	 * Return a typed String value Object for the given value element.
+	 */
+	public Object parseValueElement(Element ele, String defaultTypeName) {
+		// It's a literal value.
+		return buildLiteralValue(DomUtils.getTextValue(ele), ele.getAttribute(TYPE_ATTRIBUTE), defaultTypeName, ele);
+	}
+
+	/**
+	 * Build a bean reference for the given attribute values of a 'ref' element.
+	 * @param beanRef the 'bean' attribute value (may be empty)
+	 * @param localRef the 'local' attribute value (may be empty)
+	 * @param parentRef the 'parent' attribute value (may be empty)
+	 * @param source the 'ref' element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected Object buildBeanReference(String beanRef, String localRef, String parentRef, Object source) {
 		// A generic reference to any name of any bean.
-		String refName = ele.getAttribute(BEAN_REF_ATTRIBUTE);
+		String refName = beanRef;
+		boolean toParent = false;
 		if (!StringUtils.hasLength(refName)) {
 			// A reference to the id of another bean in the same XML file.
-			refName = ele.getAttribute(LOCAL_REF_ATTRIBUTE);
+			refName = localRef;
 			if (!StringUtils.hasLength(refName)) {
-				error("Either 'bean' or 'local' is required for <idref> element", ele);
+				// A reference to the id of another bean in a parent context.
+				refName = parentRef;
+				toParent = true;
+				if (!StringUtils.hasLength(refName)) {
+					error("'bean', 'local' or 'parent' is required for <ref> element", source);
+					return null;
+				}
+			}
+		}
+		if (!StringUtils.hasText(refName)) {
+			error("<ref> element contains empty target attribute", source);
+			return null;
+		}
+		RuntimeBeanReference ref = new RuntimeBeanReference(refName, toParent);
+		ref.setSource(extractSource(source));
+		return ref;
+	}
+
+	/**
+	 * Build a bean name reference for the given attribute values of an 'idref' element.
+	 * @param beanRef the 'bean' attribute value (may be empty)
+	 * @param localRef the 'local' attribute value (may be empty)
+	 * @param source the 'idref' element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected Object buildBeanNameReference(String beanRef, String localRef, Object source) {
+		// A generic reference to any name of any bean.
+		String refName = beanRef;
+		if (!StringUtils.hasLength(refName)) {
+			// A reference to the id of another bean in the same XML file.
+			refName = localRef;
+			if (!StringUtils.hasLength(refName)) {
+				error("Either 'bean' or 'local' is required for <idref> element", source);
 				return null;
 			}
 		}
 		if (!StringUtils.hasText(refName)) {
-			error("<idref> element contains empty target attribute", ele);
+			error("<idref> element contains empty target attribute", source);
 			return null;
 		}
 		RuntimeBeanNameReference ref = new RuntimeBeanNameReference(refName);
-		ref.setSource(extractSource(ele));
+		ref.setSource(extractSource(source));
 		return ref;
 	}
 
 	/**
-	 * Return a typed String value Object for the given value element.
+	 * Build a typed String value Object for the text of a value element.
+	 * @param value the text value
+	 * @param specifiedTypeName the 'type' attribute value (may be empty)
+	 * @param defaultTypeName the type to fall back to if none specified
+	 * @param source the value element or its location, as source candidate
+	 * @since 4.1
 	 */
-	public Object parseValueElement(Element ele, String defaultTypeName) {
-		// It's a literal value.
-		String value = DomUtils.getTextValue(ele);
-		String specifiedTypeName = ele.getAttribute(TYPE_ATTRIBUTE);
+	protected Object buildLiteralValue(String value, String specifiedTypeName, String defaultTypeName, Object source) {
 		String typeName = specifiedTypeName;
 		if (!StringUtils.hasText(typeName)) {
 			typeName = defaultTypeName;
 		}
 		try {
 			TypedStringValue typedValue = buildTypedStringValue(value, typeName);
-			typedValue.setSource(extractSource(ele));
+			typedValue.setSource(extractSource(source));
 			typedValue.setSpecifiedTypeName(specifiedTypeName);
 			return typedValue;
 		}
 		catch (ClassNotFoundException ex) {
-			error("Type class [" + typeName + "] not found for <value> element", ele, ex);
+			error("Type class [" + typeName + "] not found for <value> element", source, ex);
 			return value;
 		}
 	}
 
+	/**
+	 * Build the distinguished null value for a null element.
+	 * @param source the null element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected Object buildNullValue(Object source) {
+		// It's a distinguished null value. Let's wrap it in a TypedStringValue
+		// object in order to preserve the source location.
+		TypedStringValue nullHolder = new TypedStringValue(null);
+		nullHolder.setSource(extractSource(source));
+		return nullHolder;
+	}
+
 	/**
 	 * Build a typed String value Object for the given raw value.
 	 * @see org.springframework.beans.factory.config.TypedStringValue
@@ -1170,10 +1448,7 @@ public class BeanDefinitionParserDelegate {
 	public Object parseArrayElement(Element arrayEle, BeanDefinition bd) {
 		String elementType = arrayEle.getAttribute(VALUE_TYPE_ATTRIBUTE);
 		NodeList nl = arrayEle.getChildNodes();
-		ManagedArray target = new ManagedArray(elementType, nl.getLength());
-		target.setSource(extractSource(arrayEle));
-		target.setElementTypeName(elementType);
-		target.setMergeEnabled(parseMergeAttribute(arrayEle));
+		ManagedArray target = buildArray(elementType, parseMergeAttribute(arrayEle), nl.getLength(), arrayEle);
 		parseCollectionElements(nl, target, bd, elementType);
 		return target;
 	}
@@ -1184,10 +1459,8 @@ public class BeanDefinitionParserDelegate {
 	public List<Object> parseListElement(Element collectionEle, BeanDefinition bd) {
 		String defaultElementType = collectionEle.getAttribute(VALUE_TYPE_ATTRIBUTE);
 		NodeList nl = collectionEle.getChildNodes();
-		ManagedList<Object> target = new ManagedList<Object>(nl.getLength());
-		target.setSource(extractSource(collectionEle));
-		target.setElementTypeName(defaultElementType);
-		target.setMergeEnabled(parseMergeAttribute(collectionEle));
+		ManagedList<Object> target =
+				buildList(defaultElementType, parseMergeAttribute(collectionEle), nl.getLength(), collectionEle);
 		parseCollectionElements(nl, target, bd, defaultElementType);
 		return target;
 	}
@@ -1198,14 +1471,58 @@ public class BeanDefinitionParserDelegate {
 	public Set<Object> parseSetElement(Element collectionEle, BeanDefinition bd) {
 		String defaultElementType = collectionEle.getAttribute(VALUE_TYPE_ATTRIBUTE);
 		NodeList nl = collectionEle.getChildNodes();
-		ManagedSet<Object> target = new ManagedSet<Object>(nl.getLength());
-		target.setSource(extractSource(collectionEle));
-		target.setElementTypeName(defaultElementType);
-		target.setMergeEnabled(parseMergeAttribute(collectionEle));
+		ManagedSet<Object> target =
+				buildSet(defaultElementType, parseMergeAttribute(collectionEle), nl.getLength(), collectionEle);
 		parseCollectionElements(nl, target, bd, defaultElementType);
 		return target;
 	}
 
+	/**
+	 * Build an empty managed array for the given attribute values of an array element.
+	 * @param elementType the 'value-type' attribute value (may be empty)
+	 * @param mergeEnabled the resolved 'merge' attribute value
+	 * @param initialCapacity the expected number of elements
+	 * @param source the array element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected ManagedArray buildArray(String elementType, boolean mergeEnabled, int initialCapacity, Object source) {
+		ManagedArray target = new ManagedArray(elementType, initialCapacity);
+		target.setSource(extractSource(source));
+		target.setElementTypeName(elementType);
+		target.setMergeEnabled(mergeEnabled);
+		return target;
+	}
+
+	/**
+	 * Build an empty managed list for the given attribute values of a list element.
+	 * @see #buildArray
+	 * @since 4.1
+	 */
+	protected ManagedList<Object> buildList(String defaultElementType, boolean mergeEnabled,
+			int initialCapacity, Object source) {
+
+		ManagedList<Object> target = new ManagedList<Object>(initialCapacity);
+		target.setSource(extractSource(source));
+		target.setElementTypeName(defaultElementType);
+		target.setMergeEnabled(mergeEnabled);
+		return target;
+	}
+
+	/**
+	 * Build an empty managed set for the given attribute values of a set element.
+	 * @see #buildArray
+	 * @since 4.1
+	 */
+	protected ManagedSet<Object> buildSet(String defaultElementType, boolean mergeEnabled,
+			int initialCapacity, Object source) {
+
+		ManagedSet<Object> target = new ManagedSet<Object>(initialCapacity);
+		target.setSource(extractSource(source));
+		target.setElementTypeName(defaultElementType);
+		target.setMergeEnabled(mergeEnabled);
+		return target;
+	}
+
 	protected void parseCollectionElements(
 			NodeList elementNodes, Collection<Object> target, BeanDefinition bd, String defaultElementType) {
 
@@ -1225,11 +1542,8 @@ public class BeanDefinitionParserDelegate {
 		String defaultValueType = mapEle.getAttribute(VALUE_TYPE_ATTRIBUTE);
 
 		List<Element> entryEles = DomUtils.getChildElementsByTagName(mapEle, ENTRY_ELEMENT);
-		ManagedMap<Object, Object> map = new ManagedMap<Object, Object>(entryEles.size());
-		map.setSource(extractSource(mapEle));
-		map.setKeyTypeName(defaultKeyType);
-		map.setValueTypeName(defaultValueType);
-		map.setMergeEnabled(parseMergeAttribute(mapEle));
+		ManagedMap<Object, Object> map =
+				buildMap(defaultKeyType, defaultValueType, parseMergeAttribute(mapEle), entryEles.size(), mapEle);
 
 		for (Element entryEle : entryEles) {
 			// Should only have one value child element: ref, value, list, etc.
@@ -1265,71 +1579,28 @@ public class BeanDefinitionParserDelegate {
 			}
 
 			// Extract key from attribute or sub-element.
-			Object key = null;
-			boolean hasKeyAttribute = entryEle.hasAttribute(KEY_ATTRIBUTE);
-			boolean hasKeyRefAttribute = entryEle.hasAttribute(KEY_REF_ATTRIBUTE);
-			if ((hasKeyAttribute && hasKeyRefAttribute) ||
-					((hasKeyAttribute || hasKeyRefAttribute)) && keyEle != null) {
-				error("<entry> element is only allowed to contain either " +
-						"a 'key' attribute OR a 'key-ref' attribute OR a <key> sub-element", entryEle);
-			}
-			if (hasKeyAttribute) {
-				key = buildTypedStringValueForMap(entryEle.getAttribute(KEY_ATTRIBUTE), defaultKeyType, entryEle);
-			}
-			else if (hasKeyRefAttribute) {
-				String refName = entryEle.getAttribute(KEY_REF_ATTRIBUTE);
-				if (!StringUtils.hasText(refName)) {
-					error("<entry> element contains empty 'key-ref' attribute", entryEle);
-				}
-				RuntimeBeanReference ref = new RuntimeBeanReference(refName);
-				ref.setSource(extractSource(entryEle));
-				key = ref;
-			}
-			else if (keyEle != null) {
-				key = parseKeyElement(keyEle, bd, defaultKeyType);
-			}
-			else {
-				error("<entry> element must specify a key", entryEle);
+			String keyAttr = (entryEle.hasAttribute(KEY_ATTRIBUTE) ? entryEle.getAttribute(KEY_ATTRIBUTE) : null);
+			String keyRefAttr = (entryEle.hasAttribute(KEY_REF_ATTRIBUTE) ?
+					entryEle.getAttribute(KEY_REF_ATTRIBUTE) : null);
+			Object keyElementValue = null;
+			if (keyEle != null && keyAttr == null && keyRefAttr == null) {
+				keyElementValue = parseKeyElement(keyEle, bd, defaultKeyType);
 			}
+			Object key = buildMapEntryKey(keyAttr, keyRefAttr, keyEle != null, keyElementValue,
+					defaultKeyType, entryEle);
 
 			// Extract value from attribute or sub-element.
-			Object value = null;
-			boolean hasValueAttribute = entryEle.hasAttribute(VALUE_ATTRIBUTE);
-			boolean hasValueRefAttribute = entryEle.hasAttribute(VALUE_REF_ATTRIBUTE);
-			boolean hasValueTypeAttribute = entryEle.hasAttribute(VALUE_TYPE_ATTRIBUTE);
-			if ((hasValueAttribute && hasValueRefAttribute) ||
-					((hasValueAttribute || hasValueRefAttribute)) && valueEle != null) {
-				error("<entry> element is only allowed to contain either " +
-						"'value' attribute OR 'value-ref' attribute OR <value> sub-element", entryEle);
-			}
-			if ((hasValueTypeAttribute && hasValueRefAttribute) ||
-				(hasValueTypeAttribute && !hasValueAttribute) ||
-					(hasValueTypeAttribute && valueEle != null)) {
-				error("<entry> element is only allowed to contain a 'value-type' " +
-						"attribute when it has a 'value' attribute", entryEle);
-			}
-			if (hasValueAttribute) {
-				String valueType = entryEle.getAttribute(VALUE_TYPE_ATTRIBUTE);
-				if (!StringUtils.hasText(valueType)) {
-					valueType = defaultValueType;
-				}
-				value = buildTypedStringValueForMap(entryEle.getAttribute(VALUE_ATTRIBUTE), valueType, entryEle);
-			}
-			else if (hasValueRefAttribute) {
-				String refName = entryEle.getAttribute(VALUE_REF_ATTRIBUTE);
-				if (!StringUtils.hasText(refName)) {
-					error("<entry> element contains empty 'value-ref' attribute", entryEle);
-				}
-				RuntimeBeanReference ref = new RuntimeBeanReference(refName);
-				ref.setSource(extractSource(entryEle));
-				value = ref;
-			}
-			else if (valueEle != null) {
-				value = parsePropertySubElement(valueEle, bd, defaultValueType);
-			}
-			else {
-				error("<entry> element must specify a value", entryEle);
+			String valueAttr = (entryEle.hasAttribute(VALUE_ATTRIBUTE) ? entryEle.getAttribute(VALUE_ATTRIBUTE) : null);
+			String valueRefAttr = (entryEle.hasAttribute(VALUE_REF_ATTRIBUTE) ?
+					entryEle.getAttribute(VALUE_REF_ATTRIBUTE) : null);
+			String valueTypeAttr = (entryEle.hasAttribute(VALUE_TYPE_ATTRIBUTE) ?
+					entryEle.getAttribute(VALUE_TYPE_ATTRIBUTE) : null);
+			Object valueElementValue = null;
+			if (valueEle != null && valueAttr == null && valueRefAttr == null) {
+				valueElementValue = parsePropertySubElement(valueEle, bd, defaultValueType);
 			}
+			Object value = buildMapEntryValue(valueAttr, valueRefAttr, valueTypeAttr, valueEle != null,
+					valueElementValue, defaultValueType, entryEle);
 
 			// Add final key and value to the Map.
 			map.put(key, value);
@@ -1338,18 +1609,142 @@ public class BeanDefinitionParserDelegate {
 		return map;
 	}
 
+	/**
+	 * Build an empty managed map for the given attribute values of a map element.
+	 * @param defaultKeyType the 'key-type' attribute value (may be empty)
+	 * @param defaultValueType the 'value-type' attribute value (may be empty)
+	 * @param mergeEnabled the resolved 'merge' attribute value
+	 * @param initialCapacity the expected number of entries
+	 * @param source the map element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected ManagedMap<Object, Object> buildMap(String defaultKeyType, String defaultValueType,
+			boolean mergeEnabled, int initialCapacity, Object source) {
+
+		ManagedMap<Object, Object> map = new ManagedMap<Object, Object>(initialCapacity);
+		map.setSource(extractSource(source));
+		map.setKeyTypeName(defaultKeyType);
+		map.setValueTypeName(defaultValueType);
+		map.setMergeEnabled(mergeEnabled);
+		return map;
+	}
+
+	/**
+	 * Build the key of a map entry from its 'key' or 'key-ref' attribute
+	 * or from the value of its key sub-element, whichever is present.
+	 * @param keyAttr the 'key' attribute value, or {@code null} if not present
+	 * @param keyRefAttr the 'key-ref' attribute value, or {@code null} if not present
+	 * @param hasKeyElement whether a key sub-element is present
+	 * @param keyElementValue the parsed value of the key sub-element, if applicable
+	 * @param defaultKeyType the default key type of the map
+	 * @param entrySource the entry element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected Object buildMapEntryKey(String keyAttr, String keyRefAttr, boolean hasKeyElement,
+			Object keyElementValue, String defaultKeyType, Object entrySource) {
+
+		boolean hasKeyAttribute = (keyAttr != null);
+		boolean hasKeyRefAttribute = (keyRefAttr != null);
+		if ((hasKeyAttribute && hasKeyRefAttribute) ||
+				((hasKeyAttribute || hasKeyRefAttribute)) && hasKeyElement) {
+			error("<entry> element is only allowed to contain either " +
+					"a 'key' attribute OR a 'key-ref' attribute OR a <key> sub-element", entrySource);
+		}
+		if (hasKeyAttribute) {
+			return buildTypedStringValueForMap(keyAttr, defaultKeyType, entrySource);
+		}
+		else if (hasKeyRefAttribute) {
+			if (!StringUtils.hasText(keyRefAttr)) {
+				error("<entry> element contains empty 'key-ref' attribute", entrySource);
+			}
+			RuntimeBeanReference ref = new RuntimeBeanReference(keyRefAttr);
+			ref.setSource(extractSource(entrySource));
+			return ref;
+		}
+		else if (hasKeyElement) {
+			return keyElementValue;
+		}
+		else {
+			error("<entry> element must specify a key", entrySource);
+			return null;
+		}
+	}
+
+	/**
+	 * Build the value of a map entry from its 'value' or 'value-ref' attribute
+	 * or from the value of its value sub-element, whichever is present.
+	 * @param valueAttr the 'value' attribute value, or {@code null} if not present
+	 * @param valueRefAttr the 'value-ref' attribute value, or {@code null} if not present
+	 * @param valueTypeAttr the 'value-type' attribute value, or {@code null} if not present
+	 * @param hasValueElement whether a value sub-element is present
+	 * @param valueElementValue the parsed value of the value sub-element, if applicable
+	 * @param defaultValueType the default value type of the map
+	 * @param entrySource the entry element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected Object buildMapEntryValue(String valueAttr, String valueRefAttr, String valueTypeAttr,
+			boolean hasValueElement, Object valueElementValue, String defaultValueType, Object entrySource) {
+
+		boolean hasValueAttribute = (valueAttr != null);
+		boolean hasValueRefAttribute = (valueRefAttr != null);
+		boolean hasValueTypeAttribute = (valueTypeAttr != null);
+		if ((hasValueAttribute && hasValueRefAttribute) ||
+				((hasValueAttribute || hasValueRefAttribute)) && hasValueElement) {
+			error("<entry> element is only allowed to contain either " +
+					"'value' attribute OR 'value-ref' attribute OR <value> sub-element", entrySource);
+		}
+		if ((hasValueTypeAttribute && hasValueRefAttribute) ||
+			(hasValueTypeAttribute && !hasValueAttribute) ||
+				(hasValueTypeAttribute && hasValueElement)) {
+			error("<entry> element is only allowed to contain a 'value-type' " +
+					"attribute when it has a 'value' attribute", entrySource);
+		}
+		if (hasValueAttribute) {
+			String valueType = valueTypeAttr;
+			if (!StringUtils.hasText(valueType)) {
+				valueType = defaultValueType;
+			}
+			return buildTypedStringValueForMap(valueAttr, valueType, entrySource);
+		}
+		else if (hasValueRefAttribute) {
+			if (!StringUtils.hasText(valueRefAttr)) {
+				error("<entry> element contains empty 'value-ref' attribute", entrySource);
+			}
+			RuntimeBeanReference ref = new RuntimeBeanReference(valueRefAttr);
+			ref.setSource(extractSource(entrySource));
+			return ref;
+		}
+		else if (hasValueElement) {
+			return valueElementValue;
+		}
+		else {
+			error("<entry> element must specify a value", entrySource);
+			return null;
+		}
+	}
+
 	/**
 	 * Build a typed String value Object for the given raw value.
 	 * @see org.springframework.beans.factory.config.TypedStringValue
 	 */
 	protected final Object buildTypedStringValueForMap(String value, String defaultTypeName, Element entryEle) {
+		return buildTypedStringValueForMap(value, defaultTypeName, (Object) entryEle);
+	}
+
+	/**
+	 * Build a typed String value Object for the given raw value.
+	 * @param entrySource the entry element or its location, as source candidate
+	 * @since 4.1
+	 * @see org.springframework.beans.factory.config.TypedStringValue
+	 */
+	protected final Object buildTypedStringValueForMap(String value, String defaultTypeName, Object entrySource) {
 		try {
 			TypedStringValue typedValue = buildTypedStringValue(value, defaultTypeName);
-			typedValue.setSource(extractSource(entryEle));
+			typedValue.setSource(extractSource(entrySource));
 			return typedValue;
 		}
 		catch (ClassNotFoundException ex) {
-			error("Type class [" + defaultTypeName + "] not found for Map key/value type", entryEle, ex);
+			error("Type class [" + defaultTypeName + "] not found for Map key/value type", entrySource, ex);
 			return value;
 		}
 	}
@@ -1379,31 +1774,59 @@ public class BeanDefinitionParserDelegate {
 	 * Parse a props element.
 	 */
 	public Properties parsePropsElement(Element propsEle) {
-		ManagedProperties props = new ManagedProperties();
-		props.setSource(extractSource(propsEle));
-		props.setMergeEnabled(parseMergeAttribute(propsEle));
+		ManagedProperties props = buildProperties(parseMergeAttribute(propsEle), propsEle);
 
 		List<Element> propEles = DomUtils.getChildElementsByTagName(propsEle, PROP_ELEMENT);
 		for (Element propEle : propEles) {
-			String key = propEle.getAttribute(KEY_ATTRIBUTE);
-			// Trim the text value to avoid unwanted whitespace
-			// caused by typical XML formatting.
-			String value = DomUtils.getTextValue(propEle).trim();
-			TypedStringValue keyHolder = new TypedStringValue(key);
-			keyHolder.setSource(extractSource(propEle));
-			TypedStringValue valueHolder = new TypedStringValue(value);
-			valueHolder.setSource(extractSource(propEle));
-			props.put(keyHolder, valueHolder);
+			addProp(props, propEle.getAttribute(KEY_ATTRIBUTE), DomUtils.getTextValue(propEle), propEle);
 		}
 
 		return props;
 	}
 
+	/**
+	 * Build empty managed properties for a props element.
+	 * @param mergeEnabled the resolved 'merge' attribute value
+	 * @param source the props element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected ManagedProperties buildProperties(boolean mergeEnabled, Object source) {
+		ManagedProperties props = new ManagedProperties();
+		props.setSource(extractSource(source));
+		props.setMergeEnabled(mergeEnabled);
+		return props;
+	}
+
+	/**
+	 * Add the given key and text content of a prop element to the given properties.
+	 * @param source the prop element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected void addProp(ManagedProperties props, String key, String text, Object source) {
+		// Trim the text value to avoid unwanted whitespace
+		// caused by typical XML formatting.
+		String value = text.trim();
+		TypedStringValue keyHolder = new TypedStringValue(key);
+		keyHolder.setSource(extractSource(source));
+		TypedStringValue valueHolder = new TypedStringValue(value);
+		valueHolder.setSource(extractSource(source));
+		props.put(keyHolder, valueHolder);
+	}
+
 	/**
 	 * Parse the merge attribute of a collection element, if any.
 	 */
 	public boolean parseMergeAttribute(Element collectionElement) {
-		String value = collectionElement.getAttribute(MERGE_ATTRIBUTE);
+		return isMergeEnabled(collectionElement.getAttribute(MERGE_ATTRIBUTE));
+	}
+
+	/**
+	 * Determine whether merging is enabled for the given merge attribute value,
+	 * falling back to the {@code default-merge} setting for {@code "default"}.
+	 * @since 4.1
+	 */
+	protected boolean isMergeEnabled(String mergeValue) {
+		String value = mergeValue;
 		if (DEFAULT_VALUE.equals(value)) {
 			value = this.defaults.getMerge();
 		}
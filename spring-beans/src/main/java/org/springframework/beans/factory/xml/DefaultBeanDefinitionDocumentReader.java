@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -110,6 +110,14 @@ public class DefaultBeanDefinitionDocumentReader implements BeanDefinitionDocume
 		doRegisterBeanDefinitions(root);
 	}
 
+	/**
+	 * Set the descriptor for the XML resource to work on, for readers that do not
+	 * operate on a DOM document (i.e. {@link StaxBeanDefinitionDocumentReader}).
+	 */
+	void setReaderContext(XmlReaderContext readerContext) {
+		this.readerContext = readerContext;
+	}
+
 
 	/**
 	 * Register each bean definition within the given root {@code <beans/>} element.
@@ -118,14 +126,8 @@ public class DefaultBeanDefinitionDocumentReader implements BeanDefinitionDocume
 	 * @see #setEnvironment
 	 */
 	protected void doRegisterBeanDefinitions(Element root) {
-		String profileSpec = root.getAttribute(PROFILE_ATTRIBUTE);
-		if (StringUtils.hasText(profileSpec)) {
-			Assert.state(this.environment != null, "Environment must be set for evaluating profiles");
-			String[] specifiedProfiles = StringUtils.tokenizeToStringArray(
-					profileSpec, BeanDefinitionParserDelegate.MULTI_VALUE_ATTRIBUTE_DELIMITERS);
-			if (!this.environment.acceptsProfiles(specifiedProfiles)) {
-				return;
-			}
+		if (!acceptsProfiles(root.getAttribute(PROFILE_ATTRIBUTE))) {
+			return;
 		}
 
 		// Any nested <beans> elements will cause recursion in this method. In
@@ -144,6 +146,22 @@ public class DefaultBeanDefinitionDocumentReader implements BeanDefinitionDocume
 		this.delegate = parent;
 	}
 
+	/**
+	 * Determine whether the given {@code profile} attribute value of a {@code <beans/>}
+	 * element is accepted by the Environment. An empty value is always accepted.
+	 * @throws IllegalStateException if a profile is specified but the Environment
+	 * property has not been set
+	 */
+	boolean acceptsProfiles(String profileSpec) {
+		if (!StringUtils.hasText(profileSpec)) {
+			return true;
+		}
+		Assert.state(this.environment != null, "Environment must be set for evaluating profiles");
+		String[] specifiedProfiles = StringUtils.tokenizeToStringArray(
+				profileSpec, BeanDefinitionParserDelegate.MULTI_VALUE_ATTRIBUTE_DELIMITERS);
+		return this.environment.acceptsProfiles(specifiedProfiles);
+	}
+
 	protected BeanDefinitionParserDelegate createDelegate(
 			XmlReaderContext readerContext, Element root, BeanDefinitionParserDelegate parentDelegate) {
 
@@ -167,6 +185,19 @@ public class DefaultBeanDefinitionDocumentReader implements BeanDefinitionDocume
 		return this.readerContext.extractSource(ele);
 	}
 
+	/**
+	 * Invoke the {@link org.springframework.beans.factory.parsing.SourceExtractor} to pull the
+	 * source metadata from the supplied source candidate: typically an {@link Element},
+	 * or the current location in case of streamed parsing.
+	 * @since 4.1
+	 */
+	protected Object extractSource(Object sourceCandidate) {
+		if (sourceCandidate instanceof Element) {
+			return extractSource((Element) sourceCandidate);
+		}
+		return this.readerContext.extractSource(sourceCandidate);
+	}
+
 
 	/**
 	 * Parse the elements at the root level in the document:
@@ -215,9 +246,18 @@ public class DefaultBeanDefinitionDocumentReader implements BeanDefinitionDocume
 	 * from the given resource into the bean factory.
 	 */
 	protected void importBeanDefinitionResource(Element ele) {
-		String location = ele.getAttribute(RESOURCE_ATTRIBUTE);
+		importBeanDefinitionResource(ele.getAttribute(RESOURCE_ATTRIBUTE), ele);
+	}
+
+	/**
+	 * Load the bean definitions from the given import location into the bean factory.
+	 * @param location the 'resource' attribute value of the "import" element
+	 * @param source the "import" element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected void importBeanDefinitionResource(String location, Object source) {
 		if (!StringUtils.hasText(location)) {
-			getReaderContext().error("Resource location must not be empty", ele);
+			getReaderContext().error("Resource location must not be empty", source);
 			return;
 		}
 
@@ -246,7 +286,7 @@ public class DefaultBeanDefinitionDocumentReader implements BeanDefinitionDocume
 			}
 			catch (BeanDefinitionStoreException ex) {
 				getReaderContext().error(
-						"Failed to import bean definitions from URL location [" + location + "]", ele, ex);
+						"Failed to import bean definitions from URL location [" + location + "]", source, ex);
 			}
 		}
 		else {
@@ -268,30 +308,39 @@ public class DefaultBeanDefinitionDocumentReader implements BeanDefinitionDocume
 				}
 			}
 			catch (IOException ex) {
-				getReaderContext().error("Failed to resolve current resource location", ele, ex);
+				getReaderContext().error("Failed to resolve current resource location", source, ex);
 			}
 			catch (BeanDefinitionStoreException ex) {
 				getReaderContext().error("Failed to import bean definitions from relative location [" + location + "]",
-						ele, ex);
+						source, ex);
 			}
 		}
 		Resource[] actResArray = actualResources.toArray(new Resource[actualResources.size()]);
-		getReaderContext().fireImportProcessed(location, actResArray, extractSource(ele));
+		getReaderContext().fireImportProcessed(location, actResArray, extractSource(source));
 	}
 
 	/**
 	 * Process the given alias element, registering the alias with the registry.
 	 */
 	protected void processAliasRegistration(Element ele) {
-		String name = ele.getAttribute(NAME_ATTRIBUTE);
-		String alias = ele.getAttribute(ALIAS_ATTRIBUTE);
+		processAliasRegistration(ele.getAttribute(NAME_ATTRIBUTE), ele.getAttribute(ALIAS_ATTRIBUTE), ele);
+	}
+
+	/**
+	 * Register the given alias for the given bean name with the registry.
+	 * @param name the 'name' attribute value of the alias element
+	 * @param alias the 'alias' attribute value of the alias element
+	 * @param source the alias element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected void processAliasRegistration(String name, String alias, Object source) {
 		boolean valid = true;
 		if (!StringUtils.hasText(name)) {
-			getReaderContext().error("Name must not be empty", ele);
+			getReaderContext().error("Name must not be empty", source);
 			valid = false;
 		}
 		if (!StringUtils.hasText(alias)) {
-			getReaderContext().error("Alias must not be empty", ele);
+			getReaderContext().error("Alias must not be empty", source);
 			valid = false;
 		}
 		if (valid) {
@@ -300,9 +349,9 @@ public class DefaultBeanDefinitionDocumentReader implements BeanDefinitionDocume
 			}
 			catch (Exception ex) {
 				getReaderContext().error("Failed to register alias '" + alias +
-						"' for bean with name '" + name + "'", ele, ex);
+						"' for bean with name '" + name + "'", source, ex);
 			}
-			getReaderContext().fireAliasRegistered(name, alias, extractSource(ele));
+			getReaderContext().fireAliasRegistered(name, alias, extractSource(source));
 		}
 	}
 
@@ -314,17 +363,27 @@ public class DefaultBeanDefinitionDocumentReader implements BeanDefinitionDocume
 		BeanDefinitionHolder bdHolder = delegate.parseBeanDefinitionElement(ele);
 		if (bdHolder != null) {
 			bdHolder = delegate.decorateBeanDefinitionIfRequired(ele, bdHolder);
-			try {
-				// Register the final decorated instance.
-				BeanDefinitionReaderUtils.registerBeanDefinition(bdHolder, getReaderContext().getRegistry());
-			}
-			catch (BeanDefinitionStoreException ex) {
-				getReaderContext().error("Failed to register bean definition with name '" +
-						bdHolder.getBeanName() + "'", ele, ex);
-			}
-			// Send registration event.
-			getReaderContext().fireComponentRegistered(new BeanComponentDefinition(bdHolder));
+			registerBeanDefinition(bdHolder, ele);
+		}
+	}
+
+	/**
+	 * Register the given (decorated) bean definition with the registry.
+	 * @param bdHolder the final bean definition holder
+	 * @param source the bean element or its location, as source candidate
+	 * @since 4.1
+	 */
+	protected void registerBeanDefinition(BeanDefinitionHolder bdHolder, Object source) {
+		try {
+			// Register the final decorated instance.
+			BeanDefinitionReaderUtils.registerBeanDefinition(bdHolder, getReaderContext().getRegistry());
+		}
+		catch (BeanDefinitionStoreException ex) {
+			getReaderContext().error("Failed to register bean definition with name '" +
+					bdHolder.getBeanName() + "'", source, ex);
 		}
+		// Send registration event.
+		getReaderContext().fireComponentRegistered(new BeanComponentDefinition(bdHolder));
 	}
 
 
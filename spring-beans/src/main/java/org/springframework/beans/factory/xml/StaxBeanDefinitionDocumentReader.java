@@ -0,0 +1,1112 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import org.springframework.beans.BeanMetadataAttribute;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.parsing.BeanEntry;
+import org.springframework.beans.factory.parsing.ConstructorArgumentEntry;
+import org.springframework.beans.factory.parsing.NullSourceExtractor;
+import org.springframework.beans.factory.parsing.ParseState;
+import org.springframework.beans.factory.parsing.PropertyEntry;
+import org.springframework.beans.factory.parsing.QualifierEntry;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AutowireCandidateQualifier;
+import org.springframework.beans.factory.support.LookupOverride;
+import org.springframework.beans.factory.support.ManagedArray;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedProperties;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.beans.factory.support.MethodOverrides;
+import org.springframework.beans.factory.support.ReplaceOverride;
+import org.springframework.util.StringUtils;
+
+import static org.springframework.beans.factory.xml.BeanDefinitionParserDelegate.*;
+
+/**
+ * Streaming variant of {@link DefaultBeanDefinitionDocumentReader}, reading
+ * bean definitions from a StAX {@link XMLStreamReader} instead of a DOM document.
+ *
+ * <p>Elements of the "spring-beans" namespace are turned into bean definitions
+ * while the stream is being read, without building DOM nodes for their content:
+ * Each {@code &lt;bean&gt;} element is registered as soon as its end tag has been
+ * reached, and no parse state is retained beyond the current element path.
+ * Absent attributes are treated like their defaults in the "spring-beans" XSD.
+ * Bean definitions, property and constructor argument values, qualifiers, method
+ * overrides and collections are built and validated through the same protected
+ * {@link BeanDefinitionParserDelegate} methods as in the DOM-based variant, which
+ * take attribute values plus a StAX location (if retained by the source extractor)
+ * as source object. Note that delegate methods operating on a DOM {@link Element}
+ * of the "spring-beans" namespace, such as {@code parsePropertyElement} or
+ * {@code parseListElement}, do not get invoked in streaming mode: A custom delegate
+ * needs to override the corresponding attribute-based methods instead.
+ *
+ * <p>Elements and attributes from other namespaces are handed to the corresponding
+ * {@link NamespaceHandler} through the standard {@link BeanDefinitionParserDelegate}.
+ * Since namespace handlers operate on DOM nodes, such a custom element is read into
+ * a DOM fragment of its own (declaring all namespaces in scope) right before it gets
+ * parsed, and is discarded afterwards.
+ *
+ * <p>The {@link #createDelegate}, {@link #preProcessXml} and {@link #postProcessXml}
+ * template methods get invoked for each {@code <beans/>} element, as with the DOM-based
+ * variant. However, since the content of a {@code <beans/>} element is streamed, the
+ * given root element carries the element's attributes only, without any child nodes.
+ * Subclasses can be specified as {@link XmlBeanDefinitionReader#setDocumentReaderClass
+ * document reader class} for streaming mode; they also remain usable on DOM documents.
+ *
+ * <p>Note that no XML validation is performed on the streamed document.
+ *
+ * @since 4.1
+ * @see XmlBeanDefinitionReader#setStreaming
+ */
+public class StaxBeanDefinitionDocumentReader extends DefaultBeanDefinitionDocumentReader {
+
+	/** Initial capacity for collections, whose size is unknown while streaming */
+	private static final int DEFAULT_COLLECTION_CAPACITY = 4;
+
+	private XMLStreamReader reader;
+
+	private boolean extractSources;
+
+	private BeanDefinitionParserDelegate delegate;
+
+	private DocumentBuilder documentBuilder;
+
+	/** Document for attribute-only bean elements, which never get appended to it */
+	private Document attributeDocument;
+
+	/** Prefixes of the namespace declarations in scope */
+	private String[] namespacePrefixes = new String[16];
+
+	/** URIs of the namespace declarations in scope */
+	private String[] namespaceUris = new String[16];
+
+	private int namespaceCount;
+
+	/** Number of namespace declarations per element on the current element path */
+	private int[] elementNamespaceCounts = new int[16];
+
+	private int depth;
+
+
+	/**
+	 * Read bean definitions from the given StAX stream reader and register them
+	 * with the registry in the given reader context.
+	 * @param reader the StAX reader positioned at the beginning of the document
+	 * @param readerContext the current context of the reader
+	 * (includes the target registry and the resource being parsed)
+	 * @throws XMLStreamException in case of XML parsing errors
+	 */
+	public void registerBeanDefinitions(XMLStreamReader reader, XmlReaderContext readerContext)
+			throws XMLStreamException {
+
+		this.reader = reader;
+		setReaderContext(readerContext);
+		// Source locations only need to be captured if they are going to be retained.
+		this.extractSources = !(readerContext.getSourceExtractor() instanceof NullSourceExtractor);
+		logger.debug("Loading bean definitions");
+		while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+			// Skip the document prolog: comments, processing instructions, DTD.
+		}
+		pushNamespaces();
+		if (isDefaultNamespace(reader.getNamespaceURI())) {
+			parseBeansElement();
+		}
+		else {
+			doRegisterBeanDefinitions(readElementFragment());
+		}
+	}
+
+
+	/**
+	 * Register each bean definition within the current {@code <beans/>} element,
+	 * recursing into nested {@code <beans/>} elements.
+	 * @see #doRegisterBeanDefinitions
+	 */
+	private void parseBeansElement() throws XMLStreamException {
+		if (!acceptsProfiles(getAttribute(PROFILE_ATTRIBUTE))) {
+			skipElement();
+			return;
+		}
+
+		// Keep track of the parent delegate for default-* attribute fallback,
+		// analogous to DefaultBeanDefinitionDocumentReader.
+		BeanDefinitionParserDelegate parentDelegate = this.delegate;
+		Element root = createBeansElement();
+		this.delegate = createDelegate(getReaderContext(), root, parentDelegate);
+		try {
+			preProcessXml(root);
+			while (nextChildElement()) {
+				String localName = this.reader.getLocalName();
+				if (!isDefaultNamespace(this.reader.getNamespaceURI())) {
+					this.delegate.parseCustomElement(readElementFragment());
+				}
+				else if (IMPORT_ELEMENT.equals(localName)) {
+					processImportElement();
+				}
+				else if (ALIAS_ELEMENT.equals(localName)) {
+					processAliasElement();
+				}
+				else if (BEAN_ELEMENT.equals(localName)) {
+					processBeanElement();
+				}
+				else if (NESTED_BEANS_ELEMENT.equals(localName)) {
+					parseBeansElement();
+				}
+				else {
+					skipElement();
+				}
+			}
+			postProcessXml(root);
+		}
+		finally {
+			this.delegate = parentDelegate;
+		}
+	}
+
+	/**
+	 * Create an attribute-only DOM copy of the current {@code <beans/>} element,
+	 * applying the XSD defaults for its default-* attributes.
+	 */
+	private Element createBeansElement() {
+		Document document = createDocument();
+		Element root = createElement(document, this.reader.getNamespaceURI(), this.reader.getPrefix(),
+				this.reader.getLocalName(), readAttributes(), 0, this.namespaceCount);
+		document.appendChild(root);
+		applyDefault(root, DEFAULT_LAZY_INIT_ATTRIBUTE);
+		applyDefault(root, DEFAULT_MERGE_ATTRIBUTE);
+		applyDefault(root, DEFAULT_AUTOWIRE_ATTRIBUTE);
+		return root;
+	}
+
+	/**
+	 * Process the current "import" element.
+	 * @see #importBeanDefinitionResource(String, Object)
+	 */
+	private void processImportElement() throws XMLStreamException {
+		Object location = currentLocation();
+		String resource = getAttribute(RESOURCE_ATTRIBUTE);
+		skipElement();
+		importBeanDefinitionResource(resource, location);
+	}
+
+	/**
+	 * Process the current alias element.
+	 * @see #processAliasRegistration(String, String, Object)
+	 */
+	private void processAliasElement() throws XMLStreamException {
+		Object location = currentLocation();
+		String name = getAttribute(NAME_ATTRIBUTE);
+		String alias = getAttribute(ALIAS_ATTRIBUTE);
+		skipElement();
+		processAliasRegistration(name, alias, location);
+	}
+
+	/**
+	 * Process the current bean element, parsing the bean definition
+	 * and registering it with the registry.
+	 * @see #registerBeanDefinition(BeanDefinitionHolder, Object)
+	 */
+	private void processBeanElement() throws XMLStreamException {
+		Object location = currentLocation();
+		BeanDefinitionHolder bdHolder = parseBeanDefinitionElement(null);
+		if (bdHolder != null) {
+			registerBeanDefinition(bdHolder, location);
+		}
+	}
+
+
+	/**
+	 * Parse the current {@code <bean>} element, including decoration through
+	 * custom attributes and nested custom elements. May return {@code null}
+	 * if there were errors during parse.
+	 * @see BeanDefinitionParserDelegate#parseBeanDefinitionElement(Element, BeanDefinition)
+	 */
+	private BeanDefinitionHolder parseBeanDefinitionElement(BeanDefinition containingBean) throws XMLStreamException {
+		Object location = currentLocation();
+		String namespaceUri = this.reader.getNamespaceURI();
+		String prefix = this.reader.getPrefix();
+		String[] attributes = readAttributes();
+		int beanDepth = this.depth;
+		int beanNamespaceCount = this.namespaceCount;
+
+		// Attribute-only representation of the bean element for the delegate.
+		Element beanElement = createElement(getAttributeDocument(), namespaceUri, prefix, BEAN_ELEMENT,
+				attributes, 0, 0);
+		applyDefault(beanElement, LAZY_INIT_ATTRIBUTE);
+		applyDefault(beanElement, AUTOWIRE_ATTRIBUTE);
+		applyDefault(beanElement, DEPENDENCY_CHECK_ATTRIBUTE);
+
+		List<String> aliases = new ArrayList<String>();
+		String beanName = this.delegate.determineBeanName(
+				beanElement.getAttribute(ID_ATTRIBUTE), beanElement.getAttribute(NAME_ATTRIBUTE), aliases);
+
+		if (containingBean == null) {
+			this.delegate.checkNameUniqueness(beanName, aliases, location);
+		}
+
+		// DOM representation of the bean element for custom decorators, if needed.
+		Element decorationElement = null;
+		if (hasCustomAttribute(attributes)) {
+			decorationElement = createElement(createDocument(), namespaceUri, prefix, BEAN_ELEMENT,
+					attributes, 0, beanNamespaceCount);
+			decorationElement.getOwnerDocument().appendChild(decorationElement);
+		}
+
+		AbstractBeanDefinition beanDefinition = null;
+		ParseState parseState = this.delegate.getParseState();
+		parseState.push(new BeanEntry(beanName));
+		String className = null;
+		if (beanElement.hasAttribute(CLASS_ATTRIBUTE)) {
+			className = beanElement.getAttribute(CLASS_ATTRIBUTE).trim();
+		}
+		try {
+			String parent = null;
+			if (beanElement.hasAttribute(PARENT_ATTRIBUTE)) {
+				parent = beanElement.getAttribute(PARENT_ATTRIBUTE);
+			}
+			AbstractBeanDefinition bd = this.delegate.createBeanDefinition(className, parent);
+			this.delegate.parseBeanDefinitionAttributes(beanElement, beanName, containingBean, bd);
+
+			boolean descriptionFound = false;
+			while (nextChildElement()) {
+				String localName = this.reader.getLocalName();
+				if (!isDefaultNamespace(this.reader.getNamespaceURI())) {
+					if (decorationElement == null) {
+						decorationElement = createElement(createDocument(), namespaceUri, prefix, BEAN_ELEMENT,
+								attributes, 0, beanNamespaceCount);
+						decorationElement.getOwnerDocument().appendChild(decorationElement);
+					}
+					decorationElement.appendChild(readElement(decorationElement.getOwnerDocument(), false));
+				}
+				else if (DESCRIPTION_ELEMENT.equals(localName)) {
+					String description = readText();
+					if (!descriptionFound) {
+						bd.setDescription(description);
+						descriptionFound = true;
+					}
+				}
+				else if (META_ELEMENT.equals(localName)) {
+					bd.addMetadataAttribute(parseMetaElement());
+				}
+				else if (LOOKUP_METHOD_ELEMENT.equals(localName)) {
+					parseLookupOverrideElement(bd.getMethodOverrides());
+				}
+				else if (REPLACED_METHOD_ELEMENT.equals(localName)) {
+					parseReplacedMethodElement(bd.getMethodOverrides());
+				}
+				else if (CONSTRUCTOR_ARG_ELEMENT.equals(localName)) {
+					parseConstructorArgElement(bd);
+				}
+				else if (PROPERTY_ELEMENT.equals(localName)) {
+					parsePropertyElement(bd);
+				}
+				else if (QUALIFIER_ELEMENT.equals(localName)) {
+					parseQualifierElement(bd);
+				}
+				else {
+					skipElement();
+				}
+			}
+
+			bd.setResource(getReaderContext().getResource());
+			bd.setSource(extractSource(location));
+			beanDefinition = bd;
+		}
+		catch (XMLStreamException ex) {
+			throw ex;
+		}
+		catch (ClassNotFoundException ex) {
+			error("Bean class [" + className + "] not found", location, ex);
+		}
+		catch (NoClassDefFoundError err) {
+			error("Class that bean class [" + className + "] depends on not found", location, err);
+		}
+		catch (Throwable ex) {
+			error("Unexpected failure during bean definition parsing", location, ex);
+		}
+		finally {
+			parseState.pop();
+		}
+
+		if (beanDefinition == null) {
+			// Continue after the bean element in case of a lenient ProblemReporter.
+			skipToEndOfElement(beanDepth);
+			return null;
+		}
+
+		BeanDefinitionHolder bdHolder = this.delegate.buildBeanDefinitionHolder(
+				beanDefinition, beanName, aliases, containingBean, location);
+		if (bdHolder != null && decorationElement != null) {
+			bdHolder = this.delegate.decorateBeanDefinitionIfRequired(decorationElement, bdHolder, containingBean);
+		}
+		return bdHolder;
+	}
+
+	private BeanMetadataAttribute parseMetaElement() throws XMLStreamException {
+		BeanMetadataAttribute attribute = this.delegate.buildMetaAttribute(
+				getAttribute(KEY_ATTRIBUTE), getAttribute(VALUE_ATTRIBUTE), currentLocation());
+		skipElement();
+		return attribute;
+	}
+
+	private void parseLookupOverrideElement(MethodOverrides overrides) throws XMLStreamException {
+		LookupOverride override = this.delegate.buildLookupOverride(
+				getAttribute(NAME_ATTRIBUTE), getAttribute(BEAN_ELEMENT), currentLocation());
+		skipElement();
+		overrides.addOverride(override);
+	}
+
+	private void parseReplacedMethodElement(MethodOverrides overrides) throws XMLStreamException {
+		ReplaceOverride replaceOverride = this.delegate.buildReplaceOverride(
+				getAttribute(NAME_ATTRIBUTE), getAttribute(REPLACER_ATTRIBUTE), currentLocation());
+		// Look for arg-type match elements.
+		while (nextChildElement()) {
+			if (ARG_TYPE_ELEMENT.equals(this.reader.getLocalName())) {
+				String match = getAttribute(ARG_TYPE_MATCH_ATTRIBUTE);
+				this.delegate.addArgTypeMatch(replaceOverride, match, readText());
+			}
+			else {
+				skipElement();
+			}
+		}
+		overrides.addOverride(replaceOverride);
+	}
+
+	/**
+	 * Parse the current constructor-arg element.
+	 * @see BeanDefinitionParserDelegate#parseConstructorArgElement(Element, BeanDefinition)
+	 */
+	private void parseConstructorArgElement(BeanDefinition bd) throws XMLStreamException {
+		Object location = currentLocation();
+		String indexAttr = getAttribute(INDEX_ATTRIBUTE);
+		String typeAttr = getAttribute(TYPE_ATTRIBUTE);
+		String nameAttr = getAttribute(NAME_ATTRIBUTE);
+		Integer index = null;
+		ConstructorArgumentEntry entry;
+		if (StringUtils.hasLength(indexAttr)) {
+			index = this.delegate.parseConstructorArgIndex(indexAttr, location);
+			if (index < 0) {
+				skipElement();
+				return;
+			}
+			entry = new ConstructorArgumentEntry(index);
+		}
+		else {
+			entry = new ConstructorArgumentEntry();
+		}
+		ParseState parseState = this.delegate.getParseState();
+		parseState.push(entry);
+		try {
+			Object value = parsePropertyValue(bd, null, location, null);
+			this.delegate.addConstructorArgValue(bd, index, value, typeAttr, nameAttr, location);
+		}
+		finally {
+			parseState.pop();
+		}
+	}
+
+	/**
+	 * Parse the current property element.
+	 * @see BeanDefinitionParserDelegate#parsePropertyElement(Element, BeanDefinition)
+	 */
+	private void parsePropertyElement(BeanDefinition bd) throws XMLStreamException {
+		Object location = currentLocation();
+		String propertyName = getAttribute(NAME_ATTRIBUTE);
+		if (!this.delegate.checkPropertyName(propertyName, location)) {
+			skipElement();
+			return;
+		}
+		ParseState parseState = this.delegate.getParseState();
+		parseState.push(new PropertyEntry(propertyName));
+		try {
+			if (!this.delegate.checkPropertyUniqueness(propertyName, bd, location)) {
+				skipElement();
+				return;
+			}
+			List<BeanMetadataAttribute> metaAttributes = new LinkedList<BeanMetadataAttribute>();
+			Object val = parsePropertyValue(bd, propertyName, location, metaAttributes);
+			PropertyValue pv = this.delegate.buildPropertyValueHolder(propertyName, val, location);
+			for (BeanMetadataAttribute metaAttribute : metaAttributes) {
+				pv.addMetadataAttribute(metaAttribute);
+			}
+			bd.getPropertyValues().addPropertyValue(pv);
+		}
+		finally {
+			parseState.pop();
+		}
+	}
+
+	/**
+	 * Parse the current qualifier element.
+	 * @see BeanDefinitionParserDelegate#parseQualifierElement(Element, AbstractBeanDefinition)
+	 */
+	private void parseQualifierElement(AbstractBeanDefinition bd) throws XMLStreamException {
+		Object location = currentLocation();
+		int qualifierDepth = this.depth;
+		String typeName = findAttribute(TYPE_ATTRIBUTE);
+		if (typeName == null) {
+			typeName = Qualifier.class.getName();
+		}
+		if (!this.delegate.checkQualifierType(typeName, location)) {
+			skipElement();
+			return;
+		}
+		ParseState parseState = this.delegate.getParseState();
+		parseState.push(new QualifierEntry(typeName));
+		try {
+			AutowireCandidateQualifier qualifier =
+					this.delegate.buildQualifier(typeName, getAttribute(VALUE_ATTRIBUTE), location);
+			while (nextChildElement()) {
+				if (isDefaultNamespace(this.reader.getNamespaceURI()) &&
+						QUALIFIER_ATTRIBUTE_ELEMENT.equals(this.reader.getLocalName())) {
+					Object attributeLocation = currentLocation();
+					String attributeName = getAttribute(KEY_ATTRIBUTE);
+					String attributeValue = getAttribute(VALUE_ATTRIBUTE);
+					skipElement();
+					if (!this.delegate.addQualifierAttribute(qualifier, attributeName, attributeValue,
+							attributeLocation)) {
+						skipToEndOfElement(qualifierDepth);
+						return;
+					}
+				}
+				else {
+					skipElement();
+				}
+			}
+			bd.addQualifier(qualifier);
+		}
+		finally {
+			parseState.pop();
+		}
+	}
+
+	/**
+	 * Get the value of the current property or constructor-arg element.
+	 * @param metaAttributes list to collect nested meta attributes into,
+	 * or {@code null} if not applicable
+	 * @see BeanDefinitionParserDelegate#buildPropertyValue
+	 */
+	private Object parsePropertyValue(BeanDefinition bd, String propertyName, Object location,
+			List<BeanMetadataAttribute> metaAttributes) throws XMLStreamException {
+
+		String refName = findAttribute(REF_ATTRIBUTE);
+		String value = findAttribute(VALUE_ATTRIBUTE);
+
+		// Should only have one child element: ref, value, list, etc.
+		boolean hasSubElement = false;
+		Object subElementValue = null;
+		while (nextChildElement()) {
+			String localName = this.reader.getLocalName();
+			if (DESCRIPTION_ELEMENT.equals(localName)) {
+				skipElement();
+			}
+			else if (META_ELEMENT.equals(localName)) {
+				if (metaAttributes != null && isDefaultNamespace(this.reader.getNamespaceURI())) {
+					metaAttributes.add(parseMetaElement());
+				}
+				else {
+					skipElement();
+				}
+			}
+			else if (hasSubElement) {
+				error((propertyName != null ? "<property> element for property '" + propertyName + "'" :
+						"<constructor-arg> element") + " must not contain more than one sub-element", location);
+				skipElement();
+			}
+			else {
+				hasSubElement = true;
+				if (refName != null || value != null) {
+					skipElement();
+				}
+				else {
+					subElementValue = parsePropertySubElement(bd, null);
+				}
+			}
+		}
+
+		return this.delegate.buildPropertyValue(propertyName, refName, value, hasSubElement, subElementValue, location);
+	}
+
+	/**
+	 * Parse the current value, ref or collection sub-element of a property
+	 * or constructor-arg element.
+	 * @param defaultValueType the default type (class name) for any
+	 * {@code &lt;value&gt;} tag that might be created
+	 * @see BeanDefinitionParserDelegate#parsePropertySubElement(Element, BeanDefinition, String)
+	 */
+	private Object parsePropertySubElement(BeanDefinition bd, String defaultValueType) throws XMLStreamException {
+		if (!isDefaultNamespace(this.reader.getNamespaceURI())) {
+			return this.delegate.parsePropertySubElement(readElementFragment(), bd, defaultValueType);
+		}
+		String localName = this.reader.getLocalName();
+		if (BEAN_ELEMENT.equals(localName)) {
+			return parseBeanDefinitionElement(bd);
+		}
+		else if (REF_ELEMENT.equals(localName)) {
+			Object location = currentLocation();
+			String beanRef = getAttribute(BEAN_REF_ATTRIBUTE);
+			String localRef = getAttribute(LOCAL_REF_ATTRIBUTE);
+			String parentRef = getAttribute(PARENT_REF_ATTRIBUTE);
+			skipElement();
+			return this.delegate.buildBeanReference(beanRef, localRef, parentRef, location);
+		}
+		else if (IDREF_ELEMENT.equals(localName)) {
+			Object location = currentLocation();
+			String beanRef = getAttribute(BEAN_REF_ATTRIBUTE);
+			String localRef = getAttribute(LOCAL_REF_ATTRIBUTE);
+			skipElement();
+			return this.delegate.buildBeanNameReference(beanRef, localRef, location);
+		}
+		else if (VALUE_ELEMENT.equals(localName)) {
+			Object location = currentLocation();
+			String specifiedTypeName = getAttribute(TYPE_ATTRIBUTE);
+			// It's a literal value.
+			return this.delegate.buildLiteralValue(readText(), specifiedTypeName, defaultValueType, location);
+		}
+		else if (NULL_ELEMENT.equals(localName)) {
+			Object location = currentLocation();
+			skipElement();
+			return this.delegate.buildNullValue(location);
+		}
+		else if (ARRAY_ELEMENT.equals(localName)) {
+			String elementType = getAttribute(VALUE_TYPE_ATTRIBUTE);
+			ManagedArray target = this.delegate.buildArray(
+					elementType, parseMergeAttribute(), DEFAULT_COLLECTION_CAPACITY, currentLocation());
+			parseCollectionElements(target, bd, elementType);
+			return target;
+		}
+		else if (LIST_ELEMENT.equals(localName)) {
+			String defaultElementType = getAttribute(VALUE_TYPE_ATTRIBUTE);
+			ManagedList<Object> target = this.delegate.buildList(
+					defaultElementType, parseMergeAttribute(), DEFAULT_COLLECTION_CAPACITY, currentLocation());
+			parseCollectionElements(target, bd, defaultElementType);
+			return target;
+		}
+		else if (SET_ELEMENT.equals(localName)) {
+			String defaultElementType = getAttribute(VALUE_TYPE_ATTRIBUTE);
+			ManagedSet<Object> target = this.delegate.buildSet(
+					defaultElementType, parseMergeAttribute(), DEFAULT_COLLECTION_CAPACITY, currentLocation());
+			parseCollectionElements(target, bd, defaultElementType);
+			return target;
+		}
+		else if (MAP_ELEMENT.equals(localName)) {
+			return parseMapElement(bd);
+		}
+		else if (PROPS_ELEMENT.equals(localName)) {
+			return parsePropsElement();
+		}
+		else {
+			error("Unknown property sub-element: [" + getQualifiedName() + "]", currentLocation());
+			skipElement();
+			return null;
+		}
+	}
+
+	private void parseCollectionElements(Collection<Object> target, BeanDefinition bd, String defaultElementType)
+			throws XMLStreamException {
+
+		while (nextChildElement()) {
+			if (DESCRIPTION_ELEMENT.equals(this.reader.getLocalName())) {
+				skipElement();
+			}
+			else {
+				target.add(parsePropertySubElement(bd, defaultElementType));
+			}
+		}
+	}
+
+	/**
+	 * Parse the current map element.
+	 */
+	private Map<Object, Object> parseMapElement(BeanDefinition bd) throws XMLStreamException {
+		String defaultKeyType = getAttribute(KEY_TYPE_ATTRIBUTE);
+		String defaultValueType = getAttribute(VALUE_TYPE_ATTRIBUTE);
+
+		ManagedMap<Object, Object> map = this.delegate.buildMap(defaultKeyType, defaultValueType,
+				parseMergeAttribute(), DEFAULT_COLLECTION_CAPACITY, currentLocation());
+
+		while (nextChildElement()) {
+			if (ENTRY_ELEMENT.equals(this.reader.getLocalName())) {
+				parseEntryElement(map, bd, defaultKeyType, defaultValueType);
+			}
+			else {
+				skipElement();
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Parse the current entry element of a map element.
+	 * @see BeanDefinitionParserDelegate#buildMapEntryKey
+	 * @see BeanDefinitionParserDelegate#buildMapEntryValue
+	 */
+	private void parseEntryElement(Map<Object, Object> map, BeanDefinition bd,
+			String defaultKeyType, String defaultValueType) throws XMLStreamException {
+
+		Object entryLocation = currentLocation();
+		String keyAttr = findAttribute(KEY_ATTRIBUTE);
+		String keyRefAttr = findAttribute(KEY_REF_ATTRIBUTE);
+		String valueAttr = findAttribute(VALUE_ATTRIBUTE);
+		String valueRefAttr = findAttribute(VALUE_REF_ATTRIBUTE);
+		String valueTypeAttr = findAttribute(VALUE_TYPE_ATTRIBUTE);
+
+		// Should only have one value child element: ref, value, list, etc.
+		// Optionally, there might be a key child element.
+		boolean hasKeyElement = false;
+		Object keyElementValue = null;
+		boolean hasValueElement = false;
+		Object valueElementValue = null;
+		while (nextChildElement()) {
+			String localName = this.reader.getLocalName();
+			if (KEY_ELEMENT.equals(localName)) {
+				if (hasKeyElement) {
+					error("<entry> element is only allowed to contain one <key> sub-element", entryLocation);
+					skipElement();
+				}
+				else {
+					hasKeyElement = true;
+					if (keyAttr != null || keyRefAttr != null) {
+						skipElement();
+					}
+					else {
+						keyElementValue = parseKeyElement(bd, defaultKeyType);
+					}
+				}
+			}
+			else if (DESCRIPTION_ELEMENT.equals(localName)) {
+				// the element is a <description> -> ignore it
+				skipElement();
+			}
+			else if (hasValueElement) {
+				error("<entry> element must not contain more than one value sub-element", entryLocation);
+				skipElement();
+			}
+			else {
+				hasValueElement = true;
+				if (valueAttr != null || valueRefAttr != null) {
+					skipElement();
+				}
+				else {
+					valueElementValue = parsePropertySubElement(bd, defaultValueType);
+				}
+			}
+		}
+
+		Object key = this.delegate.buildMapEntryKey(keyAttr, keyRefAttr, hasKeyElement, keyElementValue,
+				defaultKeyType, entryLocation);
+		Object value = this.delegate.buildMapEntryValue(valueAttr, valueRefAttr, valueTypeAttr, hasValueElement,
+				valueElementValue, defaultValueType, entryLocation);
+
+		// Add final key and value to the Map.
+		map.put(key, value);
+	}
+
+	/**
+	 * Parse the current key sub-element of a map entry element.
+	 */
+	private Object parseKeyElement(BeanDefinition bd, String defaultKeyTypeName) throws XMLStreamException {
+		Object location = currentLocation();
+		boolean hasSubElement = false;
+		Object key = null;
+		while (nextChildElement()) {
+			if (hasSubElement) {
+				error("<key> element must not contain more than one value sub-element", location);
+				skipElement();
+			}
+			else {
+				hasSubElement = true;
+				key = parsePropertySubElement(bd, defaultKeyTypeName);
+			}
+		}
+		if (!hasSubElement) {
+			error("<key> element must contain a value sub-element", location);
+		}
+		return key;
+	}
+
+	/**
+	 * Parse the current props element.
+	 */
+	private Properties parsePropsElement() throws XMLStreamException {
+		ManagedProperties props = this.delegate.buildProperties(parseMergeAttribute(), currentLocation());
+
+		while (nextChildElement()) {
+			if (PROP_ELEMENT.equals(this.reader.getLocalName())) {
+				Object location = currentLocation();
+				String key = getAttribute(KEY_ATTRIBUTE);
+				this.delegate.addProp(props, key, readText(), location);
+			}
+			else {
+				skipElement();
+			}
+		}
+		return props;
+	}
+
+	/**
+	 * Parse the merge attribute of the current collection element, if any.
+	 * @see BeanDefinitionParserDelegate#parseMergeAttribute
+	 */
+	private boolean parseMergeAttribute() {
+		String value = findAttribute(MERGE_ATTRIBUTE);
+		return this.delegate.isMergeEnabled(value != null ? value : DEFAULT_VALUE);
+	}
+
+
+	/**
+	 * Advance to the next child element of the current element.
+	 * @return {@code true} if positioned at the start of a child element,
+	 * {@code false} if the end of the current element has been reached
+	 */
+	private boolean nextChildElement() throws XMLStreamException {
+		while (true) {
+			int event = this.reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				pushNamespaces();
+				return true;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT) {
+				popNamespaces();
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Skip the remainder of the current element, including all of its children.
+	 */
+	private void skipElement() throws XMLStreamException {
+		while (nextChildElement()) {
+			skipElement();
+		}
+	}
+
+	/**
+	 * Skip to the end of the element at the given depth of the current element path.
+	 */
+	private void skipToEndOfElement(int elementDepth) throws XMLStreamException {
+		while (this.depth >= elementDepth) {
+			nextChildElement();
+		}
+	}
+
+	/**
+	 * Read the text content of the current element, ignoring nested elements.
+	 * @see org.springframework.util.xml.DomUtils#getTextValue
+	 */
+	private String readText() throws XMLStreamException {
+		StringBuilder builder = new StringBuilder();
+		while (true) {
+			switch (this.reader.next()) {
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					builder.append(this.reader.getTextCharacters(),
+							this.reader.getTextStart(), this.reader.getTextLength());
+					break;
+				case XMLStreamConstants.ENTITY_REFERENCE:
+					builder.append(this.reader.getText());
+					break;
+				case XMLStreamConstants.START_ELEMENT:
+					pushNamespaces();
+					skipElement();
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					popNamespaces();
+					return builder.toString();
+			}
+		}
+	}
+
+	private void pushNamespaces() {
+		int count = this.reader.getNamespaceCount();
+		if (this.depth == this.elementNamespaceCounts.length) {
+			int[] newCounts = new int[this.depth * 2];
+			System.arraycopy(this.elementNamespaceCounts, 0, newCounts, 0, this.depth);
+			this.elementNamespaceCounts = newCounts;
+		}
+		this.elementNamespaceCounts[this.depth++] = count;
+		for (int i = 0; i < count; i++) {
+			if (this.namespaceCount == this.namespacePrefixes.length) {
+				String[] newPrefixes = new String[this.namespaceCount * 2];
+				String[] newUris = new String[this.namespaceCount * 2];
+				System.arraycopy(this.namespacePrefixes, 0, newPrefixes, 0, this.namespaceCount);
+				System.arraycopy(this.namespaceUris, 0, newUris, 0, this.namespaceCount);
+				this.namespacePrefixes = newPrefixes;
+				this.namespaceUris = newUris;
+			}
+			this.namespacePrefixes[this.namespaceCount] = this.reader.getNamespacePrefix(i);
+			this.namespaceUris[this.namespaceCount] = this.reader.getNamespaceURI(i);
+			this.namespaceCount++;
+		}
+	}
+
+	private void popNamespaces() {
+		this.namespaceCount -= this.elementNamespaceCounts[--this.depth];
+	}
+
+	private boolean isDefaultNamespace(String namespaceUri) {
+		return (!StringUtils.hasLength(namespaceUri) || BEANS_NAMESPACE_URI.equals(namespaceUri));
+	}
+
+	private String getQualifiedName() {
+		return getQualifiedName(this.reader.getPrefix(), this.reader.getLocalName());
+	}
+
+	private static String getQualifiedName(String prefix, String localName) {
+		return (StringUtils.hasLength(prefix) ? prefix + ":" + localName : localName);
+	}
+
+
+	/**
+	 * Return the value of the given unqualified attribute of the current element,
+	 * or {@code null} if not present.
+	 */
+	private String findAttribute(String name) {
+		for (int i = 0; i < this.reader.getAttributeCount(); i++) {
+			if (name.equals(this.reader.getAttributeLocalName(i)) &&
+					!StringUtils.hasLength(this.reader.getAttributeNamespace(i))) {
+				return this.reader.getAttributeValue(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the value of the given unqualified attribute of the current element,
+	 * or an empty String if not present (analogous to {@link Element#getAttribute}).
+	 */
+	private String getAttribute(String name) {
+		String value = findAttribute(name);
+		return (value != null ? value : "");
+	}
+
+	/**
+	 * Read the attributes of the current element into an array of
+	 * namespace URI, prefix, local name and value quadruples.
+	 */
+	private String[] readAttributes() {
+		int count = this.reader.getAttributeCount();
+		String[] attributes = new String[count * 4];
+		for (int i = 0; i < count; i++) {
+			attributes[i * 4] = this.reader.getAttributeNamespace(i);
+			attributes[i * 4 + 1] = this.reader.getAttributePrefix(i);
+			attributes[i * 4 + 2] = this.reader.getAttributeLocalName(i);
+			attributes[i * 4 + 3] = this.reader.getAttributeValue(i);
+		}
+		return attributes;
+	}
+
+	private static boolean hasCustomAttribute(String[] attributes) {
+		for (int i = 0; i < attributes.length; i += 4) {
+			if (StringUtils.hasLength(attributes[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Set the given attribute to {@link BeanDefinitionParserDelegate#DEFAULT_VALUE}
+	 * if not present, as a validating DOM parser would do according to the XSD.
+	 */
+	private static void applyDefault(Element element, String name) {
+		if (!element.hasAttribute(name)) {
+			element.setAttribute(name, DEFAULT_VALUE);
+		}
+	}
+
+
+	/**
+	 * Read the current element, including its children, into a DOM fragment
+	 * of its own, declaring all namespaces in scope on the fragment's root.
+	 */
+	private Element readElementFragment() throws XMLStreamException {
+		Document document = createDocument();
+		Element element = readElement(document, true);
+		document.appendChild(element);
+		return element;
+	}
+
+	private Element readElement(Document document, boolean declareNamespacesInScope) throws XMLStreamException {
+		int firstNamespace = (declareNamespacesInScope ? 0 :
+				this.namespaceCount - this.elementNamespaceCounts[this.depth - 1]);
+		Element element = createElement(document, this.reader.getNamespaceURI(), this.reader.getPrefix(),
+				this.reader.getLocalName(), readAttributes(), firstNamespace, this.namespaceCount);
+		while (true) {
+			switch (this.reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					pushNamespaces();
+					element.appendChild(readElement(document, false));
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					popNamespaces();
+					return element;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.SPACE:
+				case XMLStreamConstants.ENTITY_REFERENCE:
+					element.appendChild(document.createTextNode(this.reader.getText()));
+					break;
+				case XMLStreamConstants.CDATA:
+					element.appendChild(document.createCDATASection(this.reader.getText()));
+					break;
+				case XMLStreamConstants.COMMENT:
+					element.appendChild(document.createComment(this.reader.getText()));
+					break;
+			}
+		}
+	}
+
+	private Element createElement(Document document, String namespaceUri, String prefix, String localName,
+			String[] attributes, int firstNamespace, int lastNamespace) {
+
+		Element element = document.createElementNS(
+				(StringUtils.hasLength(namespaceUri) ? namespaceUri : null), getQualifiedName(prefix, localName));
+		for (int i = firstNamespace; i < lastNamespace; i++) {
+			String namespacePrefix = this.namespacePrefixes[i];
+			String attributeName = (StringUtils.hasLength(namespacePrefix) ?
+					XMLConstants.XMLNS_ATTRIBUTE + ":" + namespacePrefix : XMLConstants.XMLNS_ATTRIBUTE);
+			element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, attributeName,
+					(this.namespaceUris[i] != null ? this.namespaceUris[i] : ""));
+		}
+		for (int i = 0; i < attributes.length; i += 4) {
+			element.setAttributeNS((StringUtils.hasLength(attributes[i]) ? attributes[i] : null),
+					getQualifiedName(attributes[i + 1], attributes[i + 2]), attributes[i + 3]);
+		}
+		return element;
+	}
+
+	private Document getAttributeDocument() {
+		if (this.attributeDocument == null) {
+			this.attributeDocument = createDocument();
+		}
+		return this.attributeDocument;
+	}
+
+	private Document createDocument() {
+		if (this.documentBuilder == null) {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			factory.setNamespaceAware(true);
+			try {
+				this.documentBuilder = factory.newDocumentBuilder();
+			}
+			catch (ParserConfigurationException ex) {
+				throw new IllegalStateException("Unable to create DOM DocumentBuilder for custom elements", ex);
+			}
+		}
+		return this.documentBuilder.newDocument();
+	}
+
+
+	/**
+	 * Capture the location of the current element as source candidate,
+	 * as far as the configured SourceExtractor retains sources at all.
+	 * @see #extractSource(Object)
+	 */
+	private Object currentLocation() {
+		return (this.extractSources ? new LocationSnapshot(this.reader.getLocation()) : null);
+	}
+
+	private void error(String message, Object location) {
+		this.delegate.error(message, location);
+	}
+
+	private void error(String message, Object location, Throwable cause) {
+		this.delegate.error(message, location, cause);
+	}
+
+
+	/**
+	 * Immutable copy of a StAX {@link Location}, which may otherwise
+	 * reflect the reader's current position only.
+	 */
+	private static class LocationSnapshot implements Location {
+
+		private final int lineNumber;
+
+		private final int columnNumber;
+
+		private final int characterOffset;
+
+		private final String publicId;
+
+		private final String systemId;
+
+		public LocationSnapshot(Location location) {
+			this.lineNumber = location.getLineNumber();
+			this.columnNumber = location.getColumnNumber();
+			this.characterOffset = location.getCharacterOffset();
+			this.publicId = location.getPublicId();
+			this.systemId = location.getSystemId();
+		}
+
+		@Override
+		public int getLineNumber() {
+			return this.lineNumber;
+		}
+
+		@Override
+		public int getColumnNumber() {
+			return this.columnNumber;
+		}
+
+		@Override
+		public int getCharacterOffset() {
+			return this.characterOffset;
+		}
+
+		@Override
+		public String getPublicId() {
+			return this.publicId;
+		}
+
+		@Override
+		public String getSystemId() {
+			return this.systemId;
+		}
+
+		@Override
+		public String toString() {
+			return "line " + this.lineNumber + ", column " + this.columnNumber;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,12 @@ import java.io.InputStream;
 import java.util.HashSet;
 import java.util.Set;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
 
 import org.w3c.dom.Document;
 import org.xml.sax.EntityResolver;
@@ -63,6 +69,10 @@ import org.springframework.util.xml.XmlValidationModeDetector;
  * talking to the latter's implementation of the
  * {@link org.springframework.beans.factory.support.BeanDefinitionRegistry} interface.
  *
+ * <p>Alternatively, bean definitions can be read in a streaming fashion through a
+ * {@link StaxBeanDefinitionDocumentReader}, without loading a DOM document first:
+ * see {@link #setStreaming}.
+ *
  * @author Juergen Hoeller
  * @author Rob Harrop
  * @author Chris Beams
@@ -104,6 +114,8 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 
 	private boolean namespaceAware = false;
 
+	private boolean streaming = false;
+
 	private Class<?> documentReaderClass = DefaultBeanDefinitionDocumentReader.class;
 
 	private ProblemReporter problemReporter = new FailFastProblemReporter();
@@ -120,6 +132,8 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 
 	private ErrorHandler errorHandler = new SimpleSaxErrorHandler(logger);
 
+	private XMLInputFactory inputFactory;
+
 	private final XmlValidationModeDetector validationModeDetector = new XmlValidationModeDetector();
 
 	private final ThreadLocal<Set<EncodedResource>> resourcesCurrentlyBeingLoaded =
@@ -190,6 +204,40 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		return this.namespaceAware;
 	}
 
+	/**
+	 * Set whether to read XML bean definitions in a streaming fashion, through a StAX
+	 * {@link XMLStreamReader} and a {@link StaxBeanDefinitionDocumentReader},
+	 * instead of loading a DOM document for each XML file first. Default is "false".
+	 * <p>Switch this on for large XML configurations in order to reduce parsing
+	 * time and memory consumption: bean definitions get built while the file is being
+	 * read, with only elements from custom namespaces turned into (short-lived) DOM
+	 * fragments for their NamespaceHandlers. Note that streaming mode always reads
+	 * namespace-aware and does not perform any XML validation; the configured
+	 * {@link #setValidationMode validation mode} and {@link #setDocumentLoader DocumentLoader}
+	 * do not apply to it.
+	 * <p>A custom {@link #setDocumentReaderClass document reader class} needs to be
+	 * a {@link StaxBeanDefinitionDocumentReader} subclass in streaming mode.
+	 * @throws IllegalStateException if streaming is requested in combination
+	 * with a document reader class that does not support it
+	 * @since 4.1
+	 * @see StaxBeanDefinitionDocumentReader
+	 */
+	public void setStreaming(boolean streaming) {
+		if (streaming && !supportsStreaming(this.documentReaderClass)) {
+			throw new IllegalStateException("Streaming mode requires a StaxBeanDefinitionDocumentReader " +
+					"but document reader class is [" + this.documentReaderClass.getName() + "]");
+		}
+		this.streaming = streaming;
+	}
+
+	/**
+	 * Return whether to read XML bean definitions in a streaming fashion.
+	 * @since 4.1
+	 */
+	public boolean isStreaming() {
+		return this.streaming;
+	}
+
 	/**
 	 * Specify which {@link org.springframework.beans.factory.parsing.ProblemReporter} to use.
 	 * <p>The default implementation is {@link org.springframework.beans.factory.parsing.FailFastProblemReporter}
@@ -280,17 +328,33 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 	/**
 	 * Specify the {@link BeanDefinitionDocumentReader} implementation to use,
 	 * responsible for the actual reading of the XML bean definition document.
-	 * <p>The default is {@link DefaultBeanDefinitionDocumentReader}.
+	 * <p>The default is {@link DefaultBeanDefinitionDocumentReader}, or
+	 * {@link StaxBeanDefinitionDocumentReader} in {@link #setStreaming streaming mode}.
 	 * @param documentReaderClass the desired BeanDefinitionDocumentReader implementation class
+	 * (a StaxBeanDefinitionDocumentReader subclass in streaming mode)
 	 */
 	public void setDocumentReaderClass(Class<?> documentReaderClass) {
 		if (documentReaderClass == null || !BeanDefinitionDocumentReader.class.isAssignableFrom(documentReaderClass)) {
 			throw new IllegalArgumentException(
 					"documentReaderClass must be an implementation of the BeanDefinitionDocumentReader interface");
 		}
+		if (this.streaming && !supportsStreaming(documentReaderClass)) {
+			throw new IllegalArgumentException("documentReaderClass must be a subclass of " +
+					"StaxBeanDefinitionDocumentReader in streaming mode");
+		}
 		this.documentReaderClass = documentReaderClass;
 	}
 
+	/**
+	 * Determine whether the given document reader class can be used in streaming mode:
+	 * either the default DOM-based reader (to be replaced by its streaming variant)
+	 * or a {@link StaxBeanDefinitionDocumentReader} subclass.
+	 */
+	private static boolean supportsStreaming(Class<?> documentReaderClass) {
+		return (DefaultBeanDefinitionDocumentReader.class == documentReaderClass ||
+				StaxBeanDefinitionDocumentReader.class.isAssignableFrom(documentReaderClass));
+	}
+
 
 	/**
 	 * Load bean definitions from the specified XML file.
@@ -387,12 +451,27 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 	protected int doLoadBeanDefinitions(InputSource inputSource, Resource resource)
 			throws BeanDefinitionStoreException {
 		try {
+			if (isStreaming()) {
+				XMLStreamReader streamReader = doLoadStreamReader(inputSource, resource);
+				try {
+					return registerBeanDefinitions(streamReader, resource);
+				}
+				finally {
+					streamReader.close();
+				}
+			}
 			Document doc = doLoadDocument(inputSource, resource);
 			return registerBeanDefinitions(doc, resource);
 		}
 		catch (BeanDefinitionStoreException ex) {
 			throw ex;
 		}
+		catch (XMLStreamException ex) {
+			Location location = ex.getLocation();
+			throw new BeanDefinitionStoreException(resource.getDescription(), (location != null ?
+					"Line " + location.getLineNumber() + " in XML document from " + resource + " is invalid" :
+					"XML document from " + resource + " is invalid"), ex);
+		}
 		catch (SAXParseException ex) {
 			throw new XmlBeanDefinitionStoreException(resource.getDescription(),
 					"Line " + ex.getLineNumber() + " in XML document from " + resource + " is invalid", ex);
@@ -429,6 +508,40 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 				getValidationModeForResource(resource), isNamespaceAware());
 	}
 
+	/**
+	 * Actually create a StAX reader for the specified XML file, for streaming mode.
+	 * <p>DTD references are resolved through the configured EntityResolver.
+	 * @param inputSource the SAX InputSource to read from
+	 * @param resource the resource descriptor for the XML file
+	 * @return the StAX stream reader
+	 * @throws XMLStreamException if the reader could not be created
+	 * @since 4.1
+	 * @see #setStreaming
+	 * @see #getEntityResolver()
+	 */
+	protected XMLStreamReader doLoadStreamReader(InputSource inputSource, Resource resource)
+			throws XMLStreamException {
+
+		XMLInputFactory inputFactory = this.inputFactory;
+		if (inputFactory == null) {
+			inputFactory = XMLInputFactory.newInstance();
+			inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+			inputFactory.setXMLResolver(new EntityResolverAdapter());
+			this.inputFactory = inputFactory;
+		}
+		if (inputSource.getByteStream() != null) {
+			return (inputSource.getEncoding() != null ?
+					inputFactory.createXMLStreamReader(inputSource.getByteStream(), inputSource.getEncoding()) :
+					inputFactory.createXMLStreamReader(inputSource.getByteStream()));
+		}
+		else if (inputSource.getCharacterStream() != null) {
+			return inputFactory.createXMLStreamReader(inputSource.getCharacterStream());
+		}
+		else {
+			return inputFactory.createXMLStreamReader(new StreamSource(inputSource.getSystemId()));
+		}
+	}
+
 
 	/**
 	 * Gets the validation mode for the specified {@link Resource}. If no explicit
@@ -509,6 +622,46 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		return getRegistry().getBeanDefinitionCount() - countBefore;
 	}
 
+	/**
+	 * Register the bean definitions read from the given StAX stream reader.
+	 * Called by {@code loadBeanDefinitions} in streaming mode.
+	 * <p>Creates a new instance of {@link StaxBeanDefinitionDocumentReader}
+	 * (or of the specified StAX-capable "documentReaderClass")
+	 * and invokes {@code registerBeanDefinitions} on it.
+	 * @param streamReader the StAX reader positioned at the beginning of the document
+	 * @param resource the resource descriptor (for context information)
+	 * @return the number of bean definitions found
+	 * @throws XMLStreamException in case of XML parsing errors
+	 * @throws BeanDefinitionStoreException in case of parsing errors
+	 * @since 4.1
+	 * @see #setStreaming
+	 */
+	public int registerBeanDefinitions(XMLStreamReader streamReader, Resource resource)
+			throws XMLStreamException, BeanDefinitionStoreException {
+
+		StaxBeanDefinitionDocumentReader documentReader = createStaxBeanDefinitionDocumentReader();
+		documentReader.setEnvironment(this.getEnvironment());
+		int countBefore = getRegistry().getBeanDefinitionCount();
+		documentReader.registerBeanDefinitions(streamReader, createReaderContext(resource));
+		return getRegistry().getBeanDefinitionCount() - countBefore;
+	}
+
+	/**
+	 * Create the {@link StaxBeanDefinitionDocumentReader} to use for reading
+	 * bean definitions from an XML stream in streaming mode.
+	 * <p>The default implementation instantiates the specified "documentReaderClass"
+	 * if it is a StaxBeanDefinitionDocumentReader subclass, or a plain
+	 * StaxBeanDefinitionDocumentReader in case of the default document reader class.
+	 * @since 4.1
+	 * @see #setDocumentReaderClass
+	 */
+	protected StaxBeanDefinitionDocumentReader createStaxBeanDefinitionDocumentReader() {
+		if (StaxBeanDefinitionDocumentReader.class.isAssignableFrom(this.documentReaderClass)) {
+			return StaxBeanDefinitionDocumentReader.class.cast(BeanUtils.instantiateClass(this.documentReaderClass));
+		}
+		return new StaxBeanDefinitionDocumentReader();
+	}
+
 	/**
 	 * Create the {@link BeanDefinitionDocumentReader} to use for actually
 	 * reading bean definitions from an XML document.
@@ -546,4 +699,24 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		return new DefaultNamespaceHandlerResolver(getResourceLoader().getClassLoader());
 	}
 
+
+	/**
+	 * Adapter that exposes this reader's SAX EntityResolver as StAX XMLResolver,
+	 * e.g. for resolving the Spring beans DTD from the classpath.
+	 */
+	private class EntityResolverAdapter implements XMLResolver {
+
+		@Override
+		public Object resolveEntity(String publicId, String systemId, String baseUri, String namespace)
+				throws XMLStreamException {
+			try {
+				InputSource source = getEntityResolver().resolveEntity(publicId, systemId);
+				return (source != null ? source.getByteStream() : null);
+			}
+			catch (Exception ex) {
+				throw new XMLStreamException("Failed to resolve entity [" + systemId + "]", ex);
+			}
+		}
+	}
+
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.reflect.Method;
+
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import org.springframework.beans.support.DerivedFromProtectedBaseBean;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.tests.sample.beans.IndexedTestBean;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.StopWatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BeanWrapperImpl} with generated accessors activated.
+ */
+public class BeanWrapperGeneratedAccessorTests {
+
+	@Test
+	public void generatedAccessorsDeactivatedByDefault() {
+		assertFalse(new BeanWrapperImpl(new TestBean()).isGeneratedAccessors());
+	}
+
+	@Test
+	public void setAndGetSimpleProperties() {
+		TestBean tb = new TestBean();
+		BeanWrapperImpl bw = new BeanWrapperImpl(tb);
+		bw.setGeneratedAccessors(true);
+		bw.setPropertyValue("name", "tom");
+		bw.setPropertyValue("age", "42");
+		assertEquals("tom", tb.getName());
+		assertEquals(42, tb.getAge());
+		assertEquals("tom", bw.getPropertyValue("name"));
+		assertEquals(42, bw.getPropertyValue("age"));
+
+		Method readMethod = bw.getPropertyDescriptor("name").getReadMethod();
+		assertTrue(PropertyMethodInvoker.forMethod(readMethod).isGenerated());
+	}
+
+	@Test
+	public void setAndGetNestedAndIndexedProperties() {
+		IndexedTestBean bean = new IndexedTestBean();
+		BeanWrapperImpl bw = new BeanWrapperImpl(bean);
+		bw.setGeneratedAccessors(true);
+		bw.setPropertyValue("array[0].name", "name0");
+		bw.setPropertyValue("map[key1].name", "nameX");
+		bw.setPropertyValue("list[1].name", "name1");
+		assertEquals("name0", bean.getArray()[0].getName());
+		assertEquals("nameX", ((TestBean) bean.getMap().get("key1")).getName());
+		assertEquals("name0", bw.getPropertyValue("array[0].name"));
+		assertEquals("nameX", bw.getPropertyValue("map['key1'].name"));
+		assertEquals("name1", bw.getPropertyValue("list[1].name"));
+	}
+
+	@Test
+	public void nestedBeanWrapperInheritsSetting() {
+		TestBean tb = new TestBean();
+		tb.setSpouse(new TestBean());
+		BeanWrapperImpl bw = new BeanWrapperImpl(tb);
+		bw.setGeneratedAccessors(true);
+		bw.setPropertyValue("spouse.name", "kerry");
+		assertEquals("kerry", tb.getSpouse().getName());
+		assertTrue(bw.getBeanWrapperForPropertyPath("spouse.name").isGeneratedAccessors());
+	}
+
+	@Test
+	public void fallbackToReflectionForNonPublicClass() {
+		DerivedFromProtectedBaseBean bean = new DerivedFromProtectedBaseBean();
+		BeanWrapperImpl bw = new BeanWrapperImpl(bean);
+		bw.setGeneratedAccessors(true);
+		bw.setPropertyValue("someProperty", "someValue");
+		assertEquals("someValue", bw.getPropertyValue("someProperty"));
+		assertEquals("someValue", bean.getSomeProperty());
+
+		Method readMethod = bw.getPropertyDescriptor("someProperty").getReadMethod();
+		assertFalse(PropertyMethodInvoker.forMethod(readMethod).isGenerated());
+	}
+
+	@Test
+	public void invokerIsCachedPerMethod() throws Exception {
+		Method readMethod = TestBean.class.getMethod("getName");
+		PropertyMethodInvoker invoker = PropertyMethodInvoker.forMethod(readMethod);
+		assertSame(invoker, PropertyMethodInvoker.forMethod(readMethod));
+		PropertyMethodInvoker.clearCache();
+		assertNotSame(invoker, PropertyMethodInvoker.forMethod(readMethod));
+	}
+
+	@Test
+	public void exceptionFromSetterIsWrapped() {
+		BeanWrapperImpl bw = new BeanWrapperImpl(new ThrowingBean());
+		bw.setGeneratedAccessors(true);
+		try {
+			bw.setPropertyValue("value", "x");
+			fail("Should have thrown MethodInvocationException");
+		}
+		catch (MethodInvocationException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+			assertEquals("value", ex.getPropertyName());
+		}
+	}
+
+	@Test
+	public void parsedPropertyPathsAreReused() {
+		TestBean tb = new TestBean();
+		BeanWrapperImpl bw = new BeanWrapperImpl(tb);
+		bw.setPropertyValue("someMap['key1']", "value1");
+		bw.setPropertyValue("someMap[\"key2\"]", "value2");
+		bw.setPropertyValue("someMap[key1]", "value3");
+		assertEquals("value3", tb.getSomeMap().get("key1"));
+		assertEquals("value2", tb.getSomeMap().get("key2"));
+		assertEquals("value3", bw.getPropertyValue("someMap['key1']"));
+		assertEquals("value3", bw.getPropertyValue("someMap[key1]"));
+	}
+
+	@Test
+	public void generatedAccessorPerformance() {
+		Assume.group(TestGroup.PERFORMANCE);
+		Assume.notLogging(LogFactory.getLog(BeanWrapperGeneratedAccessorTests.class));
+
+		BeanWrapperImpl reflective = new BeanWrapperImpl(new TestBean());
+		BeanWrapperImpl generated = new BeanWrapperImpl(new TestBean());
+		generated.setGeneratedAccessors(true);
+		// warm up both paths before measuring
+		accessProperty(reflective, 10000);
+		accessProperty(generated, 10000);
+
+		StopWatch sw = new StopWatch();
+		sw.start("reflective");
+		accessProperty(reflective, 100000);
+		sw.stop();
+		long reflectiveTime = sw.getLastTaskTimeMillis();
+		sw.start("generated");
+		accessProperty(generated, 100000);
+		sw.stop();
+		long generatedTime = sw.getLastTaskTimeMillis();
+		assertTrue("Took too long", generatedTime < 1000);
+		assertTrue("Generated accessors slower than reflection: " + sw.prettyPrint(),
+				generatedTime <= reflectiveTime * 1.5 + 10);
+	}
+
+	private void accessProperty(BeanWrapperImpl bw, int count) {
+		for (int i = 0; i < count; i++) {
+			bw.setPropertyValue("name", "name");
+			bw.getPropertyValue("name");
+		}
+	}
+
+
+	public static class ThrowingBean {
+
+		public String getValue() {
+			return null;
+		}
+
+		public void setValue(String value) {
+			throw new IllegalStateException("Cannot set value");
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -40,28 +40,72 @@ public final class CachedIntrospectionResultsTests {
 		BeanWrapper bw = new BeanWrapperImpl(TestBean.class);
 		assertTrue(bw.isWritableProperty("name"));
 		assertTrue(bw.isWritableProperty("age"));
-		assertTrue(CachedIntrospectionResults.classCache.containsKey(TestBean.class));
+		assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(TestBean.class));
 
 		ClassLoader child = new OverridingClassLoader(getClass().getClassLoader());
 		Class<?> tbClass = child.loadClass("org.springframework.tests.sample.beans.TestBean");
-		assertFalse(CachedIntrospectionResults.classCache.containsKey(tbClass));
+		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(tbClass));
 		CachedIntrospectionResults.acceptClassLoader(child);
 		bw = new BeanWrapperImpl(tbClass);
 		assertTrue(bw.isWritableProperty("name"));
 		assertTrue(bw.isWritableProperty("age"));
-		assertTrue(CachedIntrospectionResults.classCache.containsKey(tbClass));
+		assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(tbClass));
 		CachedIntrospectionResults.clearClassLoader(child);
-		assertFalse(CachedIntrospectionResults.classCache.containsKey(tbClass));
+		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(tbClass));
 
-		assertTrue(CachedIntrospectionResults.classCache.containsKey(TestBean.class));
+		assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(TestBean.class));
 	}
 
 	@Test
 	public void clearClassLoaderForSystemClassLoader() throws Exception {
 		BeanUtils.getPropertyDescriptors(ArrayList.class);
-		assertTrue(CachedIntrospectionResults.classCache.containsKey(ArrayList.class));
+		assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(ArrayList.class));
 		CachedIntrospectionResults.clearClassLoader(ArrayList.class.getClassLoader());
-		assertFalse(CachedIntrospectionResults.classCache.containsKey(ArrayList.class));
+		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(ArrayList.class));
+	}
+
+	@Test
+	public void nonCacheSafeClassIsSoftlyCached() throws Exception {
+		ClassLoader child = new OverridingClassLoader(getClass().getClassLoader());
+		Class<?> tbClass = child.loadClass("org.springframework.tests.sample.beans.TestBean");
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(tbClass);
+		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(tbClass));
+		assertTrue(CachedIntrospectionResults.softClassCache.containsKey(tbClass));
+		assertSame(results, CachedIntrospectionResults.forClass(tbClass));
+
+		CachedIntrospectionResults.clearClassLoader(child);
+		assertFalse(CachedIntrospectionResults.softClassCache.containsKey(tbClass));
+	}
+
+	@Test
+	public void forClassReturnsSharedInstance() {
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(TestBean.class);
+		assertSame(results, CachedIntrospectionResults.forClass(TestBean.class));
+	}
+
+	@Test
+	public void propertyDescriptorLookupWithNameVariants() {
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(UrlBean.class);
+		PropertyDescriptor name = results.getPropertyDescriptor("name");
+		assertNotNull(name);
+		assertSame(name, results.getPropertyDescriptor("Name"));
+		PropertyDescriptor url = results.getPropertyDescriptor("URL");
+		assertNotNull(url);
+		assertSame(url, results.getPropertyDescriptor("uRL"));
+		assertNull(results.getPropertyDescriptor("url"));
+		assertNull(results.getPropertyDescriptor("nAme"));
+		assertNull(results.getPropertyDescriptor(""));
+		assertNull(results.getPropertyDescriptor(null));
+	}
+
+	@Test
+	public void getPropertyDescriptorsReturnsCopy() {
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(UrlBean.class);
+		PropertyDescriptor[] pds = results.getPropertyDescriptors();
+		assertEquals(3, pds.length);
+		pds[0] = null;
+		assertNotNull(results.getPropertyDescriptors()[0]);
+		assertTrue(results.getPropertyDescriptors()[0] instanceof GenericTypeAwarePropertyDescriptor);
 	}
 
 	@Test
@@ -93,4 +137,20 @@ public final class CachedIntrospectionResultsTests {
 				pd.getWriteMethod(), equalTo(C.class.getMethod("setFoo", String.class)));
 	}
 
+
+	@SuppressWarnings("unused")
+	private static class UrlBean {
+
+		public String getName() {
+			return null;
+		}
+
+		public void setName(String name) {
+		}
+
+		public String getURL() {
+			return null;
+		}
+	}
+
 }
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for concurrent pre-instantiation of singletons in {@link DefaultListableBeanFactory}.
+ */
+public class ConcurrentPreInstantiationTests {
+
+	private static final List<String> initialized = Collections.synchronizedList(new ArrayList<String>());
+
+	private DefaultListableBeanFactory beanFactory;
+
+
+	@Before
+	public void setUp() {
+		initialized.clear();
+		beanFactory = new DefaultListableBeanFactory();
+		beanFactory.setPreInstantiationConcurrency(4);
+	}
+
+
+	@Test
+	public void independentSingletonsCreatedConcurrently() {
+		// Each bean waits until as many beans as there are threads are being initialized:
+		// sequential creation would break the barrier and fail the initialization.
+		CyclicBarrier barrier = new CyclicBarrier(4);
+		for (int i = 0; i < 8; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(SlowBean.class);
+			bd.getPropertyValues().add("barrier", barrier);
+			beanFactory.registerBeanDefinition("bean" + i, bd);
+		}
+		beanFactory.preInstantiateSingletons();
+
+		assertEquals(8, initialized.size());
+		assertFalse(barrier.isBroken());
+		for (int i = 0; i < 8; i++) {
+			SlowBean bean = beanFactory.getBean("bean" + i, SlowBean.class);
+			assertTrue(bean.threadName.startsWith("preInstantiation-"));
+		}
+	}
+
+	@Test
+	public void declaredDependenciesCreatedFirst() {
+		RootBeanDefinition a = new RootBeanDefinition(SlowBean.class);
+		a.getPropertyValues().add("dependency", new RuntimeBeanReference("b"));
+		beanFactory.registerBeanDefinition("a", a);
+		RootBeanDefinition b = new RootBeanDefinition(SlowBean.class);
+		b.setDependsOn(new String[] {"c"});
+		b.getPropertyValues().add("initTime", 50);
+		beanFactory.registerBeanDefinition("b", b);
+		RootBeanDefinition c = new RootBeanDefinition(SlowBean.class);
+		c.getPropertyValues().add("initTime", 50);
+		beanFactory.registerBeanDefinition("c", c);
+		RootBeanDefinition lazy = new RootBeanDefinition(SlowBean.class);
+		lazy.setLazyInit(true);
+		beanFactory.registerBeanDefinition("lazy", lazy);
+
+		beanFactory.preInstantiateSingletons();
+		assertEquals(Arrays.asList("c", "b", "a"), initialized);
+		assertSame(beanFactory.getBean("b"), beanFactory.getBean("a", SlowBean.class).dependency);
+	}
+
+	@Test
+	public void declaredCircularReference() {
+		RootBeanDefinition a = new RootBeanDefinition(SlowBean.class);
+		a.getPropertyValues().add("dependency", new RuntimeBeanReference("b"));
+		beanFactory.registerBeanDefinition("a", a);
+		RootBeanDefinition b = new RootBeanDefinition(SlowBean.class);
+		b.getPropertyValues().add("dependency", new RuntimeBeanReference("a"));
+		beanFactory.registerBeanDefinition("b", b);
+
+		beanFactory.preInstantiateSingletons();
+		SlowBean beanA = beanFactory.getBean("a", SlowBean.class);
+		SlowBean beanB = beanFactory.getBean("b", SlowBean.class);
+		assertSame(beanB, beanA.dependency);
+		assertSame(beanA, beanB.dependency);
+	}
+
+	@Test
+	public void circularReferenceAcrossThreads() {
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		RootBeanDefinition a = new RootBeanDefinition(LookupBean.class);
+		a.getPropertyValues().add("barrier", barrier).add("otherBeanName", "b");
+		beanFactory.registerBeanDefinition("a", a);
+		RootBeanDefinition b = new RootBeanDefinition(LookupBean.class);
+		b.getPropertyValues().add("barrier", barrier).add("otherBeanName", "a");
+		beanFactory.registerBeanDefinition("b", b);
+
+		beanFactory.preInstantiateSingletons();
+		LookupBean beanA = beanFactory.getBean("a", LookupBean.class);
+		LookupBean beanB = beanFactory.getBean("b", LookupBean.class);
+		assertSame(beanB, beanA.otherBean);
+		assertSame(beanA, beanB.otherBean);
+	}
+
+	@Test
+	public void autowiredDependenciesCreatedFirst() {
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(beanFactory);
+		beanFactory.addBeanPostProcessor(bpp);
+		beanFactory.registerBeanDefinition("consumer", new RootBeanDefinition(AutowiredBean.class));
+		RootBeanDefinition dependency = new RootBeanDefinition(SlowBean.class);
+		dependency.getPropertyValues().add("initTime", 100);
+		beanFactory.registerBeanDefinition("dependency", dependency);
+
+		beanFactory.preInstantiateSingletons();
+		AutowiredBean consumer = beanFactory.getBean(AutowiredBean.class);
+		assertTrue(consumer.dependencyInitializedBefore);
+		assertSame(beanFactory.getBean("dependency"), consumer.dependency);
+	}
+
+	@Test
+	public void circularReferenceAcrossThreadsIndependentOfTiming() {
+		// "a" looks up "b" after "b" started waiting for "a" from within its constructor:
+		// "b" has to proceed with the early reference to "a".
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		RootBeanDefinition a = new RootBeanDefinition(LookupBean.class);
+		a.getPropertyValues().add("barrier", barrier).add("otherBeanName", "b").add("lookupDelay", 200);
+		beanFactory.registerBeanDefinition("a", a);
+		RootBeanDefinition b = new RootBeanDefinition(ConstructorLookupBean.class);
+		b.getConstructorArgumentValues().addGenericArgumentValue(beanFactory);
+		b.getConstructorArgumentValues().addGenericArgumentValue(barrier);
+		b.getConstructorArgumentValues().addGenericArgumentValue("a");
+		beanFactory.registerBeanDefinition("b", b);
+
+		beanFactory.preInstantiateSingletons();
+		LookupBean beanA = beanFactory.getBean("a", LookupBean.class);
+		ConstructorLookupBean beanB = beanFactory.getBean("b", ConstructorLookupBean.class);
+		assertSame(beanB, beanA.otherBean);
+		assertSame(beanA, beanB.otherBean);
+	}
+
+	@Test
+	public void circularReferenceAcrossThreadsFallsBackToSequentialCreation() {
+		// "b" creates "a" itself since "a" still waits for "c": "a" then cannot
+		// obtain "b" which is still in its constructor on the same thread.
+		RootBeanDefinition a = new RootBeanDefinition(LookupBean.class);
+		a.getPropertyValues().add("otherBeanName", "b");
+		a.setDependsOn(new String[] {"c"});
+		beanFactory.registerBeanDefinition("a", a);
+		RootBeanDefinition b = new RootBeanDefinition(ConstructorLookupBean.class);
+		b.getConstructorArgumentValues().addGenericArgumentValue(beanFactory);
+		b.getConstructorArgumentValues().addGenericArgumentValue(new CyclicBarrier(1));
+		b.getConstructorArgumentValues().addGenericArgumentValue("a");
+		beanFactory.registerBeanDefinition("b", b);
+		RootBeanDefinition c = new RootBeanDefinition(SlowBean.class);
+		c.getPropertyValues().add("initTime", 200);
+		beanFactory.registerBeanDefinition("c", c);
+
+		beanFactory.preInstantiateSingletons();
+		LookupBean beanA = beanFactory.getBean("a", LookupBean.class);
+		ConstructorLookupBean beanB = beanFactory.getBean("b", ConstructorLookupBean.class);
+		assertSame(beanB, beanA.otherBean);
+		assertSame(beanA, beanB.otherBean);
+	}
+
+	@Test
+	public void smartInitializingSingletonInvokedAfterAllSingletons() {
+		beanFactory.registerBeanDefinition("smart", new RootBeanDefinition(SmartBean.class));
+		for (int i = 0; i < 4; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(SlowBean.class);
+			bd.getPropertyValues().add("initTime", 20);
+			beanFactory.registerBeanDefinition("bean" + i, bd);
+		}
+		beanFactory.preInstantiateSingletons();
+		SmartBean smartBean = beanFactory.getBean(SmartBean.class);
+		assertEquals(4, smartBean.singletonsAtCallback);
+		assertEquals(Thread.currentThread().getName(), smartBean.callbackThreadName);
+	}
+
+	@Test
+	public void smartInitializingSingletonInvokedSequentially() {
+		beanFactory.setPreInstantiationConcurrency(1);
+		beanFactory.registerBeanDefinition("smart", new RootBeanDefinition(SmartBean.class));
+		beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(SlowBean.class));
+		beanFactory.preInstantiateSingletons();
+		assertEquals(1, beanFactory.getBean(SmartBean.class).singletonsAtCallback);
+	}
+
+	@Test
+	public void creationFailurePropagated() {
+		beanFactory.registerBeanDefinition("bean", new RootBeanDefinition(SlowBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(SlowBean.class);
+		bd.getPropertyValues().add("fail", true);
+		beanFactory.registerBeanDefinition("failing", bd);
+		try {
+			beanFactory.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertEquals("failing", ex.getBeanName());
+		}
+		assertFalse(beanFactory.containsSingleton("failing"));
+	}
+
+
+	public static class SlowBean implements BeanNameAware, InitializingBean {
+
+		private String beanName;
+
+		private long initTime;
+
+		private boolean fail;
+
+		private SlowBean dependency;
+
+		private CyclicBarrier barrier;
+
+		private String threadName;
+
+		@Override
+		public void setBeanName(String beanName) {
+			this.beanName = beanName;
+		}
+
+		public void setInitTime(long initTime) {
+			this.initTime = initTime;
+		}
+
+		public void setFail(boolean fail) {
+			this.fail = fail;
+		}
+
+		public void setDependency(SlowBean dependency) {
+			this.dependency = dependency;
+		}
+
+		public void setBarrier(CyclicBarrier barrier) {
+			this.barrier = barrier;
+		}
+
+		@Override
+		public void afterPropertiesSet() throws Exception {
+			if (this.barrier != null) {
+				this.barrier.await(5, TimeUnit.SECONDS);
+			}
+			Thread.sleep(this.initTime);
+			if (this.fail) {
+				throw new IllegalStateException("Initialization failed");
+			}
+			this.threadName = Thread.currentThread().getName();
+			initialized.add(this.beanName);
+		}
+	}
+
+
+	public static class LookupBean implements BeanFactoryAware, InitializingBean {
+
+		private BeanFactory beanFactory;
+
+		private CyclicBarrier barrier;
+
+		private String otherBeanName;
+
+		private long lookupDelay;
+
+		private Object otherBean;
+
+		@Override
+		public void setBeanFactory(BeanFactory beanFactory) {
+			this.beanFactory = beanFactory;
+		}
+
+		public void setBarrier(CyclicBarrier barrier) {
+			this.barrier = barrier;
+		}
+
+		public void setOtherBeanName(String otherBeanName) {
+			this.otherBeanName = otherBeanName;
+		}
+
+		public void setLookupDelay(long lookupDelay) {
+			this.lookupDelay = lookupDelay;
+		}
+
+		@Override
+		public void afterPropertiesSet() throws Exception {
+			// Make sure that both beans are in creation before looking up the other one
+			if (this.barrier != null) {
+				this.barrier.await(5, TimeUnit.SECONDS);
+			}
+			Thread.sleep(this.lookupDelay);
+			this.otherBean = this.beanFactory.getBean(this.otherBeanName);
+		}
+	}
+
+
+	public static class ConstructorLookupBean {
+
+		private final Object otherBean;
+
+		public ConstructorLookupBean(BeanFactory beanFactory, CyclicBarrier barrier, String otherBeanName)
+				throws Exception {
+
+			barrier.await(5, TimeUnit.SECONDS);
+			this.otherBean = beanFactory.getBean(otherBeanName);
+		}
+	}
+
+
+	public static class AutowiredBean {
+
+		private final boolean dependencyInitializedBefore = initialized.contains("dependency");
+
+		@Autowired
+		private SlowBean dependency;
+	}
+
+
+	public static class SmartBean implements SmartInitializingSingleton {
+
+		private int singletonsAtCallback = -1;
+
+		private String callbackThreadName;
+
+		@Override
+		public void afterSingletonsInstantiated() {
+			this.singletonsAtCallback = initialized.size();
+			this.callbackThreadName = Thread.currentThread().getName();
+		}
+	}
+
+}
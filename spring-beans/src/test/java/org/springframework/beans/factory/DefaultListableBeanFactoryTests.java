@@ -737,6 +737,68 @@ public class DefaultListableBeanFactoryTests {
 		assertEquals(DerivedTestBean.class, factory.getType("child"));
 	}
 
+	@Test
+	public void testGetBeanNamesForTypeAfterDynamicRegistration() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		lbf.registerSingleton("manual", new TestBean());
+		lbf.registerBeanDefinition("other", new RootBeanDefinition(NestedTestBean.class));
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[] {"tb1", "manual"}, lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"other"}, lbf.getBeanNamesForType(NestedTestBean.class));
+
+		// New bean definition goes before manual singletons, as with a full scan
+		lbf.registerBeanDefinition("tb2", new RootBeanDefinition(DerivedTestBean.class));
+		assertArrayEquals(new String[] {"tb1", "tb2", "manual"}, lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"tb2"}, lbf.getBeanNamesForType(DerivedTestBean.class));
+		assertArrayEquals(new String[] {"other"}, lbf.getBeanNamesForType(NestedTestBean.class));
+
+		lbf.registerSingleton("manual2", new DerivedTestBean());
+		assertArrayEquals(new String[] {"tb1", "tb2", "manual", "manual2"}, lbf.getBeanNamesForType(TestBean.class));
+
+		// Overriding with a different type
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(NestedTestBean.class));
+		assertArrayEquals(new String[] {"tb2", "manual", "manual2"}, lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"tb1", "other"}, lbf.getBeanNamesForType(NestedTestBean.class));
+
+		lbf.removeBeanDefinition("tb2");
+		lbf.destroySingleton("manual");
+		assertArrayEquals(new String[] {"manual2"}, lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"manual2"}, lbf.getBeanNamesForType(TestBean.class, false, true));
+		assertArrayEquals(new String[] {"manual2"}, lbf.getBeanNamesForType(DerivedTestBean.class));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeAfterDynamicFactoryBeanRegistration() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(TestBean.class));
+		assertEquals(0, lbf.getBeanNamesForType(DummyFactory.class).length);
+
+		lbf.registerBeanDefinition("factory", new RootBeanDefinition(DummyFactory.class));
+		assertArrayEquals(new String[] {"tb", "factory"}, lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"&factory"}, lbf.getBeanNamesForType(DummyFactory.class));
+
+		lbf.removeBeanDefinition("factory");
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(TestBean.class));
+		assertEquals(0, lbf.getBeanNamesForType(DummyFactory.class).length);
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeAfterManyDynamicRegistrations() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.freezeConfiguration();
+		assertEquals(0, lbf.getBeanNamesForType(TestBean.class).length);
+		for (int i = 0; i < 1000; i++) {
+			lbf.registerBeanDefinition("tb" + i, new RootBeanDefinition(TestBean.class));
+		}
+		String[] names = lbf.getBeanNamesForType(TestBean.class);
+		assertEquals(1000, names.length);
+		assertEquals("tb0", names[0]);
+		assertEquals("tb999", names[999]);
+	}
+
 	@Test
 	public void testNameAlreadyBound() {
 		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.parsing.BeanDefinitionParsingException;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.tests.sample.beans.TestBean;
+import org.springframework.util.StopWatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the streaming mode of {@link XmlBeanDefinitionReader}, verifying
+ * that {@link StaxBeanDefinitionDocumentReader} builds the same bean definitions
+ * as the DOM-based {@link DefaultBeanDefinitionDocumentReader}.
+ */
+public class StaxBeanDefinitionDocumentReaderTests {
+
+	private static final Log logger = LogFactory.getLog(StaxBeanDefinitionDocumentReaderTests.class);
+
+	private static final String[] RESOURCES = new String[] {
+			"StaxBeanDefinitionDocumentReaderTests-context.xml",
+			"collections.xml", "collectionsWithDefaultTypes.xml", "collectionMerging.xml",
+			"factory-methods.xml", "test.xml", "beanNameGeneration.xml", "defaultLifecycleMethods.xml",
+			"import.xml", "withMeta.xml", "schemaValidated.xml", "testUtilNamespace.xml",
+			"simpleConstructorNamespaceHandlerTests.xml", "simplePropertyNamespaceHandlerTests.xml",
+			"autowire-with-exclusion.xml", "autowire-with-inclusion.xml",
+			"autowire-with-selective-inclusion.xml", "autowire-constructor-with-exclusion.xml",
+			"NestedBeansElementTests-context.xml",
+			"NestedBeansElementAttributeRecursionTests-autowire-context.xml",
+			"NestedBeansElementAttributeRecursionTests-autowire-candidates-context.xml",
+			"NestedBeansElementAttributeRecursionTests-init-destroy-context.xml",
+			"NestedBeansElementAttributeRecursionTests-lazy-context.xml",
+			"NestedBeansElementAttributeRecursionTests-merge-context.xml"};
+
+
+	@Test
+	public void streamingDefinitionsMatchDomDefinitions() {
+		for (String resource : RESOURCES) {
+			assertEquivalentDefinitions(new ClassPathResource(resource, getClass()), "dev");
+			assertEquivalentDefinitions(new ClassPathResource(resource, getClass()));
+		}
+	}
+
+	@Test
+	public void streamingDefinitionsWithActiveProfile() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader reader = createReader(bf, true, "dev");
+		reader.loadBeanDefinitions(new ClassPathResource("StaxBeanDefinitionDocumentReaderTests-context.xml", getClass()));
+
+		assertTrue(bf.containsBeanDefinition("devBean"));
+		assertFalse(bf.containsBeanDefinition("prodBean"));
+		assertEquals("dev", ((TestBean) bf.getBean("devBean")).getName());
+		assertArrayEquals(new String[] {"kezza"}, bf.getAliases("kerry"));
+		assertTrue(Arrays.asList(bf.getAliases("rod")).containsAll(Arrays.asList("roderick", "rodney")));
+
+		BeanDefinition rod = bf.getBeanDefinition("rod");
+		assertEquals("Rod", rod.getDescription());
+		assertEquals("developer", rod.getAttribute("role"));
+		assertEquals("spouse", rod.getPropertyValues().getPropertyValue("spouse").getAttribute("relation"));
+		assertTrue(rod.isLazyInit());
+		assertFalse(bf.getBeanDefinition("kerry").isLazyInit());
+		assertFalse(bf.getBeanDefinition("nestedBean").isLazyInit());
+		assertEquals(AbstractBeanDefinition.AUTOWIRE_BY_NAME,
+				((AbstractBeanDefinition) bf.getBeanDefinition("nestedBean")).getAutowireMode());
+	}
+
+	@Test
+	public void streamingDefinitionsAreInstantiable() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		createReader(bf, true).loadBeanDefinitions(new ClassPathResource("collections.xml", getClass()));
+
+		TestBean jen = (TestBean) bf.getBean("jenny");
+		TestBean david = (TestBean) bf.getBean("david");
+		assertSame(david, jen.getSpouse());
+		assertEquals(2, ((TestBean) bf.getBean("rod")).getFriends().size());
+	}
+
+	@Test
+	public void malformedDocument() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		Resource resource = new ByteArrayResource(("<beans xmlns=\"http://www.springframework.org/schema/beans\">\n" +
+				"<bean id=\"a\" class=\"java.lang.Object\">\n</beans>").getBytes());
+		try {
+			createReader(bf, true).loadBeanDefinitions(resource);
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertTrue(ex.getMessage().contains("Line"));
+		}
+	}
+
+	@Test
+	public void duplicateBeanName() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		Resource resource = new ByteArrayResource(("<beans xmlns=\"http://www.springframework.org/schema/beans\">" +
+				"<bean id=\"a\" class=\"java.lang.Object\"/><bean name=\"a\" class=\"java.lang.Object\"/></beans>").getBytes());
+		try {
+			createReader(bf, true).loadBeanDefinitions(resource);
+			fail("Should have thrown BeanDefinitionParsingException");
+		}
+		catch (BeanDefinitionParsingException ex) {
+			assertTrue(ex.getMessage().contains("'a'"));
+		}
+	}
+
+	@Test
+	public void largeConfiguration() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+		Assume.notLogging(LogFactory.getLog(DefaultListableBeanFactory.class));
+
+		File file = File.createTempFile("largeConfiguration", ".xml");
+		file.deleteOnExit();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write("<beans xmlns=\"http://www.springframework.org/schema/beans\"\n" +
+					"\t\txmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+					"\t\txsi:schemaLocation=\"http://www.springframework.org/schema/beans " +
+					"http://www.springframework.org/schema/beans/spring-beans-4.1.xsd\">\n");
+			for (int i = 0; i < 5000; i++) {
+				writer.write("<bean id=\"bean" + i + "\" class=\"org.springframework.tests.sample.beans.TestBean\" lazy-init=\"true\">\n" +
+						"\t<property name=\"name\" value=\"name" + i + "\"/>\n" +
+						"\t<property name=\"age\" value=\"" + i + "\"/>\n" +
+						"\t<property name=\"spouse\" ref=\"bean" + (i > 0 ? i - 1 : 0) + "\"/>\n" +
+						"\t<property name=\"someList\"><list><value>a</value><value>b</value><ref bean=\"bean0\"/></list></property>\n" +
+						"\t<property name=\"someMap\"><map><entry key=\"k\" value=\"v\"/><entry key=\"r\" value-ref=\"bean0\"/></map></property>\n" +
+						"</bean>\n");
+			}
+			writer.write("</beans>\n");
+		}
+		finally {
+			writer.close();
+		}
+		Resource resource = new FileSystemResource(file);
+
+		// warm up both readers
+		createReader(new DefaultListableBeanFactory(), false).loadBeanDefinitions(resource);
+		createReader(new DefaultListableBeanFactory(), true).loadBeanDefinitions(resource);
+
+		StopWatch sw = new StopWatch("Loading 5000 bean definitions");
+		DefaultListableBeanFactory domFactory = new DefaultListableBeanFactory();
+		String domHeap = loadBeanDefinitions(createReader(domFactory, false), resource, sw, "DOM");
+		DefaultListableBeanFactory staxFactory = new DefaultListableBeanFactory();
+		String staxHeap = loadBeanDefinitions(createReader(staxFactory, true), resource, sw, "StAX");
+		if (logger.isDebugEnabled()) {
+			logger.debug(sw.prettyPrint());
+			logger.debug(domHeap);
+			logger.debug(staxHeap);
+		}
+
+		assertEquals(5000, domFactory.getBeanDefinitionCount());
+		assertEquals(5000, staxFactory.getBeanDefinitionCount());
+		assertEquals(domFactory.getBeanDefinition("bean4999"), staxFactory.getBeanDefinition("bean4999"));
+	}
+
+	@Test
+	public void streamingWithCustomDocumentReaderClass() {
+		RecordingStaxBeanDefinitionDocumentReader.roots.clear();
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader reader = createReader(bf, true, "dev");
+		reader.setDocumentReaderClass(RecordingStaxBeanDefinitionDocumentReader.class);
+		reader.loadBeanDefinitions(new ClassPathResource("NestedBeansElementTests-context.xml", getClass()));
+
+		assertTrue(bf.containsBeanDefinition("devOnlyBean"));
+		assertEquals(Arrays.asList("pre:beans", "pre:beans", "post:beans", "post:beans"),
+				RecordingStaxBeanDefinitionDocumentReader.roots);
+	}
+
+	@Test
+	public void streamingWithDomOnlyDocumentReaderClass() {
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(new DefaultListableBeanFactory());
+		reader.setDocumentReaderClass(DomOnlyDocumentReader.class);
+		try {
+			reader.setStreaming(true);
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().contains(DomOnlyDocumentReader.class.getName()));
+		}
+		assertFalse(reader.isStreaming());
+
+		reader = createReader(new DefaultListableBeanFactory(), true);
+		try {
+			reader.setDocumentReaderClass(DomOnlyDocumentReader.class);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+
+	/**
+	 * Load bean definitions within the given StopWatch task, returning
+	 * a description of the heap usage during and after loading.
+	 */
+	private static String loadBeanDefinitions(XmlBeanDefinitionReader reader, Resource resource,
+			StopWatch sw, String taskName) {
+
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+		sw.start(taskName);
+		reader.loadBeanDefinitions(resource);
+		sw.stop();
+		long usedAfterLoading = runtime.totalMemory() - runtime.freeMemory();
+		System.gc();
+		long usedAfterGc = runtime.totalMemory() - runtime.freeMemory();
+		return taskName + " heap: " + (usedAfterLoading - usedBefore) / 1024 + " KB after loading, " +
+				(usedAfterGc - usedBefore) / 1024 + " KB retained";
+	}
+
+	private XmlBeanDefinitionReader createReader(DefaultListableBeanFactory bf, boolean streaming, String... profiles) {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.setActiveProfiles(profiles);
+		XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(bf);
+		reader.setEnvironment(environment);
+		reader.setStreaming(streaming);
+		return reader;
+	}
+
+	private void assertEquivalentDefinitions(Resource resource, String... profiles) {
+		DefaultListableBeanFactory domFactory = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader domReader = createReader(domFactory, false, profiles);
+		domReader.setBeanClassLoader(null);
+		int domCount = domReader.loadBeanDefinitions(resource);
+
+		DefaultListableBeanFactory staxFactory = new DefaultListableBeanFactory();
+		XmlBeanDefinitionReader staxReader = createReader(staxFactory, true, profiles);
+		staxReader.setBeanClassLoader(null);
+		int staxCount = staxReader.loadBeanDefinitions(resource);
+
+		String description = resource.getDescription();
+		assertEquals(description, domCount, staxCount);
+		assertArrayEquals(description, normalizeBeanNames(domFactory.getBeanDefinitionNames()),
+				normalizeBeanNames(staxFactory.getBeanDefinitionNames()));
+		for (String beanName : domFactory.getBeanDefinitionNames()) {
+			String staxBeanName = staxFactory.getBeanDefinitionNames()[
+					Arrays.asList(domFactory.getBeanDefinitionNames()).indexOf(beanName)];
+			BeanDefinition domDefinition = domFactory.getBeanDefinition(beanName);
+			BeanDefinition staxDefinition = staxFactory.getBeanDefinition(staxBeanName);
+			normalize(domDefinition);
+			normalize(staxDefinition);
+			String message = description + " [" + beanName + "]";
+			assertEquals(message, domDefinition, staxDefinition);
+			assertEquals(message, domDefinition.getDescription(), staxDefinition.getDescription());
+			assertEquals(message, Arrays.asList(domFactory.getAliases(beanName)),
+					Arrays.asList(staxFactory.getAliases(staxBeanName)));
+		}
+	}
+
+	private static String[] normalizeBeanNames(String[] beanNames) {
+		String[] result = new String[beanNames.length];
+		for (int i = 0; i < beanNames.length; i++) {
+			result[i] = normalizeBeanName(beanNames[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Strip the identity-based suffix of generated inner bean names.
+	 */
+	private static String normalizeBeanName(String beanName) {
+		int index = beanName.indexOf('#');
+		return (index != -1 ? beanName.substring(0, index) : beanName);
+	}
+
+	private static void normalize(BeanDefinition bd) {
+		MutablePropertyValues pvs = bd.getPropertyValues();
+		PropertyValue[] pvArray = pvs.getPropertyValues();
+		for (int i = 0; i < pvArray.length; i++) {
+			pvs.setPropertyValueAt(new PropertyValue(pvArray[i].getName(), normalize(pvArray[i].getValue())), i);
+		}
+		ConstructorArgumentValues cas = bd.getConstructorArgumentValues();
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cas.getIndexedArgumentValues().values()) {
+			valueHolder.setValue(normalize(valueHolder.getValue()));
+		}
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cas.getGenericArgumentValues()) {
+			valueHolder.setValue(normalize(valueHolder.getValue()));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object normalize(Object value) {
+		if (value instanceof BeanDefinitionHolder) {
+			BeanDefinitionHolder holder = (BeanDefinitionHolder) value;
+			normalize(holder.getBeanDefinition());
+			return new BeanDefinitionHolder(holder.getBeanDefinition(),
+					normalizeBeanName(holder.getBeanName()), holder.getAliases());
+		}
+		if (value instanceof BeanDefinition) {
+			normalize((BeanDefinition) value);
+		}
+		else if (value instanceof List) {
+			List<Object> list = (List<Object>) value;
+			for (int i = 0; i < list.size(); i++) {
+				list.set(i, normalize(list.get(i)));
+			}
+		}
+		else if (value instanceof Set) {
+			Set<Object> set = (Set<Object>) value;
+			List<Object> elements = new ArrayList<Object>(set);
+			set.clear();
+			for (Object element : elements) {
+				set.add(normalize(element));
+			}
+		}
+		else if (value instanceof Map) {
+			Map<Object, Object> map = (Map<Object, Object>) value;
+			Map<Object, Object> entries = new LinkedHashMap<Object, Object>(map);
+			map.clear();
+			for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+				map.put(normalize(entry.getKey()), normalize(entry.getValue()));
+			}
+		}
+		else if (value instanceof Object[]) {
+			Object[] array = (Object[]) value;
+			for (int i = 0; i < array.length; i++) {
+				array[i] = normalize(array[i]);
+			}
+		}
+		return value;
+	}
+
+
+	public static class RecordingStaxBeanDefinitionDocumentReader extends StaxBeanDefinitionDocumentReader {
+
+		static final List<String> roots = new ArrayList<String>();
+
+		@Override
+		protected void preProcessXml(Element root) {
+			assertFalse(root.hasChildNodes());
+			roots.add("pre:" + root.getLocalName());
+		}
+
+		@Override
+		protected void postProcessXml(Element root) {
+			roots.add("post:" + root.getLocalName());
+		}
+	}
+
+
+	public static class DomOnlyDocumentReader extends DefaultBeanDefinitionDocumentReader {
+	}
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation {@link javax.annotation.processing.Processor} that writes the
+ * candidate components of the compiled sources to {@code META-INF/spring.components},
+ * for use by component scanning instead of searching the classpath at runtime.
+ *
+ * <p>Each class or interface is listed with its stereotypes: the fully qualified
+ * names of {@code @Component} and of every annotation meta-annotated with it that
+ * the type carries (directly, through meta-annotations or by inheritance), as well
+ * as any {@code javax.*} annotation present on it, such as JSR-330's {@code @Named}.
+ *
+ * <p>Entries from a previous run are retained, so that incremental compilation
+ * keeps the index complete; entries for types that no longer exist are ignored
+ * at runtime.
+ *
+ * @since 4.1
+ */
+public class CandidateComponentsIndexer extends AbstractProcessor {
+
+	static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/spring.components";
+
+	private static final String COMPONENT_ANNOTATION = "org.springframework.stereotype.Component";
+
+	private static final String JAVA_LANG_ANNOTATION_PACKAGE = "java.lang.annotation.";
+
+	private static final String JAVAX_PACKAGE = "javax.";
+
+
+	private final Set<String> processedTypes = new HashSet<String>();
+
+	private final Map<String, Set<String>> components = new TreeMap<String, Set<String>>();
+
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton("*");
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element element : roundEnv.getRootElements()) {
+			processElement(element);
+		}
+		if (roundEnv.processingOver()) {
+			writeIndex();
+		}
+		return false;
+	}
+
+	private void processElement(Element element) {
+		if (element.getKind() == ElementKind.CLASS || element.getKind() == ElementKind.INTERFACE) {
+			TypeElement type = (TypeElement) element;
+			String typeName = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+			this.processedTypes.add(typeName);
+			Set<String> stereotypes = new LinkedHashSet<String>();
+			collectStereotypes(this.processingEnv.getElementUtils().getAllAnnotationMirrors(type),
+					stereotypes, new HashSet<Element>());
+			for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+				String annotationName = getName(mirror);
+				if (annotationName.startsWith(JAVAX_PACKAGE)) {
+					stereotypes.add(annotationName);
+				}
+			}
+			if (!stereotypes.isEmpty()) {
+				this.components.put(typeName, stereotypes);
+			}
+		}
+		for (Element enclosed : element.getEnclosedElements()) {
+			if (enclosed.getKind() == ElementKind.CLASS || enclosed.getKind() == ElementKind.INTERFACE) {
+				processElement(enclosed);
+			}
+		}
+	}
+
+	/**
+	 * Collect the names of all {@code @Component}-based annotations among the given
+	 * annotations and their meta-annotations.
+	 * @return whether {@code @Component} is reachable from the given annotations
+	 */
+	private boolean collectStereotypes(Iterable<? extends AnnotationMirror> mirrors,
+			Set<String> stereotypes, Set<Element> visited) {
+
+		boolean found = false;
+		for (AnnotationMirror mirror : mirrors) {
+			String annotationName = getName(mirror);
+			if (annotationName.startsWith(JAVA_LANG_ANNOTATION_PACKAGE)) {
+				continue;
+			}
+			Element annotationElement = mirror.getAnnotationType().asElement();
+			boolean stereotype = COMPONENT_ANNOTATION.equals(annotationName);
+			if (visited.add(annotationElement)) {
+				stereotype |= collectStereotypes(annotationElement.getAnnotationMirrors(), stereotypes, visited);
+			}
+			else {
+				stereotype |= stereotypes.contains(annotationName);
+			}
+			if (stereotype) {
+				stereotypes.add(annotationName);
+				found = true;
+			}
+		}
+		return found;
+	}
+
+	private String getName(AnnotationMirror mirror) {
+		return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+	}
+
+	private void writeIndex() {
+		Filer filer = this.processingEnv.getFiler();
+		Properties index = readExistingIndex(filer);
+		if (index.isEmpty() && this.components.isEmpty()) {
+			return;
+		}
+		index.keySet().removeAll(this.processedTypes);
+		for (Map.Entry<String, Set<String>> entry : this.components.entrySet()) {
+			StringBuilder stereotypes = new StringBuilder();
+			for (String stereotype : entry.getValue()) {
+				if (stereotypes.length() > 0) {
+					stereotypes.append(',');
+				}
+				stereotypes.append(stereotype);
+			}
+			index.setProperty(entry.getKey(), stereotypes.toString());
+		}
+		try {
+			FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", COMPONENTS_RESOURCE_LOCATION);
+			OutputStream out = file.openOutputStream();
+			try {
+				index.store(out, null);
+			}
+			finally {
+				out.close();
+			}
+		}
+		catch (IOException ex) {
+			this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Unable to write " + COMPONENTS_RESOURCE_LOCATION + ": " + ex);
+		}
+	}
+
+	private Properties readExistingIndex(Filer filer) {
+		Properties index = new Properties();
+		try {
+			FileObject file = filer.getResource(StandardLocation.CLASS_OUTPUT, "", COMPONENTS_RESOURCE_LOCATION);
+			InputStream in = file.openInputStream();
+			try {
+				index.load(in);
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException ex) {
+			// no index from a previous run
+		}
+		catch (IllegalArgumentException ex) {
+			// resource location not supported by this compiler
+		}
+		return index;
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+
+import static org.junit.Assert.*;
+
+public class CandidateComponentsIndexerTests {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+	@Test
+	public void indexStereotypes() throws IOException {
+		Properties index = compile(
+				source("com.example.PlainComponent", "@org.springframework.stereotype.Component public class PlainComponent {}"),
+				source("com.example.SomeService", "@org.springframework.stereotype.Service public class SomeService {" +
+						" @org.springframework.stereotype.Component public static class Nested {} }"),
+				source("com.example.MyStereotype", "@org.springframework.stereotype.Service" +
+						" @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)" +
+						" public @interface MyStereotype {}"),
+				source("com.example.CustomService", "@MyStereotype public class CustomService {}"),
+				source("com.example.NotAComponent", "@Deprecated public class NotAComponent {}"));
+
+		assertEquals(Component.class.getName(), index.getProperty("com.example.PlainComponent"));
+		assertEquals(Component.class.getName() + "," + Service.class.getName(),
+				index.getProperty("com.example.SomeService"));
+		assertEquals(Component.class.getName(), index.getProperty("com.example.SomeService$Nested"));
+		assertEquals(Component.class.getName() + "," + Service.class.getName() + ",com.example.MyStereotype",
+				index.getProperty("com.example.CustomService"));
+		assertNull(index.getProperty("com.example.NotAComponent"));
+	}
+
+	@Test
+	public void noIndexWithoutCandidates() throws IOException {
+		File outputDir = this.temporaryFolder.newFolder();
+		compile(outputDir, source("com.example.Plain", "public class Plain {}"));
+		assertFalse(new File(outputDir, CandidateComponentsIndexer.COMPONENTS_RESOURCE_LOCATION).exists());
+	}
+
+
+	private Properties compile(JavaFileObject... sources) throws IOException {
+		File outputDir = this.temporaryFolder.newFolder();
+		compile(outputDir, sources);
+		Properties index = new Properties();
+		InputStream in = new FileInputStream(new File(outputDir, CandidateComponentsIndexer.COMPONENTS_RESOURCE_LOCATION));
+		try {
+			index.load(in);
+		}
+		finally {
+			in.close();
+		}
+		return index;
+	}
+
+	private void compile(File outputDir, JavaFileObject... sources) {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		List<String> options = new ArrayList<String>(Arrays.asList(
+				"-d", outputDir.getAbsolutePath(), "-classpath", System.getProperty("java.class.path")));
+		JavaCompiler.CompilationTask task = compiler.getTask(null, null, null, options, null, Arrays.asList(sources));
+		task.setProcessors(Collections.singletonList(new CandidateComponentsIndexer()));
+		assertTrue("Compilation failed", task.call());
+	}
+
+	private static JavaFileObject source(String className, final String body) {
+		int index = className.lastIndexOf('.');
+		final String packageName = className.substring(0, index);
+		return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"),
+				JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return "package " + packageName + ";\n" + body;
+			}
+		};
+	}
+
+}
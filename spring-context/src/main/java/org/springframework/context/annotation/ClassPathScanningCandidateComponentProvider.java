@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.context.annotation;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.util.LinkedHashSet;
@@ -31,6 +32,9 @@ import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ResourceLoaderAware;
+import org.springframework.context.index.CandidateComponentsIndex;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
 import org.springframework.core.env.StandardEnvironment;
@@ -59,6 +63,10 @@ import org.springframework.util.ClassUtils;
  * {@link org.springframework.core.type.classreading.MetadataReader MetadataReader}
  * facility, backed by an ASM {@link org.springframework.asm.ClassReader ClassReader}.
  *
+ * <p>If a build-time generated {@link CandidateComponentsIndex} is available and
+ * all include filters are annotation-based, the candidate classes are taken from
+ * that index instead of searching the classpath.
+ *
  * @author Mark Fisher
  * @author Juergen Hoeller
  * @author Ramnivas Laddad
@@ -67,6 +75,7 @@ import org.springframework.util.ClassUtils;
  * @see org.springframework.core.type.classreading.MetadataReaderFactory
  * @see org.springframework.core.type.AnnotationMetadata
  * @see ScannedGenericBeanDefinition
+ * @see CandidateComponentsIndex
  */
 public class ClassPathScanningCandidateComponentProvider implements EnvironmentCapable, ResourceLoaderAware {
 
@@ -89,6 +98,9 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	private ConditionEvaluator conditionEvaluator;
 
+	private CandidateComponentsIndex componentsIndex =
+			CandidateComponentsIndexLoader.loadIndex(this.resourcePatternResolver.getClassLoader());
+
 
 	/**
 	 * Create a ClassPathScanningCandidateComponentProvider with a {@link StandardEnvironment}.
@@ -131,6 +143,7 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	public void setResourceLoader(ResourceLoader resourceLoader) {
 		this.resourcePatternResolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
 		this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
+		this.componentsIndex = CandidateComponentsIndexLoader.loadIndex(this.resourcePatternResolver.getClassLoader());
 	}
 
 	/**
@@ -257,10 +270,95 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	/**
 	 * Scan the class path for candidate components.
+	 * <p>Consults the {@link CandidateComponentsIndex} instead, if available
+	 * and {@link #indexSupportsIncludeFilters() applicable}.
 	 * @param basePackage the package to check for annotated classes
 	 * @return a corresponding Set of autodetected bean definitions
 	 */
 	public Set<BeanDefinition> findCandidateComponents(String basePackage) {
+		if (this.componentsIndex != null && indexSupportsIncludeFilters()) {
+			return addCandidateComponentsFromIndex(this.componentsIndex, basePackage);
+		}
+		return scanCandidateComponents(basePackage);
+	}
+
+	/**
+	 * Determine whether the {@link CandidateComponentsIndex} can be used for the
+	 * current include filters: this is the case if the default resource pattern is
+	 * used and if every include filter is an {@link AnnotationTypeFilter} for
+	 * {@link Component @Component}, for an annotation meta-annotated with it,
+	 * or for a {@code javax.*} annotation such as JSR-330's {@code @Named}.
+	 * @since 4.1
+	 */
+	protected boolean indexSupportsIncludeFilters() {
+		if (!DEFAULT_RESOURCE_PATTERN.equals(this.resourcePattern)) {
+			return false;
+		}
+		for (TypeFilter includeFilter : this.includeFilters) {
+			if (!(includeFilter instanceof AnnotationTypeFilter)) {
+				return false;
+			}
+			Class<? extends Annotation> annotationType = ((AnnotationTypeFilter) includeFilter).getAnnotationType();
+			if (!Component.class.equals(annotationType) &&
+					!AnnotatedElementUtils.isAnnotated(annotationType, Component.class.getName()) &&
+					!annotationType.getName().startsWith("javax.")) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Set<BeanDefinition> addCandidateComponentsFromIndex(CandidateComponentsIndex index, String basePackage) {
+		Set<BeanDefinition> candidates = new LinkedHashSet<BeanDefinition>();
+		String resolvedBasePackage = this.environment.resolveRequiredPlaceholders(basePackage);
+		Set<String> types = new LinkedHashSet<String>();
+		for (TypeFilter includeFilter : this.includeFilters) {
+			String stereotype = ((AnnotationTypeFilter) includeFilter).getAnnotationType().getName();
+			types.addAll(index.getCandidateTypes(resolvedBasePackage, stereotype));
+		}
+		boolean traceEnabled = logger.isTraceEnabled();
+		boolean debugEnabled = logger.isDebugEnabled();
+		for (String type : types) {
+			MetadataReader metadataReader;
+			try {
+				metadataReader = this.metadataReaderFactory.getMetadataReader(type);
+			}
+			catch (FileNotFoundException ex) {
+				if (debugEnabled) {
+					logger.debug("Ignored because listed in component index but not found: " + type);
+				}
+				continue;
+			}
+			catch (IOException ex) {
+				throw new BeanDefinitionStoreException("Failed to read candidate component class: " + type, ex);
+			}
+			try {
+				if (isCandidateComponent(metadataReader)) {
+					ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
+					sbd.setResource(metadataReader.getResource());
+					sbd.setSource(metadataReader.getResource());
+					if (isCandidateComponent(sbd)) {
+						if (debugEnabled) {
+							logger.debug("Using candidate component class from index: " + type);
+						}
+						candidates.add(sbd);
+					}
+					else if (debugEnabled) {
+						logger.debug("Ignored because not a concrete top-level class: " + type);
+					}
+				}
+				else if (traceEnabled) {
+					logger.trace("Ignored because not matching any filter: " + type);
+				}
+			}
+			catch (Throwable ex) {
+				throw new BeanDefinitionStoreException("Failed to read candidate component class: " + type, ex);
+			}
+		}
+		return candidates;
+	}
+
+	private Set<BeanDefinition> scanCandidateComponents(String basePackage) {
 		Set<BeanDefinition> candidates = new LinkedHashSet<BeanDefinition>();
 		try {
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
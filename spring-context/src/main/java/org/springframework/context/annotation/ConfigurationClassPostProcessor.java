@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,6 +46,7 @@ import org.springframework.beans.factory.parsing.PassThroughSourceExtractor;
 import org.springframework.beans.factory.parsing.ProblemReporter;
 import org.springframework.beans.factory.parsing.SourceExtractor;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanFactory;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
 import org.springframework.beans.factory.support.BeanNameGenerator;
@@ -62,6 +63,8 @@ import org.springframework.core.env.MutablePropertySources;
 import org.springframework.core.env.PropertySource;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
@@ -296,8 +299,16 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 		ConfigurationClassParser parser = new ConfigurationClassParser(
 				this.metadataReaderFactory, this.problemReporter, this.environment,
 				this.resourceLoader, this.componentScanBeanNameGenerator, registry);
-		parser.parse(configCandidates);
-		parser.validate();
+		ApplicationStartup applicationStartup = (registry instanceof AbstractBeanFactory ?
+				((AbstractBeanFactory) registry).getApplicationStartup() : ApplicationStartup.DEFAULT);
+		StartupStep processConfig = applicationStartup.start("spring.context.config-classes.parse");
+		try {
+			parser.parse(configCandidates);
+			parser.validate();
+		}
+		finally {
+			processConfig.tag("classCount", String.valueOf(parser.getConfigurationClasses().size())).end();
+		}
 
 		// Handle any @PropertySource annotations
 		List<PropertySource<?>> parsedPropertySources = parser.getPropertySources();
@@ -321,7 +332,13 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 					this.importBeanNameGenerator);
 		}
 
-		this.reader.loadBeanDefinitions(parser.getConfigurationClasses());
+		StartupStep loadBeanDefinitions = applicationStartup.start("spring.context.config-classes.load");
+		try {
+			this.reader.loadBeanDefinitions(parser.getConfigurationClasses());
+		}
+		finally {
+			loadBeanDefinitions.end();
+		}
 
 		// Register the ImportRegistry as a bean in order to support ImportAware @Configuration classes
 		if (singletonRegistry != null) {
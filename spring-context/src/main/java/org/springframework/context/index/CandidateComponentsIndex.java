@@ -0,0 +1,124 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+
+/**
+ * Provide access to the candidates that are defined in {@code META-INF/spring.components}.
+ *
+ * <p>An arbitrary number of stereotypes can be registered (and queried) on the index: a
+ * typical example is the fully qualified name of an annotation that flags the class for
+ * a certain use case. The following call returns all the {@code @Component}
+ * <b>candidate</b> types for the {@code com.example} package (and its sub-packages):
+ * <pre class="code">
+ * Set&lt;String&gt; candidates = index.getCandidateTypes(
+ *         "com.example", "org.springframework.stereotype.Component");
+ * </pre>
+ *
+ * <p>The {@code type} is usually the fully qualified name of a class, though this is
+ * not a rule. Similarly, the {@code stereotype} is usually the fully qualified name of
+ * a target type but it can be any marker really.
+ *
+ * @since 4.1
+ * @see CandidateComponentsIndexLoader
+ */
+public class CandidateComponentsIndex {
+
+	private static final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+	static {
+		pathMatcher.setPathSeparator(".");
+	}
+
+	private final MultiValueMap<String, String> index;
+
+
+	/**
+	 * Create a new index from the given index files, each mapping a type
+	 * to a comma-separated list of stereotypes.
+	 * @param content the loaded index files
+	 */
+	public CandidateComponentsIndex(List<Properties> content) {
+		this.index = parseIndex(content);
+	}
+
+	private static MultiValueMap<String, String> parseIndex(List<Properties> content) {
+		MultiValueMap<String, String> index = new LinkedMultiValueMap<String, String>();
+		for (Properties entry : content) {
+			for (Map.Entry<Object, Object> mapping : entry.entrySet()) {
+				String type = (String) mapping.getKey();
+				for (String stereotype : StringUtils.commaDelimitedListToStringArray((String) mapping.getValue())) {
+					stereotype = stereotype.trim();
+					if (stereotype.length() > 0) {
+						index.add(stereotype, type);
+					}
+				}
+			}
+		}
+		return index;
+	}
+
+
+	/**
+	 * Return the candidate types that are associated with the specified stereotype.
+	 * @param basePackage the package to check for candidates, possibly
+	 * containing wildcards ("*" for a package segment, "**" for any number of segments)
+	 * @param stereotype the stereotype to use
+	 * @return the candidate types associated with the specified {@code stereotype}
+	 * or an empty set if none has been found for the specified {@code basePackage}
+	 */
+	public Set<String> getCandidateTypes(String basePackage, String stereotype) {
+		List<String> candidates = this.index.get(stereotype);
+		if (candidates == null) {
+			return Collections.emptySet();
+		}
+		Set<String> result = new LinkedHashSet<String>();
+		for (String candidate : candidates) {
+			if (matchPackage(basePackage, ClassUtils.getPackageName(candidate))) {
+				result.add(candidate);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return whether this index does not contain any entries.
+	 */
+	public boolean isEmpty() {
+		return this.index.isEmpty();
+	}
+
+	private boolean matchPackage(String basePackage, String packageName) {
+		if (pathMatcher.isPattern(basePackage)) {
+			return pathMatcher.match(basePackage + ".**", packageName);
+		}
+		return (packageName.equals(basePackage) || packageName.startsWith(basePackage + "."));
+	}
+
+}
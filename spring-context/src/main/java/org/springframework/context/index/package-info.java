@@ -0,0 +1,5 @@
+/**
+ * Support for a build-time generated index of candidate components,
+ * consulted by component scanning instead of the classpath if present.
+ */
+package org.springframework.context.index;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,6 +37,7 @@ import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanFactory;
 import org.springframework.beans.support.ResourceEditorRegistrar;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -71,6 +72,8 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
 
@@ -201,6 +204,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	/** Environment used by this context; initialized by {@link #createEnvironment()} */
 	private ConfigurableEnvironment environment;
 
+	/** Application startup metrics */
+	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
 
 	/**
 	 * Create a new AbstractApplicationContext with no parent.
@@ -298,6 +304,31 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		this.environment = environment;
 	}
 
+	/**
+	 * Set the {@link ApplicationStartup} for this application context.
+	 * <p>This allows the application context to record metrics
+	 * during startup, e.g. the duration of each refresh phase.
+	 * Needs to be specified before {@link #refresh()}.
+	 * <p>Default is a no-op {@link ApplicationStartup#DEFAULT} instance.
+	 * The given instance will be passed on to the internal bean factory
+	 * in {@link #prepareBeanFactory}.
+	 * @param applicationStartup the new application startup
+	 * @since 4.1
+	 * @see org.springframework.core.metrics.RecordingApplicationStartup
+	 */
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+		this.applicationStartup = applicationStartup;
+	}
+
+	/**
+	 * Return the {@link ApplicationStartup} for this application context.
+	 * @since 4.1
+	 */
+	public ApplicationStartup getApplicationStartup() {
+		return this.applicationStartup;
+	}
+
 	/**
 	 * Return this context's internal bean factory as AutowireCapableBeanFactory,
 	 * if already available.
@@ -447,53 +478,86 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	@Override
 	public void refresh() throws BeansException, IllegalStateException {
 		synchronized (this.startupShutdownMonitor) {
-			// Prepare this context for refreshing.
-			prepareRefresh();
-
-			// Tell the subclass to refresh the internal bean factory.
-			ConfigurableListableBeanFactory beanFactory = obtainFreshBeanFactory();
-
-			// Prepare the bean factory for use in this context.
-			prepareBeanFactory(beanFactory);
-
+			StartupStep contextRefresh = this.applicationStartup.start("spring.context.refresh");
 			try {
-				// Allows post-processing of the bean factory in context subclasses.
-				postProcessBeanFactory(beanFactory);
+				// Prepare this context for refreshing.
+				prepareRefresh();
 
-				// Invoke factory processors registered as beans in the context.
-				invokeBeanFactoryPostProcessors(beanFactory);
-
-				// Register bean processors that intercept bean creation.
-				registerBeanPostProcessors(beanFactory);
-
-				// Initialize message source for this context.
-				initMessageSource();
+				// Tell the subclass to refresh the internal bean factory.
+				ConfigurableListableBeanFactory beanFactory;
+				StartupStep beanFactoryLoad = this.applicationStartup.start("spring.context.bean-factory.load");
+				try {
+					beanFactory = obtainFreshBeanFactory();
+				}
+				finally {
+					beanFactoryLoad.end();
+				}
 
-				// Initialize event multicaster for this context.
-				initApplicationEventMulticaster();
+				// Prepare the bean factory for use in this context.
+				prepareBeanFactory(beanFactory);
 
-				// Initialize other special beans in specific context subclasses.
-				onRefresh();
+				try {
+					StartupStep beanPostProcess = this.applicationStartup.start("spring.context.beans.post-process");
+					try {
+						// Allows post-processing of the bean factory in context subclasses.
+						postProcessBeanFactory(beanFactory);
+
+						// Invoke factory processors registered as beans in the context.
+						invokeBeanFactoryPostProcessors(beanFactory);
+
+						// Register bean processors that intercept bean creation.
+						registerBeanPostProcessors(beanFactory);
+					}
+					finally {
+						beanPostProcess.end();
+					}
+
+					// Initialize message source for this context.
+					initMessageSource();
+
+					// Initialize event multicaster for this context.
+					initApplicationEventMulticaster();
+
+					// Initialize other special beans in specific context subclasses.
+					onRefresh();
+
+					// Check for listener beans and register them.
+					registerListeners();
+
+					// Instantiate all remaining (non-lazy-init) singletons.
+					StartupStep singletonsInstantiate =
+							this.applicationStartup.start("spring.context.singletons.instantiate");
+					try {
+						finishBeanFactoryInitialization(beanFactory);
+					}
+					finally {
+						singletonsInstantiate.end();
+					}
+
+					// Last step: publish corresponding event.
+					StartupStep refreshFinish = this.applicationStartup.start("spring.context.refresh.finish");
+					try {
+						finishRefresh();
+					}
+					finally {
+						refreshFinish.end();
+					}
+				}
 
-				// Check for listener beans and register them.
-				registerListeners();
+				catch (BeansException ex) {
+					// Destroy already created singletons to avoid dangling resources.
+					destroyBeans();
 
-				// Instantiate all remaining (non-lazy-init) singletons.
-				finishBeanFactoryInitialization(beanFactory);
+					// Reset 'active' flag.
+					cancelRefresh(ex);
 
-				// Last step: publish corresponding event.
-				finishRefresh();
+					// Propagate exception to caller.
+					throw ex;
+				}
 			}
 
-			catch (BeansException ex) {
-				// Destroy already created singletons to avoid dangling resources.
-				destroyBeans();
-
-				// Reset 'active' flag.
-				cancelRefresh(ex);
-
-				// Propagate exception to caller.
-				throw ex;
+			finally {
+				contextRefresh.end();
 			}
 		}
 	}
@@ -553,6 +617,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	protected void prepareBeanFactory(ConfigurableListableBeanFactory beanFactory) {
 		// Tell the internal bean factory to use the context's class loader etc.
 		beanFactory.setBeanClassLoader(getClassLoader());
+		if (beanFactory instanceof AbstractBeanFactory) {
+			((AbstractBeanFactory) beanFactory).setApplicationStartup(getApplicationStartup());
+		}
 		beanFactory.setBeanExpressionResolver(new StandardBeanExpressionResolver());
 		beanFactory.addPropertyEditorRegistrar(new ResourceEditorRegistrar(this, getEnvironment()));
 
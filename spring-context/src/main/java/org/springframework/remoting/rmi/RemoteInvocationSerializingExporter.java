@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,7 +23,10 @@ import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.rmi.RemoteException;
 
+import org.springframework.beans.factory.BeanClassLoaderAware;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
 import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationBasedExporter;
 import org.springframework.remoting.support.RemoteInvocationResult;
@@ -37,7 +40,8 @@ import org.springframework.util.ClassUtils;
  * for example Spring's HTTP invoker.
  *
  * <p>Provides template methods for {@code ObjectInputStream} and
- * {@code ObjectOutputStream} handling.
+ * {@code ObjectOutputStream} handling. Alternatively, a custom {@link Serializer}
+ * and {@link Deserializer} may be specified in place of standard Java serialization.
  *
  * @author Juergen Hoeller
  * @since 2.5.1
@@ -59,6 +63,10 @@ public abstract class RemoteInvocationSerializingExporter extends RemoteInvocati
 
 	private boolean acceptProxyClasses = true;
 
+	private Serializer<Object> serializer;
+
+	private Deserializer<Object> deserializer;
+
 	private Object proxy;
 
 
@@ -93,6 +101,46 @@ public abstract class RemoteInvocationSerializingExporter extends RemoteInvocati
 		return this.acceptProxyClasses;
 	}
 
+	/**
+	 * Specify a custom {@link Serializer} for writing remote invocation results,
+	 * in place of standard Java serialization through an {@code ObjectOutputStream}.
+	 * <p>Needs to match the {@link Deserializer} used on the client side.
+	 * @since 4.1
+	 * @see org.springframework.remoting.support.CompactRemoteInvocationSerializer
+	 */
+	public void setSerializer(Serializer<Object> serializer) {
+		this.serializer = serializer;
+	}
+
+	/**
+	 * Return the custom {@link Serializer} for writing remote invocation results, if any.
+	 * @since 4.1
+	 */
+	public Serializer<Object> getSerializer() {
+		return this.serializer;
+	}
+
+	/**
+	 * Specify a custom {@link Deserializer} for reading remote invocations,
+	 * in place of standard Java serialization through an {@code ObjectInputStream}.
+	 * <p>Needs to match the {@link Serializer} used on the client side.
+	 * Note that the {@link #setAcceptProxyClasses "acceptProxyClasses"} flag does
+	 * not apply to a custom deserializer.
+	 * @since 4.1
+	 * @see org.springframework.remoting.support.CompactRemoteInvocationSerializer
+	 */
+	public void setDeserializer(Deserializer<Object> deserializer) {
+		this.deserializer = deserializer;
+	}
+
+	/**
+	 * Return the custom {@link Deserializer} for reading remote invocations, if any.
+	 * @since 4.1
+	 */
+	public Deserializer<Object> getDeserializer() {
+		return this.deserializer;
+	}
+
 
 	@Override
 	public void afterPropertiesSet() {
@@ -103,6 +151,9 @@ public abstract class RemoteInvocationSerializingExporter extends RemoteInvocati
 	 * Initialize this service exporter.
 	 */
 	public void prepare() {
+		if (this.deserializer instanceof BeanClassLoaderAware) {
+			((BeanClassLoaderAware) this.deserializer).setBeanClassLoader(getBeanClassLoader());
+		}
 		this.proxy = getProxyForService();
 	}
 
@@ -147,6 +198,24 @@ public abstract class RemoteInvocationSerializingExporter extends RemoteInvocati
 		return (RemoteInvocation) obj;
 	}
 
+	/**
+	 * Read a remote invocation object from the given InputStream,
+	 * using the specified custom {@link #setDeserializer Deserializer}.
+	 * @param is the InputStream to read from
+	 * @return the RemoteInvocation object
+	 * @throws java.io.IOException in case of I/O failure
+	 * @since 4.1
+	 */
+	protected RemoteInvocation deserializeRemoteInvocation(InputStream is) throws IOException {
+		Assert.state(this.deserializer != null, "No custom Deserializer specified");
+		Object obj = this.deserializer.deserialize(is);
+		if (!(obj instanceof RemoteInvocation)) {
+			throw new RemoteException("Deserialized object needs to be assignable to type [" +
+					RemoteInvocation.class.getName() + "]: " + obj);
+		}
+		return (RemoteInvocation) obj;
+	}
+
 	/**
 	 * Create an ObjectOutputStream for the given OutputStream.
 	 * <p>The default implementation creates a plain
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.remoting.support;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.core.NestedIOException;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link Serializer} and {@link Deserializer} for {@link RemoteInvocation} and
+ * {@link RemoteInvocationResult} objects, using a compact binary representation.
+ *
+ * <p>Plain {@code RemoteInvocation} and {@code RemoteInvocationResult} instances are
+ * written field by field: method names and parameter types as strings, and primitive
+ * wrapper arguments and return values in their binary form. This avoids the class
+ * descriptors that standard Java serialization writes for the invocation structure
+ * itself, and makes the payload of typical service calls considerably smaller.
+ * Any other values &mdash; as well as subclasses of {@code RemoteInvocation} and
+ * {@code RemoteInvocationResult} &mdash; fall back to Java serialization within the
+ * same stream, so all {@link Serializable} objects remain supported.
+ *
+ * <p>Note that the resulting format is not compatible with plain Java serialization:
+ * the same strategy needs to be configured on both client and server, typically along
+ * with a distinct content type.
+ *
+ * @since 4.1
+ * @see org.springframework.remoting.rmi.RemoteInvocationSerializingExporter#setSerializer
+ */
+public class CompactRemoteInvocationSerializer
+		implements Serializer<Object>, Deserializer<Object>, BeanClassLoaderAware {
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final byte TYPE_OBJECT = 0;
+
+	private static final byte TYPE_INVOCATION = 1;
+
+	private static final byte TYPE_RESULT = 2;
+
+	private static final byte VALUE_OBJECT = 0;
+
+	private static final byte VALUE_INTEGER = 1;
+
+	private static final byte VALUE_LONG = 2;
+
+	private static final byte VALUE_BOOLEAN = 3;
+
+	private static final byte VALUE_DOUBLE = 4;
+
+	private static final byte VALUE_FLOAT = 5;
+
+	private static final byte VALUE_SHORT = 6;
+
+	private static final byte VALUE_BYTE = 7;
+
+	private static final byte VALUE_CHARACTER = 8;
+
+	/** Maximum number of method parameters, as per the JVM specification */
+	private static final int MAX_PARAMETER_COUNT = 255;
+
+
+	private ClassLoader beanClassLoader = ClassUtils.getDefaultClassLoader();
+
+	private boolean acceptProxyClasses = true;
+
+
+	@Override
+	public void setBeanClassLoader(ClassLoader classLoader) {
+		this.beanClassLoader = classLoader;
+	}
+
+	/**
+	 * Set whether to accept deserialization of proxy classes.
+	 * <p>Default is "true". May be deactivated as a security measure.
+	 */
+	public void setAcceptProxyClasses(boolean acceptProxyClasses) {
+		this.acceptProxyClasses = acceptProxyClasses;
+	}
+
+	/**
+	 * Return whether to accept deserialization of proxy classes.
+	 */
+	public boolean isAcceptProxyClasses() {
+		return this.acceptProxyClasses;
+	}
+
+
+	@Override
+	public void serialize(Object object, OutputStream outputStream) throws IOException {
+		ObjectOutputStream oos = new ObjectOutputStream(outputStream);
+		oos.writeByte(FORMAT_VERSION);
+		if (object != null && object.getClass() == RemoteInvocation.class) {
+			oos.writeByte(TYPE_INVOCATION);
+			writeInvocation((RemoteInvocation) object, oos);
+		}
+		else if (object != null && object.getClass() == RemoteInvocationResult.class) {
+			oos.writeByte(TYPE_RESULT);
+			RemoteInvocationResult result = (RemoteInvocationResult) object;
+			writeValue(result.getValue(), oos);
+			oos.writeObject(result.getException());
+		}
+		else {
+			oos.writeByte(TYPE_OBJECT);
+			oos.writeObject(object);
+		}
+		oos.flush();
+	}
+
+	private void writeInvocation(RemoteInvocation invocation, ObjectOutputStream oos) throws IOException {
+		oos.writeObject(invocation.getMethodName());
+		Class<?>[] parameterTypes = invocation.getParameterTypes();
+		if (parameterTypes != null) {
+			oos.writeInt(parameterTypes.length);
+			for (Class<?> parameterType : parameterTypes) {
+				oos.writeObject(parameterType.getName());
+			}
+		}
+		else {
+			oos.writeInt(-1);
+		}
+		Object[] arguments = invocation.getArguments();
+		if (arguments != null) {
+			oos.writeInt(arguments.length);
+			for (Object argument : arguments) {
+				writeValue(argument, oos);
+			}
+		}
+		else {
+			oos.writeInt(-1);
+		}
+		Map<String, Serializable> attributes = invocation.getAttributes();
+		if (attributes != null) {
+			oos.writeInt(attributes.size());
+			for (Map.Entry<String, Serializable> entry : attributes.entrySet()) {
+				oos.writeObject(entry.getKey());
+				writeValue(entry.getValue(), oos);
+			}
+		}
+		else {
+			oos.writeInt(-1);
+		}
+	}
+
+	private void writeValue(Object value, ObjectOutputStream oos) throws IOException {
+		Class<?> valueType = (value != null ? value.getClass() : null);
+		if (valueType == Integer.class) {
+			oos.writeByte(VALUE_INTEGER);
+			oos.writeInt((Integer) value);
+		}
+		else if (valueType == Long.class) {
+			oos.writeByte(VALUE_LONG);
+			oos.writeLong((Long) value);
+		}
+		else if (valueType == Boolean.class) {
+			oos.writeByte(VALUE_BOOLEAN);
+			oos.writeBoolean((Boolean) value);
+		}
+		else if (valueType == Double.class) {
+			oos.writeByte(VALUE_DOUBLE);
+			oos.writeDouble((Double) value);
+		}
+		else if (valueType == Float.class) {
+			oos.writeByte(VALUE_FLOAT);
+			oos.writeFloat((Float) value);
+		}
+		else if (valueType == Short.class) {
+			oos.writeByte(VALUE_SHORT);
+			oos.writeShort((Short) value);
+		}
+		else if (valueType == Byte.class) {
+			oos.writeByte(VALUE_BYTE);
+			oos.writeByte((Byte) value);
+		}
+		else if (valueType == Character.class) {
+			oos.writeByte(VALUE_CHARACTER);
+			oos.writeChar((Character) value);
+		}
+		else {
+			oos.writeByte(VALUE_OBJECT);
+			oos.writeObject(value);
+		}
+	}
+
+
+	@Override
+	public Object deserialize(InputStream inputStream) throws IOException {
+		ObjectInputStream ois =
+				new ConfigurableObjectInputStream(inputStream, this.beanClassLoader, this.acceptProxyClasses);
+		try {
+			int version = ois.readByte();
+			if (version != FORMAT_VERSION) {
+				throw new IOException("Unsupported remote invocation format version: " + version);
+			}
+			byte type = ois.readByte();
+			switch (type) {
+				case TYPE_INVOCATION:
+					return readInvocation(ois);
+				case TYPE_RESULT:
+					RemoteInvocationResult result = new RemoteInvocationResult();
+					result.setValue(readValue(ois));
+					result.setException((Throwable) ois.readObject());
+					return result;
+				case TYPE_OBJECT:
+					return ois.readObject();
+				default:
+					throw new IOException("Unknown remote invocation content type: " + type);
+			}
+		}
+		catch (ClassNotFoundException ex) {
+			throw new NestedIOException("Failed to deserialize object type", ex);
+		}
+	}
+
+	private RemoteInvocation readInvocation(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		RemoteInvocation invocation = new RemoteInvocation();
+		invocation.setMethodName((String) ois.readObject());
+		int parameterCount = readCount(ois, MAX_PARAMETER_COUNT, "parameter");
+		if (parameterCount >= 0) {
+			Class<?>[] parameterTypes = new Class<?>[parameterCount];
+			for (int i = 0; i < parameterCount; i++) {
+				parameterTypes[i] = ClassUtils.forName((String) ois.readObject(), this.beanClassLoader);
+			}
+			invocation.setParameterTypes(parameterTypes);
+		}
+		int argumentCount = readCount(ois, MAX_PARAMETER_COUNT, "argument");
+		if (argumentCount >= 0) {
+			Object[] arguments = new Object[argumentCount];
+			for (int i = 0; i < argumentCount; i++) {
+				arguments[i] = readValue(ois);
+			}
+			invocation.setArguments(arguments);
+		}
+		int attributeCount = readCount(ois, Integer.MAX_VALUE, "attribute");
+		if (attributeCount >= 0) {
+			// not pre-sized: the attribute count has not been verified against the actual content
+			Map<String, Serializable> attributes = new LinkedHashMap<String, Serializable>();
+			for (int i = 0; i < attributeCount; i++) {
+				String key = (String) ois.readObject();
+				attributes.put(key, (Serializable) readValue(ois));
+			}
+			invocation.setAttributes(attributes);
+		}
+		return invocation;
+	}
+
+	/**
+	 * Read an element count as written for a {@code null} (-1) or non-null array or map,
+	 * rejecting counts that cannot stem from a valid remote invocation before anything
+	 * gets allocated for them.
+	 */
+	private int readCount(ObjectInputStream ois, int maxCount, String elementName) throws IOException {
+		int count = ois.readInt();
+		if (count < -1 || count > maxCount) {
+			throw new IOException("Invalid remote invocation " + elementName + " count: " + count);
+		}
+		return count;
+	}
+
+	private Object readValue(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		byte valueType = ois.readByte();
+		switch (valueType) {
+			case VALUE_INTEGER:
+				return ois.readInt();
+			case VALUE_LONG:
+				return ois.readLong();
+			case VALUE_BOOLEAN:
+				return ois.readBoolean();
+			case VALUE_DOUBLE:
+				return ois.readDouble();
+			case VALUE_FLOAT:
+				return ois.readFloat();
+			case VALUE_SHORT:
+				return ois.readShort();
+			case VALUE_BYTE:
+				return ois.readByte();
+			case VALUE_CHARACTER:
+				return ois.readChar();
+			case VALUE_OBJECT:
+				return ois.readObject();
+			default:
+				throw new IOException("Unknown remote invocation value type: " + valueType);
+		}
+	}
+
+}
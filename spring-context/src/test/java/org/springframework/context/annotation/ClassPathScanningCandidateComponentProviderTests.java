@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,15 @@
 
 package org.springframework.context.annotation;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Properties;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -33,9 +40,13 @@ import example.scannable.NamedStubDao;
 import example.scannable.ServiceInvocationCounter;
 import example.scannable.StubFooDao;
 import org.aspectj.lang.annotation.Aspect;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
@@ -60,6 +71,9 @@ public class ClassPathScanningCandidateComponentProviderTests {
 	private static final String TEST_PROFILE_PACKAGE = "example.profilescan";
 	private static final String TEST_DEFAULT_PROFILE_NAME = "testDefault";
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 
 	@Test
 	public void testWithDefaults() {
@@ -73,6 +87,43 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		assertTrue(containsBeanClass(candidates, ServiceInvocationCounter.class));
 	}
 
+	@Test
+	public void testWithComponentsIndex() throws IOException {
+		Properties index = new Properties();
+		index.setProperty(FooServiceImpl.class.getName(), Component.class.getName() + "," + Service.class.getName());
+		index.setProperty(StubFooDao.class.getName(), Component.class.getName() + "," + Repository.class.getName());
+		index.setProperty("example.scannable.Missing", Component.class.getName());
+		index.setProperty("example.other.OtherComponent", Component.class.getName());
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(createIndexClassLoader(index)));
+
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		assertEquals(2, candidates.size());
+		assertTrue(containsBeanClass(candidates, FooServiceImpl.class));
+		assertTrue(containsBeanClass(candidates, StubFooDao.class));
+
+		candidates = provider.findCandidateComponents("example.*");
+		assertEquals(2, candidates.size());
+
+		provider.addExcludeFilter(new AnnotationTypeFilter(Repository.class));
+		candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		assertEquals(1, candidates.size());
+		assertTrue(containsBeanClass(candidates, FooServiceImpl.class));
+	}
+
+	@Test
+	public void testWithComponentsIndexAndNonAnnotationIncludeFilter() throws IOException {
+		Properties index = new Properties();
+		index.setProperty(FooServiceImpl.class.getName(), Component.class.getName());
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(false);
+		provider.setResourceLoader(new DefaultResourceLoader(createIndexClassLoader(index)));
+		provider.addIncludeFilter(new AssignableTypeFilter(FooDao.class));
+
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		assertTrue(containsBeanClass(candidates, StubFooDao.class));
+		assertFalse(containsBeanClass(candidates, FooServiceImpl.class));
+	}
+
 	@Test
 	public void testWithBogusBasePackage() {
 		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
@@ -304,6 +355,27 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		}
 	}
 
+	private ClassLoader createIndexClassLoader(Properties index) throws IOException {
+		File indexFile = this.temporaryFolder.newFile("spring.components");
+		FileOutputStream out = new FileOutputStream(indexFile);
+		try {
+			index.store(out, null);
+		}
+		finally {
+			out.close();
+		}
+		final URL indexUrl = indexFile.toURI().toURL();
+		return new ClassLoader(getClass().getClassLoader()) {
+			@Override
+			public Enumeration<URL> getResources(String name) throws IOException {
+				if (CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION.equals(name)) {
+					return Collections.enumeration(Collections.singletonList(indexUrl));
+				}
+				return super.getResources(name);
+			}
+		};
+	}
+
 	private boolean containsBeanClass(Set<BeanDefinition> candidates, Class<?> beanClass) {
 		for (BeanDefinition candidate : candidates) {
 			ScannedGenericBeanDefinition definition = (ScannedGenericBeanDefinition) candidate;
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class CandidateComponentsIndexTests {
+
+	@Test
+	public void getCandidateTypes() {
+		CandidateComponentsIndex index = new CandidateComponentsIndex(Collections.singletonList(
+				createProperties("com.example.service.One", "service", "com.example.service.sub.Two", "service",
+						"com.example.dao.Three", "dao,entity", "com.examples.Four", "service")));
+		Set<String> actual = index.getCandidateTypes("com.example.service", "service");
+		assertThat(actual, containsInAnyOrder("com.example.service.One", "com.example.service.sub.Two"));
+		assertThat(index.getCandidateTypes("com.example", "entity"), contains("com.example.dao.Three"));
+		assertThat(index.getCandidateTypes("com.example", "service"), not(hasItem("com.examples.Four")));
+	}
+
+	@Test
+	public void getCandidateTypesWithPattern() {
+		CandidateComponentsIndex index = new CandidateComponentsIndex(Collections.singletonList(
+				createProperties("com.example.a.service.One", "service", "com.example.b.service.sub.Two", "service",
+						"com.example.c.dao.Three", "service")));
+		Set<String> actual = index.getCandidateTypes("com.example.*.service", "service");
+		assertThat(actual, containsInAnyOrder("com.example.a.service.One", "com.example.b.service.sub.Two"));
+	}
+
+	@Test
+	public void getCandidateTypesFromMultipleIndexes() {
+		CandidateComponentsIndex index = new CandidateComponentsIndex(Arrays.asList(
+				createProperties("com.example.service.One", "service", "com.example.entity.Two", "entity"),
+				createProperties("com.example.service.Three", "service")));
+		Set<String> actual = index.getCandidateTypes("com.example", "service");
+		assertThat(actual, containsInAnyOrder("com.example.service.One", "com.example.service.Three"));
+	}
+
+	@Test
+	public void getCandidateTypesNoMatch() {
+		CandidateComponentsIndex index = new CandidateComponentsIndex(Collections.singletonList(
+				createProperties("com.example.service.One", "service")));
+		assertThat(index.getCandidateTypes("com.example", "entity"), hasSize(0));
+		assertThat(index.getCandidateTypes("com.other", "service"), hasSize(0));
+		assertFalse(index.isEmpty());
+	}
+
+	@Test
+	public void emptyIndex() {
+		CandidateComponentsIndex index = new CandidateComponentsIndex(Collections.<Properties>emptyList());
+		assertTrue(index.isEmpty());
+		assertNull(CandidateComponentsIndexLoader.loadIndex(new ClassLoader(getClass().getClassLoader()) {}));
+	}
+
+
+	private static Properties createProperties(String... keyValues) {
+		Properties properties = new Properties();
+		for (int i = 0; i < keyValues.length; i += 2) {
+			properties.setProperty(keyValues[i], keyValues[i + 1]);
+		}
+		return properties;
+	}
+
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.support;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.metrics.RecordingApplicationStartup;
+import org.springframework.core.metrics.RecordingApplicationStartup.RecordedStep;
+import org.springframework.core.metrics.StartupStep;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for recording the startup of an application context
+ * through a {@link RecordingApplicationStartup}.
+ */
+public class ApplicationContextStartupTests {
+
+	@Test
+	public void refreshPhasesAreRecorded() {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup();
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.register(TestConfig.class);
+		context.refresh();
+
+		assertSame(startup, context.getDefaultListableBeanFactory().getApplicationStartup());
+		List<RecordedStep> refreshSteps = startup.getSteps("spring.context.refresh");
+		assertEquals(1, refreshSteps.size());
+		Long refreshId = refreshSteps.get(0).getId();
+
+		assertPhase(startup, "spring.context.bean-factory.load", refreshId);
+		RecordedStep postProcess = assertPhase(startup, "spring.context.beans.post-process", refreshId);
+		assertPhase(startup, "spring.context.singletons.instantiate", refreshId);
+		RecordedStep finish = assertPhase(startup, "spring.context.refresh.finish", refreshId);
+
+		boolean configClassPostProcessorFound = false;
+		for (RecordedStep step : startup.getSteps("spring.context.beandef-registry.post-process")) {
+			assertEquals(Long.valueOf(postProcess.getId()), step.getParentId());
+			if (step.getTags().get("postProcessor").endsWith("ConfigurationClassPostProcessor")) {
+				configClassPostProcessorFound = true;
+			}
+		}
+		assertTrue(configClassPostProcessorFound);
+		assertEquals(1, startup.getSteps("spring.context.config-classes.parse").size());
+		assertEquals("1", startup.getSteps("spring.context.config-classes.parse").get(0).getTags().get("classCount"));
+
+		List<RecordedStep> lifecycleSteps = startup.getSteps("spring.context.lifecycle.start");
+		assertEquals(1, lifecycleSteps.size());
+		assertEquals("lifecycle", lifecycleSteps.get(0).getTags().get("beanName"));
+		assertEquals("0", lifecycleSteps.get(0).getTags().get("phase"));
+		assertTrue(isNestedIn(startup, lifecycleSteps.get(0), finish));
+		context.close();
+	}
+
+	@Test
+	public void beanCreationAndPostProcessingAreRecorded() {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup();
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.register(TestConfig.class);
+		context.refresh();
+
+		RecordedStep beanStep = null;
+		for (RecordedStep step : startup.getSteps("spring.beans.instantiate")) {
+			if ("testBean".equals(step.getTags().get("beanName"))) {
+				beanStep = step;
+			}
+		}
+		assertNotNull(beanStep);
+		assertTrue(beanStep.getDuration() >= 0);
+
+		int slowProcessorSteps = 0;
+		for (RecordedStep step : startup.getSteps("spring.beans.post-process")) {
+			if ("testBean".equals(step.getTags().get("beanName")) &&
+					SlowBeanPostProcessor.class.getName().equals(step.getTags().get("postProcessor"))) {
+				assertEquals(Long.valueOf(beanStep.getId()), step.getParentId());
+				slowProcessorSteps++;
+			}
+		}
+		assertEquals(2, slowProcessorSteps);
+
+		Map<String, Long> totals = startup.getTotalDurationByTag("spring.beans.post-process", "postProcessor");
+		assertEquals(SlowBeanPostProcessor.class.getName(), totals.keySet().iterator().next());
+		assertTrue(startup.getReport().contains("spring.beans.instantiate {beanName=testBean}"));
+		context.close();
+	}
+
+	@Test
+	public void stepsEndedOnRefreshFailure() {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup();
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.register(FailingConfig.class);
+		try {
+			context.refresh();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			// expected
+		}
+
+		List<RecordedStep> refreshSteps = startup.getSteps("spring.context.refresh");
+		assertEquals(1, refreshSteps.size());
+		RecordedStep instantiate = assertPhase(startup, "spring.context.singletons.instantiate",
+				refreshSteps.get(0).getId());
+		assertTrue(instantiate.getDuration() >= 0);
+		assertEquals(0, startup.getSteps("spring.context.refresh.finish").size());
+	}
+
+	@Test
+	public void noRecordingByDefault() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(TestConfig.class);
+		StartupStep step = context.getApplicationStartup().start("test");
+		assertEquals(0, step.getId());
+		assertSame(context.getApplicationStartup(), context.getDefaultListableBeanFactory().getApplicationStartup());
+		context.close();
+	}
+
+
+	private static RecordedStep assertPhase(RecordingApplicationStartup startup, String name, Long parentId) {
+		List<RecordedStep> steps = startup.getSteps(name);
+		assertEquals(1, steps.size());
+		assertEquals(parentId, steps.get(0).getParentId());
+		return steps.get(0);
+	}
+
+	private static boolean isNestedIn(RecordingApplicationStartup startup, RecordedStep step, RecordedStep ancestor) {
+		Long parentId = step.getParentId();
+		while (parentId != null) {
+			if (parentId == ancestor.getId()) {
+				return true;
+			}
+			Long currentId = parentId;
+			parentId = null;
+			for (RecordedStep candidate : startup.getTimeline()) {
+				if (candidate.getId() == currentId) {
+					parentId = candidate.getParentId();
+				}
+			}
+		}
+		return false;
+	}
+
+
+	@Configuration
+	static class TestConfig {
+
+		@Bean
+		public static SlowBeanPostProcessor slowBeanPostProcessor() {
+			return new SlowBeanPostProcessor();
+		}
+
+		@Bean
+		public Object testBean() {
+			return new Object();
+		}
+
+		@Bean
+		public TestLifecycle lifecycle() {
+			return new TestLifecycle();
+		}
+	}
+
+
+	@Configuration
+	static class FailingConfig {
+
+		@Bean
+		public Object failingBean() {
+			throw new IllegalStateException("Bean creation failed");
+		}
+	}
+
+
+	static class SlowBeanPostProcessor implements BeanPostProcessor {
+
+		@Override
+		public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+			sleep();
+			return bean;
+		}
+
+		@Override
+		public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+			sleep();
+			return bean;
+		}
+
+		private void sleep() {
+			try {
+				Thread.sleep(5);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+
+	static class TestLifecycle implements SmartLifecycle {
+
+		private volatile boolean running;
+
+		@Override
+		public boolean isAutoStartup() {
+			return true;
+		}
+
+		@Override
+		public void stop(Runnable callback) {
+			stop();
+			callback.run();
+		}
+
+		@Override
+		public void start() {
+			this.running = true;
+		}
+
+		@Override
+		public void stop() {
+			this.running = false;
+		}
+
+		@Override
+		public boolean isRunning() {
+			return this.running;
+		}
+
+		@Override
+		public int getPhase() {
+			return 0;
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.remoting.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+import org.springframework.core.serializer.DefaultSerializer;
+
+import static org.junit.Assert.*;
+
+public class CompactRemoteInvocationSerializerTests {
+
+	private final CompactRemoteInvocationSerializer serializer = new CompactRemoteInvocationSerializer();
+
+
+	@Test
+	public void invocation() throws Exception {
+		Date date = new Date();
+		RemoteInvocation invocation = new RemoteInvocation("doSomething",
+				new Class<?>[] {int.class, Long.class, String.class, boolean.class, char.class, Date.class, int[].class},
+				new Object[] {1, 2L, "three", true, 'c', date, new int[] {4, 5}});
+		invocation.addAttribute("myKey", "myValue");
+		invocation.addAttribute("myOtherKey", 3.5d);
+
+		RemoteInvocation copy = (RemoteInvocation) roundTrip(invocation);
+		assertEquals("doSomething", copy.getMethodName());
+		assertArrayEquals(invocation.getParameterTypes(), copy.getParameterTypes());
+		Object[] arguments = copy.getArguments();
+		assertEquals(7, arguments.length);
+		assertEquals(1, arguments[0]);
+		assertEquals(2L, arguments[1]);
+		assertEquals("three", arguments[2]);
+		assertEquals(true, arguments[3]);
+		assertEquals('c', arguments[4]);
+		assertEquals(date, arguments[5]);
+		assertTrue(Arrays.equals(new int[] {4, 5}, (int[]) arguments[6]));
+		assertEquals("myValue", copy.getAttribute("myKey"));
+		assertEquals(3.5d, copy.getAttribute("myOtherKey"));
+	}
+
+	@Test
+	public void invocationWithoutArguments() throws Exception {
+		RemoteInvocation copy = (RemoteInvocation) roundTrip(new RemoteInvocation());
+		assertNull(copy.getMethodName());
+		assertNull(copy.getParameterTypes());
+		assertNull(copy.getArguments());
+		assertNull(copy.getAttributes());
+	}
+
+	@Test
+	public void result() throws Exception {
+		RemoteInvocationResult copy = (RemoteInvocationResult) roundTrip(new RemoteInvocationResult(42));
+		assertEquals(42, copy.getValue());
+		assertFalse(copy.hasException());
+
+		copy = (RemoteInvocationResult) roundTrip(new RemoteInvocationResult(
+				new InvocationTargetException(new IllegalStateException("Mmm"))));
+		assertNull(copy.getValue());
+		assertTrue(copy.hasInvocationTargetException());
+		assertEquals("Mmm", ((InvocationTargetException) copy.getException()).getTargetException().getMessage());
+	}
+
+	@Test
+	public void customInvocationType() throws Exception {
+		RemoteInvocation invocation = new CustomRemoteInvocation("getName", new Class<?>[0], new Object[0]);
+		Object copy = roundTrip(invocation);
+		assertEquals(CustomRemoteInvocation.class, copy.getClass());
+		assertEquals("getName", ((RemoteInvocation) copy).getMethodName());
+	}
+
+	@Test
+	public void smallerThanJavaSerialization() throws Exception {
+		RemoteInvocation invocation = new RemoteInvocation("setValues",
+				new Class<?>[] {int.class, long.class, String.class}, new Object[] {1, 2L, "three"});
+		ByteArrayOutputStream compact = new ByteArrayOutputStream();
+		serializer.serialize(invocation, compact);
+		ByteArrayOutputStream standard = new ByteArrayOutputStream();
+		new DefaultSerializer().serialize(invocation, standard);
+		assertTrue("Compact form (" + compact.size() + " bytes) not smaller than Java serialization (" +
+				standard.size() + " bytes)", compact.size() * 3 < standard.size());
+	}
+
+	@Test
+	public void rejectsInvalidCounts() throws Exception {
+		assertInvalidInvocation(Integer.MAX_VALUE, -1);
+		assertInvalidInvocation(-2, -1);
+		assertInvalidInvocation(1, 256);
+		assertInvalidInvocation(0, Integer.MIN_VALUE);
+	}
+
+	private void assertInvalidInvocation(int parameterCount, int argumentCount) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(baos);
+		oos.writeByte(1);
+		oos.writeByte(1);
+		oos.writeObject("getName");
+		oos.writeInt(parameterCount);
+		if (parameterCount == 1) {
+			oos.writeObject("java.lang.String");
+		}
+		oos.writeInt(argumentCount);
+		oos.flush();
+		try {
+			serializer.deserialize(new ByteArrayInputStream(baos.toByteArray()));
+			fail("Should have thrown IOException");
+		}
+		catch (IOException ex) {
+			assertTrue(ex.getMessage().startsWith("Invalid remote invocation"));
+		}
+	}
+
+	private Object roundTrip(Object object) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		serializer.serialize(object, baos);
+		return serializer.deserialize(new ByteArrayInputStream(baos.toByteArray()));
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class CustomRemoteInvocation extends RemoteInvocation {
+
+		public CustomRemoteInvocation(String methodName, Class<?>[] parameterTypes, Object[] arguments) {
+			super(methodName, parameterTypes, arguments);
+		}
+	}
+
+}
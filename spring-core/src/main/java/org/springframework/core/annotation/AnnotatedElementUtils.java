@@ -18,18 +18,28 @@ package org.springframework.core.annotation;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.ObjectUtils;
 
 /**
  * Utility class used to collect all annotation values including those declared on
  * meta-annotations.
  *
+ * <p>Lookup results are cached per element, annotation type and kind of lookup,
+ * including negative results. Mutable results are deeply copied, including nested
+ * attributes and arrays, when being cached and before being returned, so callers
+ * may modify them freely.
+ *
  * @author Phillip Webb
  * @author Juergen Hoeller
  * @author Sam Brannen
@@ -37,7 +47,34 @@ import org.springframework.util.MultiValueMap;
  */
 public class AnnotatedElementUtils {
 
+	private static final int META_ANNOTATION_TYPES = 1;
+
+	private static final int HAS_META_ANNOTATION_TYPES = 2;
+
+	private static final int IS_ANNOTATED = 3;
+
+	private static final int ANNOTATION_ATTRIBUTES = 4;
+
+	private static final int ALL_ANNOTATION_ATTRIBUTES = 8;
+
+	private static final int CLASS_VALUES_AS_STRING = 16;
+
+	private static final int NESTED_ANNOTATIONS_AS_MAP = 32;
+
+	/** Marker for a cached negative lookup result */
+	private static final Object NOT_FOUND = new Object();
+
+	private static final Map<LookupCacheKey, Object> lookupCache =
+			new ConcurrentReferenceHashMap<LookupCacheKey, Object>(256);
+
+
+	@SuppressWarnings("unchecked")
 	public static Set<String> getMetaAnnotationTypes(AnnotatedElement element, String annotationType) {
+		LookupCacheKey cacheKey = new LookupCacheKey(element, annotationType, META_ANNOTATION_TYPES);
+		Object cached = lookupCache.get(cacheKey);
+		if (cached != null) {
+			return (cached != NOT_FOUND ? new LinkedHashSet<String>((Set<String>) cached) : null);
+		}
 		final Set<String> types = new LinkedHashSet<String>();
 		process(element, annotationType, false, new Processor<Object>() {
 
@@ -53,11 +90,21 @@ public class AnnotatedElementUtils {
 			public void postProcess(Annotation annotation, Object result) {
 			}
 		});
-		return (types.isEmpty() ? null : types);
+		if (types.isEmpty()) {
+			lookupCache.put(cacheKey, NOT_FOUND);
+			return null;
+		}
+		lookupCache.put(cacheKey, new LinkedHashSet<String>(types));
+		return types;
 	}
 
 	public static boolean hasMetaAnnotationTypes(AnnotatedElement element, String annotationType) {
-		return Boolean.TRUE.equals(process(element, annotationType, false, new Processor<Boolean>() {
+		LookupCacheKey cacheKey = new LookupCacheKey(element, annotationType, HAS_META_ANNOTATION_TYPES);
+		Boolean cached = (Boolean) lookupCache.get(cacheKey);
+		if (cached != null) {
+			return cached;
+		}
+		boolean result = Boolean.TRUE.equals(process(element, annotationType, false, new Processor<Boolean>() {
 
 			@Override
 			public Boolean process(Annotation annotation, int metaDepth) {
@@ -71,10 +118,17 @@ public class AnnotatedElementUtils {
 			public void postProcess(Annotation annotation, Boolean result) {
 			}
 		}));
+		lookupCache.put(cacheKey, result);
+		return result;
 	}
 
 	public static boolean isAnnotated(AnnotatedElement element, String annotationType) {
-		return Boolean.TRUE.equals(process(element, annotationType, false, new Processor<Boolean>() {
+		LookupCacheKey cacheKey = new LookupCacheKey(element, annotationType, IS_ANNOTATED);
+		Boolean cached = (Boolean) lookupCache.get(cacheKey);
+		if (cached != null) {
+			return cached;
+		}
+		boolean result = Boolean.TRUE.equals(process(element, annotationType, false, new Processor<Boolean>() {
 
 			@Override
 			public Boolean process(Annotation annotation, int metaDepth) {
@@ -85,6 +139,8 @@ public class AnnotatedElementUtils {
 			public void postProcess(Annotation annotation, Boolean result) {
 			}
 		}));
+		lookupCache.put(cacheKey, result);
+		return result;
 	}
 
 	public static AnnotationAttributes getAnnotationAttributes(AnnotatedElement element, String annotationType) {
@@ -94,7 +150,13 @@ public class AnnotatedElementUtils {
 	public static AnnotationAttributes getAnnotationAttributes(AnnotatedElement element, String annotationType,
 			final boolean classValuesAsString, final boolean nestedAnnotationsAsMap) {
 
-		return process(element, annotationType, false, new Processor<AnnotationAttributes>() {
+		LookupCacheKey cacheKey = new LookupCacheKey(element, annotationType,
+				lookupType(ANNOTATION_ATTRIBUTES, classValuesAsString, nestedAnnotationsAsMap));
+		Object cached = lookupCache.get(cacheKey);
+		if (cached != null) {
+			return (cached != NOT_FOUND ? copy((AnnotationAttributes) cached) : null);
+		}
+		AnnotationAttributes attributes = process(element, annotationType, false, new Processor<AnnotationAttributes>() {
 
 			@Override
 			public AnnotationAttributes process(Annotation annotation, int metaDepth) {
@@ -113,6 +175,12 @@ public class AnnotatedElementUtils {
 				}
 			}
 		});
+		if (attributes == null) {
+			lookupCache.put(cacheKey, NOT_FOUND);
+			return null;
+		}
+		lookupCache.put(cacheKey, copy(attributes));
+		return attributes;
 	}
 
 	public static MultiValueMap<String, Object> getAllAnnotationAttributes(AnnotatedElement element,
@@ -120,9 +188,16 @@ public class AnnotatedElementUtils {
 		return getAllAnnotationAttributes(element, annotationType, false, false);
 	}
 
+	@SuppressWarnings("unchecked")
 	public static MultiValueMap<String, Object> getAllAnnotationAttributes(AnnotatedElement element,
 			final String annotationType, final boolean classValuesAsString, final boolean nestedAnnotationsAsMap) {
 
+		LookupCacheKey cacheKey = new LookupCacheKey(element, annotationType,
+				lookupType(ALL_ANNOTATION_ATTRIBUTES, classValuesAsString, nestedAnnotationsAsMap));
+		Object cached = lookupCache.get(cacheKey);
+		if (cached != null) {
+			return (cached != NOT_FOUND ? copy((MultiValueMap<String, Object>) cached) : null);
+		}
 		final MultiValueMap<String, Object> attributes = new LinkedMultiValueMap<String, Object>();
 		process(element, annotationType, false, new Processor<Void>() {
 
@@ -149,7 +224,72 @@ public class AnnotatedElementUtils {
 				}
 			}
 		});
-		return (attributes.isEmpty() ? null : attributes);
+		if (attributes.isEmpty()) {
+			lookupCache.put(cacheKey, NOT_FOUND);
+			return null;
+		}
+		lookupCache.put(cacheKey, copy(attributes));
+		return attributes;
+	}
+
+	/**
+	 * Clear the internal lookup cache.
+	 * @see AnnotationUtils#clearCache()
+	 */
+	static void clearCache() {
+		lookupCache.clear();
+	}
+
+	private static int lookupType(int lookup, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
+		return (lookup | (classValuesAsString ? CLASS_VALUES_AS_STRING : 0) |
+				(nestedAnnotationsAsMap ? NESTED_ANNOTATIONS_AS_MAP : 0));
+	}
+
+	private static MultiValueMap<String, Object> copy(MultiValueMap<String, Object> attributes) {
+		MultiValueMap<String, Object> copy = new LinkedMultiValueMap<String, Object>(attributes.size());
+		for (Map.Entry<String, List<Object>> entry : attributes.entrySet()) {
+			List<Object> values = new LinkedList<Object>();
+			for (Object value : entry.getValue()) {
+				values.add(copyValue(value));
+			}
+			copy.put(entry.getKey(), values);
+		}
+		return copy;
+	}
+
+	private static AnnotationAttributes copy(AnnotationAttributes attributes) {
+		AnnotationAttributes copy = new AnnotationAttributes(attributes.size());
+		for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+			copy.put(entry.getKey(), copyValue(entry.getValue()));
+		}
+		return copy;
+	}
+
+	/**
+	 * Copy the given attribute value if it is mutable, i.e. nested attributes or
+	 * an array; other attribute values (Strings, primitive wrappers, Classes, enums
+	 * and annotations) are immutable and therefore shared.
+	 */
+	private static Object copyValue(Object value) {
+		if (value instanceof AnnotationAttributes) {
+			return copy((AnnotationAttributes) value);
+		}
+		if (value != null && value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+			if (value instanceof Object[]) {
+				Object[] array = (Object[]) value;
+				Object[] arrayCopy = (Object[]) copy;
+				for (int i = 0; i < length; i++) {
+					arrayCopy[i] = copyValue(array[i]);
+				}
+			}
+			else {
+				System.arraycopy(value, 0, copy, 0, length);
+			}
+			return copy;
+		}
+		return value;
 	}
 
 	/**
@@ -262,4 +402,44 @@ public class AnnotatedElementUtils {
 		void postProcess(Annotation annotation, T result);
 	}
 
+
+	/**
+	 * Cache key for the lookup cache, identifying the kind of
+	 * lookup for a given element and annotation type.
+	 */
+	private static class LookupCacheKey {
+
+		private final AnnotatedElement element;
+
+		private final String annotationType;
+
+		private final int lookupType;
+
+		public LookupCacheKey(AnnotatedElement element, String annotationType, int lookupType) {
+			this.element = element;
+			this.annotationType = annotationType;
+			this.lookupType = lookupType;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof LookupCacheKey)) {
+				return false;
+			}
+			LookupCacheKey otherKey = (LookupCacheKey) other;
+			return (this.element.equals(otherKey.element) &&
+					ObjectUtils.nullSafeEquals(this.annotationType, otherKey.annotationType) &&
+					this.lookupType == otherKey.lookupType);
+		}
+
+		@Override
+		public int hashCode() {
+			return ((this.element.hashCode() * 29 + ObjectUtils.nullSafeHashCode(this.annotationType)) * 29 +
+					this.lookupType);
+		}
+	}
+
 }
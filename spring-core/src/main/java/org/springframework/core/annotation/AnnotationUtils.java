@@ -26,10 +26,10 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
 
 import org.springframework.core.BridgeMethodResolver;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.ReflectionUtils;
 
@@ -48,6 +48,12 @@ import org.springframework.util.ReflectionUtils;
  * ({@link #getAnnotation(Method, Class)}) and a <em>find</em> lookup in the entire
  * inheritance hierarchy of the given method ({@link #findAnnotation(Method, Class)}).
  *
+ * <p>The results of the <em>find</em> lookups are cached per element and annotation
+ * type, including negative results, since they are typically performed for every
+ * invocation by interceptors (e.g. for transaction, caching or async execution).
+ * The cache holds its entries through soft references; it can be cleared
+ * explicitly through {@link #clearCache()}, e.g. on shutdown of a class loader.
+ *
  * @author Rob Harrop
  * @author Juergen Hoeller
  * @author Sam Brannen
@@ -63,7 +69,14 @@ public abstract class AnnotationUtils {
 	/** The attribute name for annotations with a single element */
 	public static final String VALUE = "value";
 
-	private static final Map<Class<?>, Boolean> annotatedInterfaceCache = new WeakHashMap<Class<?>, Boolean>();
+	/** Marker for a cached negative lookup result */
+	private static final Object NOT_FOUND = new Object();
+
+	private static final Map<AnnotationCacheKey, Object> findAnnotationCache =
+			new ConcurrentReferenceHashMap<AnnotationCacheKey, Object>(256);
+
+	private static final Map<Class<?>, Boolean> annotatedInterfaceCache =
+			new ConcurrentReferenceHashMap<Class<?>, Boolean>(256);
 
 
 	/**
@@ -177,7 +190,19 @@ public abstract class AnnotationUtils {
 	 * @param annotationType the annotation class to look for
 	 * @return the annotation found, or {@code null} if none found
 	 */
+	@SuppressWarnings("unchecked")
 	public static <A extends Annotation> A findAnnotation(Method method, Class<A> annotationType) {
+		AnnotationCacheKey cacheKey = new AnnotationCacheKey(method, annotationType);
+		Object cached = findAnnotationCache.get(cacheKey);
+		if (cached != null) {
+			return (cached != NOT_FOUND ? (A) cached : null);
+		}
+		A annotation = searchMethodHierarchy(method, annotationType);
+		findAnnotationCache.put(cacheKey, (annotation != null ? annotation : NOT_FOUND));
+		return annotation;
+	}
+
+	private static <A extends Annotation> A searchMethodHierarchy(Method method, Class<A> annotationType) {
 		A annotation = getAnnotation(method, annotationType);
 		Class<?> clazz = method.getDeclaringClass();
 		if (annotation == null) {
@@ -222,21 +247,19 @@ public abstract class AnnotationUtils {
 	}
 
 	private static boolean isInterfaceWithAnnotatedMethods(Class<?> iface) {
-		synchronized (annotatedInterfaceCache) {
-			Boolean flag = annotatedInterfaceCache.get(iface);
-			if (flag != null) {
-				return flag;
-			}
-			boolean found = false;
-			for (Method ifcMethod : iface.getMethods()) {
-				if (ifcMethod.getAnnotations().length > 0) {
-					found = true;
-					break;
-				}
+		Boolean flag = annotatedInterfaceCache.get(iface);
+		if (flag != null) {
+			return flag;
+		}
+		boolean found = false;
+		for (Method ifcMethod : iface.getMethods()) {
+			if (ifcMethod.getAnnotations().length > 0) {
+				found = true;
+				break;
 			}
-			annotatedInterfaceCache.put(iface, found);
-			return found;
 		}
+		annotatedInterfaceCache.put(iface, found);
+		return found;
 	}
 
 	/**
@@ -261,8 +284,17 @@ public abstract class AnnotationUtils {
 	 * @param annotationType the type of annotation to look for
 	 * @return the annotation if found, or {@code null} if not found
 	 */
+	@SuppressWarnings("unchecked")
 	public static <A extends Annotation> A findAnnotation(Class<?> clazz, Class<A> annotationType) {
-		return findAnnotation(clazz, annotationType, new HashSet<Annotation>());
+		Assert.notNull(clazz, "Class must not be null");
+		AnnotationCacheKey cacheKey = new AnnotationCacheKey(clazz, annotationType);
+		Object cached = findAnnotationCache.get(cacheKey);
+		if (cached != null) {
+			return (cached != NOT_FOUND ? (A) cached : null);
+		}
+		A annotation = findAnnotation(clazz, annotationType, new HashSet<Annotation>());
+		findAnnotationCache.put(cacheKey, (annotation != null ? annotation : NOT_FOUND));
+		return annotation;
 	}
 
 	/**
@@ -609,6 +641,52 @@ public abstract class AnnotationUtils {
 		}
 	}
 
+	/**
+	 * Clear the internal annotation lookup caches.
+	 * <p>Useful when class loaders get released, e.g. on undeployment
+	 * of a web application, or for measuring uncached lookup performance.
+	 * @since 4.1
+	 */
+	public static void clearCache() {
+		findAnnotationCache.clear();
+		annotatedInterfaceCache.clear();
+		AnnotatedElementUtils.clearCache();
+	}
+
+
+	/**
+	 * Cache key for the AnnotatedElement cache.
+	 */
+	private static class AnnotationCacheKey {
+
+		private final AnnotatedElement element;
+
+		private final Class<? extends Annotation> annotationType;
+
+		public AnnotationCacheKey(AnnotatedElement element, Class<? extends Annotation> annotationType) {
+			this.element = element;
+			this.annotationType = annotationType;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof AnnotationCacheKey)) {
+				return false;
+			}
+			AnnotationCacheKey otherKey = (AnnotationCacheKey) other;
+			return (this.element.equals(otherKey.element) &&
+					ObjectUtils.nullSafeEquals(this.annotationType, otherKey.annotationType));
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.element.hashCode() * 29 + ObjectUtils.nullSafeHashCode(this.annotationType));
+		}
+	}
+
 
 	private static class AnnotationCollector<A extends Annotation> {
 
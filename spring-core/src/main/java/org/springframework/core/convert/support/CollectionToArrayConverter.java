@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -61,9 +61,11 @@ final class CollectionToArrayConverter implements ConditionalGenericConverter {
 		}
 		Collection<?> sourceCollection = (Collection<?>) source;
 		Object array = Array.newInstance(targetType.getElementTypeDescriptor().getType(), sourceCollection.size());
+		ElementConverter elementConverter =
+				new ElementConverter(this.conversionService, sourceType, targetType.getElementTypeDescriptor());
 		int i = 0;
 		for (Object sourceElement : sourceCollection) {
-			Object targetElement = this.conversionService.convert(sourceElement, sourceType.elementTypeDescriptor(sourceElement), targetType.getElementTypeDescriptor());
+			Object targetElement = elementConverter.convert(sourceElement);
 			Array.set(array, i++, targetElement);
 		}
 		return array;
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.convert.support;
+
+import org.springframework.core.convert.ConversionFailedException;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.converter.GenericConverter;
+
+/**
+ * A precompiled conversion between a fixed sourceType/targetType pair, as obtained
+ * from {@link GenericConversionService#getConversionPlan}. The matching converter
+ * is resolved once when the plan is created, so that each subsequent conversion
+ * can be invoked without any further converter lookups.
+ *
+ * <p>A plan is only valid for source objects that are instances of its source type.
+ * It reflects the converters registered at the time of its creation; converters
+ * added or removed afterwards are not taken into account.
+ *
+ * @since 4.1
+ * @see GenericConversionService#getConversionPlan(TypeDescriptor, TypeDescriptor)
+ */
+public final class ConversionPlan {
+
+	private final GenericConverter converter;
+
+	private final TypeDescriptor sourceType;
+
+	private final TypeDescriptor targetType;
+
+	private final boolean noOp;
+
+
+	ConversionPlan(GenericConverter converter, TypeDescriptor sourceType, TypeDescriptor targetType, boolean noOp) {
+		this.converter = converter;
+		this.sourceType = sourceType;
+		this.targetType = targetType;
+		this.noOp = noOp;
+	}
+
+
+	/**
+	 * Return the source type that this plan converts from.
+	 */
+	public TypeDescriptor getSourceType() {
+		return this.sourceType;
+	}
+
+	/**
+	 * Return the target type that this plan converts to.
+	 */
+	public TypeDescriptor getTargetType() {
+		return this.targetType;
+	}
+
+	/**
+	 * Return whether this plan simply returns the source object unchanged,
+	 * i.e. whether conversion can be bypassed for the given types.
+	 * @see GenericConversionService#canBypassConvert
+	 */
+	public boolean isNoOp() {
+		return this.noOp;
+	}
+
+	/**
+	 * Convert the given source object to this plan's target type.
+	 * <p>Equivalent to calling {@link GenericConversionService#convert(Object, TypeDescriptor, TypeDescriptor)}
+	 * with this plan's source and target type, just without the converter lookup.
+	 * @param source the source object to convert (may be {@code null})
+	 * @return the converted object, an instance of the target type
+	 * @throws org.springframework.core.convert.ConversionException if a conversion exception occurred
+	 * @throws IllegalArgumentException if the source is not an instance of this plan's source type
+	 */
+	public Object convert(Object source) {
+		if (source != null && !this.sourceType.getObjectType().isInstance(source)) {
+			throw new IllegalArgumentException("The source to convert from must be an instance of " +
+					this.sourceType + "; instead it was a " + source.getClass().getName());
+		}
+		Object result = ConversionUtils.invokeConverter(this.converter, source, this.sourceType, this.targetType);
+		if (result == null && this.targetType.isPrimitive()) {
+			throw new ConversionFailedException(this.sourceType, this.targetType, null,
+					new IllegalArgumentException("A null value cannot be assigned to a primitive type"));
+		}
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "ConversionPlan from " + this.sourceType + " to " + this.targetType + " using " + this.converter;
+	}
+
+}
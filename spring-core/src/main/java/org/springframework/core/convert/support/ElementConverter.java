@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.convert.support;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+
+/**
+ * Internal helper for converting the elements of a collection or array,
+ * reusing the {@link ConversionPlan} obtained for the previous element as long
+ * as subsequent elements are of the same class. This avoids a converter lookup
+ * and a narrowed element {@link TypeDescriptor} for every single element of
+ * a (typically homogeneous) source collection.
+ *
+ * <p>Falls back to regular conversion per element if the given ConversionService
+ * is not a {@link GenericConversionService}, if it overrides {@code canConvert}
+ * or {@code convert}, or if no plan can be obtained.
+ * Not thread-safe: to be used for a single conversion run only.
+ *
+ * @since 4.1
+ */
+final class ElementConverter {
+
+	private final ConversionService conversionService;
+
+	private final TypeDescriptor sourceType;
+
+	private final TypeDescriptor targetElementType;
+
+	private Class<?> lastElementClass;
+
+	private ConversionPlan lastPlan;
+
+
+	/**
+	 * Create a new ElementConverter.
+	 * @param conversionService the ConversionService to delegate to
+	 * @param sourceType the type of the source collection or array
+	 * @param targetElementType the element type to convert to
+	 */
+	public ElementConverter(ConversionService conversionService, TypeDescriptor sourceType,
+			TypeDescriptor targetElementType) {
+
+		this.conversionService = conversionService;
+		this.sourceType = sourceType;
+		this.targetElementType = targetElementType;
+	}
+
+
+	/**
+	 * Convert the given element of the source collection or array.
+	 * @param sourceElement the source element (may be {@code null})
+	 * @return the converted element
+	 */
+	public Object convert(Object sourceElement) {
+		if (sourceElement != null && this.conversionService instanceof GenericConversionService &&
+				((GenericConversionService) this.conversionService).isConversionPlanApplicable()) {
+			Class<?> elementClass = sourceElement.getClass();
+			if (elementClass != this.lastElementClass) {
+				this.lastPlan = ((GenericConversionService) this.conversionService).getConversionPlan(
+						this.sourceType.elementTypeDescriptor(sourceElement), this.targetElementType);
+				this.lastElementClass = elementClass;
+			}
+			if (this.lastPlan != null) {
+				return this.lastPlan.convert(sourceElement);
+			}
+		}
+		return this.conversionService.convert(sourceElement,
+				this.sourceType.elementTypeDescriptor(sourceElement), this.targetElementType);
+	}
+
+}
@@ -76,6 +76,8 @@ public class GenericConversionService implements ConfigurableConversionService {
 	private final Map<ConverterCacheKey, GenericConverter> converterCache =
 			new ConcurrentHashMap<ConverterCacheKey, GenericConverter>(64);
 
+	private final boolean conversionPlanApplicable = !overridesConversion(getClass());
+
 
 	// implementing ConverterRegistry
 
@@ -194,6 +196,37 @@ public class GenericConversionService implements ConfigurableConversionService {
 		return convert(source, TypeDescriptor.forObject(source), targetType);
 	}
 
+	/**
+	 * Obtain a reusable conversion plan for the given sourceType/targetType pair,
+	 * resolving the matching converter once so that repeated conversions between
+	 * the same types do not have to go through the converter lookup again.
+	 * @param sourceType context about the source type to convert from (required)
+	 * @param targetType context about the target type to convert to (required)
+	 * @return the conversion plan, or {@code null} if no converter is available
+	 * for the given types (i.e. if {@link #canConvert} would return {@code false})
+	 * @throws IllegalArgumentException if sourceType or targetType is null
+	 * @since 4.1
+	 * @see ConversionPlan#convert(Object)
+	 */
+	public ConversionPlan getConversionPlan(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		Assert.notNull(sourceType, "The sourceType to convert from cannot be null");
+		Assert.notNull(targetType, "The targetType to convert to cannot be null");
+		GenericConverter converter = getConverter(sourceType, targetType);
+		if (converter == null) {
+			return null;
+		}
+		return new ConversionPlan(converter, sourceType, targetType, converter == NO_OP_CONVERTER);
+	}
+
+	/**
+	 * Return whether conversion plans are equivalent to regular conversion calls
+	 * against this service, i.e. whether neither {@link #canConvert(TypeDescriptor, TypeDescriptor)}
+	 * nor {@link #convert(Object, TypeDescriptor, TypeDescriptor)} have been overridden.
+	 */
+	boolean isConversionPlanApplicable() {
+		return this.conversionPlanApplicable;
+	}
+
 	@Override
 	public String toString() {
 		return this.converters.toString();
@@ -276,6 +309,13 @@ public class GenericConversionService implements ConfigurableConversionService {
 		return generics;
 	}
 
+	private static boolean overridesConversion(Class<?> clazz) {
+		return (ClassUtils.getMethodIfAvailable(clazz, "canConvert",
+						TypeDescriptor.class, TypeDescriptor.class).getDeclaringClass() != GenericConversionService.class ||
+				ClassUtils.getMethodIfAvailable(clazz, "convert",
+						Object.class, TypeDescriptor.class, TypeDescriptor.class).getDeclaringClass() != GenericConversionService.class);
+	}
+
 	private void invalidateCache() {
 		this.converterCache.clear();
 	}
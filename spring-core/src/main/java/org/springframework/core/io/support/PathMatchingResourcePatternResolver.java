@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -472,12 +472,14 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 				rootEntryPath = rootEntryPath + "/";
 			}
 			Set<Resource> result = new LinkedHashSet<Resource>(8);
+			AntPathMatcher.CompiledPattern compiledPattern = compilePattern(getPathMatcher(), subPattern);
 			for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
 				JarEntry entry = entries.nextElement();
 				String entryPath = entry.getName();
 				if (entryPath.startsWith(rootEntryPath)) {
 					String relativePath = entryPath.substring(rootEntryPath.length());
-					if (getPathMatcher().match(subPattern, relativePath)) {
+					if (compiledPattern != null ? compiledPattern.match(relativePath) :
+							getPathMatcher().match(subPattern, relativePath)) {
 						result.add(rootDirResource.createRelative(relativePath));
 					}
 				}
@@ -622,9 +624,11 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 			}
 			return;
 		}
+		AntPathMatcher.CompiledPattern compiledPattern = compilePattern(getPathMatcher(), fullPattern);
 		for (File content : dirContents) {
 			String currPath = StringUtils.replace(content.getAbsolutePath(), File.separator, "/");
-			if (content.isDirectory() && getPathMatcher().matchStart(fullPattern, currPath + "/")) {
+			if (content.isDirectory() && (compiledPattern != null ? compiledPattern.matchStart(currPath + "/") :
+					getPathMatcher().matchStart(fullPattern, currPath + "/"))) {
 				if (!content.canRead()) {
 					if (logger.isDebugEnabled()) {
 						logger.debug("Skipping subdirectory [" + dir.getAbsolutePath() +
@@ -635,12 +639,22 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 					doRetrieveMatchingFiles(fullPattern, content, result);
 				}
 			}
-			if (getPathMatcher().match(fullPattern, currPath)) {
+			if (compiledPattern != null ? compiledPattern.match(currPath) :
+					getPathMatcher().match(fullPattern, currPath)) {
 				result.add(content);
 			}
 		}
 	}
 
+	/**
+	 * Compile the given pattern for matching against a series of paths,
+	 * provided that the given PathMatcher is an {@link AntPathMatcher}.
+	 * @return the compiled pattern, or {@code null} for other PathMatchers
+	 */
+	private static AntPathMatcher.CompiledPattern compilePattern(PathMatcher pathMatcher, String pattern) {
+		return (pathMatcher instanceof AntPathMatcher ? ((AntPathMatcher) pathMatcher).compile(pattern) : null);
+	}
+
 
 	/**
 	 * Inner delegate class, avoiding a hard JBoss VFS API dependency at runtime.
@@ -668,6 +682,8 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 
 		private final PathMatcher pathMatcher;
 
+		private final AntPathMatcher.CompiledPattern compiledPattern;
+
 		private final String rootPath;
 
 		private final Set<Resource> resources = new LinkedHashSet<Resource>();
@@ -675,6 +691,7 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		public PatternVirtualFileVisitor(String rootPath, String subPattern, PathMatcher pathMatcher) {
 			this.subPattern = subPattern;
 			this.pathMatcher = pathMatcher;
+			this.compiledPattern = compilePattern(pathMatcher, subPattern);
 			this.rootPath = (rootPath.length() == 0 || rootPath.endsWith("/") ? rootPath : rootPath + "/");
 		}
 
@@ -705,8 +722,9 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		}
 
 		public void visit(Object vfsResource) {
-			if (this.pathMatcher.match(this.subPattern,
-					VfsPatternUtils.getPath(vfsResource).substring(this.rootPath.length()))) {
+			String path = VfsPatternUtils.getPath(vfsResource).substring(this.rootPath.length());
+			if (this.compiledPattern != null ? this.compiledPattern.match(path) :
+					this.pathMatcher.match(this.subPattern, path)) {
 				this.resources.add(new VfsResource(vfsResource));
 			}
 		}
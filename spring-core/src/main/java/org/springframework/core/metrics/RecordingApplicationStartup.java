@@ -0,0 +1,430 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ApplicationStartup} implementation that records a timeline of
+ * {@link StartupStep steps} in memory, for inspection once startup has finished.
+ *
+ * <p>Steps are nested per thread: a step started while another step is active
+ * on the same thread becomes a child of that step. Ended steps are kept in
+ * their order of completion, up to the configured {@link #setCapacity capacity};
+ * any further steps get counted but not retained.
+ *
+ * <p>Typical usage:
+ *
+ * <pre class="code">
+ * RecordingApplicationStartup startup = new RecordingApplicationStartup();
+ * context.setApplicationStartup(startup);
+ * context.refresh();
+ * logger.info(startup.getReport());</pre>
+ *
+ * <p>The recorded data can be queried via {@link #getTimeline()},
+ * {@link #getSteps(String)}, {@link #getSlowestSteps(String, int)} and
+ * {@link #getTotalDurationByTag(String, String)}, e.g. for finding the
+ * bean post-processor which contributes the most to bean creation time.
+ *
+ * @since 4.1
+ */
+public class RecordingApplicationStartup implements ApplicationStartup {
+
+	/** Default maximum number of retained steps: 10000 */
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	private static final Comparator<RecordedStep> START_TIME_COMPARATOR = new Comparator<RecordedStep>() {
+		@Override
+		public int compare(RecordedStep step1, RecordedStep step2) {
+			int result = (step1.startTime < step2.startTime ? -1 : (step1.startTime > step2.startTime ? 1 : 0));
+			return (result != 0 ? result : (step1.id < step2.id ? -1 : (step1.id > step2.id ? 1 : 0)));
+		}
+	};
+
+	private static final Comparator<RecordedStep> DURATION_COMPARATOR = new Comparator<RecordedStep>() {
+		@Override
+		public int compare(RecordedStep step1, RecordedStep step2) {
+			long duration1 = step1.getDuration();
+			long duration2 = step2.getDuration();
+			return (duration1 > duration2 ? -1 : (duration1 < duration2 ? 1 : 0));
+		}
+	};
+
+
+	private final long startupTime = System.nanoTime();
+
+	private final AtomicLong idCounter = new AtomicLong();
+
+	private final ThreadLocal<RecordedStep> currentStep =
+			new NamedThreadLocal<RecordedStep>("Current startup step");
+
+	private final List<RecordedStep> recordedSteps = new ArrayList<RecordedStep>();
+
+	private volatile int capacity = DEFAULT_CAPACITY;
+
+	private long droppedSteps = 0;
+
+
+	/**
+	 * Specify the maximum number of steps to retain. Default is 10000.
+	 * <p>Steps ended after reaching this limit are not retained any more,
+	 * keeping the memory footprint bounded for very large applications.
+	 * @see #getDroppedStepCount()
+	 */
+	public void setCapacity(int capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Return the maximum number of steps to retain.
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+
+	@Override
+	public StartupStep start(String name) {
+		Assert.notNull(name, "Step name must not be null");
+		RecordedStep parent = this.currentStep.get();
+		RecordedStep step = new RecordedStep(this.idCounter.incrementAndGet(), name, parent, System.nanoTime());
+		this.currentStep.set(step);
+		return step;
+	}
+
+	private void record(RecordedStep step) {
+		// Restore the parent as current step, also discarding any nested steps
+		// that have not been ended properly (e.g. due to an exception).
+		RecordedStep current = this.currentStep.get();
+		while (current != null && current != step) {
+			current = current.parent;
+		}
+		if (current != null) {
+			if (step.parent != null) {
+				this.currentStep.set(step.parent);
+			}
+			else {
+				this.currentStep.remove();
+			}
+		}
+		synchronized (this.recordedSteps) {
+			if (this.recordedSteps.size() < this.capacity) {
+				this.recordedSteps.add(step);
+			}
+			else {
+				this.droppedSteps++;
+			}
+		}
+	}
+
+
+	/**
+	 * Return all ended steps, in the order of their start.
+	 */
+	public List<RecordedStep> getTimeline() {
+		List<RecordedStep> steps;
+		synchronized (this.recordedSteps) {
+			steps = new ArrayList<RecordedStep>(this.recordedSteps);
+		}
+		Collections.sort(steps, START_TIME_COMPARATOR);
+		return steps;
+	}
+
+	/**
+	 * Return all ended steps with the given name, in the order of their start.
+	 * @param name the step name
+	 */
+	public List<RecordedStep> getSteps(String name) {
+		List<RecordedStep> steps = new ArrayList<RecordedStep>();
+		for (RecordedStep step : getTimeline()) {
+			if (step.getName().equals(name)) {
+				steps.add(step);
+			}
+		}
+		return steps;
+	}
+
+	/**
+	 * Return the slowest of the ended steps, in descending order of duration.
+	 * @param name the step name to restrict the result to
+	 * (or {@code null} for considering all steps)
+	 * @param maxCount the maximum number of steps to return
+	 */
+	public List<RecordedStep> getSlowestSteps(String name, int maxCount) {
+		List<RecordedStep> steps = (name != null ? getSteps(name) : getTimeline());
+		Collections.sort(steps, DURATION_COMPARATOR);
+		return (steps.size() > maxCount ? new ArrayList<RecordedStep>(steps.subList(0, maxCount)) : steps);
+	}
+
+	/**
+	 * Sum up the duration of all ended steps with the given name, grouped
+	 * by the value of the given tag, in descending order of total duration.
+	 * <p>For example, {@code getTotalDurationByTag("spring.beans.post-process", "postProcessor")}
+	 * reveals the time spent in each bean post-processor across all beans.
+	 * @param name the step name
+	 * @param tagKey the key of the tag to group by
+	 * @return a Map from tag value to total duration in nanoseconds
+	 */
+	public Map<String, Long> getTotalDurationByTag(String name, String tagKey) {
+		final Map<String, Long> totals = new HashMap<String, Long>();
+		for (RecordedStep step : getSteps(name)) {
+			String value = step.getTags().get(tagKey);
+			if (value != null) {
+				Long total = totals.get(value);
+				totals.put(value, (total != null ? total : 0L) + step.getDuration());
+			}
+		}
+		List<String> keys = new ArrayList<String>(totals.keySet());
+		Collections.sort(keys, new Comparator<String>() {
+			@Override
+			public int compare(String key1, String key2) {
+				return totals.get(key2).compareTo(totals.get(key1));
+			}
+		});
+		Map<String, Long> result = new LinkedHashMap<String, Long>(keys.size());
+		for (String key : keys) {
+			result.put(key, totals.get(key));
+		}
+		return result;
+	}
+
+	/**
+	 * Return the number of ended steps that were not retained
+	 * since the {@link #setCapacity capacity} had been reached.
+	 */
+	public long getDroppedStepCount() {
+		synchronized (this.recordedSteps) {
+			return this.droppedSteps;
+		}
+	}
+
+	/**
+	 * Remove all recorded steps, e.g. after exporting them.
+	 */
+	public void clear() {
+		synchronized (this.recordedSteps) {
+			this.recordedSteps.clear();
+			this.droppedSteps = 0;
+		}
+	}
+
+
+	/**
+	 * Write a human-readable report of the recorded timeline to the given Writer,
+	 * showing nested steps indented below their parent along with their tags,
+	 * their offset from the creation of this recorder and their duration.
+	 * @param writer the Writer to write to
+	 * @param minDurationMillis the minimum duration of a step (in milliseconds)
+	 * for it and its nested steps to be included in the report
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeReport(Writer writer, long minDurationMillis) throws IOException {
+		List<RecordedStep> timeline = getTimeline();
+		Map<Long, List<RecordedStep>> children = new HashMap<Long, List<RecordedStep>>();
+		Map<Long, RecordedStep> stepsById = new HashMap<Long, RecordedStep>(timeline.size());
+		for (RecordedStep step : timeline) {
+			stepsById.put(step.getId(), step);
+		}
+		List<RecordedStep> roots = new LinkedList<RecordedStep>();
+		for (RecordedStep step : timeline) {
+			Long parentId = step.getParentId();
+			if (parentId != null && stepsById.containsKey(parentId)) {
+				List<RecordedStep> siblings = children.get(parentId);
+				if (siblings == null) {
+					siblings = new LinkedList<RecordedStep>();
+					children.put(parentId, siblings);
+				}
+				siblings.add(step);
+			}
+			else {
+				roots.add(step);
+			}
+		}
+		writer.write("Startup timeline: " + timeline.size() + " steps");
+		long dropped = getDroppedStepCount();
+		if (dropped > 0) {
+			writer.write(" (" + dropped + " further steps dropped)");
+		}
+		writer.write("\n     start(ms)  duration(ms)  step\n");
+		long minDuration = TimeUnit.MILLISECONDS.toNanos(minDurationMillis);
+		for (RecordedStep root : roots) {
+			writeStep(writer, root, children, 0, minDuration);
+		}
+		writer.flush();
+	}
+
+	private void writeStep(Writer writer, RecordedStep step, Map<Long, List<RecordedStep>> children,
+			int depth, long minDuration) throws IOException {
+
+		if (step.getDuration() < minDuration) {
+			return;
+		}
+		writer.write(String.format("%14.1f  %12.1f  ", toMillis(step.startTime - this.startupTime),
+				toMillis(step.getDuration())));
+		for (int i = 0; i < depth; i++) {
+			writer.write("  ");
+		}
+		writer.write(step.getName());
+		if (!step.getTags().isEmpty()) {
+			writer.write(" " + step.getTags());
+		}
+		writer.write("\n");
+		List<RecordedStep> nested = children.get(step.getId());
+		if (nested != null) {
+			for (RecordedStep child : nested) {
+				writeStep(writer, child, children, depth + 1, minDuration);
+			}
+		}
+	}
+
+	/**
+	 * Return a human-readable report of the complete recorded timeline.
+	 * @see #writeReport(Writer, long)
+	 */
+	public String getReport() {
+		StringWriter writer = new StringWriter();
+		try {
+			writeReport(writer, 0);
+		}
+		catch (IOException ex) {
+			// Cannot happen with a StringWriter
+			throw new IllegalStateException(ex);
+		}
+		return writer.toString();
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1000000.0;
+	}
+
+
+	/**
+	 * A {@link StartupStep} recorded by a {@link RecordingApplicationStartup},
+	 * exposing its timing information once ended.
+	 */
+	public final class RecordedStep implements StartupStep {
+
+		private final long id;
+
+		private final String name;
+
+		private final RecordedStep parent;
+
+		private final long startTime;
+
+		private final String threadName;
+
+		private Map<String, String> tags;
+
+		private long endTime;
+
+		private volatile boolean ended;
+
+		private RecordedStep(long id, String name, RecordedStep parent, long startTime) {
+			this.id = id;
+			this.name = name;
+			this.parent = parent;
+			this.startTime = startTime;
+			this.threadName = Thread.currentThread().getName();
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		public Long getParentId() {
+			return (this.parent != null ? this.parent.id : null);
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			Assert.state(!this.ended, "StartupStep has already ended");
+			if (this.tags == null) {
+				this.tags = new LinkedHashMap<String, String>(4);
+			}
+			this.tags.put(key, value);
+			return this;
+		}
+
+		@Override
+		public Map<String, String> getTags() {
+			return (this.tags != null ? Collections.unmodifiableMap(this.tags) :
+					Collections.<String, String>emptyMap());
+		}
+
+		@Override
+		public void end() {
+			Assert.state(!this.ended, "StartupStep has already ended");
+			this.endTime = System.nanoTime();
+			this.ended = true;
+			record(this);
+		}
+
+		/**
+		 * Return the start of this step, in nanoseconds since the creation
+		 * of the {@code RecordingApplicationStartup}.
+		 */
+		public long getStartOffset() {
+			return this.startTime - startupTime;
+		}
+
+		/**
+		 * Return the duration of this step in nanoseconds,
+		 * or -1 if the step has not ended yet.
+		 */
+		public long getDuration() {
+			return (this.ended ? this.endTime - this.startTime : -1);
+		}
+
+		/**
+		 * Return the name of the thread which started this step.
+		 */
+		public String getThreadName() {
+			return this.threadName;
+		}
+
+		@Override
+		public String toString() {
+			return this.name + (this.tags != null ? " " + this.tags : "") +
+					(this.ended ? ": " + TimeUnit.NANOSECONDS.toMillis(getDuration()) + " ms" : "");
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,9 @@ import org.springframework.core.io.ResourceLoader;
  * caching {@link MetadataReader} per Spring {@link Resource} handle
  * (i.e. per ".class" file).
  *
+ * <p>Can optionally be backed by a {@link PersistentMetadataCache}, restoring
+ * metadata for unchanged class files from a previous run instead of parsing them.
+ *
  * @author Juergen Hoeller
  * @author Costin Leau
  * @since 2.5
@@ -40,6 +43,8 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 
 	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
 
+	private volatile PersistentMetadataCache persistentCache;
+
 	@SuppressWarnings("serial")
 	private final Map<Resource, MetadataReader> metadataReaderCache =
 			new LinkedHashMap<Resource, MetadataReader>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
@@ -90,22 +95,53 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 		return this.cacheLimit;
 	}
 
+	/**
+	 * Specify a persistent cache to consult before parsing a class file,
+	 * and to add newly parsed metadata to.
+	 * <p>Note that the persistent cache needs to be {@link PersistentMetadataCache#save()
+	 * saved} explicitly, typically once the application context has been refreshed.
+	 * @since 4.1
+	 */
+	public void setPersistentCache(PersistentMetadataCache persistentCache) {
+		this.persistentCache = persistentCache;
+	}
+
+	/**
+	 * Return the persistent cache backing this MetadataReaderFactory, if any.
+	 * @since 4.1
+	 */
+	public PersistentMetadataCache getPersistentCache() {
+		return this.persistentCache;
+	}
+
 
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
 		if (getCacheLimit() <= 0) {
-			return super.getMetadataReader(resource);
+			return doGetMetadataReader(resource);
 		}
 		synchronized (this.metadataReaderCache) {
 			MetadataReader metadataReader = this.metadataReaderCache.get(resource);
 			if (metadataReader == null) {
-				metadataReader = super.getMetadataReader(resource);
+				metadataReader = doGetMetadataReader(resource);
 				this.metadataReaderCache.put(resource, metadataReader);
 			}
 			return metadataReader;
 		}
 	}
 
+	/**
+	 * Obtain a MetadataReader through the persistent cache, if available,
+	 * parsing the class file directly otherwise.
+	 */
+	private MetadataReader doGetMetadataReader(Resource resource) throws IOException {
+		PersistentMetadataCache persistentCache = this.persistentCache;
+		if (persistentCache != null) {
+			return persistentCache.getMetadataReader(resource, getResourceLoader().getClassLoader());
+		}
+		return super.getMetadataReader(resource);
+	}
+
 	/**
 	 * Clear the entire MetadataReader cache, removing all cached class metadata.
 	 */
@@ -0,0 +1,882 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.core.SpringVersion;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * File-based cache of class metadata, allowing a {@link CachingMetadataReaderFactory}
+ * to skip ASM parsing of class files that have already been parsed in a previous run.
+ *
+ * <p>Entries are keyed by the URL of the class file resource, i.e. by jar path plus
+ * entry name for classes in jar files. An entry is only used if its class file is
+ * unchanged: a class file in a directory needs to match in last-modified timestamp
+ * and size; for a class in a jar file, the jar file needs to match in last-modified
+ * timestamp, size and a hash over the names, sizes and CRCs of its entries. A changed
+ * jar file therefore invalidates all of its entries. Only resources with "file:" or
+ * "jar:" URLs are considered for persistent caching.
+ *
+ * <p>An entry holds what ASM reports for the class file itself: the class structure
+ * and the annotation values as declared, in a plain binary format. On restore, this
+ * information is replayed through the regular metadata reading visitors, so anything
+ * derived from other classes, such as annotation default values, meta-annotations and
+ * enum constants, gets resolved against the currently available classes, exactly as
+ * when parsing the class file.
+ *
+ * <p>The cache file is read on first access, with entries getting restored on demand.
+ * {@link #save()} writes all entries that have been used or added since, dropping
+ * entries for classes that have not been requested; it is typically invoked once the
+ * application context has been refreshed. A single instance may be shared by several
+ * MetadataReaderFactory instances. Any read failure for the cache file or for specific
+ * entries simply leads to regular parsing of the affected class files.
+ *
+ * @since 4.1
+ * @see CachingMetadataReaderFactory#setPersistentCache
+ */
+public class PersistentMetadataCache {
+
+	private static final int FILE_MAGIC = 0x53504d43;
+
+	private static final int FORMAT_VERSION = 1;
+
+	// Recorded class events
+	private static final byte END = 0;
+
+	private static final byte CLASS = 1;
+
+	private static final byte OUTER_CLASS = 2;
+
+	private static final byte INNER_CLASS = 3;
+
+	private static final byte CLASS_ANNOTATION = 4;
+
+	private static final byte METHOD = 5;
+
+	private static final byte METHOD_ANNOTATION = 6;
+
+	// Recorded annotation events
+	private static final byte VALUE = 7;
+
+	private static final byte ENUM = 8;
+
+	private static final byte ANNOTATION = 9;
+
+	private static final byte ARRAY = 10;
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataCache.class);
+
+
+	private final File cacheFile;
+
+	private final Object loadMonitor = new Object();
+
+	/** Entries read from the cache file: resource key -> entry */
+	private volatile Map<String, Entry> loadedEntries;
+
+	/** Entries to be written on save: resource key -> entry */
+	private final Map<String, Entry> storedEntries = new ConcurrentHashMap<String, Entry>(256);
+
+	/** Stamps of the jar files encountered so far: jar file path -> stamp */
+	private final Map<String, ResourceStamp> jarStamps = new ConcurrentHashMap<String, ResourceStamp>(16);
+
+
+	/**
+	 * Create a new PersistentMetadataCache for the given file.
+	 * <p>The file does not need to exist yet; it will be created on {@link #save()}.
+	 * @param cacheFile the file to read cached metadata from and to write it to
+	 */
+	public PersistentMetadataCache(File cacheFile) {
+		Assert.notNull(cacheFile, "Cache file must not be null");
+		this.cacheFile = cacheFile;
+	}
+
+
+	/**
+	 * Return the file that this cache reads from and writes to.
+	 */
+	public File getCacheFile() {
+		return this.cacheFile;
+	}
+
+	/**
+	 * Return the number of entries that will be written on {@link #save()}.
+	 */
+	public int getEntryCount() {
+		return this.storedEntries.size();
+	}
+
+	/**
+	 * Obtain a MetadataReader for the given resource, restoring its metadata from
+	 * this cache if present and still valid, or parsing the class file otherwise
+	 * (keeping the parsed metadata for the next {@link #save()}).
+	 * @param resource the class file resource
+	 * @param classLoader the ClassLoader to resolve annotation values against
+	 * @return the MetadataReader (never {@code null})
+	 * @throws IOException in case of I/O failure when parsing the class file
+	 */
+	MetadataReader getMetadataReader(Resource resource, ClassLoader classLoader) throws IOException {
+		String key = null;
+		ResourceStamp stamp = null;
+		try {
+			URL url = resource.getURL();
+			stamp = getResourceStamp(url);
+			key = url.toString();
+		}
+		catch (IOException ex) {
+			// Not resolvable as file or jar entry -> no persistent caching.
+		}
+		if (stamp == null) {
+			return new SimpleMetadataReader(resource, classLoader);
+		}
+
+		Entry entry = this.storedEntries.get(key);
+		if (entry == null || !entry.stamp.equals(stamp)) {
+			entry = getLoadedEntries().get(key);
+		}
+		if (entry != null && entry.stamp.equals(stamp)) {
+			try {
+				MetadataReader metadataReader = new SimpleMetadataReader(resource, entry.replay(classLoader));
+				this.storedEntries.put(key, entry);
+				return metadataReader;
+			}
+			catch (Throwable ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to restore cached metadata for " + resource + " - parsing class file instead", ex);
+				}
+			}
+		}
+
+		ClassReader classReader = SimpleMetadataReader.createClassReader(resource);
+		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+		Recording recording = new Recording();
+		classReader.accept(new RecordingClassVisitor(visitor, recording), ClassReader.SKIP_DEBUG);
+		byte[] data = recording.toByteArray();
+		if (data != null) {
+			this.storedEntries.put(key, new Entry(stamp, data, 0, data.length));
+		}
+		else if (logger.isDebugEnabled()) {
+			logger.debug("Cannot cache metadata for " + resource + " persistently");
+		}
+		return new SimpleMetadataReader(resource, visitor);
+	}
+
+	/**
+	 * Write all entries that have been read from the existing cache file
+	 * or added since to the cache file, replacing its previous content.
+	 * @throws IOException in case of I/O errors
+	 */
+	public void save() throws IOException {
+		List<Map.Entry<String, Entry>> entries =
+				new ArrayList<Map.Entry<String, Entry>>(this.storedEntries.entrySet());
+		File dir = this.cacheFile.getAbsoluteFile().getParentFile();
+		if (dir != null && !dir.exists()) {
+			dir.mkdirs();
+		}
+		File tempFile = new File(dir, this.cacheFile.getName() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(getSpringVersion());
+			out.writeInt(entries.size());
+			for (Map.Entry<String, Entry> entry : entries) {
+				out.writeUTF(entry.getKey());
+				entry.getValue().writeTo(out);
+			}
+		}
+		finally {
+			out.close();
+		}
+		synchronized (this.loadMonitor) {
+			if (!tempFile.renameTo(this.cacheFile)) {
+				this.cacheFile.delete();
+				if (!tempFile.renameTo(this.cacheFile)) {
+					throw new IOException("Failed to replace cache file [" + this.cacheFile + "]");
+				}
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Saved " + entries.size() + " entries to metadata cache file [" + this.cacheFile + "]");
+		}
+	}
+
+	/**
+	 * Remove all entries from this cache and delete the cache file.
+	 */
+	public void clear() {
+		synchronized (this.loadMonitor) {
+			this.loadedEntries = Collections.emptyMap();
+			this.storedEntries.clear();
+			this.jarStamps.clear();
+			this.cacheFile.delete();
+		}
+	}
+
+
+	private Map<String, Entry> getLoadedEntries() {
+		Map<String, Entry> entries = this.loadedEntries;
+		if (entries == null) {
+			synchronized (this.loadMonitor) {
+				entries = this.loadedEntries;
+				if (entries == null) {
+					entries = loadEntries();
+					this.loadedEntries = entries;
+				}
+			}
+		}
+		return entries;
+	}
+
+	private Map<String, Entry> loadEntries() {
+		if (!this.cacheFile.isFile()) {
+			return Collections.emptyMap();
+		}
+		try {
+			// Read into heap memory rather than mapping the file, since a mapped
+			// file cannot be replaced on save on some platforms (e.g. on Windows).
+			byte[] content = FileCopyUtils.copyToByteArray(this.cacheFile);
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FORMAT_VERSION ||
+					!getSpringVersion().equals(in.readUTF())) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring outdated metadata cache file [" + this.cacheFile + "]");
+				}
+				return Collections.emptyMap();
+			}
+			int count = in.readInt();
+			Map<String, Entry> entries = new HashMap<String, Entry>(count * 4 / 3 + 1);
+			for (int i = 0; i < count; i++) {
+				String key = in.readUTF();
+				ResourceStamp stamp = new ResourceStamp(in.readLong(), in.readLong(), in.readLong());
+				int length = in.readInt();
+				int offset = content.length - in.available();
+				if (in.skipBytes(length) != length) {
+					throw new IOException("Unexpected end of cache file");
+				}
+				entries.put(key, new Entry(stamp, content, offset, length));
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + count + " entries from metadata cache file [" + this.cacheFile + "]");
+			}
+			return entries;
+		}
+		catch (Throwable ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Could not load metadata cache file [" + this.cacheFile + "] - ignoring it", ex);
+			}
+			return Collections.emptyMap();
+		}
+	}
+
+	/**
+	 * Determine the current stamp for the given class file URL.
+	 * @return the stamp, or {@code null} if the URL is not supported
+	 * for persistent caching
+	 */
+	private ResourceStamp getResourceStamp(URL url) throws IOException {
+		if (ResourceUtils.isJarURL(url)) {
+			URL jarFileUrl = ResourceUtils.extractJarFileURL(url);
+			if (!ResourceUtils.isFileURL(jarFileUrl)) {
+				return null;
+			}
+			File jarFile = ResourceUtils.getFile(jarFileUrl);
+			ResourceStamp stamp = this.jarStamps.get(jarFile.getPath());
+			if (stamp == null) {
+				stamp = new ResourceStamp(jarFile.lastModified(), jarFile.length(), getJarHash(jarFile));
+				this.jarStamps.put(jarFile.getPath(), stamp);
+			}
+			return stamp;
+		}
+		else if (ResourceUtils.isFileURL(url)) {
+			File file = ResourceUtils.getFile(url);
+			if (!file.isFile()) {
+				return null;
+			}
+			return new ResourceStamp(file.lastModified(), file.length(), 0);
+		}
+		return null;
+	}
+
+	/**
+	 * Compute a hash over the central directory of the given jar file,
+	 * i.e. over the name, size and CRC of each entry.
+	 */
+	private static long getJarHash(File jarFile) throws IOException {
+		ZipFile zipFile = new ZipFile(jarFile);
+		try {
+			long hash = 0;
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				hash = 31 * hash + entry.getName().hashCode();
+				hash = 31 * hash + entry.getSize();
+				hash = 31 * hash + entry.getCrc();
+			}
+			return hash;
+		}
+		finally {
+			zipFile.close();
+		}
+	}
+
+	private static String getSpringVersion() {
+		String version = SpringVersion.getVersion();
+		return (version != null ? version : "");
+	}
+
+
+	//---------------------------------------------------------------------
+	// Replaying of recorded class file events
+	//---------------------------------------------------------------------
+
+	private static AnnotationMetadataReadingVisitor replayClass(DataInputStream in, ClassLoader classLoader)
+			throws IOException {
+
+		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+		MethodVisitor methodVisitor = null;
+		int event;
+		while ((event = in.readByte()) != END) {
+			switch (event) {
+				case CLASS: {
+					int access = in.readInt();
+					String name = readString(in);
+					String superName = readString(in);
+					String[] interfaces = new String[in.readInt()];
+					for (int i = 0; i < interfaces.length; i++) {
+						interfaces[i] = readString(in);
+					}
+					visitor.visit(0, access, name, null, superName, interfaces);
+					break;
+				}
+				case OUTER_CLASS: {
+					String owner = readString(in);
+					String name = readString(in);
+					String desc = readString(in);
+					visitor.visitOuterClass(owner, name, desc);
+					break;
+				}
+				case INNER_CLASS: {
+					String name = readString(in);
+					String outerName = readString(in);
+					String innerName = readString(in);
+					visitor.visitInnerClass(name, outerName, innerName, in.readInt());
+					break;
+				}
+				case CLASS_ANNOTATION: {
+					String desc = readString(in);
+					replayAnnotation(in, visitor.visitAnnotation(desc, in.readBoolean()));
+					break;
+				}
+				case METHOD: {
+					int access = in.readInt();
+					String name = readString(in);
+					methodVisitor = visitor.visitMethod(access, name, readString(in), null, null);
+					break;
+				}
+				case METHOD_ANNOTATION: {
+					if (methodVisitor == null) {
+						throw new IOException("Method annotation without method");
+					}
+					String desc = readString(in);
+					replayAnnotation(in, methodVisitor.visitAnnotation(desc, in.readBoolean()));
+					break;
+				}
+				default:
+					throw new IOException("Unknown class event: " + event);
+			}
+		}
+		visitor.visitEnd();
+		return visitor;
+	}
+
+	private static void replayAnnotation(DataInputStream in, AnnotationVisitor visitor) throws IOException {
+		int event;
+		while ((event = in.readByte()) != END) {
+			String name = readString(in);
+			switch (event) {
+				case VALUE:
+					visitor.visit(name, readValue(in));
+					break;
+				case ENUM: {
+					String desc = readString(in);
+					visitor.visitEnum(name, desc, readString(in));
+					break;
+				}
+				case ANNOTATION:
+					replayAnnotation(in, visitor.visitAnnotation(name, readString(in)));
+					break;
+				case ARRAY:
+					replayAnnotation(in, visitor.visitArray(name));
+					break;
+				default:
+					throw new IOException("Unknown annotation event: " + event);
+			}
+		}
+		visitor.visitEnd();
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return (in.readBoolean() ? in.readUTF() : null);
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		int tag = in.readByte();
+		if (tag != '[') {
+			return readScalarValue(tag, in);
+		}
+		int elementTag = in.readByte();
+		int length = in.readInt();
+		Object array;
+		switch (elementTag) {
+			case 'Z': array = new boolean[length]; break;
+			case 'B': array = new byte[length]; break;
+			case 'C': array = new char[length]; break;
+			case 'S': array = new short[length]; break;
+			case 'I': array = new int[length]; break;
+			case 'J': array = new long[length]; break;
+			case 'F': array = new float[length]; break;
+			case 'D': array = new double[length]; break;
+			default: throw new IOException("Unknown array element tag: " + elementTag);
+		}
+		for (int i = 0; i < length; i++) {
+			Array.set(array, i, readScalarValue(elementTag, in));
+		}
+		return array;
+	}
+
+	private static Object readScalarValue(int tag, DataInputStream in) throws IOException {
+		switch (tag) {
+			case 'Z': return in.readBoolean();
+			case 'B': return in.readByte();
+			case 'C': return in.readChar();
+			case 'S': return in.readShort();
+			case 'I': return in.readInt();
+			case 'J': return in.readLong();
+			case 'F': return in.readFloat();
+			case 'D': return in.readDouble();
+			case 's': return in.readUTF();
+			case 'c': return Type.getType(in.readUTF());
+			default: throw new IOException("Unknown value tag: " + tag);
+		}
+	}
+
+
+	/**
+	 * Validation stamp of a class file or of a jar file.
+	 */
+	private static class ResourceStamp {
+
+		private final long lastModified;
+
+		private final long size;
+
+		private final long hash;
+
+		public ResourceStamp(long lastModified, long size, long hash) {
+			this.lastModified = lastModified;
+			this.size = size;
+			this.hash = hash;
+		}
+
+		public void writeTo(DataOutputStream out) throws IOException {
+			out.writeLong(this.lastModified);
+			out.writeLong(this.size);
+			out.writeLong(this.hash);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ResourceStamp)) {
+				return false;
+			}
+			ResourceStamp otherStamp = (ResourceStamp) other;
+			return (this.lastModified == otherStamp.lastModified && this.size == otherStamp.size &&
+					this.hash == otherStamp.hash);
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (this.lastModified ^ this.size ^ this.hash);
+		}
+	}
+
+
+	/**
+	 * Cache entry: the recorded class file events for a specific resource stamp,
+	 * held within a (potentially shared) byte array.
+	 */
+	private static class Entry {
+
+		public final ResourceStamp stamp;
+
+		private final byte[] content;
+
+		private final int offset;
+
+		private final int length;
+
+		public Entry(ResourceStamp stamp, byte[] content, int offset, int length) {
+			this.stamp = stamp;
+			this.content = content;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		public AnnotationMetadataReadingVisitor replay(ClassLoader classLoader) throws IOException {
+			return replayClass(new DataInputStream(
+					new ByteArrayInputStream(this.content, this.offset, this.length)), classLoader);
+		}
+
+		public void writeTo(DataOutputStream out) throws IOException {
+			this.stamp.writeTo(out);
+			out.writeInt(this.length);
+			out.write(this.content, this.offset, this.length);
+		}
+	}
+
+
+	/**
+	 * Binary recording of class file events. Any failure, e.g. an annotation
+	 * value of unsupported type, marks the recording as unusable.
+	 */
+	private static class Recording {
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+
+		private final DataOutputStream out = new DataOutputStream(this.bytes);
+
+		private boolean failed;
+
+		public void writeEvent(byte event) {
+			try {
+				this.out.writeByte(event);
+			}
+			catch (IOException ex) {
+				this.failed = true;
+			}
+		}
+
+		public void writeInt(int value) {
+			try {
+				this.out.writeInt(value);
+			}
+			catch (IOException ex) {
+				this.failed = true;
+			}
+		}
+
+		public void writeBoolean(boolean value) {
+			try {
+				this.out.writeBoolean(value);
+			}
+			catch (IOException ex) {
+				this.failed = true;
+			}
+		}
+
+		public void writeString(String value) {
+			try {
+				this.out.writeBoolean(value != null);
+				if (value != null) {
+					this.out.writeUTF(value);
+				}
+			}
+			catch (IOException ex) {
+				this.failed = true;
+			}
+		}
+
+		public void writeValue(Object value) {
+			try {
+				Class<?> componentType = value.getClass().getComponentType();
+				if (componentType != null && componentType.isPrimitive()) {
+					int elementTag = Type.getDescriptor(componentType).charAt(0);
+					int length = Array.getLength(value);
+					this.out.writeByte('[');
+					this.out.writeByte(elementTag);
+					this.out.writeInt(length);
+					for (int i = 0; i < length; i++) {
+						writeScalarValue(elementTag, Array.get(value, i));
+					}
+				}
+				else {
+					int tag = getValueTag(value);
+					this.out.writeByte(tag);
+					writeScalarValue(tag, value);
+				}
+			}
+			catch (IOException ex) {
+				this.failed = true;
+			}
+		}
+
+		private int getValueTag(Object value) throws IOException {
+			if (value instanceof String) {
+				return 's';
+			}
+			else if (value instanceof Type) {
+				return 'c';
+			}
+			else if (value instanceof Boolean) {
+				return 'Z';
+			}
+			else if (value instanceof Byte) {
+				return 'B';
+			}
+			else if (value instanceof Character) {
+				return 'C';
+			}
+			else if (value instanceof Short) {
+				return 'S';
+			}
+			else if (value instanceof Integer) {
+				return 'I';
+			}
+			else if (value instanceof Long) {
+				return 'J';
+			}
+			else if (value instanceof Float) {
+				return 'F';
+			}
+			else if (value instanceof Double) {
+				return 'D';
+			}
+			throw new IOException("Unsupported annotation value type: " + value.getClass().getName());
+		}
+
+		private void writeScalarValue(int tag, Object value) throws IOException {
+			switch (tag) {
+				case 'Z': this.out.writeBoolean((Boolean) value); break;
+				case 'B': this.out.writeByte((Byte) value); break;
+				case 'C': this.out.writeChar((Character) value); break;
+				case 'S': this.out.writeShort((Short) value); break;
+				case 'I': this.out.writeInt((Integer) value); break;
+				case 'J': this.out.writeLong((Long) value); break;
+				case 'F': this.out.writeFloat((Float) value); break;
+				case 'D': this.out.writeDouble((Double) value); break;
+				case 's': this.out.writeUTF((String) value); break;
+				case 'c': this.out.writeUTF(((Type) value).getDescriptor()); break;
+				default: throw new IOException("Unsupported annotation value tag: " + tag);
+			}
+		}
+
+		/**
+		 * Return the recorded events, or {@code null} if the recording failed.
+		 */
+		public byte[] toByteArray() {
+			return (this.failed ? null : this.bytes.toByteArray());
+		}
+	}
+
+
+	/**
+	 * ClassVisitor that records all events relevant for metadata reading
+	 * while passing them on to the actual metadata reading visitor.
+	 */
+	private static class RecordingClassVisitor extends ClassVisitor {
+
+		private final Recording recording;
+
+		public RecordingClassVisitor(ClassVisitor classVisitor, Recording recording) {
+			super(SpringAsmInfo.ASM_VERSION, classVisitor);
+			this.recording = recording;
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			this.recording.writeEvent(CLASS);
+			this.recording.writeInt(access);
+			this.recording.writeString(name);
+			this.recording.writeString(superName);
+			this.recording.writeInt(interfaces.length);
+			for (String ifc : interfaces) {
+				this.recording.writeString(ifc);
+			}
+			super.visit(version, access, name, signature, superName, interfaces);
+		}
+
+		@Override
+		public void visitOuterClass(String owner, String name, String desc) {
+			this.recording.writeEvent(OUTER_CLASS);
+			this.recording.writeString(owner);
+			this.recording.writeString(name);
+			this.recording.writeString(desc);
+			super.visitOuterClass(owner, name, desc);
+		}
+
+		@Override
+		public void visitInnerClass(String name, String outerName, String innerName, int access) {
+			this.recording.writeEvent(INNER_CLASS);
+			this.recording.writeString(name);
+			this.recording.writeString(outerName);
+			this.recording.writeString(innerName);
+			this.recording.writeInt(access);
+			super.visitInnerClass(name, outerName, innerName, access);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			this.recording.writeEvent(CLASS_ANNOTATION);
+			this.recording.writeString(desc);
+			this.recording.writeBoolean(visible);
+			return new RecordingAnnotationVisitor(super.visitAnnotation(desc, visible), this.recording);
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+			return new RecordingMethodVisitor(super.visitMethod(access, name, desc, signature, exceptions),
+					this.recording, access, name, desc);
+		}
+
+		@Override
+		public void visitEnd() {
+			this.recording.writeEvent(END);
+			super.visitEnd();
+		}
+	}
+
+
+	/**
+	 * MethodVisitor that records the method's annotations, if any.
+	 */
+	private static class RecordingMethodVisitor extends MethodVisitor {
+
+		private final Recording recording;
+
+		private final int access;
+
+		private final String name;
+
+		private final String desc;
+
+		private boolean recorded;
+
+		public RecordingMethodVisitor(MethodVisitor methodVisitor, Recording recording,
+				int access, String name, String desc) {
+
+			super(SpringAsmInfo.ASM_VERSION, methodVisitor);
+			this.recording = recording;
+			this.access = access;
+			this.name = name;
+			this.desc = desc;
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+			if (!this.recorded) {
+				this.recording.writeEvent(METHOD);
+				this.recording.writeInt(this.access);
+				this.recording.writeString(this.name);
+				this.recording.writeString(this.desc);
+				this.recorded = true;
+			}
+			this.recording.writeEvent(METHOD_ANNOTATION);
+			this.recording.writeString(desc);
+			this.recording.writeBoolean(visible);
+			return new RecordingAnnotationVisitor(super.visitAnnotation(desc, visible), this.recording);
+		}
+	}
+
+
+	/**
+	 * AnnotationVisitor that records all annotation values, including nested ones.
+	 */
+	private static class RecordingAnnotationVisitor extends AnnotationVisitor {
+
+		private final Recording recording;
+
+		public RecordingAnnotationVisitor(AnnotationVisitor annotationVisitor, Recording recording) {
+			super(SpringAsmInfo.ASM_VERSION, annotationVisitor);
+			this.recording = recording;
+		}
+
+		@Override
+		public void visit(String name, Object value) {
+			this.recording.writeEvent(VALUE);
+			this.recording.writeString(name);
+			this.recording.writeValue(value);
+			super.visit(name, value);
+		}
+
+		@Override
+		public void visitEnum(String name, String desc, String value) {
+			this.recording.writeEvent(ENUM);
+			this.recording.writeString(name);
+			this.recording.writeString(desc);
+			this.recording.writeString(value);
+			super.visitEnum(name, desc, value);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String name, String desc) {
+			this.recording.writeEvent(ANNOTATION);
+			this.recording.writeString(name);
+			this.recording.writeString(desc);
+			return new RecordingAnnotationVisitor(super.visitAnnotation(name, desc), this.recording);
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(String name) {
+			this.recording.writeEvent(ARRAY);
+			this.recording.writeString(name);
+			return new RecordingAnnotationVisitor(super.visitArray(name), this.recording);
+		}
+
+		@Override
+		public void visitEnd() {
+			this.recording.writeEvent(END);
+			super.visitEnd();
+		}
+	}
+
+}
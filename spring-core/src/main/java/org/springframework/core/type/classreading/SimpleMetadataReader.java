@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -47,19 +47,7 @@ final class SimpleMetadataReader implements MetadataReader {
 
 
 	SimpleMetadataReader(Resource resource, ClassLoader classLoader) throws IOException {
-		InputStream is = new BufferedInputStream(resource.getInputStream());
-		ClassReader classReader;
-		try {
-			classReader = new ClassReader(is);
-		}
-		catch (IllegalArgumentException ex) {
-			throw new NestedIOException("ASM ClassReader failed to parse class file - " +
-					"probably due to a new Java class file version that isn't supported yet: " + resource, ex);
-		}
-		finally {
-			is.close();
-		}
-
+		ClassReader classReader = createClassReader(resource);
 		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
 		classReader.accept(visitor, ClassReader.SKIP_DEBUG);
 
@@ -69,6 +57,16 @@ final class SimpleMetadataReader implements MetadataReader {
 		this.resource = resource;
 	}
 
+	/**
+	 * Create a new SimpleMetadataReader for previously read metadata,
+	 * e.g. as restored from a {@link PersistentMetadataCache}.
+	 */
+	SimpleMetadataReader(Resource resource, AnnotationMetadataReadingVisitor visitor) {
+		this.resource = resource;
+		this.classMetadata = visitor;
+		this.annotationMetadata = visitor;
+	}
+
 
 	@Override
 	public Resource getResource() {
@@ -85,4 +83,22 @@ final class SimpleMetadataReader implements MetadataReader {
 		return this.annotationMetadata;
 	}
 
+
+	/**
+	 * Create an ASM ClassReader for the given class file resource.
+	 */
+	static ClassReader createClassReader(Resource resource) throws IOException {
+		InputStream is = new BufferedInputStream(resource.getInputStream());
+		try {
+			return new ClassReader(is);
+		}
+		catch (IllegalArgumentException ex) {
+			throw new NestedIOException("ASM ClassReader failed to parse class file - " +
+					"probably due to a new Java class file version that isn't supported yet: " + resource, ex);
+		}
+		finally {
+			is.close();
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,7 +21,6 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -58,15 +57,20 @@ public class AntPathMatcher implements PathMatcher {
 	private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{[^/]+?\\}");
 
 
+	/** Whether paths may be scanned in place rather than through {@link #tokenizePath} */
+	private final boolean inPlaceMatching = (getClass() == AntPathMatcher.class);
+
 	private String pathSeparator = DEFAULT_PATH_SEPARATOR;
 
 	private boolean trimTokens = true;
 
 	private volatile Boolean cachePatterns;
 
-	private final Map<String, String[]> tokenizedPatternCache = new ConcurrentHashMap<String, String[]>(256);
+	private volatile ConcurrentLruCache<String, String[]> tokenizedPatternCache =
+			new ConcurrentLruCache<String, String[]>(Integer.MAX_VALUE);
 
-	final Map<String, AntPathStringMatcher> stringMatcherCache = new ConcurrentHashMap<String, AntPathStringMatcher>(256);
+	volatile ConcurrentLruCache<String, AntPathStringMatcher> stringMatcherCache =
+			new ConcurrentLruCache<String, AntPathStringMatcher>(Integer.MAX_VALUE);
 
 
 	/**
@@ -94,16 +98,38 @@ public class AntPathMatcher implements PathMatcher {
 	 * turn it off when encountering too many patterns to cache at runtime
 	 * (the threshold is 65536), assuming that arbitrary permutations of patterns
 	 * are coming in, with little chance for encountering a reoccurring pattern.
+	 * @see #setCacheLimit
 	 * @see #getStringMatcher(String)
 	 */
 	public void setCachePatterns(boolean cachePatterns) {
 		this.cachePatterns = cachePatterns;
+		initPatternCaches(cachePatterns ? Integer.MAX_VALUE : 0);
+	}
+
+	/**
+	 * Specify a maximum number of entries for each of the pattern caches,
+	 * evicting the least recently used patterns once the limit has been reached.
+	 * <p>This is an alternative to the default turn-off behavior (see
+	 * {@link #setCachePatterns}) for applications that encounter a large number
+	 * of patterns, some of which keep reoccurring: rarely used patterns get
+	 * evicted while frequently used patterns remain cached. A value of 0 turns
+	 * the pattern cache off completely.
+	 * @since 4.1
+	 * @see #setCachePatterns
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		this.cachePatterns = (cacheLimit > 0);
+		initPatternCaches(cacheLimit);
+	}
+
+	private void initPatternCaches(int cacheLimit) {
+		this.tokenizedPatternCache = new ConcurrentLruCache<String, String[]>(cacheLimit);
+		this.stringMatcherCache = new ConcurrentLruCache<String, AntPathStringMatcher>(cacheLimit);
 	}
 
 	private void deactivatePatternCache() {
 		this.cachePatterns = false;
-		this.tokenizedPatternCache.clear();
-		this.stringMatcherCache.clear();
+		initPatternCaches(0);
 	}
 
 
@@ -122,6 +148,25 @@ public class AntPathMatcher implements PathMatcher {
 		return doMatch(pattern, path, false, null);
 	}
 
+	/**
+	 * Compile the given pattern for repeated matching against many paths.
+	 * <p>The returned {@link CompiledPattern} holds on to the tokenized pattern
+	 * and its segment matchers, and scans each given path in place: literal
+	 * segments are compared without any regex, path segments are not extracted
+	 * as Strings unless bound to URI template variables, and variables get
+	 * extracted in the same pass as the match itself.
+	 * <p>The results are the same as for the corresponding methods of this
+	 * matcher. For subclasses of AntPathMatcher, the compiled pattern delegates
+	 * to {@link #doMatch} in order to honor any customizations.
+	 * @param pattern the pattern to compile
+	 * @return the compiled pattern (never {@code null})
+	 * @since 4.1
+	 */
+	public CompiledPattern compile(String pattern) {
+		Assert.notNull(pattern, "Pattern must not be null");
+		return new CompiledPattern(pattern);
+	}
+
 	/**
 	 * Actually match the given {@code path} against the given {@code pattern}.
 	 * @param pattern the pattern to match against
@@ -136,6 +181,9 @@ public class AntPathMatcher implements PathMatcher {
 		}
 
 		String[] pattDirs = tokenizePattern(pattern);
+		if (this.inPlaceMatching && !isPotentialMatch(path, pattDirs)) {
+			return false;
+		}
 		String[] pathDirs = tokenizePath(path);
 
 		int pattIdxStart = 0;
@@ -255,6 +303,82 @@ public class AntPathMatcher implements PathMatcher {
 		return true;
 	}
 
+	/**
+	 * Check whether the leading literal segments of the given tokenized pattern
+	 * match the corresponding segments of the given path, scanning the path in
+	 * place instead of tokenizing it. Returns {@code false} only if the path
+	 * definitely does not match, allowing {@link #doMatch} to skip the rest of
+	 * the algorithm for the common case of mismatching paths.
+	 * <p>Pattern segments are obtained through {@link #getStringMatcher}, so they
+	 * are subject to the same caching as in the full algorithm. Only applied to
+	 * plain AntPathMatcher instances, since subclasses may customize the
+	 * tokenization of paths.
+	 * @param path the path String to test
+	 * @param pattDirs the tokenized pattern parts
+	 * @return {@code false} if the path cannot match, {@code true} if it might
+	 */
+	private boolean isPotentialMatch(String path, String[] pattDirs) {
+		int pos = 0;
+		for (String pattDir : pattDirs) {
+			AntPathStringMatcher matcher = getStringMatcher(pattDir);
+			if (!matcher.exactMatch) {
+				return true;
+			}
+			long segment = nextSegment(path, pos, this.pathSeparator, this.trimTokens);
+			if (segment == -1) {
+				// Path exhausted: leave the decision to the full algorithm
+				return true;
+			}
+			if (!matcher.matchRegion(path, segmentStart(segment), segmentEnd(segment), null)) {
+				return false;
+			}
+			pos = segmentEnd(segment);
+		}
+		return true;
+	}
+
+	/**
+	 * Find the next non-empty segment of the given path at or after the given
+	 * position, applying the same separator and trimming rules as
+	 * {@link #tokenizePath} without extracting the segment as a String.
+	 * @return the segment bounds, to be decoded via {@link #segmentStart} and
+	 * {@link #segmentEnd}, or -1 if the path is exhausted
+	 */
+	private static long nextSegment(String path, int pos, String pathSeparator, boolean trimTokens) {
+		int length = path.length();
+		while (pos < length) {
+			while (pos < length && pathSeparator.indexOf(path.charAt(pos)) != -1) {
+				pos++;
+			}
+			int start = pos;
+			while (pos < length && pathSeparator.indexOf(path.charAt(pos)) == -1) {
+				pos++;
+			}
+			int end = pos;
+			if (trimTokens) {
+				// as per String.trim()
+				while (start < end && path.charAt(start) <= ' ') {
+					start++;
+				}
+				while (end > start && path.charAt(end - 1) <= ' ') {
+					end--;
+				}
+			}
+			if (start < end) {
+				return ((long) start << 32) | end;
+			}
+		}
+		return -1;
+	}
+
+	private static int segmentStart(long segment) {
+		return (int) (segment >>> 32);
+	}
+
+	private static int segmentEnd(long segment) {
+		return (int) segment;
+	}
+
 	/**
 	 * Tokenize the given path pattern into parts, based on this matcher's settings.
 	 * <p>Performs caching based on {@link #setCachePatterns}, delegating to
@@ -263,23 +387,18 @@ public class AntPathMatcher implements PathMatcher {
 	 * @return the tokenized pattern parts
 	 */
 	protected String[] tokenizePattern(String pattern) {
-		String[] tokenized = null;
-		Boolean cachePatterns = this.cachePatterns;
-		if (cachePatterns == null || cachePatterns.booleanValue()) {
-			tokenized = this.tokenizedPatternCache.get(pattern);
-		}
+		ConcurrentLruCache<String, String[]> cache = this.tokenizedPatternCache;
+		String[] tokenized = cache.get(pattern);
 		if (tokenized == null) {
 			tokenized = tokenizePath(pattern);
-			if (cachePatterns == null && this.tokenizedPatternCache.size() >= CACHE_TURNOFF_THRESHOLD) {
+			if (this.cachePatterns == null && cache.size() >= CACHE_TURNOFF_THRESHOLD) {
 				// Try to adapt to the runtime situation that we're encountering:
 				// There are obviously too many different patterns coming in here...
 				// So let's turn off the cache since the patterns are unlikely to be reoccurring.
 				deactivatePatternCache();
 				return tokenized;
 			}
-			if (cachePatterns == null || cachePatterns.booleanValue()) {
-				this.tokenizedPatternCache.put(pattern, tokenized);
-			}
+			cache.put(pattern, tokenized);
 		}
 		return tokenized;
 	}
@@ -307,33 +426,29 @@ public class AntPathMatcher implements PathMatcher {
 	 * Build or retrieve an {@link AntPathStringMatcher} for the given pattern.
 	 * <p>The default implementation checks this AntPathMatcher's internal cache
 	 * (see {@link #setCachePatterns}), creating a new AntPathStringMatcher instance
-	 * if no cached copy is found.
-	 * When encountering too many patterns to cache at runtime (the threshold is 65536),
-	 * it turns the default cache off, assuming that arbitrary permutations of patterns
-	 * are coming in, with little chance for encountering a reoccurring pattern.
+	 * if no cached copy is found. When encountering too many patterns to cache at
+	 * runtime (the threshold is 65536), it turns the default cache off, assuming
+	 * that arbitrary permutations of patterns are coming in; with an explicit
+	 * {@link #setCacheLimit cache limit}, the least recently used patterns get
+	 * evicted from the cache instead.
 	 * <p>This method may get overridden to implement a custom cache strategy.
 	 * @param pattern the pattern to match against (never {@code null})
 	 * @return a corresponding AntPathStringMatcher (never {@code null})
 	 * @see #setCachePatterns
 	 */
 	protected AntPathStringMatcher getStringMatcher(String pattern) {
-		AntPathStringMatcher matcher = null;
-		Boolean cachePatterns = this.cachePatterns;
-		if (cachePatterns == null || cachePatterns.booleanValue()) {
-			matcher = this.stringMatcherCache.get(pattern);
-		}
+		ConcurrentLruCache<String, AntPathStringMatcher> cache = this.stringMatcherCache;
+		AntPathStringMatcher matcher = cache.get(pattern);
 		if (matcher == null) {
 			matcher = new AntPathStringMatcher(pattern);
-			if (cachePatterns == null && this.stringMatcherCache.size() >= CACHE_TURNOFF_THRESHOLD) {
+			if (this.cachePatterns == null && cache.size() >= CACHE_TURNOFF_THRESHOLD) {
 				// Try to adapt to the runtime situation that we're encountering:
 				// There are obviously too many different patterns coming in here...
 				// So let's turn off the cache since the patterns are unlikely to be reoccurring.
 				deactivatePatternCache();
 				return matcher;
 			}
-			if (cachePatterns == null || cachePatterns.booleanValue()) {
-				this.stringMatcherCache.put(pattern, matcher);
-			}
+			cache.put(pattern, matcher);
 		}
 		return matcher;
 	}
@@ -478,10 +593,242 @@ public class AntPathMatcher implements PathMatcher {
 	}
 
 
+	/**
+	 * A pattern compiled for repeated matching through {@link AntPathMatcher#compile}.
+	 * @since 4.1
+	 */
+	public class CompiledPattern {
+
+		private final String pattern;
+
+		private final String[] pattDirs;
+
+		private final AntPathStringMatcher[] matchers;
+
+		private final String pathSeparator;
+
+		private final boolean trimTokens;
+
+		private final boolean inPlace;
+
+		private CompiledPattern(String pattern) {
+			this.pattern = pattern;
+			this.pathSeparator = AntPathMatcher.this.pathSeparator;
+			this.trimTokens = AntPathMatcher.this.trimTokens;
+			this.inPlace = inPlaceMatching;
+			if (this.inPlace) {
+				this.pattDirs = tokenizePattern(pattern);
+				this.matchers = new AntPathStringMatcher[this.pattDirs.length];
+				for (int i = 0; i < this.pattDirs.length; i++) {
+					if (!"**".equals(this.pattDirs[i])) {
+						this.matchers[i] = getStringMatcher(this.pattDirs[i]);
+					}
+				}
+			}
+			else {
+				this.pattDirs = null;
+				this.matchers = null;
+			}
+		}
+
+		/**
+		 * Return the original pattern String.
+		 */
+		public String getPattern() {
+			return this.pattern;
+		}
+
+		/**
+		 * Match the given path against this pattern.
+		 * @see AntPathMatcher#match
+		 */
+		public boolean match(String path) {
+			return doMatch(path, true, null);
+		}
+
+		/**
+		 * Match the given path against the corresponding part of this pattern.
+		 * @see AntPathMatcher#matchStart
+		 */
+		public boolean matchStart(String path) {
+			return doMatch(path, false, null);
+		}
+
+		/**
+		 * Match the given path against this pattern, extracting the URI template
+		 * variables in the same pass.
+		 * @param path the full path to match and extract variables from
+		 * @return a map with variable names as keys and variable values as values,
+		 * or {@code null} if the path does not match
+		 * @see AntPathMatcher#extractUriTemplateVariables
+		 */
+		public Map<String, String> matchAndExtractUriTemplateVariables(String path) {
+			Map<String, String> variables = new LinkedHashMap<String, String>();
+			return (doMatch(path, true, variables) ? variables : null);
+		}
+
+		private boolean doMatch(String path, boolean fullMatch, Map<String, String> uriTemplateVariables) {
+			if (!this.inPlace) {
+				return AntPathMatcher.this.doMatch(this.pattern, path, fullMatch, uriTemplateVariables);
+			}
+			if (path.startsWith(this.pathSeparator) != this.pattern.startsWith(this.pathSeparator)) {
+				return false;
+			}
+
+			String[] pattDirs = this.pattDirs;
+			int pattIdxStart = 0;
+			int pattIdxEnd = pattDirs.length - 1;
+
+			// Match all elements up to the first **, scanning the path in place
+			long segment = nextSegment(path, 0, this.pathSeparator, this.trimTokens);
+			while (pattIdxStart <= pattIdxEnd && segment != -1) {
+				if (this.matchers[pattIdxStart] == null) {
+					break;
+				}
+				if (!matchSegment(pattIdxStart, path, segmentStart(segment), segmentEnd(segment), uriTemplateVariables)) {
+					return false;
+				}
+				pattIdxStart++;
+				segment = nextSegment(path, segmentEnd(segment), this.pathSeparator, this.trimTokens);
+			}
+
+			if (segment == -1) {
+				// Path is exhausted, only match if rest of pattern is * or **'s
+				if (pattIdxStart > pattIdxEnd) {
+					return (this.pattern.endsWith(this.pathSeparator) ? path.endsWith(this.pathSeparator) :
+							!path.endsWith(this.pathSeparator));
+				}
+				if (!fullMatch) {
+					return true;
+				}
+				if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].equals("*") &&
+						path.endsWith(this.pathSeparator)) {
+					return true;
+				}
+				return isDoubleWildcardsOnly(pattIdxStart, pattIdxEnd);
+			}
+			else if (pattIdxStart > pattIdxEnd) {
+				// String not exhausted, but pattern is. Failure.
+				return false;
+			}
+			else if (!fullMatch) {
+				// Path start definitely matches due to "**" part in pattern.
+				return true;
+			}
+
+			// Only now determine the bounds of the remaining path segments
+			int[] bounds = getSegmentBounds(path, segment);
+			int pathIdxStart = 0;
+			int pathIdxEnd = bounds.length / 2 - 1;
+
+			// up to last '**'
+			while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+				if (this.matchers[pattIdxEnd] == null) {
+					break;
+				}
+				if (!matchSegment(pattIdxEnd, path, bounds[2 * pathIdxEnd], bounds[2 * pathIdxEnd + 1],
+						uriTemplateVariables)) {
+					return false;
+				}
+				pattIdxEnd--;
+				pathIdxEnd--;
+			}
+			if (pathIdxStart > pathIdxEnd) {
+				// String is exhausted
+				return isDoubleWildcardsOnly(pattIdxStart, pattIdxEnd);
+			}
+
+			while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+				int patIdxTmp = -1;
+				for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
+					if (this.matchers[i] == null) {
+						patIdxTmp = i;
+						break;
+					}
+				}
+				if (patIdxTmp == pattIdxStart + 1) {
+					// '**/**' situation, so skip one
+					pattIdxStart++;
+					continue;
+				}
+				// Find the pattern between padIdxStart & padIdxTmp in str between
+				// strIdxStart & strIdxEnd
+				int patLength = (patIdxTmp - pattIdxStart - 1);
+				int strLength = (pathIdxEnd - pathIdxStart + 1);
+				int foundIdx = -1;
+
+				strLoop:
+				for (int i = 0; i <= strLength - patLength; i++) {
+					for (int j = 0; j < patLength; j++) {
+						int pathIdx = pathIdxStart + i + j;
+						if (!matchSegment(pattIdxStart + j + 1, path, bounds[2 * pathIdx], bounds[2 * pathIdx + 1],
+								uriTemplateVariables)) {
+							continue strLoop;
+						}
+					}
+					foundIdx = pathIdxStart + i;
+					break;
+				}
+
+				if (foundIdx == -1) {
+					return false;
+				}
+
+				pattIdxStart = patIdxTmp;
+				pathIdxStart = foundIdx + patLength;
+			}
+
+			return isDoubleWildcardsOnly(pattIdxStart, pattIdxEnd);
+		}
+
+		private boolean matchSegment(int pattIdx, String path, int start, int end,
+				Map<String, String> uriTemplateVariables) {
+
+			return this.matchers[pattIdx].matchRegion(path, start, end, uriTemplateVariables);
+		}
+
+		private boolean isDoubleWildcardsOnly(int pattIdxStart, int pattIdxEnd) {
+			for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
+				if (this.matchers[i] != null) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Determine the bounds of the given and all subsequent path segments,
+		 * as start and end index pairs.
+		 */
+		private int[] getSegmentBounds(String path, long firstSegment) {
+			int count = 0;
+			for (long segment = firstSegment; segment != -1;
+					segment = nextSegment(path, segmentEnd(segment), this.pathSeparator, this.trimTokens)) {
+				count++;
+			}
+			int[] bounds = new int[2 * count];
+			int i = 0;
+			for (long segment = firstSegment; segment != -1;
+					segment = nextSegment(path, segmentEnd(segment), this.pathSeparator, this.trimTokens)) {
+				bounds[i++] = segmentStart(segment);
+				bounds[i++] = segmentEnd(segment);
+			}
+			return bounds;
+		}
+
+		@Override
+		public String toString() {
+			return this.pattern;
+		}
+	}
+
+
 	/**
 	 * Tests whether or not a string matches against a pattern via a {@link Pattern}.
 	 * <p>The pattern may contain special characters: '*' means zero or more characters; '?' means one and
 	 * only one character; '{' and '}' indicate a URI template pattern. For example <tt>/users/{user}</tt>.
+	 * <p>Literal patterns as well as patterns consisting of a single '*' or a single
+	 * URI template variable without a custom regex get matched without any regex.
 	 */
 	protected static class AntPathStringMatcher {
 
@@ -489,15 +836,26 @@ public class AntPathMatcher implements PathMatcher {
 
 		private static final String DEFAULT_VARIABLE_PATTERN = "(.*)";
 
+		private final String rawPattern;
+
+		private final boolean exactMatch;
+
+		private final boolean wholeSegmentMatch;
+
 		private final Pattern pattern;
 
 		private final List<String> variableNames = new LinkedList<String>();
 
 		public AntPathStringMatcher(String pattern) {
+			this.rawPattern = pattern;
 			StringBuilder patternBuilder = new StringBuilder();
 			Matcher m = GLOB_PATTERN.matcher(pattern);
 			int end = 0;
+			int globCount = 0;
+			boolean wholeSegmentGlob = false;
 			while (m.find()) {
+				globCount++;
+				wholeSegmentGlob = (m.start() == 0 && m.end() == pattern.length());
 				patternBuilder.append(quote(pattern, end, m.start()));
 				String match = m.group();
 				if ("?".equals(match)) {
@@ -513,6 +871,7 @@ public class AntPathMatcher implements PathMatcher {
 						this.variableNames.add(m.group(1));
 					}
 					else {
+						wholeSegmentGlob = false;
 						String variablePattern = match.substring(colonIdx + 1, match.length() - 1);
 						patternBuilder.append('(');
 						patternBuilder.append(variablePattern);
@@ -524,7 +883,10 @@ public class AntPathMatcher implements PathMatcher {
 				end = m.end();
 			}
 			patternBuilder.append(quote(pattern, end, pattern.length()));
-			this.pattern = Pattern.compile(patternBuilder.toString());
+			this.exactMatch = (globCount == 0);
+			this.wholeSegmentMatch = (globCount == 1 && wholeSegmentGlob && !"?".equals(pattern));
+			this.pattern = (this.exactMatch || this.wholeSegmentMatch ? null :
+					Pattern.compile(patternBuilder.toString()));
 		}
 
 		private String quote(String s, int start, int end) {
@@ -539,7 +901,33 @@ public class AntPathMatcher implements PathMatcher {
 		 * @return {@code true} if the string matches against the pattern, or {@code false} otherwise.
 		 */
 		public boolean matchStrings(String str, Map<String, String> uriTemplateVariables) {
+			return matchRegion(str, 0, str.length(), uriTemplateVariables);
+		}
+
+		/**
+		 * Match the region between {@code start} and {@code end} of the given
+		 * String, without extracting it as a separate String unless it is bound
+		 * to a URI template variable.
+		 */
+		boolean matchRegion(String str, int start, int end, Map<String, String> uriTemplateVariables) {
+			if (this.exactMatch) {
+				int length = this.rawPattern.length();
+				return (end - start == length && str.regionMatches(start, this.rawPattern, 0, length));
+			}
+			if (this.wholeSegmentMatch) {
+				// '*' or '{name}': anything but line terminators, as with the regex variant
+				if (containsLineTerminator(str, start, end)) {
+					return false;
+				}
+				if (uriTemplateVariables != null && !this.variableNames.isEmpty()) {
+					uriTemplateVariables.put(this.variableNames.get(0), str.substring(start, end));
+				}
+				return true;
+			}
 			Matcher matcher = this.pattern.matcher(str);
+			if (start != 0 || end != str.length()) {
+				matcher.region(start, end);
+			}
 			if (matcher.matches()) {
 				if (uriTemplateVariables != null) {
 					// SPR-8455
@@ -559,6 +947,16 @@ public class AntPathMatcher implements PathMatcher {
 				return false;
 			}
 		}
+
+		private static boolean containsLineTerminator(String str, int start, int end) {
+			for (int i = start; i < end; i++) {
+				char c = str.charAt(i);
+				if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+					return true;
+				}
+			}
+			return false;
+		}
 	}
 
 
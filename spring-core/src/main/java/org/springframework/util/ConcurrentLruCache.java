@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simple bounded cache for concurrent use, evicting entries that have not been
+ * used recently once the size limit has been reached.
+ *
+ * <p>Lookups do not require any locking: a hit merely marks the entry as recently
+ * used. Eviction approximates least-recently-used order through a "second chance"
+ * (clock) algorithm, i.e. the oldest entry is evicted unless it has been used since
+ * it has last been considered for eviction, in which case it is given another round.
+ *
+ * <p>Mainly for use within the framework, for caching parsed representations
+ * of arbitrary input (e.g. patterns or header values) in a memory-bounded way.
+ *
+ * @since 4.1
+ * @param <K> the type of the key used for cache retrieval
+ * @param <V> the type of the cached values
+ */
+public class ConcurrentLruCache<K, V> {
+
+	private final int sizeLimit;
+
+	private final ConcurrentMap<K, CacheEntry<V>> cache;
+
+	private final Queue<K> queue = new ConcurrentLinkedQueue<K>();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+
+	/**
+	 * Create a new cache instance with the given size limit.
+	 * @param sizeLimit the maximum number of entries in the cache
+	 * (0 indicates no caching, always returning {@code null} from {@link #get})
+	 */
+	public ConcurrentLruCache(int sizeLimit) {
+		Assert.isTrue(sizeLimit >= 0, "Cache size limit must not be negative");
+		this.sizeLimit = sizeLimit;
+		this.cache = new ConcurrentHashMap<K, CacheEntry<V>>(Math.min(sizeLimit, 256));
+	}
+
+
+	/**
+	 * Return the value cached for the given key, if any.
+	 * @param key the key to look up
+	 * @return the cached value, or {@code null} if none
+	 */
+	public V get(K key) {
+		CacheEntry<V> entry = this.cache.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (!entry.used) {
+			entry.used = true;
+		}
+		return entry.value;
+	}
+
+	/**
+	 * Cache the given value for the given key, evicting an entry that has
+	 * not been used recently if the size limit is exceeded.
+	 * @param key the key to cache the value for
+	 * @param value the value to cache
+	 */
+	public void put(K key, V value) {
+		Assert.notNull(value, "Value must not be null");
+		if (this.sizeLimit == 0) {
+			return;
+		}
+		CacheEntry<V> previous = this.cache.put(key, new CacheEntry<V>(value));
+		if (previous == null) {
+			this.queue.add(key);
+			if (this.size.incrementAndGet() > this.sizeLimit) {
+				evict();
+			}
+		}
+	}
+
+	/**
+	 * Remove the entry for the given key, if any.
+	 * @param key the key to remove
+	 */
+	public void remove(K key) {
+		if (this.cache.remove(key) != null) {
+			this.queue.remove(key);
+			this.size.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Remove all entries from the cache.
+	 */
+	public void clear() {
+		this.cache.clear();
+		this.queue.clear();
+		this.size.set(0);
+	}
+
+	/**
+	 * Return the current number of entries in the cache.
+	 */
+	public int size() {
+		return this.cache.size();
+	}
+
+	/**
+	 * Return whether the cache is currently empty.
+	 */
+	public boolean isEmpty() {
+		return this.cache.isEmpty();
+	}
+
+	/**
+	 * Return the maximum number of entries in the cache.
+	 */
+	public int sizeLimit() {
+		return this.sizeLimit;
+	}
+
+	private void evict() {
+		K key;
+		while ((key = this.queue.poll()) != null) {
+			CacheEntry<V> entry = this.cache.get(key);
+			if (entry == null) {
+				// already removed concurrently
+				continue;
+			}
+			if (entry.used) {
+				// give it a second chance
+				entry.used = false;
+				this.queue.add(key);
+			}
+			else if (this.cache.remove(key, entry)) {
+				this.size.decrementAndGet();
+				return;
+			}
+		}
+	}
+
+
+	private static class CacheEntry<V> {
+
+		private final V value;
+
+		private volatile boolean used;
+
+		public CacheEntry(V value) {
+			this.value = value;
+		}
+	}
+
+}
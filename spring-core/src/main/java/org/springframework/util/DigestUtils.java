@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.util;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -45,6 +47,18 @@ public abstract class DigestUtils {
 		return digest(MD5_ALGORITHM_NAME, bytes);
 	}
 
+	/**
+	 * Calculate the MD5 digest of the given stream.
+	 * <p>The stream is read in chunks, without buffering its entire content,
+	 * but is not closed by this method.
+	 * @param inputStream the InputStream to calculate the digest over
+	 * @return the digest
+	 * @since 4.1
+	 */
+	public static byte[] md5Digest(InputStream inputStream) throws IOException {
+		return digest(MD5_ALGORITHM_NAME, inputStream);
+	}
+
 	/**
 	 * Return a hexadecimal string representation of the MD5 digest of the given
 	 * bytes.
@@ -55,6 +69,19 @@ public abstract class DigestUtils {
 		return digestAsHexString(MD5_ALGORITHM_NAME, bytes);
 	}
 
+	/**
+	 * Return a hexadecimal string representation of the MD5 digest of the given
+	 * stream.
+	 * <p>The stream is read in chunks, without buffering its entire content,
+	 * but is not closed by this method.
+	 * @param inputStream the InputStream to calculate the digest over
+	 * @return a hexadecimal digest string
+	 * @since 4.1
+	 */
+	public static String md5DigestAsHex(InputStream inputStream) throws IOException {
+		return new String(encodeHex(md5Digest(inputStream)));
+	}
+
 	/**
 	 * Append a hexadecimal string representation of the MD5 digest of the given
 	 * bytes to the given {@link StringBuilder}.
@@ -83,6 +110,16 @@ public abstract class DigestUtils {
 		return getDigest(algorithm).digest(bytes);
 	}
 
+	private static byte[] digest(String algorithm, InputStream inputStream) throws IOException {
+		MessageDigest messageDigest = getDigest(algorithm);
+		byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+		int bytesRead;
+		while ((bytesRead = inputStream.read(buffer)) != -1) {
+			messageDigest.update(buffer, 0, bytesRead);
+		}
+		return messageDigest.digest();
+	}
+
 	private static String digestAsHexString(String algorithm, byte[] bytes) {
 		char[] hexDigest = digestAsHexChars(algorithm, bytes);
 		return new String(hexDigest);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,6 +37,13 @@ import org.springframework.util.MimeType.SpecificityComparator;
  */
 public abstract class MimeTypeUtils {
 
+	/**
+	 * Cache of parsed mime types, keyed by their String representation,
+	 * for mime type values that are parsed over and over again at runtime.
+	 */
+	private static final ConcurrentLruCache<String, MimeType> cachedMimeTypes =
+			new ConcurrentLruCache<String, MimeType>(256);
+
 	/**
 	 * Public constant mime type that includes all media ranges (i.e. "&#42;/&#42;").
 	 */
@@ -198,6 +205,8 @@ public abstract class MimeTypeUtils {
 
 	/**
 	 * Parse the given String into a single {@code MimeType}.
+	 * <p>Recently parsed mime types are cached; since {@code MimeType} instances are
+	 * immutable, the same instance may be returned for the same input String.
 	 * @param mimeType the string to parse
 	 * @return the mime type
 	 * @throws InvalidMimeTypeException if the string cannot be parsed
@@ -206,6 +215,15 @@ public abstract class MimeTypeUtils {
 		if (!StringUtils.hasLength(mimeType)) {
 			throw new InvalidMimeTypeException(mimeType, "'mimeType' must not be empty");
 		}
+		MimeType cached = cachedMimeTypes.get(mimeType);
+		if (cached == null) {
+			cached = parseMimeTypeInternal(mimeType);
+			cachedMimeTypes.put(mimeType, cached);
+		}
+		return cached;
+	}
+
+	private static MimeType parseMimeTypeInternal(String mimeType) {
 		String[] parts = StringUtils.tokenizeToStringArray(mimeType, ";");
 
 		String fullType = parts[0].trim();
@@ -26,6 +26,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 
 /**
  * Simple utility methods for dealing with streams. The copy methods of this class are
@@ -43,6 +44,9 @@ public abstract class StreamUtils {
 
 	public static final int BUFFER_SIZE = 4096;
 
+	/** Maximum array size to allocate upfront for an expected stream length */
+	private static final int MAX_INITIAL_ARRAY_SIZE = 64 * 1024;
+
 
 	/**
 	 * Copy the contents of the given InputStream into a new byte array.
@@ -57,6 +61,57 @@ public abstract class StreamUtils {
 		return out.toByteArray();
 	}
 
+	/**
+	 * Copy the contents of the given InputStream into a new byte array,
+	 * reading directly into an array of the expected length if known.
+	 * Leaves the stream open when done.
+	 * <p>In contrast to {@link #copyToByteArray(InputStream)}, this avoids any
+	 * intermediate buffering if the stream turns out to have the expected length,
+	 * e.g. as indicated by a "Content-Length" header; the stream is still read
+	 * until its end, in case of fewer or more bytes than expected.
+	 * <p>Since the expected length may come from an untrusted source such as a
+	 * client request, no more than 64 KB get allocated upfront: for larger
+	 * expected lengths, the array grows as content actually arrives, up to
+	 * the expected length.
+	 * @param in the stream to copy from
+	 * @param expectedLength the expected number of bytes, or -1 if not known
+	 * @return the new byte array that has been copied to
+	 * @throws IOException in case of I/O errors
+	 * @since 4.1
+	 */
+	public static byte[] copyToByteArray(InputStream in, long expectedLength) throws IOException {
+		Assert.notNull(in, "No InputStream specified");
+		if (expectedLength < 0 || expectedLength > Integer.MAX_VALUE - 8) {
+			return copyToByteArray(in);
+		}
+		int length = (int) expectedLength;
+		byte[] bytes = new byte[Math.min(length, MAX_INITIAL_ARRAY_SIZE)];
+		int offset = 0;
+		while (true) {
+			if (offset == bytes.length) {
+				if (offset == length) {
+					break;
+				}
+				bytes = Arrays.copyOf(bytes, (int) Math.min(2L * bytes.length, length));
+			}
+			int bytesRead = in.read(bytes, offset, bytes.length - offset);
+			if (bytesRead == -1) {
+				return Arrays.copyOf(bytes, offset);
+			}
+			offset += bytesRead;
+		}
+		int next = in.read();
+		if (next == -1) {
+			return bytes;
+		}
+		// More content than expected: continue with regular buffering
+		ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length + BUFFER_SIZE);
+		out.write(bytes);
+		out.write(next);
+		copy(in, out);
+		return out.toByteArray();
+	}
+
 	/**
 	 * Copy the contents of the given InputStream into a String.
 	 * Leaves the stream open when done.
@@ -128,6 +183,47 @@ public abstract class StreamUtils {
 		return byteCount;
 	}
 
+	/**
+	 * Copy a range of content of the given InputStream to the given OutputStream.
+	 * <p>If the specified range exceeds the length of the InputStream, this copies
+	 * up to the end of the stream and returns the actual number of copied bytes.
+	 * <p>Leaves both streams open when done.
+	 * @param in the InputStream to copy from
+	 * @param out the OutputStream to copy to
+	 * @param start the position to start copying from
+	 * @param end the position to end copying (inclusive)
+	 * @return the number of bytes copied
+	 * @throws IOException in case of I/O errors
+	 * @since 4.1
+	 */
+	public static long copyRange(InputStream in, OutputStream out, long start, long end) throws IOException {
+		Assert.notNull(in, "No InputStream specified");
+		Assert.notNull(out, "No OutputStream specified");
+		long skipped = 0;
+		while (skipped < start) {
+			long skippedNow = in.skip(start - skipped);
+			if (skippedNow <= 0) {
+				if (in.read() == -1) {
+					return 0;
+				}
+				skippedNow = 1;
+			}
+			skipped += skippedNow;
+		}
+		long bytesToCopy = end - start + 1;
+		byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(bytesToCopy, 0))];
+		while (bytesToCopy > 0) {
+			int bytesRead = in.read(buffer, 0, (int) Math.min(buffer.length, bytesToCopy));
+			if (bytesRead == -1) {
+				break;
+			}
+			out.write(buffer, 0, bytesRead);
+			bytesToCopy -= bytesRead;
+		}
+		out.flush();
+		return (end - start + 1 - bytesToCopy);
+	}
+
 	/**
 	 * Returns a variant of the given {@link InputStream} where calling
 	 * {@link InputStream#close() close()} has no effect.
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ListenableFuture} whose value can be set via {@link #set(Object)} or
+ * {@link #setException(Throwable)}. It may also be cancelled.
+ *
+ * <p>Useful for adapting callback-based APIs (e.g. non-blocking I/O frameworks)
+ * to the {@code ListenableFuture} contract.
+ *
+ * @since 4.1
+ */
+public class SettableListenableFuture<T> implements ListenableFuture<T> {
+
+	private final SettableTask<T> settableTask = new SettableTask<T>();
+
+
+	/**
+	 * Set the value of this future. This method will return {@code true} if
+	 * the value was set successfully, or {@code false} if the future has already
+	 * been set or cancelled.
+	 * @param value the value that will be set
+	 * @return {@code true} if the value was successfully set, else {@code false}
+	 */
+	public boolean set(T value) {
+		return this.settableTask.setValue(value);
+	}
+
+	/**
+	 * Set the exception of this future. This method will return {@code true} if
+	 * the exception was set successfully, or {@code false} if the future has already
+	 * been set or cancelled.
+	 * @param exception the value that will be set
+	 * @return {@code true} if the exception was successfully set, else {@code false}
+	 */
+	public boolean setException(Throwable exception) {
+		Assert.notNull(exception, "'exception' must not be null");
+		return this.settableTask.setThrowable(exception);
+	}
+
+	@Override
+	public void addCallback(ListenableFutureCallback<? super T> callback) {
+		this.settableTask.addCallback(callback);
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return this.settableTask.cancel(mayInterruptIfRunning);
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return this.settableTask.isCancelled();
+	}
+
+	@Override
+	public boolean isDone() {
+		return this.settableTask.isDone();
+	}
+
+	@Override
+	public T get() throws InterruptedException, ExecutionException {
+		return this.settableTask.get();
+	}
+
+	@Override
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		return this.settableTask.get(timeout, unit);
+	}
+
+
+	/**
+	 * ListenableFutureTask that is completed through explicit setter calls
+	 * rather than by running a task.
+	 */
+	private static class SettableTask<T> extends ListenableFutureTask<T> {
+
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		public SettableTask() {
+			super(new Callable<T>() {
+				@Override
+				public T call() throws Exception {
+					throw new IllegalStateException("Should never be called");
+				}
+			});
+		}
+
+		public boolean setValue(T value) {
+			if (isDone() || !this.completed.compareAndSet(false, true)) {
+				return false;
+			}
+			set(value);
+			return true;
+		}
+
+		public boolean setThrowable(Throwable exception) {
+			if (isDone() || !this.completed.compareAndSet(false, true)) {
+				return false;
+			}
+			setException(exception);
+			return true;
+		}
+	}
+
+}
@@ -77,6 +77,72 @@ public class AnnotatedElementUtilsTests {
 			attributes.get("value"));
 	}
 
+	@Test
+	public void getAllAnnotationAttributesReturnsIndependentCopies() {
+		MultiValueMap<String, Object> attributes = getAllAnnotationAttributes(TxConfig.class,
+			Transactional.class.getName());
+		attributes.add("value", "modified");
+		MultiValueMap<String, Object> attributes2 = getAllAnnotationAttributes(TxConfig.class,
+			Transactional.class.getName());
+		assertEquals(Arrays.asList("TxConfig"), attributes2.get("value"));
+		assertNotSame(attributes, attributes2);
+	}
+
+	@Test
+	public void getAnnotationAttributesReturnsIndependentCopies() {
+		AnnotationAttributes attributes = getAnnotationAttributes(TxConfig.class, Transactional.class.getName());
+		attributes.put("value", "modified");
+		AnnotationAttributes attributes2 = getAnnotationAttributes(TxConfig.class, Transactional.class.getName());
+		assertEquals("TxConfig", attributes2.getString("value"));
+	}
+
+	@Test
+	public void getAnnotationAttributesReturnsDeepCopies() {
+		AnnotationAttributes attributes = getAnnotationAttributes(FilteredConfig.class, Filters.class.getName(),
+			false, true);
+		attributes.getStringArray("value")[0] = "modified";
+		AnnotationAttributes[] filters = attributes.getAnnotationArray("filters");
+		filters[0].getStringArray("patterns")[0] = "modified";
+		filters[0].put("enabled", false);
+
+		AnnotationAttributes attributes2 = getAnnotationAttributes(FilteredConfig.class, Filters.class.getName(),
+			false, true);
+		assertArrayEquals(new String[] {"a", "b"}, attributes2.getStringArray("value"));
+		AnnotationAttributes[] filters2 = attributes2.getAnnotationArray("filters");
+		assertNotSame(filters, filters2);
+		assertArrayEquals(new String[] {"x"}, filters2[0].getStringArray("patterns"));
+		assertTrue(filters2[0].getBoolean("enabled"));
+	}
+
+	@Test
+	public void getAllAnnotationAttributesReturnsDeepCopies() {
+		MultiValueMap<String, Object> attributes = getAllAnnotationAttributes(FilteredConfig.class,
+			Filters.class.getName(), false, true);
+		((String[]) attributes.getFirst("value"))[0] = "modified";
+		((AnnotationAttributes[]) attributes.getFirst("filters"))[0].put("enabled", false);
+
+		MultiValueMap<String, Object> attributes2 = getAllAnnotationAttributes(FilteredConfig.class,
+			Filters.class.getName(), false, true);
+		assertArrayEquals(new String[] {"a", "b"}, (String[]) attributes2.getFirst("value"));
+		assertTrue(((AnnotationAttributes[]) attributes2.getFirst("filters"))[0].getBoolean("enabled"));
+	}
+
+	@Test
+	public void lookupsAreCachedIncludingNegativeResults() {
+		assertTrue(isAnnotated(TxConfig.class, Transactional.class.getName()));
+		assertTrue(isAnnotated(TxConfig.class, Transactional.class.getName()));
+		assertFalse(isAnnotated(TxConfig.class, Deprecated.class.getName()));
+		assertFalse(isAnnotated(TxConfig.class, Deprecated.class.getName()));
+		assertNull(getMetaAnnotationTypes(TxConfig.class, Deprecated.class.getName()));
+		assertNull(getMetaAnnotationTypes(TxConfig.class, Deprecated.class.getName()));
+		assertNull(getAnnotationAttributes(MetaCycleAnnotatedClass.class, Transactional.class.getName()));
+		assertNull(getAnnotationAttributes(MetaCycleAnnotatedClass.class, Transactional.class.getName()));
+
+		AnnotationUtils.clearCache();
+		assertTrue(isAnnotated(TxConfig.class, Transactional.class.getName()));
+		assertNull(getAnnotationAttributes(MetaCycleAnnotatedClass.class, Transactional.class.getName()));
+	}
+
 	@Test
 	public void getAnnotationAttributesOnClassWithLocalAnnotation() {
 		AnnotationAttributes attributes = getAnnotationAttributes(TxConfig.class, Transactional.class.getName());
@@ -183,6 +249,23 @@ public class AnnotatedElementUtilsTests {
 	@interface TxComposed1 {
 	}
 
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Filter {
+
+		String[] patterns();
+
+		boolean enabled() default true;
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@interface Filters {
+
+		String[] value();
+
+		Filter[] filters() default {};
+	}
+
 	@Transactional("TxComposed2")
 	@Retention(RetentionPolicy.RUNTIME)
 	@interface TxComposed2 {
@@ -216,6 +299,10 @@ public class AnnotatedElementUtilsTests {
 	static class TxConfig {
 	}
 
+	@Filters(value = {"a", "b"}, filters = @Filter(patterns = "x"))
+	static class FilteredConfig {
+	}
+
 	@Transactional("DerivedTxConfig")
 	static class DerivedTxConfig extends TxConfig {
 	}
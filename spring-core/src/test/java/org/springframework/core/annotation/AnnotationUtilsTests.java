@@ -32,6 +32,9 @@ import org.junit.Test;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.subpackage.NonPublicAnnotatedClass;
 import org.springframework.stereotype.Component;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.util.StopWatch;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -78,6 +81,46 @@ public class AnnotationUtilsTests {
 		assertNull(findAnnotation(m, Order.class));
 	}
 
+	@Test
+	public void findMethodAnnotationIsCachedIncludingNegativeResults() throws Exception {
+		Method annotated = Leaf.class.getMethod("overrideWithoutNewAnnotation", (Class[]) null);
+		Method notAnnotated = Leaf.class.getMethod("notAnnotated", (Class[]) null);
+		Order order = findAnnotation(annotated, Order.class);
+		assertNotNull(order);
+		assertSame(order, findAnnotation(annotated, Order.class));
+		assertNull(findAnnotation(notAnnotated, Order.class));
+		assertNull(findAnnotation(notAnnotated, Order.class));
+
+		AnnotationUtils.clearCache();
+		assertEquals(order, findAnnotation(annotated, Order.class));
+		assertNull(findAnnotation(notAnnotated, Order.class));
+	}
+
+	@Test
+	public void findMethodAnnotationCacheDistinguishesAnnotationTypes() throws Exception {
+		Method m = SimpleFoo.class.getMethod("something", Object.class);
+		assertNotNull(findAnnotation(m, Order.class));
+		assertNotNull(findAnnotation(m, Transactional.class));
+		assertNull(findAnnotation(m, Component.class));
+	}
+
+	@Test
+	public void findMethodAnnotationIsFastEnough() throws Exception {
+		Assume.group(TestGroup.PERFORMANCE);
+		Method annotated = SubOfImplementsInterfaceWithAnnotatedMethod.class.getMethod("foo");
+		Method notAnnotated = Leaf.class.getMethod("notAnnotated", (Class[]) null);
+
+		// Simulates a typical interceptor checking each invocation for annotations
+		StopWatch sw = new StopWatch();
+		sw.start();
+		for (int i = 0; i < 1000000; i++) {
+			assertNotNull(findAnnotation(annotated, Order.class));
+			assertNull(findAnnotation(notAnnotated, Transactional.class));
+		}
+		sw.stop();
+		assertThat(sw.getTotalTimeMillis(), lessThan(2000L));
+	}
+
 	@Test
 	public void findMethodAnnotationOnBridgeMethod() throws Exception {
 		Method m = SimpleFoo.class.getMethod("something", Object.class);
@@ -133,6 +176,15 @@ public class AnnotationUtilsTests {
 		assertEquals("meta2", component.value());
 	}
 
+	@Test
+	public void findClassAnnotationIsCachedIncludingNegativeResults() {
+		Component component = findAnnotation(MetaMetaAnnotatedClass.class, Component.class);
+		assertNotNull(component);
+		assertSame(component, findAnnotation(MetaMetaAnnotatedClass.class, Component.class));
+		assertNull(findAnnotation(MetaCycleAnnotatedClass.class, Component.class));
+		assertNull(findAnnotation(MetaCycleAnnotatedClass.class, Component.class));
+	}
+
 	@Test
 	public void findAnnotationOnMetaMetaAnnotatedClass() {
 		Component component = AnnotationUtils.findAnnotation(MetaMetaAnnotatedClass.class, Component.class);
@@ -846,6 +846,91 @@ public class GenericConversionServiceTests {
 				conversionService.convert("test", TypeDescriptor.valueOf(String.class), new TypeDescriptor(getClass().getField("integerCollection"))));
 	}
 
+	@Test
+	public void conversionPlan() {
+		DefaultConversionService.addDefaultConverters(conversionService);
+		ConversionPlan plan = conversionService.getConversionPlan(
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Integer.class));
+		assertNotNull(plan);
+		assertFalse(plan.isNoOp());
+		assertEquals(TypeDescriptor.valueOf(String.class), plan.getSourceType());
+		assertEquals(TypeDescriptor.valueOf(Integer.class), plan.getTargetType());
+		assertEquals(Integer.valueOf(3), plan.convert("3"));
+		assertEquals(Integer.valueOf(4), plan.convert("4"));
+		assertNull(plan.convert(null));
+	}
+
+	@Test
+	public void conversionPlanForAssignableTypes() {
+		ConversionPlan plan = conversionService.getConversionPlan(
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Object.class));
+		assertTrue(plan.isNoOp());
+		assertEquals("test", plan.convert("test"));
+	}
+
+	@Test
+	public void conversionPlanNotAvailable() {
+		assertNull(conversionService.getConversionPlan(
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Integer.class)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void conversionPlanWithWrongSourceType() {
+		DefaultConversionService.addDefaultConverters(conversionService);
+		ConversionPlan plan = conversionService.getConversionPlan(
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Integer.class));
+		plan.convert(3L);
+	}
+
+	@Test(expected = ConversionFailedException.class)
+	public void conversionPlanWithNullToPrimitive() {
+		DefaultConversionService.addDefaultConverters(conversionService);
+		ConversionPlan plan = conversionService.getConversionPlan(
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(int.class));
+		plan.convert(null);
+	}
+
+	@Test
+	public void convertMixedElementTypes() throws Exception {
+		DefaultConversionService.addDefaultConverters(conversionService);
+		List<Object> source = new ArrayList<Object>();
+		source.add("1");
+		source.add("2");
+		source.add(3L);
+		source.add(null);
+		source.add("5");
+		Collection<?> result = (Collection<?>) conversionService.convert(source,
+				TypeDescriptor.forObject(source), new TypeDescriptor(getClass().getField("integerCollection")));
+		assertEquals(Arrays.asList(1, 2, 3, null, 5), new ArrayList<Object>(result));
+		Integer[] array = conversionService.convert(source, Integer[].class);
+		assertArrayEquals(new Integer[] {1, 2, 3, null, 5}, array);
+		Object[] sourceArray = source.toArray();
+		result = (Collection<?>) conversionService.convert(sourceArray,
+				TypeDescriptor.forObject(sourceArray), new TypeDescriptor(getClass().getField("integerCollection")));
+		assertEquals(Arrays.asList(1, 2, 3, null, 5), new ArrayList<Object>(result));
+	}
+
+	@Test
+	public void convertElementsWithOverriddenConvert() throws Exception {
+		final List<Object> convertedSources = new ArrayList<Object>();
+		GenericConversionService customService = new GenericConversionService() {
+			@Override
+			public Object convert(Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+				convertedSources.add(source);
+				return super.convert(source, sourceType, targetType);
+			}
+		};
+		DefaultConversionService.addDefaultConverters(customService);
+		assertTrue(conversionService.isConversionPlanApplicable());
+		assertFalse(customService.isConversionPlanApplicable());
+		List<String> source = Arrays.asList("1", "2");
+		Collection<?> result = (Collection<?>) customService.convert(source,
+				TypeDescriptor.forObject(source), new TypeDescriptor(getClass().getField("integerCollection")));
+		assertEquals(Arrays.asList(1, 2), new ArrayList<Object>(result));
+		assertTrue(convertedSources.contains("1"));
+		assertTrue(convertedSources.contains("2"));
+	}
+
 
 	@ExampleAnnotation
 	public String annotatedString;
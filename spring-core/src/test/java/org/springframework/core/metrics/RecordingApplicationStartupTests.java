@@ -0,0 +1,169 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.springframework.core.metrics.RecordingApplicationStartup.RecordedStep;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link RecordingApplicationStartup}.
+ */
+public class RecordingApplicationStartupTests {
+
+	private final RecordingApplicationStartup startup = new RecordingApplicationStartup();
+
+
+	@Test
+	public void defaultApplicationStartupDoesNotRecord() {
+		StartupStep step = ApplicationStartup.DEFAULT.start("test").tag("key", "value");
+		step.end();
+		assertEquals(0L, step.getId());
+		assertTrue(step.getTags().isEmpty());
+	}
+
+	@Test
+	public void nestedSteps() {
+		StartupStep outer = this.startup.start("outer");
+		StartupStep inner1 = this.startup.start("inner").tag("index", "1");
+		inner1.end();
+		StartupStep inner2 = this.startup.start("inner").tag("index", "2");
+		inner2.end();
+		outer.end();
+		StartupStep next = this.startup.start("next");
+		next.end();
+
+		assertNull(outer.getParentId());
+		assertEquals(Long.valueOf(outer.getId()), inner1.getParentId());
+		assertEquals(Long.valueOf(outer.getId()), inner2.getParentId());
+		assertNull(next.getParentId());
+
+		List<RecordedStep> timeline = this.startup.getTimeline();
+		assertEquals(4, timeline.size());
+		assertSame(outer, timeline.get(0));
+		assertSame(inner1, timeline.get(1));
+		assertSame(inner2, timeline.get(2));
+		assertSame(next, timeline.get(3));
+		assertTrue(timeline.get(0).getDuration() >= timeline.get(1).getDuration() + timeline.get(2).getDuration());
+
+		List<RecordedStep> innerSteps = this.startup.getSteps("inner");
+		assertEquals(2, innerSteps.size());
+		assertEquals("1", innerSteps.get(0).getTags().get("index"));
+		assertEquals("2", innerSteps.get(1).getTags().get("index"));
+	}
+
+	@Test
+	public void unfinishedNestedStepIsDiscardedAsParent() {
+		StartupStep outer = this.startup.start("outer");
+		this.startup.start("failed");
+		outer.end();
+		StartupStep next = this.startup.start("next");
+		next.end();
+
+		assertNull(next.getParentId());
+		assertEquals(2, this.startup.getTimeline().size());
+	}
+
+	@Test
+	public void stepCannotBeEndedTwice() {
+		StartupStep step = this.startup.start("test");
+		step.end();
+		try {
+			step.end();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		try {
+			step.tag("key", "value");
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void slowestStepsAndTotalsByTag() throws Exception {
+		recordStep("work", "fast", 0);
+		recordStep("work", "slow", 20);
+		recordStep("work", "fast", 0);
+		recordStep("other", "slow", 0);
+
+		List<RecordedStep> slowest = this.startup.getSlowestSteps("work", 1);
+		assertEquals(1, slowest.size());
+		assertEquals("slow", slowest.get(0).getTags().get("processor"));
+		assertEquals(4, this.startup.getSlowestSteps(null, 10).size());
+
+		Map<String, Long> totals = this.startup.getTotalDurationByTag("work", "processor");
+		assertEquals(2, totals.size());
+		Iterator<String> it = totals.keySet().iterator();
+		assertEquals("slow", it.next());
+		assertEquals("fast", it.next());
+	}
+
+	@Test
+	public void capacityLimitsRetainedSteps() {
+		this.startup.setCapacity(2);
+		for (int i = 0; i < 5; i++) {
+			this.startup.start("step").end();
+		}
+		assertEquals(2, this.startup.getTimeline().size());
+		assertEquals(3, this.startup.getDroppedStepCount());
+		this.startup.clear();
+		assertEquals(0, this.startup.getTimeline().size());
+		assertEquals(0, this.startup.getDroppedStepCount());
+	}
+
+	@Test
+	public void report() throws Exception {
+		StartupStep outer = this.startup.start("outer");
+		recordStep("inner", "slow", 20);
+		recordStep("inner", "fast", 0);
+		outer.end();
+
+		String report = this.startup.getReport();
+		assertTrue(report.startsWith("Startup timeline: 3 steps"));
+		assertTrue(report.contains(" outer\n"));
+		assertTrue(report.contains("   inner {processor=slow}\n"));
+		assertTrue(report.contains("   inner {processor=fast}\n"));
+
+		StringWriter writer = new StringWriter();
+		this.startup.writeReport(writer, 10);
+		String filteredReport = writer.toString();
+		assertTrue(filteredReport.contains("inner {processor=slow}"));
+		assertFalse(filteredReport.contains("inner {processor=fast}"));
+	}
+
+
+	private void recordStep(String name, String processor, long sleep) throws InterruptedException {
+		StartupStep step = this.startup.start(name).tag("processor", processor);
+		if (sleep > 0) {
+			Thread.sleep(sleep);
+		}
+		step.end();
+	}
+
+}
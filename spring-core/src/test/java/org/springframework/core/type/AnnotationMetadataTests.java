@@ -16,6 +16,7 @@
 
 package org.springframework.core.type;
 
+import java.io.File;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
@@ -29,8 +30,10 @@ import java.util.Set;
 
 import org.junit.Test;
 import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentMetadataCache;
 import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.stereotype.Component;
 
@@ -64,6 +67,29 @@ public class AnnotationMetadataTests {
 		doTestMethodAnnotationInfo(metadata);
 	}
 
+	@Test
+	public void asmAnnotationMetadataFromPersistentCache() throws Exception {
+		File cacheFile = File.createTempFile("metadata", ".cache");
+		cacheFile.delete();
+		try {
+			CachingMetadataReaderFactory metadataReaderFactory = new CachingMetadataReaderFactory();
+			metadataReaderFactory.setPersistentCache(new PersistentMetadataCache(cacheFile));
+			metadataReaderFactory.getMetadataReader(AnnotatedComponent.class.getName());
+			metadataReaderFactory.getPersistentCache().save();
+
+			metadataReaderFactory = new CachingMetadataReaderFactory();
+			metadataReaderFactory.setPersistentCache(new PersistentMetadataCache(cacheFile));
+			MetadataReader metadataReader = metadataReaderFactory.getMetadataReader(AnnotatedComponent.class.getName());
+			assertEquals(1, metadataReaderFactory.getPersistentCache().getEntryCount());
+			AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
+			doTestAnnotationInfo(metadata);
+			doTestMethodAnnotationInfo(metadata);
+		}
+		finally {
+			cacheFile.delete();
+		}
+	}
+
 	@Test
 	public void standardAnnotationMetadataForSubclass() throws Exception {
 		AnnotationMetadata metadata = new StandardAnnotationMetadata(AnnotatedComponentSubClass.class, true);
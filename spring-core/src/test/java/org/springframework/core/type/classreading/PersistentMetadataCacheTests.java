@@ -0,0 +1,265 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileCopyUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PersistentMetadataCache}.
+ */
+public class PersistentMetadataCacheTests {
+
+	private File tempDir;
+
+	private File cacheFile;
+
+	private File classFile;
+
+
+	@Before
+	public void setUp() throws Exception {
+		this.tempDir = File.createTempFile("metadata", "");
+		this.tempDir.delete();
+		this.tempDir.mkdirs();
+		this.cacheFile = new File(this.tempDir, "metadata.cache");
+		this.classFile = new File(this.tempDir, "CachedComponent.class");
+		copyClassFile(CachedComponent.class, this.classFile);
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : this.tempDir.listFiles()) {
+			file.delete();
+		}
+		this.tempDir.delete();
+	}
+
+
+	@Test
+	public void saveAndRestore() throws Exception {
+		Resource resource = new FileSystemResource(this.classFile);
+		CachingMetadataReaderFactory metadataReaderFactory = new CachingMetadataReaderFactory();
+		PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheFile);
+		metadataReaderFactory.setPersistentCache(cache);
+		metadataReaderFactory.getMetadataReader(resource);
+		assertEquals(1, cache.getEntryCount());
+		assertFalse(this.cacheFile.exists());
+		cache.save();
+		assertTrue(this.cacheFile.exists());
+
+		// Same size and timestamp but unparseable: only works if restored from the cache
+		long lastModified = this.classFile.lastModified();
+		FileCopyUtils.copy(new byte[(int) this.classFile.length()], this.classFile);
+		assertTrue(this.classFile.setLastModified(lastModified));
+
+		PersistentMetadataCache restoredCache = new PersistentMetadataCache(this.cacheFile);
+		assertEquals(0, restoredCache.getEntryCount());
+		MetadataReader metadataReader = restoredCache.getMetadataReader(resource, getClass().getClassLoader());
+		assertEquals(1, restoredCache.getEntryCount());
+		assertSame(resource, metadataReader.getResource());
+		AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
+		assertEquals(CachedComponent.class.getName(), metadata.getClassName());
+		assertEquals(Object.class.getName(), metadata.getSuperClassName());
+		assertTrue(metadata.isIndependent());
+		assertTrue(metadata.hasAnnotation(Component.class.getName()));
+		assertEquals("cached", metadata.getAnnotationAttributes(Component.class.getName()).get("value"));
+		assertTrue(metadata.hasAnnotatedMethods(Deprecated.class.getName()));
+	}
+
+	@Test
+	public void saveOverRestoredCacheFile() throws Exception {
+		Resource resource = new FileSystemResource(this.classFile);
+		PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheFile);
+		cache.getMetadataReader(resource, getClass().getClassLoader());
+		cache.save();
+
+		PersistentMetadataCache restoredCache = new PersistentMetadataCache(this.cacheFile);
+		assertNotNull(restoredCache.getMetadataReader(resource, getClass().getClassLoader()));
+		restoredCache.save();
+		restoredCache.save();
+		assertFalse(new File(this.tempDir, "metadata.cache.tmp").exists());
+		assertEquals(CachedComponent.class.getName(), new PersistentMetadataCache(this.cacheFile).getMetadataReader(
+				resource, getClass().getClassLoader()).getClassMetadata().getClassName());
+	}
+
+	@Test
+	public void metaAnnotationsAndDefaultValuesDerivedOnRestore() throws Exception {
+		File serviceFile = new File(this.tempDir, "CachedService.class");
+		copyClassFile(CachedService.class, serviceFile);
+		Resource resource = new FileSystemResource(serviceFile);
+		PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheFile);
+		cache.getMetadataReader(resource, getClass().getClassLoader());
+		cache.save();
+
+		String content = new String(FileCopyUtils.copyToByteArray(this.cacheFile), "ISO-8859-1");
+		assertTrue(content.contains("CachedStereotype"));
+		assertFalse(content.contains("stereotype/Component"));
+		assertFalse(content.contains("stereotype.Component"));
+		assertFalse(content.contains("defaultName"));
+
+		AnnotationMetadata metadata = new PersistentMetadataCache(this.cacheFile).getMetadataReader(
+				resource, getClass().getClassLoader()).getAnnotationMetadata();
+		assertTrue(metadata.hasAnnotation(CachedStereotype.class.getName()));
+		assertTrue(metadata.hasMetaAnnotation(Component.class.getName()));
+		assertEquals("defaultName", metadata.getAnnotationAttributes(CachedStereotype.class.getName()).get("value"));
+		assertArrayEquals(new int[] {1, 2}, (int[]) metadata.getAnnotationAttributes(
+				CachedStereotype.class.getName()).get("order"));
+	}
+
+	@Test
+	public void modifiedClassFileInvalidatesEntry() throws Exception {
+		Resource resource = new FileSystemResource(this.classFile);
+		PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheFile);
+		cache.getMetadataReader(resource, getClass().getClassLoader());
+		cache.save();
+
+		assertTrue(this.classFile.setLastModified(this.classFile.lastModified() + 10000));
+		FileCopyUtils.copy(new byte[(int) this.classFile.length()], this.classFile);
+		PersistentMetadataCache restoredCache = new PersistentMetadataCache(this.cacheFile);
+		try {
+			restoredCache.getMetadataReader(resource, getClass().getClassLoader());
+			fail("Should have parsed invalid class file");
+		}
+		catch (Exception ex) {
+			// expected
+		}
+		assertEquals(0, restoredCache.getEntryCount());
+	}
+
+	@Test
+	public void differentSizeWithSameTimestampInvalidatesEntry() throws Exception {
+		Resource resource = new FileSystemResource(this.classFile);
+		PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheFile);
+		cache.getMetadataReader(resource, getClass().getClassLoader());
+		cache.save();
+
+		long lastModified = this.classFile.lastModified();
+		copyClassFile(CachedService.class, this.classFile);
+		assertTrue(this.classFile.setLastModified(lastModified));
+		PersistentMetadataCache restoredCache = new PersistentMetadataCache(this.cacheFile);
+		MetadataReader metadataReader = restoredCache.getMetadataReader(resource, getClass().getClassLoader());
+		assertEquals(CachedService.class.getName(), metadataReader.getClassMetadata().getClassName());
+	}
+
+	@Test
+	public void changedJarFileInvalidatesEntries() throws Exception {
+		File jarFile = new File(this.tempDir, "classes.jar");
+		writeJarFile(jarFile, CachedComponent.class);
+		Resource resource = new UrlResource("jar:" + jarFile.toURI() + "!/CachedComponent.class");
+		PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheFile);
+		cache.getMetadataReader(resource, getClass().getClassLoader());
+		assertEquals(1, cache.getEntryCount());
+		cache.save();
+
+		PersistentMetadataCache restoredCache = new PersistentMetadataCache(this.cacheFile);
+		assertEquals(CachedComponent.class.getName(), restoredCache.getMetadataReader(
+				resource, getClass().getClassLoader()).getClassMetadata().getClassName());
+
+		long lastModified = jarFile.lastModified();
+		writeJarFile(jarFile, CachedService.class);
+		assertTrue(jarFile.setLastModified(lastModified));
+		restoredCache = new PersistentMetadataCache(this.cacheFile);
+		assertEquals(CachedService.class.getName(), restoredCache.getMetadataReader(
+				resource, getClass().getClassLoader()).getClassMetadata().getClassName());
+	}
+
+	@Test
+	public void unsupportedResourceIsNotCached() throws Exception {
+		InputStream is = new FileSystemResource(this.classFile).getInputStream();
+		Resource resource = new ByteArrayResource(FileCopyUtils.copyToByteArray(is));
+		PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheFile);
+		MetadataReader metadataReader = cache.getMetadataReader(resource, getClass().getClassLoader());
+		assertEquals(CachedComponent.class.getName(), metadataReader.getClassMetadata().getClassName());
+		assertEquals(0, cache.getEntryCount());
+	}
+
+	@Test
+	public void clear() throws Exception {
+		Resource resource = new FileSystemResource(this.classFile);
+		PersistentMetadataCache cache = new PersistentMetadataCache(this.cacheFile);
+		cache.getMetadataReader(resource, getClass().getClassLoader());
+		cache.save();
+		cache.clear();
+		assertEquals(0, cache.getEntryCount());
+		assertFalse(this.cacheFile.exists());
+	}
+
+
+	private void writeJarFile(File jarFile, Class<?> clazz) throws Exception {
+		String resourceName = clazz.getName().substring(clazz.getPackage().getName().length() + 1) + ".class";
+		JarOutputStream jos = new JarOutputStream(new FileOutputStream(jarFile));
+		try {
+			jos.putNextEntry(new JarEntry("CachedComponent.class"));
+			jos.write(FileCopyUtils.copyToByteArray(new ClassPathResource(resourceName, getClass()).getInputStream()));
+		}
+		finally {
+			jos.close();
+		}
+	}
+
+	private void copyClassFile(Class<?> clazz, File targetFile) throws Exception {
+		String resourceName = clazz.getName().substring(clazz.getPackage().getName().length() + 1) + ".class";
+		InputStream is = new ClassPathResource(resourceName, getClass()).getInputStream();
+		FileCopyUtils.copy(is, new FileOutputStream(targetFile));
+	}
+
+
+	@Component("cached")
+	public static class CachedComponent {
+
+		@Deprecated
+		public void deprecatedMethod() {
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Component
+	public @interface CachedStereotype {
+
+		String value() default "defaultName";
+
+		int[] order() default {};
+	}
+
+
+	@CachedStereotype(order = {1, 2})
+	public static class CachedService {
+	}
+
+}
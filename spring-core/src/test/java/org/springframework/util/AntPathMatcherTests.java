@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -562,6 +562,79 @@ public class AntPathMatcherTests {
 		assertTrue(pathMatcher.match("/group/{groupName}/members", "/group/  sales/members"));
 	}
 
+	@Test
+	public void literalAndWholeSegmentFastPaths() {
+		assertTrue(pathMatcher.match("/hotels/*/bookings", "/hotels/1/bookings"));
+		assertFalse(pathMatcher.match("/hotels/*/bookings", "/hotels/1\n2/bookings"));
+		assertFalse(pathMatcher.match("/hotels/{hotel}", "/hotels/a\rb"));
+		assertFalse(pathMatcher.match("/hotels/{hotel}", "/motels/1"));
+		assertFalse(pathMatcher.match("/hotels/{hotel}", "/hotel/1"));
+		assertFalse(pathMatcher.match("/hotels/{hotel}", "/hotelsx/1"));
+		assertFalse(pathMatcher.matchStart("/hotels/**", "/motels/1"));
+		assertTrue(pathMatcher.matchStart("/hotels/1/bookings", "/hotels"));
+		assertTrue(pathMatcher.match("/hotels/{hotel}", "//hotels/ 1 "));
+		assertTrue(pathMatcher.match("/hotels/{hotel}", "/ hotels /1"));
+
+		Map<String, String> result = pathMatcher.extractUriTemplateVariables("/hotels/{hotel}/bookings/{booking}",
+				"/hotels/1/bookings/2");
+		assertEquals(2, result.size());
+		assertEquals("1", result.get("hotel"));
+		assertEquals("2", result.get("booking"));
+
+		pathMatcher.setTrimTokens(false);
+		assertFalse(pathMatcher.match("/hotels/{hotel}", "/ hotels /1"));
+		assertTrue(pathMatcher.match("/ hotels /{hotel}", "/ hotels /1"));
+	}
+
+	@Test
+	public void compiledPattern() {
+		String[] patterns = {"", "/", "*", "**", "/*", "/**", "test", "t?st", "/test/", "/*/", "/test/*",
+				"/test/**", "/**/test", "/bla/**/bla", "/**/bla/**/bla", "/x/x/**/bla", "/*bla*/**/bla/**",
+				"/*bla*/**/bla/*", "/**/**/test", "/test/**/*.jsp", "*.*", "/{foo}", "/{foo}/**",
+				"/hotels/{hotel}/bookings/{booking}", "/{name:[a-z]+}-{version:\\d+}.jar", "/{x}/**/{y}/*.html",
+				"/ test /*"};
+		String[] paths = {"", "/", "test", "tast", "/test", "/test/", "/test/t", "/test/a/b/c", "/bla/bla",
+				"/bla/a/b/bla", "/bla/bla/bla", "/x/x/x/bla", "/XbXlaX/bla/bla", "/XbXlaX/bla/x/bla/y",
+				"//test//", "/a/test/b/test", "/test/a/b/c.jsp", "test.jsp", "/hotels/1/bookings/2",
+				"/spring-web-3.0.5.jar", "/a/b/c/d.html", "/ test /a", "/a\nb"};
+		for (String pattern : patterns) {
+			AntPathMatcher.CompiledPattern compiled = pathMatcher.compile(pattern);
+			assertEquals(pattern, compiled.getPattern());
+			for (String path : paths) {
+				boolean match = pathMatcher.match(pattern, path);
+				assertEquals(pattern + " / " + path, match, compiled.match(path));
+				assertEquals(pattern + " / " + path, pathMatcher.matchStart(pattern, path), compiled.matchStart(path));
+				Map<String, String> variables = compiled.matchAndExtractUriTemplateVariables(path);
+				assertEquals(match ? pathMatcher.extractUriTemplateVariables(pattern, path) : null, variables);
+			}
+		}
+	}
+
+	@Test
+	public void compiledPatternWithCustomSettings() {
+		pathMatcher.setPathSeparator(".");
+		pathMatcher.setTrimTokens(false);
+		AntPathMatcher.CompiledPattern compiled = pathMatcher.compile("com.*.{name}");
+		assertTrue(compiled.match("com.acme.Foo"));
+		assertFalse(compiled.match("com.acme. Foo.Bar"));
+		assertFalse(compiled.match("com .acme.Foo"));
+		assertEquals(Collections.singletonMap("name", " Foo"), compiled.matchAndExtractUriTemplateVariables("com.acme. Foo"));
+		assertNull(compiled.matchAndExtractUriTemplateVariables("org.acme.Foo"));
+	}
+
+	@Test
+	public void compiledPatternHonorsSubclass() {
+		AntPathMatcher caseInsensitiveMatcher = new AntPathMatcher() {
+			@Override
+			protected String[] tokenizePath(String path) {
+				return super.tokenizePath(path.toLowerCase());
+			}
+		};
+		AntPathMatcher.CompiledPattern compiled = caseInsensitiveMatcher.compile("/hotels/{hotel}");
+		assertTrue(compiled.match("/HOTELS/1"));
+		assertEquals(Collections.singletonMap("hotel", "a"), compiled.matchAndExtractUriTemplateVariables("/hotels/A"));
+	}
+
 	@Test
 	public void testDefaultCacheSetting() {
 		match();
@@ -574,6 +647,53 @@ public class AntPathMatcherTests {
 		assertTrue(pathMatcher.stringMatcherCache.isEmpty());
 	}
 
+	@Test
+	public void testCacheLimit() {
+		pathMatcher.setCacheLimit(10);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(pathMatcher.match("/test" + i + "/{id}", "/test" + i + "/42"));
+		}
+		assertEquals(10, pathMatcher.stringMatcherCache.size());
+	}
+
+	@Test
+	public void testCacheLimitWithLiteralPatterns() {
+		pathMatcher.setCacheLimit(65536);
+		match();
+		for (int i = 0; i < 65536; i++) {
+			pathMatcher.match("test" + i, "test");
+		}
+		// Bounded to the most recently used patterns instead of being turned off
+		assertEquals(65536, pathMatcher.stringMatcherCache.size());
+		assertFalse(pathMatcher.match("test65535", "test"));
+		assertEquals(65536, pathMatcher.stringMatcherCache.size());
+	}
+
+	@Test
+	public void literalFastPathUsesStringMatcherCache() {
+		assertFalse(pathMatcher.match("/hotels/bookings", "/motels/bookings"));
+		assertEquals(1, pathMatcher.stringMatcherCache.size());
+		assertFalse(pathMatcher.match("/hotels/{hotel}", "/hotel/1"));
+		assertEquals(1, pathMatcher.stringMatcherCache.size());
+	}
+
+	@Test
+	public void literalFastPathHonorsCustomStringMatcher() {
+		AntPathMatcher caseInsensitiveMatcher = new AntPathMatcher() {
+			@Override
+			protected AntPathStringMatcher getStringMatcher(String pattern) {
+				return new AntPathStringMatcher(pattern) {
+					@Override
+					public boolean matchStrings(String str, Map<String, String> uriTemplateVariables) {
+						return super.matchStrings(str.toLowerCase(), uriTemplateVariables);
+					}
+				};
+			}
+		};
+		assertTrue(caseInsensitiveMatcher.match("/hotels/{hotel}", "/HOTELS/1"));
+		assertFalse(caseInsensitiveMatcher.match("/hotels/{hotel}", "/motels/1"));
+	}
+
 	@Test
 	public void testCacheSetToTrue() {
 		pathMatcher.setCachePatterns(true);
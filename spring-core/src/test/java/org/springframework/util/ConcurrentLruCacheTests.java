@@ -0,0 +1,74 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ */
+public class ConcurrentLruCacheTests {
+
+	@Test
+	public void getAndPut() {
+		ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(2);
+		assertNull(cache.get("k1"));
+		cache.put("k1", "v1");
+		cache.put("k1", "v1a");
+		assertEquals("v1a", cache.get("k1"));
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.sizeLimit());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(2);
+		cache.put("k1", "v1");
+		cache.put("k2", "v2");
+		assertEquals("v1", cache.get("k1"));
+		cache.put("k3", "v3");
+		assertEquals(2, cache.size());
+		assertEquals("v1", cache.get("k1"));
+		assertNull(cache.get("k2"));
+		assertEquals("v3", cache.get("k3"));
+	}
+
+	@Test
+	public void zeroLimit() {
+		ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(0);
+		cache.put("k1", "v1");
+		assertNull(cache.get("k1"));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void removeAndClear() {
+		ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(2);
+		cache.put("k1", "v1");
+		cache.put("k2", "v2");
+		cache.remove("k1");
+		assertNull(cache.get("k1"));
+		assertEquals(1, cache.size());
+		cache.put("k3", "v3");
+		assertEquals("v2", cache.get("k2"));
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertNull(cache.get("k2"));
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package org.springframework.util;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 
 import static org.junit.Assert.*;
@@ -52,5 +54,13 @@ public class DigestUtilsTests {
 		assertEquals("Invalid hash", "b10a8db164e0754105b7a99be72e3fe5", builder.toString());
 	}
 
+	@Test
+	public void md5InputStream() throws IOException {
+		byte[] result = DigestUtils.md5Digest(new ByteArrayInputStream(bytes));
+		assertArrayEquals("Invalid hash", DigestUtils.md5Digest(bytes), result);
+		String hash = DigestUtils.md5DigestAsHex(new ByteArrayInputStream(bytes));
+		assertEquals("Invalid hash", "b10a8db164e0754105b7a99be72e3fe5", hash);
+	}
+
 
 }
\ No newline at end of file
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.UUID;
 
@@ -59,6 +60,38 @@ public class StreamUtilsTests {
 		verify(inputStream, never()).close();
 	}
 
+	@Test
+	public void copyToByteArrayWithExpectedLength() throws Exception {
+		InputStream inputStream = spy(new ByteArrayInputStream(bytes));
+		assertThat(StreamUtils.copyToByteArray(inputStream, bytes.length), equalTo(bytes));
+		verify(inputStream, never()).close();
+		assertThat(StreamUtils.copyToByteArray(new ByteArrayInputStream(bytes), -1), equalTo(bytes));
+	}
+
+	@Test
+	public void copyToByteArrayWithWrongExpectedLength() throws Exception {
+		assertThat(StreamUtils.copyToByteArray(new ByteArrayInputStream(bytes), bytes.length + 100), equalTo(bytes));
+		assertThat(StreamUtils.copyToByteArray(new ByteArrayInputStream(bytes), 10), equalTo(bytes));
+		assertThat(StreamUtils.copyToByteArray(new ByteArrayInputStream(bytes), 0), equalTo(bytes));
+	}
+
+	@Test
+	public void copyToByteArrayWithLargeExpectedLength() throws Exception {
+		byte[] largeBytes = new byte[200 * 1024 + 7];
+		new Random().nextBytes(largeBytes);
+		assertThat(StreamUtils.copyToByteArray(new ByteArrayInputStream(largeBytes), largeBytes.length),
+				equalTo(largeBytes));
+		assertThat(StreamUtils.copyToByteArray(new ByteArrayInputStream(largeBytes), largeBytes.length - 1000),
+				equalTo(largeBytes));
+	}
+
+	@Test
+	public void copyToByteArrayWithBogusExpectedLength() throws Exception {
+		// must not allocate the full expected length upfront
+		assertThat(StreamUtils.copyToByteArray(new ByteArrayInputStream(bytes), Integer.MAX_VALUE - 8),
+				equalTo(bytes));
+	}
+
 	@Test
 	public void copyToString() throws Exception {
 		Charset charset = Charset.defaultCharset();
@@ -76,6 +109,22 @@ public class StreamUtilsTests {
 		verify(out, never()).close();
 	}
 
+	@Test
+	public void copyRange() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long copied = StreamUtils.copyRange(new ByteArrayInputStream(bytes), out, 10, 20);
+		assertThat(copied, equalTo(11L));
+		assertThat(out.toByteArray(), equalTo(Arrays.copyOfRange(bytes, 10, 21)));
+	}
+
+	@Test
+	public void copyRangeBeyondEndOfStream() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long copied = StreamUtils.copyRange(new ByteArrayInputStream(bytes), out, bytes.length - 5, bytes.length + 100);
+		assertThat(copied, equalTo(5L));
+		assertThat(out.toByteArray(), equalTo(Arrays.copyOfRange(bytes, bytes.length - 5, bytes.length)));
+	}
+
 	@Test
 	public void copyString() throws Exception {
 		Charset charset = Charset.defaultCharset();
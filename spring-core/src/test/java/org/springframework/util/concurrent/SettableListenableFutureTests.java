@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util.concurrent;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SettableListenableFutureTests {
+
+	private final SettableListenableFuture<String> future = new SettableListenableFuture<String>();
+
+
+	@Test
+	public void setValue() throws Exception {
+		final String[] callbackValue = new String[1];
+		future.addCallback(new ListenableFutureCallback<String>() {
+			@Override
+			public void onSuccess(String result) {
+				callbackValue[0] = result;
+			}
+			@Override
+			public void onFailure(Throwable t) {
+				fail(t.getMessage());
+			}
+		});
+		assertFalse(future.isDone());
+		assertTrue(future.set("hello"));
+		assertTrue(future.isDone());
+		assertEquals("hello", future.get());
+		assertEquals("hello", callbackValue[0]);
+		assertFalse(future.set("world"));
+		assertFalse(future.setException(new IOException()));
+		assertEquals("hello", future.get());
+	}
+
+	@Test
+	public void setException() throws Exception {
+		final Throwable[] callbackException = new Throwable[1];
+		future.addCallback(new ListenableFutureCallback<String>() {
+			@Override
+			public void onSuccess(String result) {
+				fail("onSuccess not expected");
+			}
+			@Override
+			public void onFailure(Throwable t) {
+				callbackException[0] = t;
+			}
+		});
+		IOException exception = new IOException("boom");
+		assertTrue(future.setException(exception));
+		assertSame(exception, callbackException[0]);
+		try {
+			future.get();
+			fail("ExecutionException expected");
+		}
+		catch (ExecutionException ex) {
+			assertSame(exception, ex.getCause());
+		}
+	}
+
+	@Test
+	public void cancel() {
+		assertTrue(future.cancel(true));
+		assertTrue(future.isCancelled());
+		assertFalse(future.set("hello"));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -50,6 +50,9 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	 */
 	public void setPathMatcher(AntPathMatcher pathMatcher) {
 		this.pathMatcher = pathMatcher;
+		for (SessionSubscriptionInfo info : this.subscriptionRegistry.getAllSubscriptions()) {
+			info.compileDestinations(pathMatcher);
+		}
 	}
 
 	public AntPathMatcher getPathMatcher() {
@@ -58,7 +61,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	@Override
 	protected void addSubscriptionInternal(String sessionId, String subsId, String destination, Message<?> message) {
-		SessionSubscriptionInfo info = this.subscriptionRegistry.addSubscription(sessionId, subsId, destination);
+		SessionSubscriptionInfo info =
+				this.subscriptionRegistry.addSubscription(sessionId, subsId, destination, this.pathMatcher);
 		if (!this.pathMatcher.isPattern(destination)) {
 			this.destinationCache.mapToDestination(destination, info);
 		}
@@ -93,7 +97,9 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			result = new LinkedMultiValueMap<String, String>();
 			for (SessionSubscriptionInfo info : this.subscriptionRegistry.getAllSubscriptions()) {
 				for (String destinationPattern : info.getDestinations()) {
-					if (this.pathMatcher.match(destinationPattern, destination)) {
+					AntPathMatcher.CompiledPattern compiledPattern = info.getCompiledDestination(destinationPattern);
+					if (compiledPattern != null ? compiledPattern.match(destination) :
+							this.pathMatcher.match(destinationPattern, destination)) {
 						for (String subscriptionId : info.getSubscriptions(destinationPattern)) {
 							result.add(info.sessionId, subscriptionId);
 						}
@@ -193,7 +199,9 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			return this.sessions.values();
 		}
 
-		public SessionSubscriptionInfo addSubscription(String sessionId, String subscriptionId, String destination) {
+		public SessionSubscriptionInfo addSubscription(String sessionId, String subscriptionId, String destination,
+				AntPathMatcher pathMatcher) {
+
 			SessionSubscriptionInfo info = this.sessions.get(sessionId);
 			if (info == null) {
 				info = new SessionSubscriptionInfo(sessionId);
@@ -202,7 +210,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 					info = value;
 				}
 			}
-			info.addSubscription(destination, subscriptionId);
+			info.addSubscription(destination, subscriptionId, pathMatcher);
 			return info;
 		}
 
@@ -225,6 +233,10 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 		private final Map<String, Set<String>> subscriptions = new ConcurrentHashMap<String, Set<String>>(4);
 
+		// destination -> compiled pattern, for matching against many destinations
+		private final Map<String, AntPathMatcher.CompiledPattern> compiledDestinations =
+				new ConcurrentHashMap<String, AntPathMatcher.CompiledPattern>(4);
+
 		private final Object monitor = new Object();
 
 
@@ -245,13 +257,18 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			return this.subscriptions.get(destination);
 		}
 
-		public void addSubscription(String destination, String subscriptionId) {
+		public AntPathMatcher.CompiledPattern getCompiledDestination(String destination) {
+			return this.compiledDestinations.get(destination);
+		}
+
+		public void addSubscription(String destination, String subscriptionId, AntPathMatcher pathMatcher) {
 			Set<String> subs = this.subscriptions.get(destination);
 			if (subs == null) {
 				synchronized(this.monitor) {
 					subs = this.subscriptions.get(destination);
 					if (subs == null) {
 						subs = new HashSet<String>(4);
+						this.compiledDestinations.put(destination, pathMatcher.compile(destination));
 						this.subscriptions.put(destination, subs);
 					}
 				}
@@ -266,6 +283,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 					synchronized(this.monitor) {
 						if (subscriptionIds.isEmpty()) {
 							this.subscriptions.remove(destination);
+							this.compiledDestinations.remove(destination);
 						}
 					}
 					return destination;
@@ -274,6 +292,14 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			return null;
 		}
 
+		public void compileDestinations(AntPathMatcher pathMatcher) {
+			synchronized(this.monitor) {
+				for (String destination : this.subscriptions.keySet()) {
+					this.compiledDestinations.put(destination, pathMatcher.compile(destination));
+				}
+			}
+		}
+
 		@Override
 		public String toString() {
 			return "[sessionId=" + this.sessionId + ", subscriptions=" + this.subscriptions + "]";
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.MultiValueMap;
 
 import static org.junit.Assert.*;
@@ -157,6 +158,25 @@ public class DefaultSubscriptionRegistryTests {
 		assertEquals("Expected no elements " + actual, 0, actual.size());
 	}
 
+	@Test
+	public void registerSubscriptionWithDestinationPatternAndPathMatcherChange() {
+
+		String sessId = "sess01";
+		String subsId = "subs01";
+		String destPattern = "/topic/*.IBM";
+		String dest = "/topic/PRICE.STOCK.NASDAQ.IBM";
+
+		this.registry.registerSubscription(subscribeMessage(sessId, subsId, destPattern));
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(message(dest));
+		assertEquals("Expected one element " + actual, 1, actual.size());
+
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setPathSeparator(".");
+		this.registry.setPathMatcher(pathMatcher);
+		actual = this.registry.findSubscriptions(message(dest));
+		assertEquals("Expected no elements " + actual, 0, actual.size());
+	}
+
 	@Test
 	public void unregisterSubscription() {
 
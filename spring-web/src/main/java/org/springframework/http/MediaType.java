@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.InvalidMimeTypeException;
 import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
@@ -190,6 +191,13 @@ public class MediaType extends MimeType implements Serializable {
 
 	private static final String PARAM_QUALITY_FACTOR = "q";
 
+	/**
+	 * Cache of parsed media types, keyed by their String representation,
+	 * for header values that are parsed over and over again at runtime.
+	 */
+	private static final ConcurrentLruCache<String, MediaType> cachedMediaTypes =
+			new ConcurrentLruCache<String, MediaType>(256);
+
 
 	static {
 		ALL = valueOf(ALL_VALUE);
@@ -356,11 +364,22 @@ public class MediaType extends MimeType implements Serializable {
 
 	/**
 	 * Parse the given String into a single {@code MediaType}.
+	 * <p>Recently parsed media types are cached; since {@code MediaType} instances are
+	 * immutable, the same instance may be returned for the same input String.
 	 * @param mediaType the string to parse
 	 * @return the media type
 	 * @throws InvalidMediaTypeException if the string cannot be parsed
 	 */
 	public static MediaType parseMediaType(String mediaType) {
+		MediaType cached = (mediaType != null ? cachedMediaTypes.get(mediaType) : null);
+		if (cached == null) {
+			cached = parseMediaTypeInternal(mediaType);
+			cachedMediaTypes.put(mediaType, cached);
+		}
+		return cached;
+	}
+
+	private static MediaType parseMediaTypeInternal(String mediaType) {
 		MimeType type;
 		try {
 			type = MimeTypeUtils.parseMimeType(mediaType);
@@ -0,0 +1,515 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+
+/**
+ * Per-host latency and concurrency statistics for client-side HTTP requests,
+ * as recorded by {@link MonitoringClientHttpRequestFactory},
+ * {@link MonitoringAsyncClientHttpRequestFactory} and
+ * {@link MonitoringClientHttpRequestInterceptor}.
+ *
+ * <p>For each target host, the following phases are recorded into fixed-bucket
+ * histograms:
+ * <ul>
+ * <li>The <em>request write time</em>: the time spent writing the request body
+ * through the monitored request. For requests streaming their body to the
+ * connection, this is the actual network write; for requests buffering their
+ * body (the default), it only covers the buffering, and the network write is
+ * part of the execution time.</li>
+ * <li>The <em>execution time</em>: the time from execution until the response
+ * status and headers are available (time to first byte), excluding any request
+ * body writes recorded as request write time.</li>
+ * <li>The <em>body read time</em>: the time spent reading the response body.</li>
+ * </ul>
+ *
+ * <p>Connection establishment and the wait for a pooled connection cannot be
+ * recorded separately: neither {@code HttpURLConnection} nor the request APIs of
+ * the HttpComponents and Netty clients expose them, so they are included in the
+ * execution time. As an indication of the connection pool utilization, the number
+ * of requests in flight per host &mdash; from execution until the response is
+ * closed, i.e. the time a pooled connection is leased &mdash; is tracked
+ * alongside its peak value.
+ *
+ * <p>Instances are annotated for use with an
+ * {@link org.springframework.jmx.export.annotation.AnnotationMBeanExporter} and
+ * may be shared between several request factories. Recording can be switched off
+ * at runtime through {@link #setEnabled}, in which case the monitoring factories
+ * hand out the underlying requests without any decoration.
+ *
+ * @since 4.1
+ */
+@ManagedResource(description = "Client-side HTTP request statistics")
+public class ClientHttpRequestStatistics {
+
+	/**
+	 * The default histogram bucket upper bounds, in milliseconds.
+	 */
+	public static final long[] DEFAULT_BUCKET_BOUNDS =
+			new long[] {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+	private static final String OTHER_HOSTS = "other";
+
+
+	private final long[] bucketBounds;
+
+	private final ConcurrentMap<String, HostStatistics> hostStatistics =
+			new ConcurrentHashMap<String, HostStatistics>(16);
+
+	private volatile boolean enabled = true;
+
+	private volatile int maxHosts = 256;
+
+
+	/**
+	 * Create a new {@code ClientHttpRequestStatistics} instance using the
+	 * {@linkplain #DEFAULT_BUCKET_BOUNDS default bucket bounds}.
+	 */
+	public ClientHttpRequestStatistics() {
+		this(DEFAULT_BUCKET_BOUNDS);
+	}
+
+	/**
+	 * Create a new {@code ClientHttpRequestStatistics} instance using the given
+	 * histogram bucket bounds.
+	 * @param bucketBounds the ascending upper bounds of the histogram buckets, in
+	 * milliseconds; an additional bucket collects all values above the last bound
+	 */
+	public ClientHttpRequestStatistics(long... bucketBounds) {
+		Assert.isTrue(bucketBounds != null && bucketBounds.length > 0, "'bucketBounds' must not be empty");
+		for (int i = 1; i < bucketBounds.length; i++) {
+			Assert.isTrue(bucketBounds[i] > bucketBounds[i - 1], "'bucketBounds' must be in ascending order");
+		}
+		this.bucketBounds = bucketBounds.clone();
+	}
+
+
+	/**
+	 * Enable or disable recording. Default is {@code true}.
+	 */
+	@ManagedAttribute(description = "Whether request statistics are being recorded")
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Return whether recording is enabled.
+	 */
+	@ManagedAttribute(description = "Whether request statistics are being recorded")
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Set the maximum number of hosts to keep separate statistics for. Requests to
+	 * any further host are recorded under a shared {@code "other"} entry.
+	 * Default is 256.
+	 */
+	@ManagedAttribute(description = "The maximum number of hosts to keep separate statistics for")
+	public void setMaxHosts(int maxHosts) {
+		Assert.isTrue(maxHosts > 0, "'maxHosts' must be larger than 0");
+		this.maxHosts = maxHosts;
+	}
+
+	/**
+	 * Return the maximum number of hosts to keep separate statistics for.
+	 */
+	@ManagedAttribute(description = "The maximum number of hosts to keep separate statistics for")
+	public int getMaxHosts() {
+		return this.maxHosts;
+	}
+
+	/**
+	 * Return the histogram bucket upper bounds, in milliseconds.
+	 */
+	@ManagedAttribute(description = "The histogram bucket upper bounds, in milliseconds")
+	public long[] getBucketBounds() {
+		return this.bucketBounds.clone();
+	}
+
+	/**
+	 * Return the hosts statistics have been recorded for, in alphabetical order.
+	 */
+	@ManagedAttribute(description = "The hosts statistics have been recorded for")
+	public String[] getHosts() {
+		String[] hosts = this.hostStatistics.keySet().toArray(new String[this.hostStatistics.size()]);
+		Arrays.sort(hosts);
+		return hosts;
+	}
+
+	/**
+	 * Return the total number of executed requests, over all hosts.
+	 */
+	@ManagedAttribute(description = "The total number of executed requests")
+	public long getRequestCount() {
+		long count = 0;
+		for (HostStatistics statistics : this.hostStatistics.values()) {
+			count += statistics.getRequestCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Return the total number of requests that failed with an I/O error, over all hosts.
+	 */
+	@ManagedAttribute(description = "The total number of requests that failed with an I/O error")
+	public long getErrorCount() {
+		long count = 0;
+		for (HostStatistics statistics : this.hostStatistics.values()) {
+			count += statistics.getErrorCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Return the number of requests currently in flight, over all hosts.
+	 */
+	@ManagedAttribute(description = "The number of requests currently in flight")
+	public int getActiveRequestCount() {
+		int count = 0;
+		for (HostStatistics statistics : this.hostStatistics.values()) {
+			count += statistics.getActiveRequestCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Return the statistics for the given host.
+	 * @param host the host, as returned by {@link #getHosts()}
+	 * @return the statistics, or {@code null} if none have been recorded
+	 */
+	public HostStatistics getHostStatistics(String host) {
+		return this.hostStatistics.get(host);
+	}
+
+	/**
+	 * Return the execution time histogram for the given host.
+	 * @param host the host, as returned by {@link #getHosts()}
+	 * @return the bucket counts, or {@code null} if no statistics have been recorded
+	 * @see #getBucketBounds()
+	 */
+	@ManagedOperation(description = "Return the execution time histogram for the given host")
+	@ManagedOperationParameter(name = "host", description = "The host")
+	public long[] getExecutionTimeHistogram(String host) {
+		HostStatistics statistics = getHostStatistics(host);
+		return (statistics != null ? statistics.getExecutionTime().getBucketCounts() : null);
+	}
+
+	/**
+	 * Return the request write time histogram for the given host.
+	 * @param host the host, as returned by {@link #getHosts()}
+	 * @return the bucket counts, or {@code null} if no statistics have been recorded
+	 * @see #getBucketBounds()
+	 */
+	@ManagedOperation(description = "Return the request write time histogram for the given host")
+	@ManagedOperationParameter(name = "host", description = "The host")
+	public long[] getRequestWriteTimeHistogram(String host) {
+		HostStatistics statistics = getHostStatistics(host);
+		return (statistics != null ? statistics.getRequestWriteTime().getBucketCounts() : null);
+	}
+
+	/**
+	 * Return the response body read time histogram for the given host.
+	 * @param host the host, as returned by {@link #getHosts()}
+	 * @return the bucket counts, or {@code null} if no statistics have been recorded
+	 * @see #getBucketBounds()
+	 */
+	@ManagedOperation(description = "Return the response body read time histogram for the given host")
+	@ManagedOperationParameter(name = "host", description = "The host")
+	public long[] getBodyReadTimeHistogram(String host) {
+		HostStatistics statistics = getHostStatistics(host);
+		return (statistics != null ? statistics.getBodyReadTime().getBucketCounts() : null);
+	}
+
+	/**
+	 * Return a summary of the statistics for the given host.
+	 * @param host the host, as returned by {@link #getHosts()}
+	 */
+	@ManagedOperation(description = "Return a summary of the statistics for the given host")
+	@ManagedOperationParameter(name = "host", description = "The host")
+	public String getHostSummary(String host) {
+		HostStatistics statistics = getHostStatistics(host);
+		return (statistics != null ? statistics.toString() : "No statistics recorded for host '" + host + "'");
+	}
+
+	/**
+	 * Discard all recorded statistics.
+	 * <p>Requests in flight at the time of the reset are no longer tracked.
+	 */
+	@ManagedOperation(description = "Discard all recorded statistics")
+	public void reset() {
+		this.hostStatistics.clear();
+	}
+
+	/**
+	 * Return the statistics for the host of the given URI, creating them if necessary.
+	 */
+	HostStatistics obtainHostStatistics(URI uri) {
+		String host = getHostKey(uri);
+		HostStatistics statistics = this.hostStatistics.get(host);
+		if (statistics == null) {
+			if (this.hostStatistics.size() >= this.maxHosts) {
+				host = OTHER_HOSTS;
+				statistics = this.hostStatistics.get(host);
+			}
+			if (statistics == null) {
+				statistics = new HostStatistics(host, this.bucketBounds);
+				HostStatistics existing = this.hostStatistics.putIfAbsent(host, statistics);
+				if (existing != null) {
+					statistics = existing;
+				}
+			}
+		}
+		return statistics;
+	}
+
+	private static String getHostKey(URI uri) {
+		StringBuilder builder = new StringBuilder();
+		if (uri.getScheme() != null) {
+			builder.append(uri.getScheme()).append("://");
+		}
+		builder.append(uri.getHost());
+		if (uri.getPort() != -1) {
+			builder.append(':').append(uri.getPort());
+		}
+		return builder.toString();
+	}
+
+
+	/**
+	 * Statistics for a single host.
+	 */
+	public static class HostStatistics {
+
+		private final String host;
+
+		private final AtomicLong requestCount = new AtomicLong();
+
+		private final AtomicLong errorCount = new AtomicLong();
+
+		private final AtomicInteger activeRequestCount = new AtomicInteger();
+
+		private final AtomicInteger maxActiveRequestCount = new AtomicInteger();
+
+		private final LatencyHistogram requestWriteTime;
+
+		private final LatencyHistogram executionTime;
+
+		private final LatencyHistogram bodyReadTime;
+
+		HostStatistics(String host, long[] bucketBounds) {
+			this.host = host;
+			this.requestWriteTime = new LatencyHistogram(bucketBounds);
+			this.executionTime = new LatencyHistogram(bucketBounds);
+			this.bodyReadTime = new LatencyHistogram(bucketBounds);
+		}
+
+		/**
+		 * Return the host these statistics apply to.
+		 */
+		public String getHost() {
+			return this.host;
+		}
+
+		/**
+		 * Return the number of executed requests.
+		 */
+		public long getRequestCount() {
+			return this.requestCount.get();
+		}
+
+		/**
+		 * Return the number of requests that failed with an I/O error.
+		 */
+		public long getErrorCount() {
+			return this.errorCount.get();
+		}
+
+		/**
+		 * Return the number of requests in flight, i.e. executed requests whose
+		 * response has not been closed yet.
+		 */
+		public int getActiveRequestCount() {
+			return this.activeRequestCount.get();
+		}
+
+		/**
+		 * Return the highest number of requests that have been in flight at the same time.
+		 */
+		public int getMaxActiveRequestCount() {
+			return this.maxActiveRequestCount.get();
+		}
+
+		/**
+		 * Return the histogram of the time spent writing request bodies.
+		 */
+		public LatencyHistogram getRequestWriteTime() {
+			return this.requestWriteTime;
+		}
+
+		/**
+		 * Return the histogram of the time until the response status and headers were
+		 * available, excluding the recorded request write time.
+		 */
+		public LatencyHistogram getExecutionTime() {
+			return this.executionTime;
+		}
+
+		/**
+		 * Return the histogram of the time spent reading response bodies.
+		 */
+		public LatencyHistogram getBodyReadTime() {
+			return this.bodyReadTime;
+		}
+
+		void requestStarted() {
+			int active = this.activeRequestCount.incrementAndGet();
+			int max = this.maxActiveRequestCount.get();
+			while (active > max && !this.maxActiveRequestCount.compareAndSet(max, active)) {
+				max = this.maxActiveRequestCount.get();
+			}
+		}
+
+		void requestWritten(long nanos) {
+			this.requestWriteTime.record(nanos);
+		}
+
+		void requestExecuted(long nanos) {
+			this.requestCount.incrementAndGet();
+			this.executionTime.record(nanos);
+		}
+
+		void requestFailed() {
+			this.requestCount.incrementAndGet();
+			this.errorCount.incrementAndGet();
+			this.activeRequestCount.decrementAndGet();
+		}
+
+		void responseClosed(long bodyReadNanos) {
+			this.bodyReadTime.record(bodyReadNanos);
+			this.activeRequestCount.decrementAndGet();
+		}
+
+		@Override
+		public String toString() {
+			return this.host + ": requests=" + getRequestCount() + ", errors=" + getErrorCount() +
+					", active=" + getActiveRequestCount() + ", maxActive=" + getMaxActiveRequestCount() +
+					", requestWriteTime=[" + this.requestWriteTime + "], executionTime=[" + this.executionTime +
+					"], bodyReadTime=[" + this.bodyReadTime + "]";
+		}
+	}
+
+
+	/**
+	 * Histogram of latencies, counting values into fixed buckets.
+	 */
+	public static class LatencyHistogram {
+
+		private final long[] bucketBounds;
+
+		private final AtomicLongArray bucketCounts;
+
+		private final AtomicLong totalNanos = new AtomicLong();
+
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		LatencyHistogram(long[] bucketBounds) {
+			this.bucketBounds = bucketBounds;
+			this.bucketCounts = new AtomicLongArray(bucketBounds.length + 1);
+		}
+
+		void record(long nanos) {
+			long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+			int index = 0;
+			while (index < this.bucketBounds.length && millis > this.bucketBounds[index]) {
+				index++;
+			}
+			this.bucketCounts.incrementAndGet(index);
+			this.totalNanos.addAndGet(nanos);
+			long max = this.maxNanos.get();
+			while (nanos > max && !this.maxNanos.compareAndSet(max, nanos)) {
+				max = this.maxNanos.get();
+			}
+		}
+
+		/**
+		 * Return the number of values per bucket. The last element holds the
+		 * number of values above the highest bucket bound.
+		 */
+		public long[] getBucketCounts() {
+			long[] counts = new long[this.bucketCounts.length()];
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = this.bucketCounts.get(i);
+			}
+			return counts;
+		}
+
+		/**
+		 * Return the number of recorded values.
+		 */
+		public long getCount() {
+			long count = 0;
+			for (int i = 0; i < this.bucketCounts.length(); i++) {
+				count += this.bucketCounts.get(i);
+			}
+			return count;
+		}
+
+		/**
+		 * Return the sum of all recorded values, in milliseconds.
+		 */
+		public long getTotalTime() {
+			return TimeUnit.NANOSECONDS.toMillis(this.totalNanos.get());
+		}
+
+		/**
+		 * Return the highest recorded value, in milliseconds.
+		 */
+		public long getMaxTime() {
+			return TimeUnit.NANOSECONDS.toMillis(this.maxNanos.get());
+		}
+
+		/**
+		 * Return the mean of all recorded values, in milliseconds.
+		 */
+		public double getMeanTime() {
+			long count = getCount();
+			return (count > 0 ? (double) this.totalNanos.get() / count / 1000000 : 0);
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + getCount() + ", mean=" + String.format("%.2f", getMeanTime()) + "ms, max=" +
+					getMaxTime() + "ms, buckets=" + Arrays.toString(getBucketCounts());
+		}
+	}
+
+}
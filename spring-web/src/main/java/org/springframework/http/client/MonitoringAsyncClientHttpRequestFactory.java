@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureAdapter;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+/**
+ * Wrapper for an {@link AsyncClientHttpRequestFactory} that records per-host request
+ * latencies and concurrency into a {@link ClientHttpRequestStatistics} instance.
+ *
+ * <p>While recording is {@linkplain ClientHttpRequestStatistics#setEnabled disabled},
+ * the requests of the wrapped factory are returned as-is. Since asynchronous
+ * requests buffer their body, the request write time only covers the buffering,
+ * and the network write is part of the execution time.
+ *
+ * @since 4.1
+ * @see MonitoringClientHttpRequestFactory
+ */
+public class MonitoringAsyncClientHttpRequestFactory implements AsyncClientHttpRequestFactory {
+
+	private final AsyncClientHttpRequestFactory requestFactory;
+
+	private final ClientHttpRequestStatistics statistics;
+
+
+	/**
+	 * Create a new {@code MonitoringAsyncClientHttpRequestFactory} for the given request factory.
+	 * @param requestFactory the request factory to be wrapped
+	 * @param statistics the statistics to record into
+	 */
+	public MonitoringAsyncClientHttpRequestFactory(AsyncClientHttpRequestFactory requestFactory,
+			ClientHttpRequestStatistics statistics) {
+
+		Assert.notNull(requestFactory, "'requestFactory' must not be null");
+		Assert.notNull(statistics, "'statistics' must not be null");
+		this.requestFactory = requestFactory;
+		this.statistics = statistics;
+	}
+
+
+	/**
+	 * Return the statistics this factory records into.
+	 */
+	public ClientHttpRequestStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	@Override
+	public AsyncClientHttpRequest createAsyncRequest(URI uri, HttpMethod httpMethod) throws IOException {
+		AsyncClientHttpRequest request = this.requestFactory.createAsyncRequest(uri, httpMethod);
+		if (!this.statistics.isEnabled()) {
+			return request;
+		}
+		return new MonitoringAsyncClientHttpRequest(request, this.statistics.obtainHostStatistics(uri));
+	}
+
+
+	private static class MonitoringAsyncClientHttpRequest implements AsyncClientHttpRequest {
+
+		private final AsyncClientHttpRequest request;
+
+		private final ClientHttpRequestStatistics.HostStatistics statistics;
+
+		private TimingOutputStream body;
+
+		public MonitoringAsyncClientHttpRequest(AsyncClientHttpRequest request,
+				ClientHttpRequestStatistics.HostStatistics statistics) {
+
+			this.request = request;
+			this.statistics = statistics;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return this.request.getMethod();
+		}
+
+		@Override
+		public URI getURI() {
+			return this.request.getURI();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.request.getHeaders();
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+			// Always ask the request, which rejects body access after execution.
+			OutputStream body = this.request.getBody();
+			if (this.body == null) {
+				this.body = new TimingOutputStream(body);
+			}
+			return this.body;
+		}
+
+		@Override
+		public ListenableFuture<ClientHttpResponse> executeAsync() throws IOException {
+			this.statistics.requestStarted();
+			final long start = System.nanoTime();
+			ListenableFuture<ClientHttpResponse> future;
+			try {
+				future = this.request.executeAsync();
+			}
+			catch (IOException ex) {
+				this.statistics.requestFailed();
+				throw ex;
+			}
+			catch (RuntimeException ex) {
+				this.statistics.requestFailed();
+				throw ex;
+			}
+			if (this.body != null) {
+				this.statistics.requestWritten(this.body.getNanos());
+			}
+			future.addCallback(new ListenableFutureCallback<ClientHttpResponse>() {
+				@Override
+				public void onSuccess(ClientHttpResponse result) {
+					statistics.requestExecuted(System.nanoTime() - start);
+				}
+				@Override
+				public void onFailure(Throwable ex) {
+					statistics.requestFailed();
+				}
+			});
+			return new ListenableFutureAdapter<ClientHttpResponse, ClientHttpResponse>(future) {
+				@Override
+				protected ClientHttpResponse adapt(ClientHttpResponse response) throws ExecutionException {
+					return new MonitoringClientHttpResponse(response, statistics);
+				}
+			};
+		}
+	}
+
+}
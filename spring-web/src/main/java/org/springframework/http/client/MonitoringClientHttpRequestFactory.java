@@ -0,0 +1,197 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.util.Assert;
+
+/**
+ * Wrapper for a {@link ClientHttpRequestFactory} that records per-host request
+ * latencies and concurrency into a {@link ClientHttpRequestStatistics} instance.
+ *
+ * <p>While recording is {@linkplain ClientHttpRequestStatistics#setEnabled disabled},
+ * the requests of the wrapped factory are returned as-is. Requests that support
+ * a {@linkplain StreamingHttpOutputMessage streaming body} (e.g. from
+ * {@link HttpComponentsClientHttpRequestFactory} with
+ * {@link HttpComponentsClientHttpRequestFactory#setBufferRequestBody
+ * "bufferRequestBody"} set to {@code false}) keep doing so when monitored; for
+ * those, the request write time reflects the actual network write.
+ *
+ * @since 4.1
+ * @see MonitoringAsyncClientHttpRequestFactory
+ * @see MonitoringClientHttpRequestInterceptor
+ */
+public class MonitoringClientHttpRequestFactory extends AbstractClientHttpRequestFactoryWrapper {
+
+	private final ClientHttpRequestStatistics statistics;
+
+
+	/**
+	 * Create a new {@code MonitoringClientHttpRequestFactory} for the given request factory.
+	 * @param requestFactory the request factory to be wrapped
+	 * @param statistics the statistics to record into
+	 */
+	public MonitoringClientHttpRequestFactory(ClientHttpRequestFactory requestFactory,
+			ClientHttpRequestStatistics statistics) {
+
+		super(requestFactory);
+		Assert.notNull(statistics, "'statistics' must not be null");
+		this.statistics = statistics;
+	}
+
+
+	/**
+	 * Return the statistics this factory records into.
+	 */
+	public ClientHttpRequestStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	@Override
+	protected ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod, ClientHttpRequestFactory requestFactory)
+			throws IOException {
+
+		ClientHttpRequest request = requestFactory.createRequest(uri, httpMethod);
+		if (!this.statistics.isEnabled()) {
+			return request;
+		}
+		ClientHttpRequestStatistics.HostStatistics hostStatistics = this.statistics.obtainHostStatistics(uri);
+		if (request instanceof StreamingHttpOutputMessage) {
+			return new StreamingMonitoringClientHttpRequest(request, hostStatistics);
+		}
+		return new MonitoringClientHttpRequest(request, hostStatistics);
+	}
+
+
+	private static class MonitoringClientHttpRequest implements ClientHttpRequest {
+
+		private final ClientHttpRequest request;
+
+		private final ClientHttpRequestStatistics.HostStatistics statistics;
+
+		private TimingOutputStream body;
+
+		/** Time spent in writing a streaming body, in nanoseconds */
+		protected long streamingBodyNanos;
+
+		protected boolean streamingBody;
+
+		public MonitoringClientHttpRequest(ClientHttpRequest request,
+				ClientHttpRequestStatistics.HostStatistics statistics) {
+
+			this.request = request;
+			this.statistics = statistics;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return this.request.getMethod();
+		}
+
+		@Override
+		public URI getURI() {
+			return this.request.getURI();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.request.getHeaders();
+		}
+
+		@Override
+		public OutputStream getBody() throws IOException {
+			// Always ask the request, which rejects body access after execution.
+			OutputStream body = this.request.getBody();
+			if (this.body == null) {
+				this.body = new TimingOutputStream(body);
+			}
+			return this.body;
+		}
+
+		@Override
+		public ClientHttpResponse execute() throws IOException {
+			this.statistics.requestStarted();
+			long start = System.nanoTime();
+			long writeNanosBefore = getWriteNanos();
+			ClientHttpResponse response;
+			try {
+				response = this.request.execute();
+			}
+			catch (IOException ex) {
+				this.statistics.requestFailed();
+				throw ex;
+			}
+			catch (RuntimeException ex) {
+				this.statistics.requestFailed();
+				throw ex;
+			}
+			// Streaming bodies are written during execution: not part of the execution time.
+			long writeNanos = getWriteNanos();
+			this.statistics.requestExecuted(System.nanoTime() - start - (writeNanos - writeNanosBefore));
+			if (this.body != null || this.streamingBody) {
+				this.statistics.requestWritten(writeNanos);
+			}
+			return new MonitoringClientHttpResponse(response, this.statistics);
+		}
+
+		private long getWriteNanos() {
+			return (this.body != null ? this.body.getNanos() : 0) + this.streamingBodyNanos;
+		}
+	}
+
+
+	/**
+	 * Variant of {@link MonitoringClientHttpRequest} for requests that accept a
+	 * streaming body, which may not support {@link #getBody()} at all.
+	 */
+	private static class StreamingMonitoringClientHttpRequest extends MonitoringClientHttpRequest
+			implements StreamingHttpOutputMessage {
+
+		private final StreamingHttpOutputMessage streamingRequest;
+
+		public StreamingMonitoringClientHttpRequest(ClientHttpRequest request,
+				ClientHttpRequestStatistics.HostStatistics statistics) {
+
+			super(request, statistics);
+			this.streamingRequest = (StreamingHttpOutputMessage) request;
+		}
+
+		@Override
+		public void setBody(final Body body) {
+			this.streamingBody = true;
+			this.streamingRequest.setBody(new Body() {
+				@Override
+				public void writeTo(OutputStream outputStream) throws IOException {
+					long start = System.nanoTime();
+					try {
+						body.writeTo(outputStream);
+					}
+					finally {
+						streamingBodyNanos += System.nanoTime() - start;
+					}
+				}
+			});
+		}
+	}
+
+}
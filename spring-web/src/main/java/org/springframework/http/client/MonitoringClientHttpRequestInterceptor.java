@@ -0,0 +1,87 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ClientHttpRequestInterceptor} that records per-host request latencies
+ * and concurrency into a {@link ClientHttpRequestStatistics} instance, timing the
+ * {@link ClientHttpRequestExecution} of each request.
+ *
+ * <p>This is an alternative to {@link MonitoringClientHttpRequestFactory} for
+ * {@link org.springframework.web.client.RestTemplate RestTemplate} setups that
+ * configure interceptors rather than wrapping the request factory. Since the
+ * execution writes the request body to the underlying request, the network write
+ * is part of the execution time, and no request write time is recorded.
+ *
+ * @since 4.1
+ * @see org.springframework.web.client.RestTemplate#setInterceptors
+ */
+public class MonitoringClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+	private final ClientHttpRequestStatistics statistics;
+
+
+	/**
+	 * Create a new {@code MonitoringClientHttpRequestInterceptor}.
+	 * @param statistics the statistics to record into
+	 */
+	public MonitoringClientHttpRequestInterceptor(ClientHttpRequestStatistics statistics) {
+		Assert.notNull(statistics, "'statistics' must not be null");
+		this.statistics = statistics;
+	}
+
+
+	/**
+	 * Return the statistics this interceptor records into.
+	 */
+	public ClientHttpRequestStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+			throws IOException {
+
+		if (!this.statistics.isEnabled()) {
+			return execution.execute(request, body);
+		}
+		ClientHttpRequestStatistics.HostStatistics hostStatistics =
+				this.statistics.obtainHostStatistics(request.getURI());
+		hostStatistics.requestStarted();
+		long start = System.nanoTime();
+		ClientHttpResponse response;
+		try {
+			response = execution.execute(request, body);
+		}
+		catch (IOException ex) {
+			hostStatistics.requestFailed();
+			throw ex;
+		}
+		catch (RuntimeException ex) {
+			hostStatistics.requestFailed();
+			throw ex;
+		}
+		hostStatistics.requestExecuted(System.nanoTime() - start);
+		return new MonitoringClientHttpResponse(response, hostStatistics);
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+/**
+ * {@link ClientHttpResponse} decorator that measures the time spent reading the
+ * response body, and reports it to the host statistics when closed.
+ *
+ * @since 4.1
+ * @see MonitoringClientHttpRequestFactory
+ * @see MonitoringAsyncClientHttpRequestFactory
+ */
+final class MonitoringClientHttpResponse implements ClientHttpResponse {
+
+	private final ClientHttpResponse response;
+
+	private final ClientHttpRequestStatistics.HostStatistics statistics;
+
+	private InputStream body;
+
+	private long bodyReadNanos;
+
+	private boolean closed;
+
+
+	MonitoringClientHttpResponse(ClientHttpResponse response, ClientHttpRequestStatistics.HostStatistics statistics) {
+		this.response = response;
+		this.statistics = statistics;
+	}
+
+
+	@Override
+	public HttpStatus getStatusCode() throws IOException {
+		return this.response.getStatusCode();
+	}
+
+	@Override
+	public int getRawStatusCode() throws IOException {
+		return this.response.getRawStatusCode();
+	}
+
+	@Override
+	public String getStatusText() throws IOException {
+		return this.response.getStatusText();
+	}
+
+	@Override
+	public HttpHeaders getHeaders() {
+		return this.response.getHeaders();
+	}
+
+	@Override
+	public InputStream getBody() throws IOException {
+		if (this.body == null) {
+			this.body = new TimingInputStream(this.response.getBody());
+		}
+		return this.body;
+	}
+
+	@Override
+	public void close() {
+		try {
+			this.response.close();
+		}
+		finally {
+			if (!this.closed) {
+				this.closed = true;
+				this.statistics.responseClosed(this.bodyReadNanos);
+			}
+		}
+	}
+
+
+	/**
+	 * InputStream decorator that accumulates the time spent in read operations.
+	 */
+	private class TimingInputStream extends FilterInputStream {
+
+		public TimingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			long start = System.nanoTime();
+			try {
+				return super.read();
+			}
+			finally {
+				bodyReadNanos += System.nanoTime() - start;
+			}
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			long start = System.nanoTime();
+			try {
+				return super.read(b, off, len);
+			}
+			finally {
+				bodyReadNanos += System.nanoTime() - start;
+			}
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long start = System.nanoTime();
+			try {
+				return super.skip(n);
+			}
+			finally {
+				bodyReadNanos += System.nanoTime() - start;
+			}
+		}
+	}
+
+}
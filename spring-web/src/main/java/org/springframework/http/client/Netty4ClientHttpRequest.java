@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * {@link ClientHttpRequest} implementation that uses Netty 4 to execute requests.
+ *
+ * <p>Created via the {@link Netty4ClientHttpRequestFactory}.
+ *
+ * @since 4.1
+ */
+class Netty4ClientHttpRequest extends AbstractAsyncClientHttpRequest implements ClientHttpRequest {
+
+	private final Netty4ClientHttpRequestFactory requestFactory;
+
+	private final URI uri;
+
+	private final HttpMethod method;
+
+	private final ByteBufOutputStream body;
+
+
+	public Netty4ClientHttpRequest(Netty4ClientHttpRequestFactory requestFactory, URI uri, HttpMethod method) {
+		this.requestFactory = requestFactory;
+		this.uri = uri;
+		this.method = method;
+		this.body = new ByteBufOutputStream(Unpooled.buffer(1024));
+	}
+
+
+	@Override
+	public HttpMethod getMethod() {
+		return this.method;
+	}
+
+	@Override
+	public URI getURI() {
+		return this.uri;
+	}
+
+	@Override
+	public ClientHttpResponse execute() throws IOException {
+		try {
+			return executeAsync().get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException(ex.getMessage(), ex);
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof IOException) {
+				throw (IOException) ex.getCause();
+			}
+			else {
+				throw new IOException(ex.getMessage(), ex.getCause());
+			}
+		}
+	}
+
+	@Override
+	protected OutputStream getBodyInternal(HttpHeaders headers) throws IOException {
+		return this.body;
+	}
+
+	@Override
+	protected ListenableFuture<ClientHttpResponse> executeInternal(HttpHeaders headers) throws IOException {
+		FullHttpRequest nettyRequest = createFullHttpRequest(headers);
+		return this.requestFactory.execute(this.uri, nettyRequest);
+	}
+
+	private FullHttpRequest createFullHttpRequest(HttpHeaders headers) {
+		io.netty.handler.codec.http.HttpMethod nettyMethod =
+				io.netty.handler.codec.http.HttpMethod.valueOf(this.method.name());
+		String path = this.uri.getRawPath();
+		if (path == null || path.isEmpty()) {
+			path = "/";
+		}
+		if (this.uri.getRawQuery() != null) {
+			path = path + "?" + this.uri.getRawQuery();
+		}
+		ByteBuf content = this.body.buffer();
+		FullHttpRequest nettyRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, nettyMethod, path, content);
+
+		io.netty.handler.codec.http.HttpHeaders nettyHeaders = nettyRequest.headers();
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			nettyHeaders.add(entry.getKey(), entry.getValue());
+		}
+		if (!nettyHeaders.contains(io.netty.handler.codec.http.HttpHeaders.Names.HOST)) {
+			String host = this.uri.getHost();
+			if (this.uri.getPort() != -1) {
+				host = host + ":" + this.uri.getPort();
+			}
+			nettyHeaders.set(io.netty.handler.codec.http.HttpHeaders.Names.HOST, host);
+		}
+		nettyHeaders.set(io.netty.handler.codec.http.HttpHeaders.Names.CONNECTION,
+				io.netty.handler.codec.http.HttpHeaders.Values.KEEP_ALIVE);
+		nettyHeaders.set(io.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH, content.readableBytes());
+		return nettyRequest;
+	}
+
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.util.AttributeKey;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+/**
+ * {@link org.springframework.http.client.ClientHttpRequestFactory} implementation that
+ * uses <a href="http://netty.io/">Netty 4</a> to create requests.
+ *
+ * <p>All requests are executed in a non-blocking fashion on Netty's event loop, so a
+ * large number of concurrent requests can be handled by a small number of threads.
+ * Keep-alive connections are pooled per host and reused for subsequent requests.
+ *
+ * <p>Allows to use a pre-configured {@link EventLoopGroup} instance - useful for sharing
+ * across multiple clients. Note that the synchronous
+ * {@link ClientHttpRequest#execute()} variant must not be invoked from an event loop
+ * thread, since it blocks until the response has been received.
+ *
+ * @since 4.1
+ */
+public class Netty4ClientHttpRequestFactory implements ClientHttpRequestFactory,
+		AsyncClientHttpRequestFactory, InitializingBean, DisposableBean {
+
+	/**
+	 * The default maximum response size.
+	 * @see #setMaxResponseSize(int)
+	 */
+	public static final int DEFAULT_MAX_RESPONSE_SIZE = 1024 * 1024 * 10;
+
+	/**
+	 * The default maximum number of idle connections kept alive per host.
+	 * @see #setMaxIdleConnectionsPerHost(int)
+	 */
+	public static final int DEFAULT_MAX_IDLE_CONNECTIONS_PER_HOST = 16;
+
+	private static final AttributeKey<SettableListenableFuture<ClientHttpResponse>> RESPONSE_FUTURE =
+			AttributeKey.valueOf(Netty4ClientHttpRequestFactory.class.getName() + ".RESPONSE_FUTURE");
+
+
+	private final EventLoopGroup eventLoopGroup;
+
+	private final boolean defaultEventLoopGroup;
+
+	private int maxResponseSize = DEFAULT_MAX_RESPONSE_SIZE;
+
+	private int maxIdleConnectionsPerHost = DEFAULT_MAX_IDLE_CONNECTIONS_PER_HOST;
+
+	private volatile int connectTimeout = -1;
+
+	private volatile int readTimeout = -1;
+
+	private SslContext sslContext;
+
+	private volatile Bootstrap bootstrap;
+
+	private final ConcurrentMap<String, Queue<Channel>> idleChannels = new ConcurrentHashMap<String, Queue<Channel>>();
+
+
+	/**
+	 * Create a new {@code Netty4ClientHttpRequestFactory} with a default
+	 * {@link NioEventLoopGroup}.
+	 */
+	public Netty4ClientHttpRequestFactory() {
+		int ioWorkerCount = Runtime.getRuntime().availableProcessors() * 2;
+		this.eventLoopGroup = new NioEventLoopGroup(ioWorkerCount);
+		this.defaultEventLoopGroup = true;
+	}
+
+	/**
+	 * Create a new {@code Netty4ClientHttpRequestFactory} with the given
+	 * {@link EventLoopGroup}.
+	 * <p><b>NOTE:</b> the given group will <strong>not</strong> be
+	 * {@linkplain EventLoopGroup#shutdownGracefully() shutdown} by this factory;
+	 * doing so becomes the responsibility of the caller.
+	 */
+	public Netty4ClientHttpRequestFactory(EventLoopGroup eventLoopGroup) {
+		Assert.notNull(eventLoopGroup, "'eventLoopGroup' must not be null");
+		this.eventLoopGroup = eventLoopGroup;
+		this.defaultEventLoopGroup = false;
+	}
+
+
+	/**
+	 * Set the default maximum response size.
+	 * <p>By default this is set to {@link #DEFAULT_MAX_RESPONSE_SIZE}.
+	 * @see HttpObjectAggregator#HttpObjectAggregator(int)
+	 */
+	public void setMaxResponseSize(int maxResponseSize) {
+		this.maxResponseSize = maxResponseSize;
+	}
+
+	/**
+	 * Set the maximum number of idle keep-alive connections to retain per host.
+	 * Connections beyond that number are closed once their response has been received.
+	 * <p>By default this is set to {@link #DEFAULT_MAX_IDLE_CONNECTIONS_PER_HOST}.
+	 * A value of 0 effectively turns connection reuse off.
+	 */
+	public void setMaxIdleConnectionsPerHost(int maxIdleConnectionsPerHost) {
+		this.maxIdleConnectionsPerHost = maxIdleConnectionsPerHost;
+	}
+
+	/**
+	 * Set the connection timeout (in milliseconds) for the underlying Netty channel.
+	 * The timeout applies to every subsequently established connection, also when
+	 * changed after the factory has been used already.
+	 * <p>Default is the Netty default.
+	 * @see ChannelOption#CONNECT_TIMEOUT_MILLIS
+	 */
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	/**
+	 * Set the read timeout (in milliseconds) for the underlying Netty channel.
+	 * A connection that has not received any data within that time gets closed,
+	 * failing the current request if any. This also applies to idle pooled
+	 * connections, effectively evicting them from the pool.
+	 * <p>Default is none.
+	 * @see ReadTimeoutHandler
+	 */
+	public void setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	/**
+	 * Set the SSL context to use for "https" URIs.
+	 * <p>Default is a client context with the JDK's default trust settings,
+	 * created on the first "https" request.
+	 */
+	public void setSslContext(SslContext sslContext) {
+		this.sslContext = sslContext;
+	}
+
+
+	@Override
+	public void afterPropertiesSet() {
+		getBootstrap();
+	}
+
+	private Bootstrap getBootstrap() {
+		if (this.bootstrap == null) {
+			Bootstrap bootstrap = new Bootstrap();
+			bootstrap.group(this.eventLoopGroup).channel(NioSocketChannel.class);
+			this.bootstrap = bootstrap;
+		}
+		return this.bootstrap;
+	}
+
+	private SslContext getSslContext() throws IOException {
+		if (this.sslContext == null) {
+			this.sslContext = SslContext.newClientContext();
+		}
+		return this.sslContext;
+	}
+
+	@Override
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+		return createRequestInternal(uri, httpMethod);
+	}
+
+	@Override
+	public AsyncClientHttpRequest createAsyncRequest(URI uri, HttpMethod httpMethod) throws IOException {
+		return createRequestInternal(uri, httpMethod);
+	}
+
+	private Netty4ClientHttpRequest createRequestInternal(URI uri, HttpMethod httpMethod) {
+		Assert.notNull(uri, "'uri' must not be null");
+		Assert.notNull(httpMethod, "'httpMethod' must not be null");
+		return new Netty4ClientHttpRequest(this, uri, httpMethod);
+	}
+
+
+	/**
+	 * Send the given request over a pooled connection to the given URI's host,
+	 * or over a new connection if no idle one is available.
+	 * @param uri the target URI
+	 * @param nettyRequest the request to send
+	 * @return a future for the response
+	 */
+	ListenableFuture<ClientHttpResponse> execute(URI uri, final FullHttpRequest nettyRequest) {
+		final SettableListenableFuture<ClientHttpResponse> responseFuture =
+				new SettableListenableFuture<ClientHttpResponse>();
+		final String poolKey = getPoolKey(uri);
+		Channel channel = pollIdleChannel(poolKey);
+		if (channel != null) {
+			send(channel, nettyRequest, responseFuture);
+			return responseFuture;
+		}
+		try {
+			final boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+			final SslContext sslContext = (secure ? getSslContext() : null);
+			final String host = uri.getHost();
+			final int port = getPort(uri);
+			Bootstrap bootstrap = getBootstrap().clone().handler(new ChannelInitializer<SocketChannel>() {
+				@Override
+				protected void initChannel(SocketChannel channel) throws Exception {
+					ChannelPipeline pipeline = channel.pipeline();
+					if (sslContext != null) {
+						pipeline.addLast(sslContext.newHandler(channel.alloc(), host, port));
+					}
+					if (readTimeout > 0) {
+						pipeline.addLast(new ReadTimeoutHandler(readTimeout, TimeUnit.MILLISECONDS));
+					}
+					pipeline.addLast(new HttpClientCodec());
+					pipeline.addLast(new HttpObjectAggregator(maxResponseSize));
+					pipeline.addLast(new ResponseHandler(poolKey));
+				}
+			});
+			if (this.connectTimeout >= 0) {
+				bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, this.connectTimeout);
+			}
+			bootstrap.connect(host, port).addListener(new ChannelFutureListener() {
+				@Override
+				public void operationComplete(ChannelFuture future) throws Exception {
+					if (future.isSuccess()) {
+						send(future.channel(), nettyRequest, responseFuture);
+					}
+					else {
+						nettyRequest.release();
+						responseFuture.setException(future.cause());
+					}
+				}
+			});
+		}
+		catch (Throwable ex) {
+			nettyRequest.release();
+			responseFuture.setException(ex);
+		}
+		return responseFuture;
+	}
+
+	private void send(Channel channel, FullHttpRequest nettyRequest,
+			final SettableListenableFuture<ClientHttpResponse> responseFuture) {
+
+		channel.attr(RESPONSE_FUTURE).set(responseFuture);
+		channel.writeAndFlush(nettyRequest).addListener(new ChannelFutureListener() {
+			@Override
+			public void operationComplete(ChannelFuture future) throws Exception {
+				if (!future.isSuccess()) {
+					responseFuture.setException(future.cause());
+					future.channel().close();
+				}
+			}
+		});
+	}
+
+	private Channel pollIdleChannel(String poolKey) {
+		Queue<Channel> channels = this.idleChannels.get(poolKey);
+		if (channels != null) {
+			Channel channel;
+			while ((channel = channels.poll()) != null) {
+				if (channel.isActive()) {
+					return channel;
+				}
+			}
+		}
+		return null;
+	}
+
+	private void releaseChannel(String poolKey, Channel channel) {
+		Queue<Channel> channels = this.idleChannels.get(poolKey);
+		if (channels == null) {
+			channels = new ConcurrentLinkedQueue<Channel>();
+			Queue<Channel> existing = this.idleChannels.putIfAbsent(poolKey, channels);
+			if (existing != null) {
+				channels = existing;
+			}
+		}
+		if (channel.isActive() && channels.size() < this.maxIdleConnectionsPerHost) {
+			channels.add(channel);
+		}
+		else {
+			channel.close();
+		}
+	}
+
+	private static String getPoolKey(URI uri) {
+		return uri.getScheme() + "://" + uri.getHost() + ":" + getPort(uri);
+	}
+
+	private static int getPort(URI uri) {
+		int port = uri.getPort();
+		if (port == -1) {
+			port = ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+		}
+		return port;
+	}
+
+
+	@Override
+	public void destroy() throws InterruptedException {
+		for (Queue<Channel> channels : this.idleChannels.values()) {
+			Channel channel;
+			while ((channel = channels.poll()) != null) {
+				channel.close();
+			}
+		}
+		if (this.defaultEventLoopGroup) {
+			// Clean up the EventLoopGroup if we created it in the constructor
+			this.eventLoopGroup.shutdownGracefully().sync();
+		}
+	}
+
+
+	/**
+	 * Netty handler that completes the response future registered for the
+	 * channel's current request, and hands the channel back to the pool.
+	 */
+	private class ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+		private final String poolKey;
+
+		public ResponseHandler(String poolKey) {
+			this.poolKey = poolKey;
+		}
+
+		@Override
+		protected void channelRead0(ChannelHandlerContext context, FullHttpResponse response) throws Exception {
+			SettableListenableFuture<ClientHttpResponse> responseFuture =
+					context.channel().attr(RESPONSE_FUTURE).getAndRemove();
+			if (responseFuture == null) {
+				// Unsolicited response: not much we can do but dropping the connection
+				context.close();
+				return;
+			}
+			// The response content is aggregated, so the channel may be reused right away.
+			// Hand it back to the pool before completing the future, so that a follow-up
+			// request triggered by the response can pick up the same connection.
+			response.retain();
+			if (HttpHeaders.isKeepAlive(response)) {
+				releaseChannel(this.poolKey, context.channel());
+			}
+			else {
+				context.close();
+			}
+			if (!responseFuture.set(new Netty4ClientHttpResponse(response))) {
+				response.release();
+			}
+		}
+
+		@Override
+		public void channelInactive(ChannelHandlerContext context) throws Exception {
+			SettableListenableFuture<ClientHttpResponse> responseFuture =
+					context.channel().attr(RESPONSE_FUTURE).getAndRemove();
+			if (responseFuture != null) {
+				responseFuture.setException(new IOException("Connection closed before response was received"));
+			}
+			super.channelInactive(context);
+		}
+
+		@Override
+		public void exceptionCaught(ChannelHandlerContext context, Throwable cause) throws Exception {
+			SettableListenableFuture<ClientHttpResponse> responseFuture =
+					context.channel().attr(RESPONSE_FUTURE).getAndRemove();
+			if (responseFuture != null) {
+				responseFuture.setException(cause);
+			}
+			context.close();
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * OutputStream decorator that accumulates the time spent in write operations,
+ * used for recording the request write time of monitored requests.
+ *
+ * @since 4.1
+ * @see ClientHttpRequestStatistics.HostStatistics#getRequestWriteTime()
+ */
+final class TimingOutputStream extends FilterOutputStream {
+
+	private long nanos;
+
+
+	TimingOutputStream(OutputStream out) {
+		super(out);
+	}
+
+
+	/**
+	 * Return the time spent in write, flush and close operations so far, in nanoseconds.
+	 */
+	long getNanos() {
+		return this.nanos;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		long start = System.nanoTime();
+		try {
+			this.out.write(b);
+		}
+		finally {
+			this.nanos += System.nanoTime() - start;
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		long start = System.nanoTime();
+		try {
+			this.out.write(b, off, len);
+		}
+		finally {
+			this.nanos += System.nanoTime() - start;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		long start = System.nanoTime();
+		try {
+			this.out.flush();
+		}
+		finally {
+			this.nanos += System.nanoTime() - start;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		long start = System.nanoTime();
+		try {
+			this.out.close();
+		}
+		finally {
+			this.nanos += System.nanoTime() - start;
+		}
+	}
+
+}
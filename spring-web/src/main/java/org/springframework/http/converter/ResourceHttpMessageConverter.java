@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import javax.activation.MimetypesFileTypeMap;
 
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
@@ -39,6 +40,9 @@ import org.springframework.util.StringUtils;
  * if available - is used to determine the {@code Content-Type} of written resources.
  * If JAF is not available, {@code application/octet-stream} is used.
  *
+ * <p>When reading, an {@link InputStreamResource} may be requested in order to
+ * consume the body stream directly instead of buffering it.
+ *
  * @author Arjen Poutsma
  * @since 3.0.2
  */
@@ -62,7 +66,12 @@ public class ResourceHttpMessageConverter extends AbstractHttpMessageConverter<R
 	protected Resource readInternal(Class<? extends Resource> clazz, HttpInputMessage inputMessage)
 			throws IOException, HttpMessageNotReadableException {
 
-		byte[] body = StreamUtils.copyToByteArray(inputMessage.getBody());
+		if (InputStreamResource.class == clazz) {
+			// Pass the body stream through, leaving it up to the caller to consume it
+			return new InputStreamResource(inputMessage.getBody());
+		}
+		long contentLength = inputMessage.getHeaders().getContentLength();
+		byte[] body = StreamUtils.copyToByteArray(inputMessage.getBody(), contentLength);
 		return new ByteArrayResource(body);
 	}
 
@@ -78,6 +87,11 @@ public class ResourceHttpMessageConverter extends AbstractHttpMessageConverter<R
 
 	@Override
 	protected Long getContentLength(Resource resource, MediaType contentType) throws IOException {
+		// Don't try to determine contentLength on InputStreamResource - cannot be read afterwards...
+		// Note: custom InputStreamResource subclasses could provide a pre-calculated content length!
+		if (InputStreamResource.class == resource.getClass()) {
+			return null;
+		}
 		return resource.contentLength();
 	}
 
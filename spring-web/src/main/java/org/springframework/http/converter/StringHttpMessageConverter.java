@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -82,6 +82,12 @@ public class StringHttpMessageConverter extends AbstractHttpMessageConverter<Str
 	@Override
 	protected String readInternal(Class<? extends String> clazz, HttpInputMessage inputMessage) throws IOException {
 		Charset charset = getContentTypeCharset(inputMessage.getHeaders().getContentType());
+		long contentLength = inputMessage.getHeaders().getContentLength();
+		if (contentLength >= 0) {
+			// Read the raw bytes in one go and decode them without intermediate char buffers
+			byte[] bytes = StreamUtils.copyToByteArray(inputMessage.getBody(), contentLength);
+			return new String(bytes, charset.name());
+		}
 		return StreamUtils.copyToString(inputMessage.getBody(), charset);
 	}
 
@@ -19,14 +19,20 @@ package org.springframework.http.converter.json;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationConfig;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 import org.springframework.http.HttpInputMessage;
@@ -48,6 +54,13 @@ import org.springframework.util.ClassUtils;
  * <p>By default, this converter supports {@code application/json}. This can be overridden by setting the
  * {@link #setSupportedMediaTypes supportedMediaTypes} property.
  *
+ * <p>The outcome of {@link #canRead}/{@link #canWrite} checks as well as pre-built
+ * {@link ObjectReader} and {@link ObjectWriter} instances are cached per type. Changes
+ * to the {@code ObjectMapper}'s serialization or deserialization configuration (e.g. via
+ * {@link ObjectMapper#configure}) are detected and invalidate those caches; any other
+ * customization of the {@code ObjectMapper}, e.g. registering modules, should happen
+ * before the converter is first used.
+ *
  * <p>Tested against Jackson 2.2 and 2.3; compatible with Jackson 2.0 and higher.
  *
  * @author Arjen Poutsma
@@ -72,6 +85,18 @@ public class MappingJackson2HttpMessageConverter extends AbstractHttpMessageConv
 
 	private Boolean prettyPrint;
 
+	private final Map<JavaType, Boolean> canDeserializeCache = new ConcurrentHashMap<JavaType, Boolean>(64);
+
+	private final Map<Class<?>, Boolean> canSerializeCache = new ConcurrentHashMap<Class<?>, Boolean>(64);
+
+	private final Map<JavaType, ObjectReader> objectReaderCache = new ConcurrentHashMap<JavaType, ObjectReader>(64);
+
+	private final Map<Class<?>, ObjectWriter> objectWriterCache = new ConcurrentHashMap<Class<?>, ObjectWriter>(64);
+
+	private volatile SerializationConfig cachedSerializationConfig;
+
+	private volatile DeserializationConfig cachedDeserializationConfig;
+
 
 	/**
 	 * Construct a new {@code MappingJackson2HttpMessageConverter}.
@@ -97,6 +122,7 @@ public class MappingJackson2HttpMessageConverter extends AbstractHttpMessageConv
 		Assert.notNull(objectMapper, "ObjectMapper must not be null");
 		this.objectMapper = objectMapper;
 		configurePrettyPrint();
+		clearCaches();
 	}
 
 	/**
@@ -155,12 +181,25 @@ public class MappingJackson2HttpMessageConverter extends AbstractHttpMessageConv
 
 	@Override
 	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		if (!canRead(mediaType)) {
+			return false;
+		}
 		JavaType javaType = getJavaType(type, contextClass);
+		validateCaches();
+		Boolean canDeserialize = this.canDeserializeCache.get(javaType);
+		if (canDeserialize == null) {
+			canDeserialize = canDeserialize(javaType);
+			this.canDeserializeCache.put(javaType, canDeserialize);
+		}
+		return canDeserialize;
+	}
+
+	private boolean canDeserialize(JavaType javaType) {
 		if (!jackson23Available || !logger.isWarnEnabled()) {
-			return (this.objectMapper.canDeserialize(javaType) && canRead(mediaType));
+			return this.objectMapper.canDeserialize(javaType);
 		}
 		AtomicReference<Throwable> causeRef = new AtomicReference<Throwable>();
-		if (this.objectMapper.canDeserialize(javaType, causeRef) && canRead(mediaType)) {
+		if (this.objectMapper.canDeserialize(javaType, causeRef)) {
 			return true;
 		}
 		Throwable cause = causeRef.get();
@@ -178,11 +217,24 @@ public class MappingJackson2HttpMessageConverter extends AbstractHttpMessageConv
 
 	@Override
 	public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+		if (!canWrite(mediaType)) {
+			return false;
+		}
+		validateCaches();
+		Boolean canSerialize = this.canSerializeCache.get(clazz);
+		if (canSerialize == null) {
+			canSerialize = canSerialize(clazz);
+			this.canSerializeCache.put(clazz, canSerialize);
+		}
+		return canSerialize;
+	}
+
+	private boolean canSerialize(Class<?> clazz) {
 		if (!jackson23Available || !logger.isWarnEnabled()) {
-			return (this.objectMapper.canSerialize(clazz) && canWrite(mediaType));
+			return this.objectMapper.canSerialize(clazz);
 		}
 		AtomicReference<Throwable> causeRef = new AtomicReference<Throwable>();
-		if (this.objectMapper.canSerialize(clazz, causeRef) && canWrite(mediaType)) {
+		if (this.objectMapper.canSerialize(clazz, causeRef)) {
 			return true;
 		}
 		Throwable cause = causeRef.get();
@@ -222,7 +274,7 @@ public class MappingJackson2HttpMessageConverter extends AbstractHttpMessageConv
 
 	private Object readJavaType(JavaType javaType, HttpInputMessage inputMessage) {
 		try {
-			return this.objectMapper.readValue(inputMessage.getBody(), javaType);
+			return getObjectReader(javaType).readValue(inputMessage.getBody());
 		}
 		catch (IOException ex) {
 			throw new HttpMessageNotReadableException("Could not read JSON: " + ex.getMessage(), ex);
@@ -250,13 +302,72 @@ public class MappingJackson2HttpMessageConverter extends AbstractHttpMessageConv
 			if (this.jsonPrefix != null) {
 				jsonGenerator.writeRaw(this.jsonPrefix);
 			}
-			this.objectMapper.writeValue(jsonGenerator, object);
+			if (object != null) {
+				getObjectWriter(object.getClass()).writeValue(jsonGenerator, object);
+			}
+			else {
+				this.objectMapper.writeValue(jsonGenerator, object);
+			}
 		}
 		catch (JsonProcessingException ex) {
 			throw new HttpMessageNotWritableException("Could not write JSON: " + ex.getMessage(), ex);
 		}
 	}
 
+	/**
+	 * Return an {@link ObjectReader} for the given type, reusing a previously
+	 * built instance if the {@code ObjectMapper} configuration did not change.
+	 */
+	private ObjectReader getObjectReader(JavaType javaType) {
+		validateCaches();
+		ObjectReader objectReader = this.objectReaderCache.get(javaType);
+		if (objectReader == null) {
+			objectReader = this.objectMapper.reader(javaType);
+			this.objectReaderCache.put(javaType, objectReader);
+		}
+		return objectReader;
+	}
+
+	/**
+	 * Return an {@link ObjectWriter} for the given (runtime) value type, reusing a
+	 * previously built instance if the {@code ObjectMapper} configuration did not change.
+	 * Such a writer resolves the root value serializer once rather than on every write.
+	 */
+	@SuppressWarnings("deprecation")
+	private ObjectWriter getObjectWriter(Class<?> clazz) {
+		validateCaches();
+		ObjectWriter objectWriter = this.objectWriterCache.get(clazz);
+		if (objectWriter == null) {
+			// writerWithType has been deprecated in later Jackson versions;
+			// preserved for the time being, for Jackson 2.0-2.4 compatibility.
+			objectWriter = this.objectMapper.writerWithType(clazz);
+			this.objectWriterCache.put(clazz, objectWriter);
+		}
+		return objectWriter;
+	}
+
+	/**
+	 * Clear the per-type caches if the {@code ObjectMapper}'s serialization or
+	 * deserialization configuration has been replaced since they were populated.
+	 */
+	private void validateCaches() {
+		SerializationConfig serializationConfig = this.objectMapper.getSerializationConfig();
+		DeserializationConfig deserializationConfig = this.objectMapper.getDeserializationConfig();
+		if (serializationConfig != this.cachedSerializationConfig ||
+				deserializationConfig != this.cachedDeserializationConfig) {
+			clearCaches();
+			this.cachedSerializationConfig = serializationConfig;
+			this.cachedDeserializationConfig = deserializationConfig;
+		}
+	}
+
+	private void clearCaches() {
+		this.canDeserializeCache.clear();
+		this.canSerializeCache.clear();
+		this.objectReaderCache.clear();
+		this.objectWriterCache.clear();
+	}
+
 	/**
 	 * Return the Jackson {@link JavaType} for the specified type and context class.
 	 * <p>The default implementation returns {@code typeFactory.constructType(type, contextClass)},
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
 import org.springframework.remoting.rmi.CodebaseAwareObjectInputStream;
 import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationResult;
@@ -37,7 +39,8 @@ import org.springframework.util.Assert;
  * Abstract base implementation of the HttpInvokerRequestExecutor interface.
  *
  * <p>Pre-implements serialization of RemoteInvocation objects and
- * deserialization of RemoteInvocationResults objects.
+ * deserialization of RemoteInvocationResults objects, using standard
+ * Java serialization or a custom {@link Serializer} and {@link Deserializer}.
  *
  * @author Juergen Hoeller
  * @since 1.1
@@ -76,6 +79,10 @@ public abstract class AbstractHttpInvokerRequestExecutor
 
 	private boolean acceptGzipEncoding = true;
 
+	private Serializer<Object> serializer;
+
+	private Deserializer<Object> deserializer;
+
 	private ClassLoader beanClassLoader;
 
 
@@ -113,9 +120,54 @@ public abstract class AbstractHttpInvokerRequestExecutor
 		return this.acceptGzipEncoding;
 	}
 
+	/**
+	 * Specify a custom {@link Serializer} for writing remote invocations,
+	 * in place of standard Java serialization through an {@code ObjectOutputStream}.
+	 * <p>Needs to match the {@link Deserializer} used on the server side.
+	 * @since 4.1
+	 * @see org.springframework.remoting.support.CompactRemoteInvocationSerializer
+	 */
+	public void setSerializer(Serializer<Object> serializer) {
+		this.serializer = serializer;
+	}
+
+	/**
+	 * Return the custom {@link Serializer} for writing remote invocations, if any.
+	 * @since 4.1
+	 */
+	public Serializer<Object> getSerializer() {
+		return this.serializer;
+	}
+
+	/**
+	 * Specify a custom {@link Deserializer} for reading remote invocation results,
+	 * in place of standard Java serialization through an {@code ObjectInputStream}.
+	 * <p>Needs to match the {@link Serializer} used on the server side.
+	 * Note that a custom deserializer does not load classes from the codebase URL.
+	 * @since 4.1
+	 * @see org.springframework.remoting.support.CompactRemoteInvocationSerializer
+	 */
+	public void setDeserializer(Deserializer<Object> deserializer) {
+		this.deserializer = deserializer;
+		if (deserializer instanceof BeanClassLoaderAware && this.beanClassLoader != null) {
+			((BeanClassLoaderAware) deserializer).setBeanClassLoader(this.beanClassLoader);
+		}
+	}
+
+	/**
+	 * Return the custom {@link Deserializer} for reading remote invocation results, if any.
+	 * @since 4.1
+	 */
+	public Deserializer<Object> getDeserializer() {
+		return this.deserializer;
+	}
+
 	@Override
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		this.beanClassLoader = classLoader;
+		if (this.deserializer instanceof BeanClassLoaderAware) {
+			((BeanClassLoaderAware) this.deserializer).setBeanClassLoader(classLoader);
+		}
 	}
 
 	/**
@@ -155,7 +207,8 @@ public abstract class AbstractHttpInvokerRequestExecutor
 	 * <p>The default implementation gives {@code decorateOutputStream} a chance
 	 * to decorate the stream first (for example, for custom encryption or compression).
 	 * Creates an {@code ObjectOutputStream} for the final stream and calls
-	 * {@code doWriteRemoteInvocation} to actually write the object.
+	 * {@code doWriteRemoteInvocation} to actually write the object, unless
+	 * a custom {@link #setSerializer Serializer} has been specified.
 	 * <p>Can be overridden for custom serialization of the invocation.
 	 * @param invocation the RemoteInvocation object
 	 * @param os the OutputStream to write to
@@ -164,6 +217,16 @@ public abstract class AbstractHttpInvokerRequestExecutor
 	 * @see #doWriteRemoteInvocation
 	 */
 	protected void writeRemoteInvocation(RemoteInvocation invocation, OutputStream os) throws IOException {
+		if (this.serializer != null) {
+			OutputStream decorated = decorateOutputStream(os);
+			try {
+				this.serializer.serialize(invocation, decorated);
+			}
+			finally {
+				decorated.close();
+			}
+			return;
+		}
 		ObjectOutputStream oos = new ObjectOutputStream(decorateOutputStream(os));
 		try {
 			doWriteRemoteInvocation(invocation, oos);
@@ -224,7 +287,8 @@ public abstract class AbstractHttpInvokerRequestExecutor
 	 * <p>Gives {@code decorateInputStream} a chance to decorate the stream
 	 * first (for example, for custom encryption or compression). Creates an
 	 * {@code ObjectInputStream} via {@code createObjectInputStream} and
-	 * calls {@code doReadRemoteInvocationResult} to actually read the object.
+	 * calls {@code doReadRemoteInvocationResult} to actually read the object,
+	 * unless a custom {@link #setDeserializer Deserializer} has been specified.
 	 * <p>Can be overridden for custom serialization of the invocation.
 	 * @param is the InputStream to read from
 	 * @param codebaseUrl the codebase URL to load classes from if not found locally
@@ -238,6 +302,20 @@ public abstract class AbstractHttpInvokerRequestExecutor
 	protected RemoteInvocationResult readRemoteInvocationResult(InputStream is, String codebaseUrl)
 			throws IOException, ClassNotFoundException {
 
+		if (this.deserializer != null) {
+			InputStream decorated = decorateInputStream(is);
+			try {
+				Object obj = this.deserializer.deserialize(decorated);
+				if (!(obj instanceof RemoteInvocationResult)) {
+					throw new RemoteException("Deserialized object needs to be assignable to type [" +
+							RemoteInvocationResult.class.getName() + "]: " + obj);
+				}
+				return (RemoteInvocationResult) obj;
+			}
+			finally {
+				decorated.close();
+			}
+		}
 		ObjectInputStream ois = createObjectInputStream(decorateInputStream(is), codebaseUrl);
 		try {
 			return doReadRemoteInvocationResult(ois);
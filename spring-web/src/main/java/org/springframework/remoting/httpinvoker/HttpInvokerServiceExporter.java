@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,13 @@
 
 package org.springframework.remoting.httpinvoker;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -58,6 +60,39 @@ import org.springframework.web.util.NestedServletException;
 public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExporter
 		implements HttpRequestHandler {
 
+	private static final String HTTP_HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+	private static final String HTTP_HEADER_CONTENT_ENCODING = "Content-Encoding";
+
+	private static final String ENCODING_GZIP = "gzip";
+
+	private static final int SERIALIZED_RESULT_BYTE_ARRAY_INITIAL_SIZE = 1024;
+
+
+	private int compressionThreshold = -1;
+
+
+	/**
+	 * Set the size in bytes above which remote invocation results get GZIP-compressed
+	 * for clients that accept GZIP encoding, as HTTP invoker clients do by default.
+	 * <p>Default is -1, i.e. no compression. Note that any non-negative threshold
+	 * causes results to be buffered in memory, in order to determine their size
+	 * and to set the "Content-Length" header for uncompressed responses.
+	 * @since 4.1
+	 * @see AbstractHttpInvokerRequestExecutor#setAcceptGzipEncoding
+	 */
+	public void setCompressionThreshold(int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	/**
+	 * Return the size in bytes above which remote invocation results get GZIP-compressed.
+	 * @since 4.1
+	 */
+	public int getCompressionThreshold() {
+		return this.compressionThreshold;
+	}
+
 	/**
 	 * Reads a remote invocation from the request, executes it,
 	 * and writes the remote invocation result to the response.
@@ -101,7 +136,8 @@ public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExpor
 	 * <p>Gives {@link #decorateInputStream} a chance to decorate the stream
 	 * first (for example, for custom encryption or compression). Creates a
 	 * {@link org.springframework.remoting.rmi.CodebaseAwareObjectInputStream}
-	 * and calls {@link #doReadRemoteInvocation} to actually read the object.
+	 * and calls {@link #doReadRemoteInvocation} to actually read the object,
+	 * unless a custom {@link #setDeserializer Deserializer} has been specified.
 	 * <p>Can be overridden for custom serialization of the invocation.
 	 * @param request current HTTP request
 	 * @param is the InputStream to read from
@@ -112,6 +148,15 @@ public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExpor
 	protected RemoteInvocation readRemoteInvocation(HttpServletRequest request, InputStream is)
 			throws IOException, ClassNotFoundException {
 
+		if (getDeserializer() != null) {
+			InputStream decorated = decorateInputStream(request, is);
+			try {
+				return deserializeRemoteInvocation(decorated);
+			}
+			finally {
+				decorated.close();
+			}
+		}
 		ObjectInputStream ois = createObjectInputStream(decorateInputStream(request, is));
 		try {
 			return doReadRemoteInvocation(ois);
@@ -137,6 +182,9 @@ public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExpor
 
 	/**
 	 * Write the given RemoteInvocationResult to the given HTTP response.
+	 * <p>If a {@link #setCompressionThreshold compression threshold} has been set and
+	 * the client accepts GZIP encoding, the result is serialized into a buffer first
+	 * and compressed if its size exceeds the threshold.
 	 * @param request current HTTP request
 	 * @param response current HTTP response
 	 * @param result the RemoteInvocationResult object
@@ -147,7 +195,37 @@ public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExpor
 			throws IOException {
 
 		response.setContentType(getContentType());
-		writeRemoteInvocationResult(request, response, result, response.getOutputStream());
+		if (this.compressionThreshold < 0 || !isGzipAccepted(request)) {
+			writeRemoteInvocationResult(request, response, result, response.getOutputStream());
+			return;
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(SERIALIZED_RESULT_BYTE_ARRAY_INITIAL_SIZE);
+		writeRemoteInvocationResult(request, response, result, baos);
+		if (baos.size() > this.compressionThreshold) {
+			response.setHeader(HTTP_HEADER_CONTENT_ENCODING, ENCODING_GZIP);
+			GZIPOutputStream gzos = new GZIPOutputStream(response.getOutputStream());
+			try {
+				baos.writeTo(gzos);
+			}
+			finally {
+				gzos.close();
+			}
+		}
+		else {
+			response.setContentLength(baos.size());
+			baos.writeTo(response.getOutputStream());
+		}
+	}
+
+	/**
+	 * Determine whether the client accepts GZIP encoding for the response.
+	 * @param request current HTTP request
+	 * @return whether the "Accept-Encoding" header contains "gzip"
+	 * @since 4.1
+	 */
+	protected boolean isGzipAccepted(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader(HTTP_HEADER_ACCEPT_ENCODING);
+		return (acceptEncoding != null && acceptEncoding.toLowerCase().contains(ENCODING_GZIP));
 	}
 
 	/**
@@ -155,7 +233,8 @@ public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExpor
 	 * <p>The default implementation gives {@link #decorateOutputStream} a chance
 	 * to decorate the stream first (for example, for custom encryption or compression).
 	 * Creates an {@link java.io.ObjectOutputStream} for the final stream and calls
-	 * {@link #doWriteRemoteInvocationResult} to actually write the object.
+	 * {@link #doWriteRemoteInvocationResult} to actually write the object,
+	 * unless a custom {@link #setSerializer Serializer} has been specified.
 	 * <p>Can be overridden for custom serialization of the invocation.
 	 * @param request current HTTP request
 	 * @param response current HTTP response
@@ -169,6 +248,16 @@ public class HttpInvokerServiceExporter extends RemoteInvocationSerializingExpor
 			HttpServletRequest request, HttpServletResponse response, RemoteInvocationResult result, OutputStream os)
 			throws IOException {
 
+		if (getSerializer() != null) {
+			OutputStream decorated = decorateOutputStream(request, response, os);
+			try {
+				getSerializer().serialize(result, decorated);
+			}
+			finally {
+				decorated.close();
+			}
+			return;
+		}
 		ObjectOutputStream oos = createObjectOutputStream(decorateOutputStream(request, response, os));
 		try {
 			doWriteRemoteInvocationResult(result, oos);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -97,7 +97,8 @@ public class SimpleHttpInvokerServiceExporter extends RemoteInvocationSerializin
 	 * <p>Gives {@link #decorateInputStream} a chance to decorate the stream
 	 * first (for example, for custom encryption or compression). Creates a
 	 * {@link org.springframework.remoting.rmi.CodebaseAwareObjectInputStream}
-	 * and calls {@link #doReadRemoteInvocation} to actually read the object.
+	 * and calls {@link #doReadRemoteInvocation} to actually read the object,
+	 * unless a custom {@link #setDeserializer Deserializer} has been specified.
 	 * <p>Can be overridden for custom serialization of the invocation.
 	 * @param exchange current HTTP request/response
 	 * @param is the InputStream to read from
@@ -108,6 +109,9 @@ public class SimpleHttpInvokerServiceExporter extends RemoteInvocationSerializin
 	protected RemoteInvocation readRemoteInvocation(HttpExchange exchange, InputStream is)
 			throws IOException, ClassNotFoundException {
 
+		if (getDeserializer() != null) {
+			return deserializeRemoteInvocation(decorateInputStream(exchange, is));
+		}
 		ObjectInputStream ois = createObjectInputStream(decorateInputStream(exchange, is));
 		return doReadRemoteInvocation(ois);
 	}
@@ -145,7 +149,8 @@ public class SimpleHttpInvokerServiceExporter extends RemoteInvocationSerializin
 	 * <p>The default implementation gives {@link #decorateOutputStream} a chance
 	 * to decorate the stream first (for example, for custom encryption or compression).
 	 * Creates an {@link java.io.ObjectOutputStream} for the final stream and calls
-	 * {@link #doWriteRemoteInvocationResult} to actually write the object.
+	 * {@link #doWriteRemoteInvocationResult} to actually write the object,
+	 * unless a custom {@link #setSerializer Serializer} has been specified.
 	 * <p>Can be overridden for custom serialization of the invocation.
 	 * @param exchange current HTTP request/response
 	 * @param result the RemoteInvocationResult object
@@ -157,6 +162,12 @@ public class SimpleHttpInvokerServiceExporter extends RemoteInvocationSerializin
 	protected void writeRemoteInvocationResult(
 			HttpExchange exchange, RemoteInvocationResult result, OutputStream os) throws IOException {
 
+		if (getSerializer() != null) {
+			OutputStream decorated = decorateOutputStream(exchange, os);
+			getSerializer().serialize(result, decorated);
+			decorated.flush();
+			return;
+		}
 		ObjectOutputStream oos = createObjectOutputStream(decorateOutputStream(exchange, os));
 		doWriteRemoteInvocationResult(result, oos);
 		oos.flush();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.List;
 
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.StringUtils;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.context.request.NativeWebRequest;
@@ -28,6 +29,10 @@ import org.springframework.web.context.request.NativeWebRequest;
 /**
  * A ContentNegotiationStrategy that parses the 'Accept' header of the request.
  *
+ * <p>Parsed and sorted media type lists are cached per distinct header value,
+ * since clients tend to send the same 'Accept' header over and over again.
+ * The returned lists are therefore unmodifiable.
+ *
  * @author Rossen Stoyanchev
  * @since 3.2
  */
@@ -35,6 +40,13 @@ public class HeaderContentNegotiationStrategy implements ContentNegotiationStrat
 
 	private static final String ACCEPT_HEADER = "Accept";
 
+	private static final int CACHE_LIMIT = 256;
+
+
+	private final ConcurrentLruCache<String, List<MediaType>> mediaTypesCache =
+			new ConcurrentLruCache<String, List<MediaType>>(CACHE_LIMIT);
+
+
 	/**
 	 * {@inheritDoc}
 	 * @throws HttpMediaTypeNotAcceptableException if the 'Accept' header cannot be parsed.
@@ -44,8 +56,13 @@ public class HeaderContentNegotiationStrategy implements ContentNegotiationStrat
 		String acceptHeader = webRequest.getHeader(ACCEPT_HEADER);
 		try {
 			if (StringUtils.hasText(acceptHeader)) {
-				List<MediaType> mediaTypes = MediaType.parseMediaTypes(acceptHeader);
-				MediaType.sortBySpecificityAndQuality(mediaTypes);
+				List<MediaType> mediaTypes = this.mediaTypesCache.get(acceptHeader);
+				if (mediaTypes == null) {
+					mediaTypes = MediaType.parseMediaTypes(acceptHeader);
+					MediaType.sortBySpecificityAndQuality(mediaTypes);
+					mediaTypes = Collections.unmodifiableList(mediaTypes);
+					this.mediaTypesCache.put(acceptHeader, mediaTypes);
+				}
 				return mediaTypes;
 			}
 		}
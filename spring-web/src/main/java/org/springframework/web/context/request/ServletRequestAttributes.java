@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -50,7 +50,8 @@ public class ServletRequestAttributes extends AbstractRequestAttributes {
 
 	private volatile HttpSession session;
 
-	private final Map<String, Object> sessionAttributesToUpdate = new ConcurrentHashMap<String, Object>(1);
+	/** Lazily initialized, since most requests do not access session attributes */
+	private volatile Map<String, Object> sessionAttributesToUpdate;
 
 
 	/**
@@ -104,7 +105,7 @@ public class ServletRequestAttributes extends AbstractRequestAttributes {
 				try {
 					Object value = session.getAttribute(name);
 					if (value != null) {
-						this.sessionAttributesToUpdate.put(name, value);
+						getSessionAttributesToUpdate().put(name, value);
 					}
 					return value;
 				}
@@ -127,7 +128,10 @@ public class ServletRequestAttributes extends AbstractRequestAttributes {
 		}
 		else {
 			HttpSession session = getSession(true);
-			this.sessionAttributesToUpdate.remove(name);
+			Map<String, Object> sessionAttributesToUpdate = this.sessionAttributesToUpdate;
+			if (sessionAttributesToUpdate != null) {
+				sessionAttributesToUpdate.remove(name);
+			}
 			session.setAttribute(name, value);
 		}
 	}
@@ -143,7 +147,10 @@ public class ServletRequestAttributes extends AbstractRequestAttributes {
 		else {
 			HttpSession session = getSession(false);
 			if (session != null) {
-				this.sessionAttributesToUpdate.remove(name);
+				Map<String, Object> sessionAttributesToUpdate = this.sessionAttributesToUpdate;
+				if (sessionAttributesToUpdate != null) {
+					sessionAttributesToUpdate.remove(name);
+				}
 				try {
 					session.removeAttribute(name);
 					// Remove any registered destruction callback as well.
@@ -222,9 +229,13 @@ public class ServletRequestAttributes extends AbstractRequestAttributes {
 		// Store session reference for access after request completion.
 		this.session = this.request.getSession(false);
 		// Update all affected session attributes.
+		Map<String, Object> sessionAttributesToUpdate = this.sessionAttributesToUpdate;
+		if (sessionAttributesToUpdate == null) {
+			return;
+		}
 		if (this.session != null) {
 			try {
-				for (Map.Entry<String, Object> entry : this.sessionAttributesToUpdate.entrySet()) {
+				for (Map.Entry<String, Object> entry : sessionAttributesToUpdate.entrySet()) {
 					String name = entry.getKey();
 					Object newValue = entry.getValue();
 					Object oldValue = this.session.getAttribute(name);
@@ -237,7 +248,24 @@ public class ServletRequestAttributes extends AbstractRequestAttributes {
 				// Session invalidated - shouldn't usually happen.
 			}
 		}
-		this.sessionAttributesToUpdate.clear();
+		sessionAttributesToUpdate.clear();
+	}
+
+	/**
+	 * Return the map of accessed session attributes, creating it on first access.
+	 */
+	private Map<String, Object> getSessionAttributesToUpdate() {
+		Map<String, Object> sessionAttributesToUpdate = this.sessionAttributesToUpdate;
+		if (sessionAttributesToUpdate == null) {
+			synchronized (this) {
+				sessionAttributesToUpdate = this.sessionAttributesToUpdate;
+				if (sessionAttributesToUpdate == null) {
+					sessionAttributesToUpdate = new ConcurrentHashMap<String, Object>(1);
+					this.sessionAttributesToUpdate = sessionAttributesToUpdate;
+				}
+			}
+		}
+		return sessionAttributesToUpdate;
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -114,6 +114,16 @@ public final class WebAsyncManager {
 		});
 	}
 
+	/**
+	 * Return the {@link AsyncWebRequest} in use, or {@code null} if none has been configured.
+	 * <p>Its completion handlers get invoked once concurrent handling is done,
+	 * however it was started.
+	 * @since 4.1
+	 */
+	public AsyncWebRequest getAsyncWebRequest() {
+		return this.asyncWebRequest;
+	}
+
 	/**
 	 * Configure an AsyncTaskExecutor for use with concurrent processing via
 	 * {@link #startCallableProcessing(Callable, Object...)}.
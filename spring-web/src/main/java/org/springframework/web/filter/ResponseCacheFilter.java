@@ -0,0 +1,881 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ResizableByteArrayOutputStream;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link javax.servlet.Filter} that caches complete {@code GET} responses
+ * (status, headers and body) in one or more Spring {@link Cache Caches},
+ * serving subsequent requests for the same resource without invoking the
+ * rest of the filter chain.
+ *
+ * <p>Whether and for how long a response is cached is driven by the
+ * {@code Cache-Control} header of the response, as set by handlers or by
+ * {@code WebContentInterceptor}: the {@code s-maxage} or {@code max-age}
+ * directive determines the freshness lifetime (falling back to the
+ * {@link #setDefaultTimeToLive default time to live}), while responses marked
+ * {@code no-store}, {@code no-cache} or {@code private}, responses that set
+ * cookies, and responses with a status other than {@code 200} are never cached.
+ * Requests carrying an {@code Authorization} header bypass the cache; requests
+ * with {@code Cache-Control: no-cache} regenerate the cached entry.
+ * Responses with a {@code Vary} header are cached per variant of the named
+ * request headers.
+ *
+ * <p>Caches are consulted in the given order, so that a fast local cache can be
+ * placed in front of a shared one: an entry found in a later cache is copied into
+ * the earlier ones, and new entries are stored in all of them.
+ *
+ * <p>Requests are coalesced per cache key: while one request regenerates a missing
+ * or expired entry, concurrent requests for the same resource wait for it (up to
+ * the {@link #setCoalescingTimeout coalescing timeout}) rather than regenerating
+ * the response themselves. Within the {@code stale-while-revalidate} window of an
+ * expired entry, concurrent requests are served the stale entry right away, while
+ * the regenerating request sends the fresh response to its own client.
+ * If the regenerated response turns out not to be cacheable, a "hit-for-pass"
+ * marker is stored for the {@link #setHitForPassTime hit-for-pass time}, releasing
+ * waiting requests right away and letting subsequent requests for the same resource
+ * proceed without being coalesced. Once a resource is known to vary, both coalescing
+ * and hit-for-pass markers apply per variant.
+ *
+ * <p>Asynchronously processed responses are written through without being cached.
+ * Handlers may also call {@link #disableResponseCaching(ServletRequest)} to
+ * prevent caching of an individual response.
+ *
+ * @since 4.1
+ * @see org.springframework.cache.CacheManager
+ * @see ShallowEtagHeaderFilter
+ */
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+	/**
+	 * Name of the cache used if no cache names have been specified: "responseCache".
+	 */
+	public static final String DEFAULT_CACHE_NAME = "responseCache";
+
+	private static final String DISABLED_ATTRIBUTE = ResponseCacheFilter.class.getName() + ".DISABLED";
+
+	private static final String HEADER_AGE = "Age";
+
+	private static final String HEADER_AUTHORIZATION = "Authorization";
+
+	private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+
+	private static final String HEADER_CONTENT_TYPE = "Content-Type";
+
+	private static final String HEADER_SET_COOKIE = "Set-Cookie";
+
+	private static final String HEADER_VARY = "Vary";
+
+	private static final Set<String> NON_CACHEABLE_HEADERS = new HashSet<String>(Arrays.asList(
+			"age", "connection", "content-length", "content-type", "keep-alive", "transfer-encoding"));
+
+
+	private CacheManager cacheManager;
+
+	private String[] cacheNames = new String[] {DEFAULT_CACHE_NAME};
+
+	private List<Cache> caches;
+
+	private int defaultTimeToLive = 0;
+
+	private int staleWhileRevalidate = 0;
+
+	private int maxBodySize = 1024 * 1024;
+
+	private long coalescingTimeout = 10000;
+
+	private int hitForPassTime = 60;
+
+	private final ConcurrentMap<String, CountDownLatch> regenerations = new ConcurrentHashMap<String, CountDownLatch>();
+
+
+	/**
+	 * Set the {@link CacheManager} to obtain the {@link #setCacheNames caches} from.
+	 * <p>Alternatively, specify the caches directly via {@link #setCaches}.
+	 */
+	public void setCacheManager(CacheManager cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	/**
+	 * Set the names of the caches to obtain from the {@link #setCacheManager CacheManager},
+	 * in the order in which they are to be consulted.
+	 * <p>Default is a single cache named "responseCache".
+	 */
+	public void setCacheNames(String... cacheNames) {
+		Assert.notEmpty(cacheNames, "At least one cache name is required");
+		this.cacheNames = cacheNames;
+	}
+
+	/**
+	 * Specify the caches to use directly, in the order in which they are to be consulted.
+	 */
+	public void setCaches(Cache... caches) {
+		Assert.notEmpty(caches, "At least one cache is required");
+		this.caches = Arrays.asList(caches);
+	}
+
+	/**
+	 * Set the time (in seconds) for which responses without a {@code max-age} or
+	 * {@code s-maxage} directive are considered fresh.
+	 * <p>Default is "0", caching only responses that specify a lifetime themselves.
+	 */
+	public void setDefaultTimeToLive(int defaultTimeToLive) {
+		this.defaultTimeToLive = defaultTimeToLive;
+	}
+
+	/**
+	 * Set the time (in seconds) during which an expired response may still be served
+	 * to concurrent requests while it is being regenerated, for responses that do not specify a
+	 * {@code stale-while-revalidate} directive themselves.
+	 * <p>Default is "0", never serving stale responses by default.
+	 */
+	public void setStaleWhileRevalidate(int staleWhileRevalidate) {
+		this.staleWhileRevalidate = staleWhileRevalidate;
+	}
+
+	/**
+	 * Set the maximum size (in bytes) of a response body to cache. Larger responses
+	 * are streamed through to the client without being cached.
+	 * <p>Default is 1 MB.
+	 */
+	public void setMaxBodySize(int maxBodySize) {
+		this.maxBodySize = maxBodySize;
+	}
+
+	/**
+	 * Set the maximum time (in milliseconds) that a request waits for a concurrent
+	 * request to regenerate the same response, before regenerating it itself.
+	 * <p>Default is 10000 ms.
+	 */
+	public void setCoalescingTimeout(long coalescingTimeout) {
+		this.coalescingTimeout = coalescingTimeout;
+	}
+
+	/**
+	 * Set the time (in seconds) for which a resource whose regenerated response
+	 * turned out not to be cacheable is passed straight to the filter chain,
+	 * without concurrent requests for it being coalesced.
+	 * <p>Default is 60 seconds. A value of "0" disables hit-for-pass markers.
+	 */
+	public void setHitForPassTime(int hitForPassTime) {
+		this.hitForPassTime = hitForPassTime;
+	}
+
+	@Override
+	protected void initFilterBean() throws ServletException {
+		if (this.caches == null) {
+			Assert.state(this.cacheManager != null, "Either 'cacheManager' or 'caches' is required");
+			List<Cache> caches = new ArrayList<Cache>(this.cacheNames.length);
+			for (String cacheName : this.cacheNames) {
+				Cache cache = this.cacheManager.getCache(cacheName);
+				Assert.state(cache != null, "No cache named '" + cacheName + "' found in " + this.cacheManager);
+				caches.add(cache);
+			}
+			this.caches = caches;
+		}
+	}
+
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		Assert.state(this.caches != null, "ResponseCacheFilter not initialized");
+		if (!isCacheableRequest(request)) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		String key = getCacheKey(request);
+		if (hasDirective(request.getHeader(HEADER_CACHE_CONTROL), "no-cache")) {
+			generate(key, request, response, filterChain, false);
+			return;
+		}
+
+		// Once the resource is known to vary, coalesce and pass per variant
+		String variantKey = key;
+		Object cached = get(key);
+		if (cached instanceof VaryMarker) {
+			variantKey = getVariantKey(key, ((VaryMarker) cached).headerNames, request);
+			cached = get(variantKey);
+		}
+		long now = System.currentTimeMillis();
+		if (cached instanceof CachedResponse && ((CachedResponse) cached).isFresh(now)) {
+			serve((CachedResponse) cached, response, now);
+			return;
+		}
+		if (cached instanceof PassMarker && ((PassMarker) cached).isActive(now)) {
+			generate(key, request, response, filterChain, false);
+			return;
+		}
+
+		CountDownLatch latch = new CountDownLatch(1);
+		CountDownLatch existingLatch = this.regenerations.putIfAbsent(variantKey, latch);
+		if (existingLatch == null) {
+			try {
+				generate(key, request, response, filterChain, this.hitForPassTime > 0);
+			}
+			finally {
+				this.regenerations.remove(variantKey, latch);
+				latch.countDown();
+			}
+			return;
+		}
+
+		if (cached instanceof CachedResponse && ((CachedResponse) cached).isUsableWhenStale(now)) {
+			serve((CachedResponse) cached, response, now);
+			return;
+		}
+		try {
+			if (existingLatch.await(this.coalescingTimeout, TimeUnit.MILLISECONDS)) {
+				cached = lookup(key, request);
+				now = System.currentTimeMillis();
+				if (cached instanceof CachedResponse && ((CachedResponse) cached).isFresh(now)) {
+					serve((CachedResponse) cached, response, now);
+					return;
+				}
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		generate(key, request, response, filterChain, false);
+	}
+
+	/**
+	 * Indicate whether the given request may be served from, and stored in, the cache.
+	 * <p>The default implementation accepts {@code GET} requests without an
+	 * {@code Authorization} header and without a {@code no-store} directive.
+	 * @param request the current request
+	 */
+	protected boolean isCacheableRequest(HttpServletRequest request) {
+		return (HttpMethod.GET.name().equals(request.getMethod()) &&
+				request.getHeader(HEADER_AUTHORIZATION) == null &&
+				!hasDirective(request.getHeader(HEADER_CACHE_CONTROL), "no-store"));
+	}
+
+	/**
+	 * Determine the cache key for the given request, not taking {@code Vary}
+	 * headers into account.
+	 * <p>The default implementation uses the request method, scheme, server name,
+	 * server port, URI and query string, so that responses for different virtual
+	 * hosts or for HTTP and HTTPS are cached separately.
+	 * @param request the current request
+	 */
+	protected String getCacheKey(HttpServletRequest request) {
+		StringBuilder builder = new StringBuilder(request.getMethod());
+		builder.append(' ').append(request.getScheme()).append("://").append(request.getServerName());
+		builder.append(':').append(request.getServerPort()).append(request.getRequestURI());
+		String queryString = request.getQueryString();
+		if (queryString != null) {
+			builder.append('?').append(queryString);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * This method can be used to prevent the response for the given request from
+	 * being cached by the ResponseCacheFilter, for example for a response that is
+	 * specific to the current user.
+	 * @param request the current request
+	 */
+	public static void disableResponseCaching(ServletRequest request) {
+		Assert.notNull(request, "ServletRequest must not be null");
+		request.setAttribute(DISABLED_ATTRIBUTE, true);
+	}
+
+
+	/**
+	 * Look up the {@link CachedResponse} or {@link PassMarker} for the given key,
+	 * resolving the variant for the given request if the response varies.
+	 */
+	private Object lookup(String key, HttpServletRequest request) {
+		Object value = get(key);
+		if (value instanceof VaryMarker) {
+			value = get(getVariantKey(key, ((VaryMarker) value).headerNames, request));
+		}
+		return value;
+	}
+
+	private Object get(String key) {
+		for (int i = 0; i < this.caches.size(); i++) {
+			Cache.ValueWrapper wrapper = this.caches.get(i).get(key);
+			if (wrapper != null && wrapper.get() != null) {
+				for (int j = 0; j < i; j++) {
+					this.caches.get(j).put(key, wrapper.get());
+				}
+				return wrapper.get();
+			}
+		}
+		return null;
+	}
+
+	private void put(String key, Object value) {
+		for (Cache cache : this.caches) {
+			cache.put(key, value);
+		}
+	}
+
+	private String getVariantKey(String key, String[] headerNames, HttpServletRequest request) {
+		StringBuilder builder = new StringBuilder(key);
+		for (String headerName : headerNames) {
+			builder.append('\n').append(headerName).append(':');
+			for (Enumeration<String> values = request.getHeaders(headerName);
+					values != null && values.hasMoreElements();) {
+				builder.append(values.nextElement()).append(',');
+			}
+		}
+		return builder.toString();
+	}
+
+	private void serve(CachedResponse cachedResponse, HttpServletResponse response, long now) throws IOException {
+		if (logger.isTraceEnabled()) {
+			logger.trace("Serving cached response with status code [" + cachedResponse.status + "]");
+		}
+		response.setStatus(cachedResponse.status);
+		for (Map.Entry<String, List<String>> entry : cachedResponse.headers.entrySet()) {
+			for (String value : entry.getValue()) {
+				response.addHeader(entry.getKey(), value);
+			}
+		}
+		if (cachedResponse.contentType != null) {
+			response.setContentType(cachedResponse.contentType);
+		}
+		response.setHeader(HEADER_AGE, Long.toString(Math.max(0, (now - cachedResponse.created) / 1000)));
+		response.setContentLength(cachedResponse.body.length);
+		response.getOutputStream().write(cachedResponse.body);
+	}
+
+	/**
+	 * Generate the response through the rest of the filter chain, storing it if cacheable.
+	 * @param key the cache key of the requested resource, not taking {@code Vary} into account
+	 * @param markPass whether to store a {@link PassMarker} if the response is not cacheable
+	 */
+	private void generate(String key, HttpServletRequest request, HttpServletResponse response,
+			FilterChain filterChain, boolean markPass) throws ServletException, IOException {
+
+		ResponseCacheResponseWrapper responseWrapper = new ResponseCacheResponseWrapper(response, this.maxBodySize);
+		filterChain.doFilter(request, responseWrapper);
+
+		if (isAsyncStarted(request)) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Asynchronous request processing started - response not cached");
+			}
+			responseWrapper.switchToStreaming();
+		}
+		else {
+			boolean stored = false;
+			if (!responseWrapper.isStreaming() && request.getAttribute(DISABLED_ATTRIBUTE) == null) {
+				stored = store(key, request, responseWrapper);
+			}
+			else if (logger.isTraceEnabled()) {
+				logger.trace("Response streamed through or caching disabled - response not cached");
+			}
+			responseWrapper.copyContentToResponse();
+			if (stored) {
+				return;
+			}
+		}
+		if (markPass) {
+			markPass(key, request, responseWrapper.getCapturedHeaders());
+		}
+	}
+
+	/**
+	 * Store a {@link PassMarker} for a response that is not cacheable: under the
+	 * variant key if the response varies, so that the other variants of the
+	 * resource remain cacheable, or under the given key otherwise.
+	 */
+	private void markPass(String key, HttpServletRequest request, HttpHeaders headers) {
+		PassMarker passMarker = new PassMarker(System.currentTimeMillis() + this.hitForPassTime * 1000L);
+		String[] varyHeaderNames = getVaryHeaderNames(headers);
+		if (varyHeaderNames.length > 0 && !ObjectUtils.containsElement(varyHeaderNames, "*")) {
+			put(key, new VaryMarker(varyHeaderNames));
+			put(getVariantKey(key, varyHeaderNames, request), passMarker);
+		}
+		else {
+			put(key, passMarker);
+		}
+	}
+
+	private boolean store(String key, HttpServletRequest request, ResponseCacheResponseWrapper responseWrapper) {
+		HttpHeaders headers = responseWrapper.getCapturedHeaders();
+		if (responseWrapper.getStatusCode() != HttpServletResponse.SC_OK || headers.containsKey(HEADER_SET_COOKIE)) {
+			return false;
+		}
+		String cacheControl = StringUtils.collectionToCommaDelimitedString(headers.get(HEADER_CACHE_CONTROL));
+		if (hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "no-cache") ||
+				hasDirective(cacheControl, "private")) {
+			return false;
+		}
+		int timeToLive = getSecondsDirective(cacheControl, "s-maxage");
+		if (timeToLive < 0) {
+			timeToLive = getSecondsDirective(cacheControl, "max-age");
+		}
+		if (timeToLive < 0) {
+			timeToLive = this.defaultTimeToLive;
+		}
+		if (timeToLive <= 0) {
+			return false;
+		}
+		int staleTime = getSecondsDirective(cacheControl, "stale-while-revalidate");
+		if (staleTime < 0) {
+			staleTime = this.staleWhileRevalidate;
+		}
+
+		String[] varyHeaderNames = getVaryHeaderNames(headers);
+		if (ObjectUtils.containsElement(varyHeaderNames, "*")) {
+			return false;
+		}
+
+		HttpHeaders headersToCache = new HttpHeaders();
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			if (!NON_CACHEABLE_HEADERS.contains(entry.getKey().toLowerCase())) {
+				headersToCache.put(entry.getKey(), entry.getValue());
+			}
+		}
+		String contentType = responseWrapper.getContentType();
+		if (contentType == null) {
+			contentType = headers.getFirst(HEADER_CONTENT_TYPE);
+		}
+		CachedResponse cachedResponse = new CachedResponse(responseWrapper.getStatusCode(), headersToCache,
+				contentType, responseWrapper.toByteArray(), System.currentTimeMillis(), timeToLive, staleTime);
+		if (varyHeaderNames.length > 0) {
+			put(key, new VaryMarker(varyHeaderNames));
+			put(getVariantKey(key, varyHeaderNames, request), cachedResponse);
+		}
+		else {
+			put(key, cachedResponse);
+		}
+		return true;
+	}
+
+	private static String[] getVaryHeaderNames(HttpHeaders headers) {
+		String[] headerNames = StringUtils.tokenizeToStringArray(
+				StringUtils.collectionToCommaDelimitedString(headers.get(HEADER_VARY)), ",");
+		for (int i = 0; i < headerNames.length; i++) {
+			headerNames[i] = headerNames[i].toLowerCase();
+		}
+		return headerNames;
+	}
+
+	private static boolean hasDirective(String cacheControl, String directive) {
+		return (findDirective(cacheControl, directive) != null);
+	}
+
+	private static int getSecondsDirective(String cacheControl, String directive) {
+		String value = findDirective(cacheControl, directive);
+		if (value != null && value.startsWith("=")) {
+			try {
+				return Integer.parseInt(StringUtils.deleteAny(value.substring(1), "\" \t"));
+			}
+			catch (NumberFormatException ex) {
+				// ignore malformed directive
+			}
+		}
+		return -1;
+	}
+
+	private static String findDirective(String cacheControl, String directive) {
+		if (!StringUtils.hasText(cacheControl)) {
+			return null;
+		}
+		for (String token : StringUtils.tokenizeToStringArray(cacheControl, ",")) {
+			if (token.regionMatches(true, 0, directive, 0, directive.length())) {
+				String rest = token.substring(directive.length()).trim();
+				if (rest.isEmpty() || rest.startsWith("=")) {
+					return rest;
+				}
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * Cached response: status, headers, content type and body, along with
+	 * its freshness lifetime.
+	 */
+	@SuppressWarnings("serial")
+	private static class CachedResponse implements Serializable {
+
+		private final int status;
+
+		private final HttpHeaders headers;
+
+		private final String contentType;
+
+		private final byte[] body;
+
+		private final long created;
+
+		private final long freshUntil;
+
+		private final long staleUntil;
+
+		public CachedResponse(int status, HttpHeaders headers, String contentType, byte[] body,
+				long created, int timeToLive, int staleTime) {
+
+			this.status = status;
+			this.headers = headers;
+			this.contentType = contentType;
+			this.body = body;
+			this.created = created;
+			this.freshUntil = created + timeToLive * 1000L;
+			this.staleUntil = this.freshUntil + Math.max(staleTime, 0) * 1000L;
+		}
+
+		public boolean isFresh(long now) {
+			return (now < this.freshUntil);
+		}
+
+		public boolean isUsableWhenStale(long now) {
+			return (now < this.staleUntil);
+		}
+	}
+
+
+	/**
+	 * Stored under the primary cache key of a response that varies by request
+	 * headers, listing the (lower-case) names of those headers.
+	 */
+	@SuppressWarnings("serial")
+	private static class VaryMarker implements Serializable {
+
+		private final String[] headerNames;
+
+		public VaryMarker(String[] headerNames) {
+			this.headerNames = headerNames;
+		}
+	}
+
+
+	/**
+	 * Stored under the cache key of a resource whose regenerated response was
+	 * not cacheable, so that requests for it are not coalesced for a while.
+	 */
+	@SuppressWarnings("serial")
+	private static class PassMarker implements Serializable {
+
+		private final long activeUntil;
+
+		public PassMarker(long activeUntil) {
+			this.activeUntil = activeUntil;
+		}
+
+		public boolean isActive(long now) {
+			return (now < this.activeUntil);
+		}
+	}
+
+
+	/**
+	 * {@link HttpServletResponseWrapper} that captures status, headers and content.
+	 * <p>Headers and status are passed through to the wrapped response as well,
+	 * and content is buffered up to a given size before being streamed through.
+	 */
+	private static class ResponseCacheResponseWrapper extends HttpServletResponseWrapper {
+
+		private final int maxBodySize;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ResizableByteArrayOutputStream content = new ResizableByteArrayOutputStream(1024);
+
+		private final OutputStream contentStream = new ContentOutputStream();
+
+		private final ServletOutputStream outputStream = new ResponseServletOutputStream();
+
+		private PrintWriter writer;
+
+		private int statusCode = HttpServletResponse.SC_OK;
+
+		private boolean streaming;
+
+		public ResponseCacheResponseWrapper(HttpServletResponse response, int maxBodySize) {
+			super(response);
+			this.maxBodySize = maxBodySize;
+		}
+
+		@Override
+		public void setStatus(int sc) {
+			super.setStatus(sc);
+			this.statusCode = sc;
+		}
+
+		@SuppressWarnings("deprecation")
+		@Override
+		public void setStatus(int sc, String sm) {
+			super.setStatus(sc, sm);
+			this.statusCode = sc;
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			super.sendError(sc);
+			this.statusCode = sc;
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			super.sendError(sc, msg);
+			this.statusCode = sc;
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			super.sendRedirect(location);
+			this.statusCode = HttpServletResponse.SC_MOVED_TEMPORARILY;
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			super.setHeader(name, value);
+			this.headers.set(name, value);
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			super.addHeader(name, value);
+			this.headers.add(name, value);
+		}
+
+		@Override
+		public void setIntHeader(String name, int value) {
+			super.setIntHeader(name, value);
+			this.headers.set(name, Integer.toString(value));
+		}
+
+		@Override
+		public void addIntHeader(String name, int value) {
+			super.addIntHeader(name, value);
+			this.headers.add(name, Integer.toString(value));
+		}
+
+		@Override
+		public void setDateHeader(String name, long date) {
+			super.setDateHeader(name, date);
+			this.headers.setDate(name, date);
+		}
+
+		@Override
+		public void addDateHeader(String name, long date) {
+			super.addDateHeader(name, date);
+			HttpHeaders dateHeader = new HttpHeaders();
+			dateHeader.setDate(name, date);
+			this.headers.add(name, dateHeader.getFirst(name));
+		}
+
+		@Override
+		public void setContentLength(int len) {
+			if (len > this.maxBodySize) {
+				try {
+					switchToStreaming();
+				}
+				catch (IOException ex) {
+					throw new IllegalStateException("Failed to stream response content", ex);
+				}
+			}
+			if (this.streaming) {
+				super.setContentLength(len);
+			}
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() {
+			return this.outputStream;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (this.writer == null) {
+				this.writer = new ResponsePrintWriter(getCharacterEncoding());
+			}
+			return this.writer;
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			switchToStreaming();
+			super.flushBuffer();
+		}
+
+		@Override
+		public void reset() {
+			super.reset();
+			this.headers.clear();
+			this.statusCode = HttpServletResponse.SC_OK;
+			this.content.reset();
+		}
+
+		@Override
+		public void resetBuffer() {
+			super.resetBuffer();
+			this.content.reset();
+		}
+
+		public int getStatusCode() {
+			return this.statusCode;
+		}
+
+		public HttpHeaders getCapturedHeaders() {
+			return this.headers;
+		}
+
+		public byte[] toByteArray() {
+			return this.content.toByteArray();
+		}
+
+		public boolean isStreaming() {
+			return this.streaming;
+		}
+
+		/**
+		 * Write the content buffered so far to the wrapped response and write
+		 * any further content through directly, excluding the response from caching.
+		 */
+		public void switchToStreaming() throws IOException {
+			if (!this.streaming) {
+				this.streaming = true;
+				if (this.content.size() > 0) {
+					this.content.writeTo(getResponse().getOutputStream());
+				}
+				this.content.reset();
+			}
+		}
+
+		/**
+		 * Write the buffered content to the wrapped response.
+		 */
+		public void copyContentToResponse() throws IOException {
+			if (this.streaming) {
+				getResponse().flushBuffer();
+			}
+			else if (this.content.size() > 0) {
+				getResponse().setContentLength(this.content.size());
+				this.content.writeTo(getResponse().getOutputStream());
+			}
+		}
+
+		private void checkStreaming(int additionalBytes) throws IOException {
+			if (!this.streaming && this.content.size() + additionalBytes > this.maxBodySize) {
+				switchToStreaming();
+			}
+		}
+
+
+		private class ContentOutputStream extends OutputStream {
+
+			@Override
+			public void write(int b) throws IOException {
+				checkStreaming(1);
+				if (!streaming) {
+					content.write(b);
+				}
+				else {
+					getResponse().getOutputStream().write(b);
+				}
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				checkStreaming(len);
+				if (!streaming) {
+					content.write(b, off, len);
+				}
+				else {
+					getResponse().getOutputStream().write(b, off, len);
+				}
+			}
+		}
+
+
+		private class ResponseServletOutputStream extends ServletOutputStream {
+
+			@Override
+			public void write(int b) throws IOException {
+				contentStream.write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				contentStream.write(b, off, len);
+			}
+		}
+
+
+		private class ResponsePrintWriter extends PrintWriter {
+
+			public ResponsePrintWriter(String characterEncoding) throws UnsupportedEncodingException {
+				super(new OutputStreamWriter(contentStream, characterEncoding));
+			}
+
+			@Override
+			public void write(char buf[], int off, int len) {
+				super.write(buf, off, len);
+				super.flush();
+			}
+
+			@Override
+			public void write(String s, int off, int len) {
+				super.write(s, off, len);
+				super.flush();
+			}
+
+			@Override
+			public void write(int c) {
+				super.write(c);
+				super.flush();
+			}
+		}
+	}
+
+}
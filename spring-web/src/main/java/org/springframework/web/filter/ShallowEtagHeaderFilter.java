@@ -17,12 +17,18 @@
 package org.springframework.web.filter;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
@@ -44,6 +50,18 @@ import org.springframework.web.util.WebUtils;
  * (e.g. a {@link org.springframework.web.servlet.View}) is still rendered.
  * As such, this filter only saves bandwidth, not server performance.
  *
+ * <p>By default, the entire response content is buffered for computing the ETag.
+ * Setting a {@link #setStreamingThreshold streaming threshold} switches to a mode
+ * suitable for large responses: the MD5 digest is computed incrementally while the
+ * content is written, at most the given number of bytes is buffered (in buffers that
+ * are reused across requests), and larger responses as well as asynchronously
+ * processed responses are streamed through to the client without an ETag.
+ *
+ * <p>In either mode, responses that are explicitly flushed via
+ * {@link HttpServletResponse#flushBuffer()}, or for which
+ * {@link #disableContentCaching(ServletRequest)} has been called, are streamed
+ * through without an ETag.
+ *
  * @author Arjen Poutsma
  * @author Rossen Stoyanchev
  * @since 3.0
@@ -58,6 +76,45 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 	private static final String DIRECTIVE_NO_STORE = "no-store";
 
+	private static final String STREAMING_ATTRIBUTE = ShallowEtagHeaderFilter.class.getName() + ".STREAMING";
+
+	private static final int BUFFER_POOL_SIZE = 32;
+
+
+	private int streamingThreshold = -1;
+
+	private final BlockingQueue<ResizableByteArrayOutputStream> bufferPool =
+			new ArrayBlockingQueue<ResizableByteArrayOutputStream>(BUFFER_POOL_SIZE);
+
+
+	/**
+	 * Set the maximum number of response bytes to buffer for computing the ETag.
+	 * <p>Once the content of a response exceeds this threshold (or its declared
+	 * content length does), the buffered content is written to the response and the
+	 * remainder is streamed through, without generating an ETag. In this mode, the
+	 * MD5 digest is computed incrementally, buffers are reused across requests,
+	 * and asynchronously processed responses are streamed through as well.
+	 * <p>Default is "-1", buffering the entire response content.
+	 * @since 4.1
+	 * @see #generateETagHeaderValueFromDigest(byte[])
+	 */
+	public void setStreamingThreshold(int streamingThreshold) {
+		this.streamingThreshold = streamingThreshold;
+	}
+
+	/**
+	 * Return the maximum number of response bytes to buffer for computing the ETag,
+	 * or "-1" if the entire response content is buffered.
+	 * @since 4.1
+	 */
+	public int getStreamingThreshold() {
+		return this.streamingThreshold;
+	}
+
+	private boolean isStreamingMode() {
+		return (this.streamingThreshold >= 0);
+	}
+
 
 	/**
 	 * The default value is "false" so that the filter may delay the generation of
@@ -73,7 +130,9 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 			throws ServletException, IOException {
 
 		if (!isAsyncDispatch(request)) {
-			response = new ShallowEtagResponseWrapper(response);
+			response = (isStreamingMode() ?
+					new ShallowEtagResponseWrapper(response, request, obtainBuffer(), this.streamingThreshold) :
+					new ShallowEtagResponseWrapper(response, request));
 		}
 
 		filterChain.doFilter(request, response);
@@ -81,6 +140,16 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		if (!isAsyncStarted(request)) {
 			updateResponse(request, response);
 		}
+		else if (isStreamingMode()) {
+			ShallowEtagResponseWrapper responseWrapper =
+					WebUtils.getNativeResponse(response, ShallowEtagResponseWrapper.class);
+			if (responseWrapper != null) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Asynchronous request processing started - streaming response without ETag");
+				}
+				responseWrapper.switchToStreaming();
+			}
+		}
 	}
 
 	private void updateResponse(HttpServletRequest request, HttpServletResponse response) throws IOException {
@@ -88,34 +157,77 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 				WebUtils.getNativeResponse(response, ShallowEtagResponseWrapper.class);
 		Assert.notNull(responseWrapper, "ShallowEtagResponseWrapper not found");
 
+		if (responseWrapper.isStreaming()) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Response streamed through - no ETag generated");
+			}
+			responseWrapper.getResponse().flushBuffer();
+			releaseBuffer(responseWrapper.getContent());
+			return;
+		}
+
 		response = (HttpServletResponse) responseWrapper.getResponse();
-		byte[] body = responseWrapper.toByteArray();
 		int statusCode = responseWrapper.getStatusCode();
 
-		if (isEligibleForEtag(request, responseWrapper, statusCode, body)) {
-			String responseETag = generateETagHeaderValue(body);
-			response.setHeader(HEADER_ETAG, responseETag);
-
-			String requestETag = request.getHeader(HEADER_IF_NONE_MATCH);
-			if (responseETag.equals(requestETag)) {
-				if (logger.isTraceEnabled()) {
-					logger.trace("ETag [" + responseETag + "] equal to If-None-Match, sending 304");
+		if (isStreamingMode()) {
+			ResizableByteArrayOutputStream content = responseWrapper.getContent();
+			try {
+				if (isEligibleForEtag(request, responseWrapper, statusCode, null)) {
+					String responseETag = generateETagHeaderValueFromDigest(responseWrapper.getDigest());
+					if (checkETag(request, response, responseETag)) {
+						return;
+					}
 				}
-				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-			}
-			else {
-				if (logger.isTraceEnabled()) {
-					logger.trace("ETag [" + responseETag + "] not equal to If-None-Match [" + requestETag +
-							"], sending normal response");
+				else if (logger.isTraceEnabled()) {
+					logger.trace("Response with status code [" + statusCode + "] not eligible for ETag");
+				}
+				if (content.size() > 0) {
+					response.setContentLength(content.size());
+					content.writeTo(response.getOutputStream());
 				}
-				copyBodyToResponse(body, response);
+			}
+			finally {
+				releaseBuffer(content);
+			}
+			return;
+		}
+
+		byte[] body = responseWrapper.toByteArray();
+		if (isEligibleForEtag(request, responseWrapper, statusCode, body)) {
+			String responseETag = generateETagHeaderValue(body);
+			if (checkETag(request, response, responseETag)) {
+				return;
 			}
 		}
 		else {
 			if (logger.isTraceEnabled()) {
 				logger.trace("Response with status code [" + statusCode + "] not eligible for ETag");
 			}
-			copyBodyToResponse(body, response);
+		}
+		copyBodyToResponse(body, response);
+	}
+
+	/**
+	 * Set the given ETag on the response and check it against the request's
+	 * {@code If-None-Match} header, setting the 304 status on a match.
+	 * @return {@code true} if the content has not been modified
+	 */
+	private boolean checkETag(HttpServletRequest request, HttpServletResponse response, String responseETag) {
+		response.setHeader(HEADER_ETAG, responseETag);
+		String requestETag = request.getHeader(HEADER_IF_NONE_MATCH);
+		if (responseETag.equals(requestETag)) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("ETag [" + responseETag + "] equal to If-None-Match, sending 304");
+			}
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return true;
+		}
+		else {
+			if (logger.isTraceEnabled()) {
+				logger.trace("ETag [" + responseETag + "] not equal to If-None-Match [" + requestETag +
+						"], sending normal response");
+			}
+			return false;
 		}
 	}
 
@@ -126,6 +238,18 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		}
 	}
 
+	private ResizableByteArrayOutputStream obtainBuffer() {
+		ResizableByteArrayOutputStream buffer = this.bufferPool.poll();
+		return (buffer != null ? buffer : new ResizableByteArrayOutputStream(1024));
+	}
+
+	private void releaseBuffer(ResizableByteArrayOutputStream buffer) {
+		if (buffer != null && isStreamingMode() && buffer.capacity() <= Math.max(2L * this.streamingThreshold, 1024)) {
+			buffer.reset();
+			this.bufferPool.offer(buffer);
+		}
+	}
+
 	/**
 	 * Indicates whether the given request and response are eligible for ETag generation.
 	 * <p>The default implementation returns {@code true} if all conditions match:
@@ -137,7 +261,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 	 * @param request the HTTP request
 	 * @param response the HTTP response
 	 * @param responseStatusCode the HTTP response status code
-	 * @param responseBody the response body
+	 * @param responseBody the response body, or {@code null} in
+	 * {@link #setStreamingThreshold streaming mode}
 	 * @return {@code true} if eligible for ETag generation; {@code false} otherwise
 	 */
 	protected boolean isEligibleForEtag(HttpServletRequest request, HttpServletResponse response,
@@ -167,15 +292,60 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		return builder.toString();
 	}
 
+	/**
+	 * Generate the ETag header value from the given MD5 digest of the response body,
+	 * as computed incrementally in {@link #setStreamingThreshold streaming mode}.
+	 * <p>The default implementation returns the same value as
+	 * {@link #generateETagHeaderValue(byte[])} does for the full body.
+	 * @param md5Digest the MD5 digest of the response body
+	 * @return the ETag header value
+	 * @since 4.1
+	 */
+	protected String generateETagHeaderValueFromDigest(byte[] md5Digest) {
+		StringBuilder builder = new StringBuilder(35);
+		builder.append("\"0");
+		for (byte b : md5Digest) {
+			builder.append(Character.forDigit((b >>> 4) & 0xf, 16));
+			builder.append(Character.forDigit(b & 0xf, 16));
+		}
+		builder.append('"');
+		return builder.toString();
+	}
+
+	/**
+	 * This method can be used to disable the content caching response wrapper
+	 * of the ShallowEtagHeaderFilter, for example before writing a streamed
+	 * response body. The response content is then written through directly,
+	 * without an ETag being generated.
+	 * @param request the current request
+	 * @since 4.1
+	 */
+	public static void disableContentCaching(ServletRequest request) {
+		Assert.notNull(request, "ServletRequest must not be null");
+		request.setAttribute(STREAMING_ATTRIBUTE, true);
+	}
+
 
 	/**
 	 * {@link HttpServletRequest} wrapper that buffers all content written to the
 	 * {@linkplain #getOutputStream() output stream} and {@linkplain #getWriter() writer},
 	 * and allows this content to be retrieved via a {@link #toByteArray() byte array}.
+	 * <p>Content may also be streamed through to the wrapped response instead,
+	 * either on demand or, if a threshold is given, once the buffered content
+	 * would exceed that threshold; in the latter case an MD5 digest is
+	 * maintained while buffering.
 	 */
 	private static class ShallowEtagResponseWrapper extends HttpServletResponseWrapper {
 
-		private final ResizableByteArrayOutputStream content = new ResizableByteArrayOutputStream(1024);
+		private final HttpServletRequest request;
+
+		private final ResizableByteArrayOutputStream content;
+
+		private final int threshold;
+
+		private final MessageDigest digest;
+
+		private final OutputStream contentStream = new ContentOutputStream();
 
 		private final ServletOutputStream outputStream = new ResponseServletOutputStream();
 
@@ -183,8 +353,29 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		private int statusCode = HttpServletResponse.SC_OK;
 
-		public ShallowEtagResponseWrapper(HttpServletResponse response) {
+		private boolean streaming;
+
+		public ShallowEtagResponseWrapper(HttpServletResponse response, HttpServletRequest request) {
 			super(response);
+			this.request = request;
+			this.content = new ResizableByteArrayOutputStream(1024);
+			this.threshold = -1;
+			this.digest = null;
+		}
+
+		public ShallowEtagResponseWrapper(HttpServletResponse response, HttpServletRequest request,
+				ResizableByteArrayOutputStream content, int threshold) {
+
+			super(response);
+			this.request = request;
+			this.content = content;
+			this.threshold = threshold;
+			try {
+				this.digest = MessageDigest.getInstance("MD5");
+			}
+			catch (NoSuchAlgorithmException ex) {
+				throw new IllegalStateException("Could not find MD5 MessageDigest", ex);
+			}
 		}
 
 		@Override
@@ -214,7 +405,26 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		@Override
 		public void setContentLength(int len) {
-			this.content.resize(len);
+			if (this.streaming) {
+				super.setContentLength(len);
+			}
+			else if (this.threshold >= 0) {
+				if (len > this.threshold) {
+					try {
+						switchToStreaming();
+					}
+					catch (IOException ex) {
+						throw new IllegalStateException("Failed to stream response content", ex);
+					}
+					super.setContentLength(len);
+				}
+				else if (len > this.content.size()) {
+					this.content.grow(len - this.content.size());
+				}
+			}
+			else {
+				this.content.resize(len);
+			}
 		}
 
 		@Override
@@ -232,6 +442,14 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 			return this.writer;
 		}
 
+		@Override
+		public void flushBuffer() throws IOException {
+			if (!this.streaming) {
+				switchToStreaming();
+			}
+			super.flushBuffer();
+		}
+
 		@Override
 		public void reset() {
 			super.reset();
@@ -240,7 +458,15 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		@Override
 		public void resetBuffer() {
-			this.content.reset();
+			if (this.streaming) {
+				super.resetBuffer();
+			}
+			else {
+				this.content.reset();
+				if (this.digest != null) {
+					this.digest.reset();
+				}
+			}
 		}
 
 		public int getStatusCode() {
@@ -251,17 +477,85 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 			return this.content.toByteArray();
 		}
 
+		public ResizableByteArrayOutputStream getContent() {
+			return this.content;
+		}
+
+		public byte[] getDigest() {
+			return this.digest.digest();
+		}
+
+		public boolean isStreaming() {
+			return this.streaming;
+		}
+
+		/**
+		 * Write the content buffered so far to the wrapped response and write
+		 * any further content through directly.
+		 */
+		public void switchToStreaming() throws IOException {
+			if (!this.streaming) {
+				this.streaming = true;
+				if (this.content.size() > 0) {
+					this.content.writeTo(getResponse().getOutputStream());
+				}
+				this.content.reset();
+			}
+		}
+
+		private void checkStreaming(int additionalBytes) throws IOException {
+			if (this.streaming) {
+				return;
+			}
+			if ((this.threshold >= 0 && this.content.size() + additionalBytes > this.threshold) ||
+					this.request.getAttribute(STREAMING_ATTRIBUTE) != null) {
+				switchToStreaming();
+			}
+		}
+
+
+		private class ContentOutputStream extends OutputStream {
+
+			@Override
+			public void write(int b) throws IOException {
+				checkStreaming(1);
+				if (streaming) {
+					getResponse().getOutputStream().write(b);
+				}
+				else {
+					content.write(b);
+					if (digest != null) {
+						digest.update((byte) b);
+					}
+				}
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				checkStreaming(len);
+				if (streaming) {
+					getResponse().getOutputStream().write(b, off, len);
+				}
+				else {
+					content.write(b, off, len);
+					if (digest != null) {
+						digest.update(b, off, len);
+					}
+				}
+			}
+		}
+
 
 		private class ResponseServletOutputStream extends ServletOutputStream {
 
 			@Override
 			public void write(int b) throws IOException {
-				content.write(b);
+				contentStream.write(b);
 			}
 
 			@Override
 			public void write(byte[] b, int off, int len) throws IOException {
-				content.write(b, off, len);
+				contentStream.write(b, off, len);
 			}
 		}
 
@@ -269,7 +563,7 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		private class ResponsePrintWriter extends PrintWriter {
 
 			public ResponsePrintWriter(String characterEncoding) throws UnsupportedEncodingException {
-				super(new OutputStreamWriter(content, characterEncoding));
+				super(new OutputStreamWriter(contentStream, characterEncoding));
 			}
 
 			@Override
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.multipart;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * A file part of a multipart request that is read directly from the request
+ * input stream, as exposed by a {@link StreamingMultipartHttpServletRequest}.
+ *
+ * <p>In contrast to a {@link MultipartFile}, the content is neither held in memory
+ * nor stored in a temporary file: it can only be read once, and only until the
+ * iteration proceeds to the next part of the request.
+ *
+ * @since 4.1
+ * @see StreamingMultipartHttpServletRequest#getFileIterator()
+ */
+public interface StreamingMultipartFile {
+
+	/**
+	 * Return the name of the parameter in the multipart form.
+	 * @return the name of the parameter (never {@code null} or empty)
+	 */
+	String getName();
+
+	/**
+	 * Return the original filename in the client's filesystem.
+	 * @return the original filename, or the empty String if no file
+	 * has been chosen in the multipart form, or {@code null}
+	 * if not defined or not available
+	 */
+	String getOriginalFilename();
+
+	/**
+	 * Return the content type of the file.
+	 * @return the content type, or {@code null} if not defined
+	 */
+	String getContentType();
+
+	/**
+	 * Return the headers of this part of the multipart request.
+	 * @return the part headers (never {@code null})
+	 */
+	HttpHeaders getHeaders();
+
+	/**
+	 * Return an InputStream to read the contents of the file from,
+	 * directly from the underlying request.
+	 * <p>The stream is valid until the iteration proceeds to the next part;
+	 * closing it skips any remaining content of this part.
+	 * @return the contents of the file as stream
+	 * @throws IOException in case of access errors
+	 */
+	InputStream getInputStream() throws IOException;
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.multipart;
+
+import java.util.Iterator;
+
+/**
+ * Extension of {@link MultipartHttpServletRequest} for multipart requests that
+ * have not been parsed up front, exposing the file parts as they are read from the
+ * request input stream. This allows for piping large uploads to their destination
+ * without holding them in memory or spooling them to temporary files.
+ *
+ * <p>Form fields are collected as request parameters while iterating, so they are
+ * available through {@link #getParameter} once the iteration has passed them;
+ * typically, form fields preceding a file in the form are therefore available
+ * when processing that file. The {@link #getFile}/{@link #getFileMap} accessors
+ * do not expose any files for such a request.
+ *
+ * @since 4.1
+ * @see org.springframework.web.multipart.commons.CommonsMultipartResolver#setResolveStreaming
+ */
+public interface StreamingMultipartHttpServletRequest extends MultipartHttpServletRequest {
+
+	/**
+	 * Return an iterator over the file parts of this request, reading them
+	 * lazily from the request input stream.
+	 * <p>May only be called once per request, since the request content can only
+	 * be read once. Iteration methods throw a {@link MultipartException} if the
+	 * request content cannot be parsed (or a {@link MaxUploadSizeExceededException}
+	 * if the maximum upload size has been exceeded).
+	 * @return an iterator over {@link StreamingMultipartFile} instances
+	 * @throws MultipartException if the multipart content cannot be accessed
+	 * @throws IllegalStateException if the iterator has been obtained before
+	 */
+	Iterator<StreamingMultipartFile> getFileIterator() throws MultipartException;
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,7 @@ import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartException;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
 import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.StreamingMultipartHttpServletRequest;
 import org.springframework.web.multipart.support.DefaultMultipartHttpServletRequest;
 import org.springframework.web.util.WebUtils;
 
@@ -55,6 +56,7 @@ import org.springframework.web.util.WebUtils;
  * @since 29.09.2003
  * @see #CommonsMultipartResolver(ServletContext)
  * @see #setResolveLazily
+ * @see #setResolveStreaming
  * @see org.springframework.web.portlet.multipart.CommonsPortletMultipartResolver
  * @see org.apache.commons.fileupload.servlet.ServletFileUpload
  * @see org.apache.commons.fileupload.disk.DiskFileItemFactory
@@ -64,6 +66,8 @@ public class CommonsMultipartResolver extends CommonsFileUploadSupport
 
 	private boolean resolveLazily = false;
 
+	private boolean resolveStreaming = false;
+
 
 	/**
 	 * Constructor for use as bean. Determines the servlet container's
@@ -100,6 +104,26 @@ public class CommonsMultipartResolver extends CommonsFileUploadSupport
 		this.resolveLazily = resolveLazily;
 	}
 
+	/**
+	 * Set whether to expose multipart requests for streaming access, without
+	 * parsing them up front.
+	 * <p>Default is "false". Switch this to "true" to resolve multipart requests into
+	 * a {@link StreamingMultipartHttpServletRequest}, reading file parts on demand
+	 * from the request input stream via its
+	 * {@link StreamingMultipartHttpServletRequest#getFileIterator() file iterator}:
+	 * neither memory nor temporary files are used for holding file content then,
+	 * which allows for piping large uploads to their destination directly.
+	 * Note that files are not available through the regular
+	 * {@link MultipartHttpServletRequest#getFile} methods in this mode, and that
+	 * form fields only become available as request parameters once the iteration
+	 * has passed them.
+	 * <p>This setting takes precedence over {@link #setResolveLazily "resolveLazily"}.
+	 * @since 4.1
+	 */
+	public void setResolveStreaming(boolean resolveStreaming) {
+		this.resolveStreaming = resolveStreaming;
+	}
+
 	/**
 	 * Initialize the underlying {@code org.apache.commons.fileupload.servlet.ServletFileUpload}
 	 * instance. Can be overridden to use a custom subclass, e.g. for testing purposes.
@@ -127,7 +151,12 @@ public class CommonsMultipartResolver extends CommonsFileUploadSupport
 	@Override
 	public MultipartHttpServletRequest resolveMultipart(final HttpServletRequest request) throws MultipartException {
 		Assert.notNull(request, "Request must not be null");
-		if (this.resolveLazily) {
+		if (this.resolveStreaming) {
+			String encoding = determineEncoding(request);
+			ServletFileUpload fileUpload = (ServletFileUpload) prepareFileUpload(encoding);
+			return new CommonsStreamingMultipartHttpServletRequest(request, fileUpload, encoding);
+		}
+		else if (this.resolveLazily) {
 			return new DefaultMultipartHttpServletRequest(request) {
 				@Override
 				protected void initializeMultipart() {
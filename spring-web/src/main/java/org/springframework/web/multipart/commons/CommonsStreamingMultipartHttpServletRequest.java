@@ -0,0 +1,261 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.multipart.commons;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.fileupload.FileItemHeaders;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.StreamingMultipartFile;
+import org.springframework.web.multipart.StreamingMultipartHttpServletRequest;
+import org.springframework.web.multipart.support.DefaultMultipartHttpServletRequest;
+
+/**
+ * {@link StreamingMultipartHttpServletRequest} implementation on top of the
+ * Commons FileUpload streaming API.
+ *
+ * <p>Created by {@link CommonsMultipartResolver} in "resolveStreaming" mode.
+ *
+ * @since 4.1
+ * @see ServletFileUpload#getItemIterator
+ */
+class CommonsStreamingMultipartHttpServletRequest extends DefaultMultipartHttpServletRequest
+		implements StreamingMultipartHttpServletRequest {
+
+	private static final Log logger = LogFactory.getLog(CommonsStreamingMultipartHttpServletRequest.class);
+
+	private final ServletFileUpload fileUpload;
+
+	private final String encoding;
+
+	private final Map<String, String[]> multipartParameters;
+
+	private final Map<String, String> multipartParameterContentTypes;
+
+	private boolean iteratorObtained;
+
+
+	public CommonsStreamingMultipartHttpServletRequest(HttpServletRequest request,
+			ServletFileUpload fileUpload, String encoding) {
+
+		this(request, fileUpload, encoding, new HashMap<String, String[]>(), new HashMap<String, String>());
+	}
+
+	private CommonsStreamingMultipartHttpServletRequest(HttpServletRequest request, ServletFileUpload fileUpload,
+			String encoding, Map<String, String[]> mpParams, Map<String, String> mpParamContentTypes) {
+
+		super(request, new LinkedMultiValueMap<String, MultipartFile>(), mpParams, mpParamContentTypes);
+		this.fileUpload = fileUpload;
+		this.encoding = encoding;
+		this.multipartParameters = mpParams;
+		this.multipartParameterContentTypes = mpParamContentTypes;
+	}
+
+
+	@Override
+	public Iterator<StreamingMultipartFile> getFileIterator() throws MultipartException {
+		Assert.state(!this.iteratorObtained, "File iterator already obtained: multipart content can only be read once");
+		this.iteratorObtained = true;
+		try {
+			return new FileIterator(this.fileUpload.getItemIterator(getRequest()));
+		}
+		catch (Exception ex) {
+			throw translateException(ex);
+		}
+	}
+
+	private void addFormField(FileItemStream item) throws IOException {
+		String value;
+		String partEncoding = determineEncoding(item.getContentType());
+		byte[] content = StreamUtils.copyToByteArray(item.openStream());
+		if (partEncoding != null) {
+			try {
+				value = new String(content, partEncoding);
+			}
+			catch (UnsupportedEncodingException ex) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("Could not decode multipart item '" + item.getFieldName() +
+							"' with encoding '" + partEncoding + "': using platform default");
+				}
+				value = new String(content);
+			}
+		}
+		else {
+			value = new String(content);
+		}
+		String[] curParam = this.multipartParameters.get(item.getFieldName());
+		if (curParam == null) {
+			this.multipartParameters.put(item.getFieldName(), new String[] {value});
+		}
+		else {
+			this.multipartParameters.put(item.getFieldName(), StringUtils.addStringToArray(curParam, value));
+		}
+		this.multipartParameterContentTypes.put(item.getFieldName(), item.getContentType());
+	}
+
+	private String determineEncoding(String contentTypeHeader) {
+		if (!StringUtils.hasText(contentTypeHeader)) {
+			return this.encoding;
+		}
+		Charset charset = MediaType.parseMediaType(contentTypeHeader).getCharSet();
+		return (charset != null ? charset.name() : this.encoding);
+	}
+
+	private MultipartException translateException(Exception ex) {
+		if (ex instanceof FileUploadBase.SizeLimitExceededException) {
+			return new MaxUploadSizeExceededException(this.fileUpload.getSizeMax(), ex);
+		}
+		if (ex instanceof FileUploadBase.FileUploadIOException &&
+				ex.getCause() instanceof FileUploadBase.SizeLimitExceededException) {
+			return new MaxUploadSizeExceededException(this.fileUpload.getSizeMax(), ex.getCause());
+		}
+		return new MultipartException("Could not parse multipart servlet request", ex);
+	}
+
+
+	/**
+	 * Iterator over the file parts of the request, collecting form fields
+	 * as request parameters on the way.
+	 */
+	private class FileIterator implements Iterator<StreamingMultipartFile> {
+
+		private final FileItemIterator itemIterator;
+
+		private StreamingMultipartFile nextFile;
+
+		public FileIterator(FileItemIterator itemIterator) {
+			this.itemIterator = itemIterator;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (this.nextFile != null) {
+				return true;
+			}
+			try {
+				while (this.itemIterator.hasNext()) {
+					FileItemStream item = this.itemIterator.next();
+					if (item.isFormField()) {
+						addFormField(item);
+					}
+					else {
+						this.nextFile = new CommonsStreamingMultipartFile(item);
+						return true;
+					}
+				}
+				return false;
+			}
+			catch (Exception ex) {
+				throw translateException(ex);
+			}
+		}
+
+		@Override
+		public StreamingMultipartFile next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			StreamingMultipartFile file = this.nextFile;
+			this.nextFile = null;
+			return file;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("remove");
+		}
+	}
+
+
+	/**
+	 * {@link StreamingMultipartFile} adapter for a Commons {@link FileItemStream}.
+	 */
+	private static class CommonsStreamingMultipartFile implements StreamingMultipartFile {
+
+		private final FileItemStream item;
+
+		private HttpHeaders headers;
+
+		public CommonsStreamingMultipartFile(FileItemStream item) {
+			this.item = item;
+		}
+
+		@Override
+		public String getName() {
+			return this.item.getFieldName();
+		}
+
+		@Override
+		public String getOriginalFilename() {
+			return this.item.getName();
+		}
+
+		@Override
+		public String getContentType() {
+			return this.item.getContentType();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			if (this.headers == null) {
+				HttpHeaders headers = new HttpHeaders();
+				FileItemHeaders itemHeaders = this.item.getHeaders();
+				if (itemHeaders != null) {
+					Iterator<String> headerNames = itemHeaders.getHeaderNames();
+					while (headerNames.hasNext()) {
+						String headerName = headerNames.next();
+						Iterator<String> headerValues = itemHeaders.getHeaders(headerName);
+						while (headerValues.hasNext()) {
+							headers.add(headerName, headerValues.next());
+						}
+					}
+				}
+				this.headers = headers;
+			}
+			return this.headers;
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return this.item.openStream();
+		}
+	}
+
+}
@@ -340,6 +340,9 @@ public abstract class UriUtils {
 	public static String decode(String source, String encoding) throws UnsupportedEncodingException {
 		Assert.notNull(source, "Source must not be null");
 		Assert.hasLength(encoding, "Encoding must not be empty");
+		if (source.indexOf('%') == -1) {
+			return source;
+		}
 		int length = source.length();
 		ByteArrayOutputStream bos = new ByteArrayOutputStream(length);
 		boolean changed = false;
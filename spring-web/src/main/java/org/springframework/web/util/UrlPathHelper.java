@@ -29,6 +29,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -54,6 +55,11 @@ public class UrlPathHelper {
 	 */
 	private static final String WEBSPHERE_URI_ATTRIBUTE = "com.ibm.websphere.servlet.uri_non_decoded";
 
+	/**
+	 * Name of the request attribute that holds the most recently computed lookup path.
+	 */
+	private static final String LOOKUP_PATH_ATTRIBUTE = UrlPathHelper.class.getName() + ".LOOKUP_PATH";
+
 	private static final Log logger = LogFactory.getLog(UrlPathHelper.class);
 
 	static volatile Boolean websphereComplianceFlag;
@@ -140,23 +146,61 @@ public class UrlPathHelper {
 	 * Return the mapping lookup path for the given request, within the current
 	 * servlet mapping if applicable, else within the web application.
 	 * <p>Detects include request URL if called within a RequestDispatcher include.
+	 * <p>The computed path is cached as a request attribute, along with the raw
+	 * request paths and settings it was derived from, so that repeated lookups
+	 * for the same request (e.g. from several handler mappings) do not need to
+	 * decode and match the request URI again.
 	 * @param request current HTTP request
 	 * @return the lookup path
 	 * @see #getPathWithinApplication
 	 * @see #getPathWithinServletMapping
 	 */
 	public String getLookupPathForRequest(HttpServletRequest request) {
+		if (getClass() != UrlPathHelper.class) {
+			// Subclasses may customize any step of the computation: no caching.
+			return resolveLookupPath(request);
+		}
+		String requestUri = (String) request.getAttribute(WebUtils.INCLUDE_REQUEST_URI_ATTRIBUTE);
+		if (requestUri == null) {
+			requestUri = request.getRequestURI();
+		}
+		String contextPath = (String) request.getAttribute(WebUtils.INCLUDE_CONTEXT_PATH_ATTRIBUTE);
+		if (contextPath == null) {
+			contextPath = request.getContextPath();
+		}
+		String servletPath = (String) request.getAttribute(WebUtils.INCLUDE_SERVLET_PATH_ATTRIBUTE);
+		if (servletPath == null) {
+			servletPath = request.getServletPath();
+		}
+		String pathInfo = request.getPathInfo();
+		String encoding = request.getCharacterEncoding();
+
+		Object cached = request.getAttribute(LOOKUP_PATH_ATTRIBUTE);
+		if (cached instanceof CachedLookupPath) {
+			CachedLookupPath cachedPath = (CachedLookupPath) cached;
+			if (cachedPath.matches(this, requestUri, contextPath, servletPath, pathInfo, encoding)) {
+				return cachedPath.lookupPath;
+			}
+		}
+		String lookupPath = resolveLookupPath(request);
+		request.setAttribute(LOOKUP_PATH_ATTRIBUTE,
+				new CachedLookupPath(this, requestUri, contextPath, servletPath, pathInfo, encoding, lookupPath));
+		return lookupPath;
+	}
+
+	private String resolveLookupPath(HttpServletRequest request) {
 		// Always use full path within current servlet context?
 		if (this.alwaysUseFullPath) {
 			return getPathWithinApplication(request);
 		}
 		// Else, use path within current servlet mapping if applicable
-		String rest = getPathWithinServletMapping(request);
+		String pathWithinApp = getPathWithinApplication(request);
+		String rest = getPathWithinServletMapping(request, pathWithinApp);
 		if (!"".equals(rest)) {
 			return rest;
 		}
 		else {
-			return getPathWithinApplication(request);
+			return pathWithinApp;
 		}
 	}
 
@@ -172,7 +216,10 @@ public class UrlPathHelper {
 	 * @return the path within the servlet mapping, or ""
 	 */
 	public String getPathWithinServletMapping(HttpServletRequest request) {
-		String pathWithinApp = getPathWithinApplication(request);
+		return getPathWithinServletMapping(request, getPathWithinApplication(request));
+	}
+
+	private String getPathWithinServletMapping(HttpServletRequest request, String pathWithinApp) {
 		String servletPath = getServletPath(request);
 		String path = getRemainingPath(pathWithinApp, servletPath, false);
 		if (path != null) {
@@ -413,6 +460,10 @@ public class UrlPathHelper {
 
 	@SuppressWarnings("deprecation")
 	private String decodeInternal(HttpServletRequest request, String source) {
+		if (source.indexOf('%') == -1) {
+			// Nothing to decode: avoid determining the encoding and copying the string.
+			return source;
+		}
 		String enc = determineEncoding(request);
 		try {
 			return UriUtils.decode(source, enc);
@@ -468,6 +519,9 @@ public class UrlPathHelper {
 	}
 
 	private String removeJsessionid(String requestUri) {
+		if (requestUri.indexOf(';') == -1) {
+			return requestUri;
+		}
 		int startIndex = requestUri.toLowerCase().indexOf(";jsessionid=");
 		if (startIndex != -1) {
 			int endIndex = requestUri.indexOf(';', startIndex + 12);
@@ -557,4 +611,60 @@ public class UrlPathHelper {
 		return !websphereComplianceFlag;
 	}
 
+
+	/**
+	 * Lookup path computed for a request, along with the raw request paths
+	 * and the UrlPathHelper settings it was derived from.
+	 */
+	private static class CachedLookupPath {
+
+		private final boolean alwaysUseFullPath;
+
+		private final boolean urlDecode;
+
+		private final boolean removeSemicolonContent;
+
+		private final String defaultEncoding;
+
+		private final String requestUri;
+
+		private final String contextPath;
+
+		private final String servletPath;
+
+		private final String pathInfo;
+
+		private final String encoding;
+
+		private final String lookupPath;
+
+		public CachedLookupPath(UrlPathHelper helper, String requestUri, String contextPath,
+				String servletPath, String pathInfo, String encoding, String lookupPath) {
+
+			this.alwaysUseFullPath = helper.alwaysUseFullPath;
+			this.urlDecode = helper.urlDecode;
+			this.removeSemicolonContent = helper.removeSemicolonContent;
+			this.defaultEncoding = helper.defaultEncoding;
+			this.requestUri = requestUri;
+			this.contextPath = contextPath;
+			this.servletPath = servletPath;
+			this.pathInfo = pathInfo;
+			this.encoding = encoding;
+			this.lookupPath = lookupPath;
+		}
+
+		public boolean matches(UrlPathHelper helper, String requestUri, String contextPath,
+				String servletPath, String pathInfo, String encoding) {
+
+			return (this.alwaysUseFullPath == helper.alwaysUseFullPath && this.urlDecode == helper.urlDecode &&
+					this.removeSemicolonContent == helper.removeSemicolonContent &&
+					ObjectUtils.nullSafeEquals(this.defaultEncoding, helper.defaultEncoding) &&
+					ObjectUtils.nullSafeEquals(this.requestUri, requestUri) &&
+					ObjectUtils.nullSafeEquals(this.contextPath, contextPath) &&
+					ObjectUtils.nullSafeEquals(this.servletPath, servletPath) &&
+					ObjectUtils.nullSafeEquals(this.pathInfo, pathInfo) &&
+					ObjectUtils.nullSafeEquals(this.encoding, encoding));
+		}
+	}
+
 }
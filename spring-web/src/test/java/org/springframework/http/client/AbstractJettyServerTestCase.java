@@ -66,6 +66,7 @@ public class AbstractJettyServerTestCase {
 		handler.addServlet(new ServletHolder(new PostServlet()), "/methods/post");
 		handler.addServlet(new ServletHolder(new MethodServlet("PUT")), "/methods/put");
 		handler.addServlet(new ServletHolder(new MethodServlet("PATCH")), "/methods/patch");
+		handler.addServlet(new ServletHolder(new ConnectionServlet()), "/connection");
 
 		jettyServer.setHandler(handler);
 		jettyServer.start();
@@ -139,6 +140,21 @@ public class AbstractJettyServerTestCase {
 		}
 	}
 
+	/**
+	 * Servlet that writes the client's remote address and port, identifying
+	 * the connection that the request has been received on.
+	 */
+	@SuppressWarnings("serial")
+	private static class ConnectionServlet extends GenericServlet {
+
+		@Override
+		public void service(ServletRequest req, ServletResponse res) throws ServletException, IOException {
+			byte[] body = (req.getRemoteAddr() + ":" + req.getRemotePort()).getBytes("UTF-8");
+			res.setContentLength(body.length);
+			res.getOutputStream().write(body);
+		}
+	}
+
 	@SuppressWarnings("serial")
 	private static class EchoServlet extends HttpServlet {
 
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import org.springframework.jmx.export.annotation.AnnotationMBeanExporter;
+
+import static org.junit.Assert.*;
+
+public class ClientHttpRequestStatisticsTests {
+
+	private final ClientHttpRequestStatistics statistics = new ClientHttpRequestStatistics(10, 100);
+
+
+	@Test
+	public void histogram() throws Exception {
+		ClientHttpRequestStatistics.HostStatistics hostStatistics =
+				statistics.obtainHostStatistics(new URI("http://example.com/foo"));
+		hostStatistics.requestStarted();
+		hostStatistics.requestExecuted(TimeUnit.MILLISECONDS.toNanos(5));
+		hostStatistics.requestStarted();
+		hostStatistics.requestExecuted(TimeUnit.MILLISECONDS.toNanos(10));
+		hostStatistics.requestStarted();
+		hostStatistics.requestExecuted(TimeUnit.MILLISECONDS.toNanos(50));
+		hostStatistics.requestStarted();
+		hostStatistics.requestExecuted(TimeUnit.MILLISECONDS.toNanos(500));
+
+		assertEquals(4, hostStatistics.getActiveRequestCount());
+		assertEquals(4, hostStatistics.getMaxActiveRequestCount());
+		ClientHttpRequestStatistics.LatencyHistogram histogram = hostStatistics.getExecutionTime();
+		assertArrayEquals(new long[] {2, 1, 1}, histogram.getBucketCounts());
+		assertEquals(4, histogram.getCount());
+		assertEquals(565, histogram.getTotalTime());
+		assertEquals(500, histogram.getMaxTime());
+		assertEquals(141.25, histogram.getMeanTime(), 0.001);
+		assertArrayEquals(new long[] {2, 1, 1}, statistics.getExecutionTimeHistogram("http://example.com"));
+	}
+
+	@Test
+	public void hostKeys() throws Exception {
+		statistics.setMaxHosts(2);
+		assertSame(statistics.obtainHostStatistics(new URI("http://example.com/foo")),
+				statistics.obtainHostStatistics(new URI("http://example.com/bar")));
+		statistics.obtainHostStatistics(new URI("https://example.com:8443/foo"));
+		statistics.obtainHostStatistics(new URI("http://example.org/foo"));
+		statistics.obtainHostStatistics(new URI("http://example.net/foo"));
+		assertArrayEquals(new String[] {"http://example.com", "https://example.com:8443", "other"},
+				statistics.getHosts());
+		statistics.reset();
+		assertEquals(0, statistics.getHosts().length);
+	}
+
+	@Test
+	public void jmxExport() throws Exception {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		ObjectName name = ObjectName.getInstance("spring:type=ClientHttpRequestStatistics");
+		AnnotationMBeanExporter exporter = new AnnotationMBeanExporter();
+		exporter.setServer(server);
+		exporter.registerManagedResource(statistics, name);
+
+		ClientHttpRequestStatistics.HostStatistics hostStatistics =
+				statistics.obtainHostStatistics(new URI("http://example.com/foo"));
+		hostStatistics.requestStarted();
+		hostStatistics.requestFailed();
+
+		assertEquals(1L, server.getAttribute(name, "RequestCount"));
+		assertEquals(1L, server.getAttribute(name, "ErrorCount"));
+		assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+		assertArrayEquals(new long[] {0, 0, 0}, (long[]) server.invoke(name, "getExecutionTimeHistogram",
+				new Object[] {"http://example.com"}, new String[] {String.class.getName()}));
+		exporter.destroy();
+	}
+
+}
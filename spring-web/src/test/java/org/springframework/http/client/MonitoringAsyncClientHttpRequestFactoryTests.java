@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.net.ProtocolException;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+import static org.junit.Assert.*;
+
+public class MonitoringAsyncClientHttpRequestFactoryTests extends AbstractAsyncHttpRequestFactoryTestCase {
+
+	private ClientHttpRequestStatistics statistics;
+
+
+	@Override
+	protected AsyncClientHttpRequestFactory createRequestFactory() {
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setTaskExecutor(new SimpleAsyncTaskExecutor());
+		this.statistics = new ClientHttpRequestStatistics();
+		return new MonitoringAsyncClientHttpRequestFactory(requestFactory, this.statistics);
+	}
+
+	@Override
+	@Test
+	public void httpMethods() throws Exception {
+		try {
+			assertHttpMethod("patch", HttpMethod.PATCH);
+		}
+		catch (ProtocolException ex) {
+			// Currently HttpURLConnection does not support HTTP PATCH
+		}
+	}
+
+	@Test
+	public void recordsStatistics() throws Exception {
+		URI uri = new URI(baseUrl + "/status/notfound");
+		final CountDownLatch latch = new CountDownLatch(1);
+		ListenableFuture<ClientHttpResponse> future = factory.createAsyncRequest(uri, HttpMethod.GET).executeAsync();
+		future.addCallback(new ListenableFutureCallback<ClientHttpResponse>() {
+			@Override
+			public void onSuccess(ClientHttpResponse result) {
+				latch.countDown();
+			}
+			@Override
+			public void onFailure(Throwable ex) {
+			}
+		});
+		ClientHttpResponse response = future.get();
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+
+		ClientHttpRequestStatistics.HostStatistics hostStatistics =
+				statistics.getHostStatistics("http://localhost:" + uri.getPort());
+		assertEquals(1, hostStatistics.getRequestCount());
+		assertEquals(1, hostStatistics.getExecutionTime().getCount());
+		assertEquals(1, hostStatistics.getActiveRequestCount());
+		response.close();
+		assertEquals(0, hostStatistics.getActiveRequestCount());
+		assertEquals(1, hostStatistics.getBodyReadTime().getCount());
+	}
+
+}
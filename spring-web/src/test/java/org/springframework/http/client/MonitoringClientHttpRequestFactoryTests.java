@@ -0,0 +1,172 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.util.StreamUtils;
+
+import static org.junit.Assert.*;
+
+public class MonitoringClientHttpRequestFactoryTests extends AbstractHttpRequestFactoryTestCase {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private ClientHttpRequestStatistics statistics;
+
+
+	@Override
+	protected ClientHttpRequestFactory createRequestFactory() {
+		this.statistics = new ClientHttpRequestStatistics();
+		return new MonitoringClientHttpRequestFactory(new SimpleClientHttpRequestFactory(), this.statistics);
+	}
+
+	@Override
+	@Test
+	public void httpMethods() throws Exception {
+		try {
+			assertHttpMethod("patch", HttpMethod.PATCH);
+		}
+		catch (ProtocolException ex) {
+			// Currently HttpURLConnection does not support HTTP PATCH
+		}
+	}
+
+	@Test
+	public void recordsStatistics() throws Exception {
+		URI uri = new URI(baseUrl + "/echo");
+		ClientHttpRequest request = factory.createRequest(uri, HttpMethod.PUT);
+		StreamUtils.copy("Hello World", UTF_8, request.getBody());
+		ClientHttpResponse response = request.execute();
+
+		String host = "http://localhost:" + uri.getPort();
+		assertArrayEquals(new String[] {host}, statistics.getHosts());
+		ClientHttpRequestStatistics.HostStatistics hostStatistics = statistics.getHostStatistics(host);
+		assertEquals(1, hostStatistics.getRequestCount());
+		assertEquals(1, hostStatistics.getActiveRequestCount());
+		assertEquals(1, hostStatistics.getRequestWriteTime().getCount());
+		assertEquals(1, hostStatistics.getExecutionTime().getCount());
+		assertEquals(0, hostStatistics.getBodyReadTime().getCount());
+
+		try {
+			assertEquals(HttpStatus.OK, response.getStatusCode());
+			assertEquals("Hello World", StreamUtils.copyToString(response.getBody(), UTF_8));
+		}
+		finally {
+			response.close();
+		}
+		assertEquals(0, hostStatistics.getActiveRequestCount());
+		assertEquals(1, hostStatistics.getMaxActiveRequestCount());
+		assertEquals(1, hostStatistics.getBodyReadTime().getCount());
+		assertEquals(0, hostStatistics.getErrorCount());
+		assertEquals(1, statistics.getRequestCount());
+	}
+
+	@Test
+	public void streamingRequestBody() throws Exception {
+		HttpComponentsClientHttpRequestFactory streamingFactory = new HttpComponentsClientHttpRequestFactory();
+		streamingFactory.setBufferRequestBody(false);
+		try {
+			ClientHttpRequestFactory monitoringFactory = new MonitoringClientHttpRequestFactory(streamingFactory, statistics);
+			URI uri = new URI(baseUrl + "/echo");
+			ClientHttpRequest request = monitoringFactory.createRequest(uri, HttpMethod.PUT);
+			assertTrue(request instanceof StreamingHttpOutputMessage);
+			new StringHttpMessageConverter().write("Hello World", MediaType.TEXT_PLAIN, request);
+			ClientHttpResponse response = request.execute();
+			try {
+				assertEquals(HttpStatus.OK, response.getStatusCode());
+				assertEquals("Hello World", StreamUtils.copyToString(response.getBody(), UTF_8));
+			}
+			finally {
+				response.close();
+			}
+			ClientHttpRequestStatistics.HostStatistics hostStatistics =
+					statistics.getHostStatistics("http://localhost:" + uri.getPort());
+			assertEquals(1, hostStatistics.getRequestCount());
+			assertEquals(1, hostStatistics.getRequestWriteTime().getCount());
+			assertEquals(1, hostStatistics.getExecutionTime().getCount());
+			assertEquals(0, hostStatistics.getErrorCount());
+		}
+		finally {
+			streamingFactory.destroy();
+		}
+	}
+
+	@Test
+	public void interceptor() throws Exception {
+		ClientHttpRequestFactory interceptingFactory = new InterceptingClientHttpRequestFactory(
+				new SimpleClientHttpRequestFactory(),
+				Collections.<ClientHttpRequestInterceptor>singletonList(new MonitoringClientHttpRequestInterceptor(statistics)));
+		URI uri = new URI(baseUrl + "/echo");
+		ClientHttpRequest request = interceptingFactory.createRequest(uri, HttpMethod.PUT);
+		StreamUtils.copy("Hello World", UTF_8, request.getBody());
+		ClientHttpResponse response = request.execute();
+
+		ClientHttpRequestStatistics.HostStatistics hostStatistics =
+				statistics.getHostStatistics("http://localhost:" + uri.getPort());
+		assertEquals(1, hostStatistics.getRequestCount());
+		assertEquals(1, hostStatistics.getActiveRequestCount());
+		assertEquals(1, hostStatistics.getExecutionTime().getCount());
+		assertEquals(0, hostStatistics.getRequestWriteTime().getCount());
+		try {
+			assertEquals("Hello World", StreamUtils.copyToString(response.getBody(), UTF_8));
+		}
+		finally {
+			response.close();
+		}
+		assertEquals(0, hostStatistics.getActiveRequestCount());
+		assertEquals(1, hostStatistics.getBodyReadTime().getCount());
+	}
+
+	@Test
+	public void recordsErrors() throws Exception {
+		ClientHttpRequest request = factory.createRequest(new URI("http://localhost:1/echo"), HttpMethod.GET);
+		try {
+			request.execute();
+			fail("Expected IOException");
+		}
+		catch (IOException ex) {
+			// expected
+		}
+		ClientHttpRequestStatistics.HostStatistics hostStatistics = statistics.getHostStatistics("http://localhost:1");
+		assertEquals(1, hostStatistics.getRequestCount());
+		assertEquals(1, hostStatistics.getErrorCount());
+		assertEquals(0, hostStatistics.getActiveRequestCount());
+		assertEquals(0, hostStatistics.getExecutionTime().getCount());
+	}
+
+	@Test
+	public void disabled() throws Exception {
+		statistics.setEnabled(false);
+		ClientHttpRequest request = factory.createRequest(new URI(baseUrl + "/status/ok"), HttpMethod.GET);
+		assertFalse(request.getClass().getName().contains("Monitoring"));
+		request.execute().close();
+		assertEquals(0, statistics.getHosts().length);
+	}
+
+}
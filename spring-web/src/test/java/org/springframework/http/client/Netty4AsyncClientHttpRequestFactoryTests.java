@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StreamUtils;
+
+import static org.junit.Assert.*;
+
+public class Netty4AsyncClientHttpRequestFactoryTests extends AbstractAsyncHttpRequestFactoryTestCase {
+
+	private static Netty4ClientHttpRequestFactory requestFactory;
+
+
+	@BeforeClass
+	public static void createNettyFactory() {
+		requestFactory = new Netty4ClientHttpRequestFactory();
+	}
+
+	@AfterClass
+	public static void destroyNettyFactory() throws InterruptedException {
+		requestFactory.destroy();
+	}
+
+
+	@Override
+	protected AsyncClientHttpRequestFactory createRequestFactory() {
+		return requestFactory;
+	}
+
+	@Override
+	@Test
+	public void httpMethods() throws Exception {
+		super.httpMethods();
+		assertHttpMethod("patch", HttpMethod.PATCH);
+	}
+
+	@Test
+	public void reuseKeepAliveConnection() throws Exception {
+		Netty4ClientHttpRequestFactory poolingFactory = new Netty4ClientHttpRequestFactory();
+		try {
+			Set<String> connections = new HashSet<String>();
+			for (int i = 0; i < 10; i++) {
+				ClientHttpResponse response = poolingFactory.createRequest(
+						new URI(baseUrl + "/connection"), HttpMethod.GET).execute();
+				try {
+					assertEquals(HttpStatus.OK, response.getStatusCode());
+					connections.add(StreamUtils.copyToString(response.getBody(), Charset.forName("UTF-8")));
+				}
+				finally {
+					response.close();
+				}
+			}
+			assertEquals("Requests not sent over the same connection: " + connections, 1, connections.size());
+		}
+		finally {
+			poolingFactory.destroy();
+		}
+	}
+
+	@Test
+	public void noConnectionReuseWithoutIdleConnections() throws Exception {
+		Netty4ClientHttpRequestFactory nonPoolingFactory = new Netty4ClientHttpRequestFactory();
+		nonPoolingFactory.setMaxIdleConnectionsPerHost(0);
+		try {
+			Set<String> connections = new HashSet<String>();
+			for (int i = 0; i < 3; i++) {
+				ClientHttpResponse response = nonPoolingFactory.createRequest(
+						new URI(baseUrl + "/connection"), HttpMethod.GET).execute();
+				try {
+					connections.add(StreamUtils.copyToString(response.getBody(), Charset.forName("UTF-8")));
+				}
+				finally {
+					response.close();
+				}
+			}
+			assertEquals(3, connections.size());
+		}
+		finally {
+			nonPoolingFactory.destroy();
+		}
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.client;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.springframework.http.HttpMethod;
+
+public class Netty4ClientHttpRequestFactoryTests extends AbstractHttpRequestFactoryTestCase {
+
+	private static Netty4ClientHttpRequestFactory requestFactory;
+
+
+	@BeforeClass
+	public static void createNettyFactory() {
+		requestFactory = new Netty4ClientHttpRequestFactory();
+	}
+
+	@AfterClass
+	public static void destroyNettyFactory() throws InterruptedException {
+		requestFactory.destroy();
+	}
+
+
+	@Override
+	protected ClientHttpRequestFactory createRequestFactory() {
+		return requestFactory;
+	}
+
+	@Override
+	@Test
+	public void httpMethods() throws Exception {
+		super.httpMethods();
+		assertHttpMethod("patch", HttpMethod.PATCH);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.http.converter;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Arrays;
 
@@ -23,6 +24,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 import org.springframework.http.MockHttpInputMessage;
@@ -59,7 +62,27 @@ public class ResourceHttpMessageConverterTests {
 		byte[] body = FileCopyUtils.copyToByteArray(getClass().getResourceAsStream("logo.jpg"));
 		MockHttpInputMessage inputMessage = new MockHttpInputMessage(body);
 		inputMessage.getHeaders().setContentType(MediaType.IMAGE_JPEG);
-		converter.read(Resource.class, inputMessage);
+		Resource actualResource = converter.read(Resource.class, inputMessage);
+		assertTrue(Arrays.equals(body, FileCopyUtils.copyToByteArray(actualResource.getInputStream())));
+	}
+
+	@Test
+	public void readInputStreamResource() throws IOException {
+		byte[] body = FileCopyUtils.copyToByteArray(getClass().getResourceAsStream("logo.jpg"));
+		MockHttpInputMessage inputMessage = new MockHttpInputMessage(body);
+		inputMessage.getHeaders().setContentType(MediaType.IMAGE_JPEG);
+		Resource actualResource = converter.read(InputStreamResource.class, inputMessage);
+		assertTrue(actualResource instanceof InputStreamResource);
+		assertSame(inputMessage.getBody(), actualResource.getInputStream());
+	}
+
+	@Test
+	public void writeInputStreamResource() throws IOException {
+		byte[] body = {1, 2, 3};
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		converter.write(new InputStreamResource(new ByteArrayInputStream(body)), null, outputMessage);
+		assertEquals(-1, outputMessage.getHeaders().getContentLength());
+		assertTrue(Arrays.equals(body, outputMessage.getBodyAsBytes()));
 	}
 
 	@Test
@@ -72,6 +95,15 @@ public class ResourceHttpMessageConverterTests {
 		assertEquals("Invalid content-length", body.getFile().length(), outputMessage.getHeaders().getContentLength());
 	}
 
+	@Test
+	public void writeFileSystemResource() throws IOException {
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		Resource body = new FileSystemResource(new ClassPathResource("logo.jpg", getClass()).getFile());
+		converter.write(body, null, outputMessage);
+		assertEquals("Invalid content-length", body.contentLength(), outputMessage.getHeaders().getContentLength());
+		assertTrue(Arrays.equals(FileCopyUtils.copyToByteArray(body.getInputStream()), outputMessage.getBodyAsBytes()));
+	}
+
 	// SPR-10848
 
 	@Test
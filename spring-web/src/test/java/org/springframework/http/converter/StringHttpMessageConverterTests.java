@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -58,6 +58,18 @@ public class StringHttpMessageConverterTests {
 		assertEquals("Invalid result", body, result);
 	}
 
+	@Test
+	public void readWithContentLength() throws IOException {
+		String body = "H\u00e9llo W\u00f6rld";
+		Charset charset = Charset.forName("UTF-8");
+		byte[] bytes = body.getBytes(charset);
+		MockHttpInputMessage inputMessage = new MockHttpInputMessage(bytes);
+		inputMessage.getHeaders().setContentType(new MediaType("text", "plain", charset));
+		inputMessage.getHeaders().setContentLength(bytes.length);
+		String result = converter.read(String.class, inputMessage);
+		assertEquals("Invalid result", body, result);
+	}
+
 	@Test
 	public void writeDefaultCharset() throws IOException {
 		Charset iso88591 = Charset.forName("ISO-8859-1");
@@ -23,7 +23,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
@@ -219,6 +222,75 @@ public class MappingJackson2HttpMessageConverterTests {
 		assertEquals("{" + NEWLINE_SYSTEM_PROPERTY + "  \"name\" : \"Jason\"" + NEWLINE_SYSTEM_PROPERTY + "}", result);
 	}
 
+	@Test
+	public void prettyPrintAfterWrite() throws Exception {
+		PrettyPrintBean bean = new PrettyPrintBean();
+		bean.setName("Jason");
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+		this.converter.writeInternal(bean, outputMessage);
+		assertEquals("{\"name\":\"Jason\"}", outputMessage.getBodyAsString(Charset.forName("UTF-8")));
+
+		this.converter.setPrettyPrint(true);
+		outputMessage = new MockHttpOutputMessage();
+		this.converter.writeInternal(bean, outputMessage);
+		String result = outputMessage.getBodyAsString(Charset.forName("UTF-8"));
+		assertEquals("{" + NEWLINE_SYSTEM_PROPERTY + "  \"name\" : \"Jason\"" + NEWLINE_SYSTEM_PROPERTY + "}", result);
+	}
+
+	@Test
+	public void readAfterObjectMapperReconfiguration() throws IOException {
+		String body = "{\"string\":\"string\",\"unknownProperty\":\"value\"}";
+		MockHttpInputMessage inputMessage = new MockHttpInputMessage(body.getBytes("UTF-8"));
+		try {
+			converter.read(MyBean.class, inputMessage);
+			fail("HttpMessageNotReadableException expected");
+		}
+		catch (HttpMessageNotReadableException ex) {
+			// expected
+		}
+
+		converter.getObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+		inputMessage = new MockHttpInputMessage(body.getBytes("UTF-8"));
+		MyBean result = (MyBean) converter.read(MyBean.class, inputMessage);
+		assertEquals("string", result.getString());
+	}
+
+	@Test
+	public void canReadAndWriteCached() {
+		final AtomicInteger canSerializeCount = new AtomicInteger();
+		final AtomicInteger canDeserializeCount = new AtomicInteger();
+		ObjectMapper objectMapper = new ObjectMapper() {
+			@Override
+			public boolean canSerialize(Class<?> type) {
+				canSerializeCount.incrementAndGet();
+				return super.canSerialize(type);
+			}
+			@Override
+			public boolean canSerialize(Class<?> type, AtomicReference<Throwable> cause) {
+				canSerializeCount.incrementAndGet();
+				return super.canSerialize(type, cause);
+			}
+			@Override
+			public boolean canDeserialize(JavaType type) {
+				canDeserializeCount.incrementAndGet();
+				return super.canDeserialize(type);
+			}
+			@Override
+			public boolean canDeserialize(JavaType type, AtomicReference<Throwable> cause) {
+				canDeserializeCount.incrementAndGet();
+				return super.canDeserialize(type, cause);
+			}
+		};
+		converter.setObjectMapper(objectMapper);
+		for (int i = 0; i < 3; i++) {
+			assertTrue(converter.canRead(MyBean.class, new MediaType("application", "json")));
+			assertTrue(converter.canWrite(MyBean.class, new MediaType("application", "json")));
+			assertFalse(converter.canWrite(MyBean.class, new MediaType("text", "xml")));
+		}
+		assertEquals(1, canSerializeCount.get());
+		assertEquals(1, canDeserializeCount.get());
+	}
+
 	@Test
 	public void prefixJson() throws Exception {
 		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
@@ -41,6 +41,7 @@ import org.springframework.beans.factory.BeanClassLoaderAware;
 import org.springframework.mock.web.test.MockHttpServletRequest;
 import org.springframework.mock.web.test.MockHttpServletResponse;
 import org.springframework.remoting.RemoteAccessException;
+import org.springframework.remoting.support.CompactRemoteInvocationSerializer;
 import org.springframework.remoting.support.DefaultRemoteInvocationExecutor;
 import org.springframework.remoting.support.RemoteInvocation;
 import org.springframework.remoting.support.RemoteInvocationFactory;
@@ -242,6 +243,69 @@ public class HttpInvokerTests extends TestCase {
 		}
 	}
 
+	public void testHttpInvokerProxyFactoryBeanAndServiceExporterWithCompactSerializer() throws Throwable {
+		TestBean target = new TestBean("myname", 99);
+
+		final HttpInvokerServiceExporter exporter = new HttpInvokerServiceExporter();
+		exporter.setServiceInterface(ITestBean.class);
+		exporter.setService(target);
+		exporter.setSerializer(new CompactRemoteInvocationSerializer());
+		exporter.setDeserializer(new CompactRemoteInvocationSerializer());
+		exporter.setCompressionThreshold(64);
+		exporter.afterPropertiesSet();
+
+		HttpInvokerProxyFactoryBean pfb = new HttpInvokerProxyFactoryBean();
+		pfb.setServiceInterface(ITestBean.class);
+		pfb.setServiceUrl("http://myurl");
+
+		AbstractHttpInvokerRequestExecutor executor = new AbstractHttpInvokerRequestExecutor() {
+			@Override
+			protected RemoteInvocationResult doExecuteRequest(
+					HttpInvokerClientConfiguration config, ByteArrayOutputStream baos)
+					throws IOException, ClassNotFoundException {
+				MockHttpServletRequest request = new MockHttpServletRequest();
+				request.addHeader("Accept-Encoding", "gzip");
+				MockHttpServletResponse response = new MockHttpServletResponse();
+				request.setContent(baos.toByteArray());
+				try {
+					exporter.handleRequest(request, response);
+				}
+				catch (ServletException ex) {
+					throw new IOException(ex.toString());
+				}
+				InputStream is = new ByteArrayInputStream(response.getContentAsByteArray());
+				if ("gzip".equals(response.getHeader("Content-Encoding"))) {
+					assertTrue(response.getContentAsByteArray().length > 0);
+					is = new GZIPInputStream(is);
+				}
+				else {
+					assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+				}
+				return readRemoteInvocationResult(is, config.getCodebaseUrl());
+			}
+		};
+		executor.setSerializer(new CompactRemoteInvocationSerializer());
+		executor.setDeserializer(new CompactRemoteInvocationSerializer());
+		pfb.setHttpInvokerRequestExecutor(executor);
+
+		pfb.afterPropertiesSet();
+		ITestBean proxy = (ITestBean) pfb.getObject();
+		assertEquals("myname", proxy.getName());
+		assertEquals(99, proxy.getAge());
+		proxy.setAge(50);
+		assertEquals(50, proxy.getAge());
+		proxy.setStringArray(new String[] {"str1", "str2"});
+		assertTrue(Arrays.equals(new String[] {"str1", "str2"}, proxy.getStringArray()));
+
+		try {
+			proxy.exceptional(new IllegalStateException());
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+
 	public void testHttpInvokerProxyFactoryBeanAndServiceExporterWithWrappedInvocations() throws Throwable {
 		TestBean target = new TestBean("myname", 99);
 
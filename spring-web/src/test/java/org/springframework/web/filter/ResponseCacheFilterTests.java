@@ -0,0 +1,488 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.mock.web.test.MockFilterConfig;
+import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.mock.web.test.MockHttpServletResponse;
+
+import static org.junit.Assert.*;
+
+public class ResponseCacheFilterTests {
+
+	private static final String KEY = "GET http://localhost:80/hotels";
+
+	private final Cache cache = new ConcurrentMapCache("responseCache");
+
+	private ResponseCacheFilter filter;
+
+
+	@Before
+	public void createFilter() {
+		filter = new ResponseCacheFilter();
+		filter.setCaches(cache);
+	}
+
+
+	@Test
+	public void cachesResponse() throws Exception {
+		CountingFilterChain chain = new CountingFilterChain("public, max-age=60");
+
+		MockHttpServletResponse response = execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		assertEquals(200, response.getStatus());
+		assertEquals("Hello 1", response.getContentAsString());
+		assertEquals("text/plain", response.getContentType());
+
+		response = execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		assertEquals(200, response.getStatus());
+		assertEquals("Hello 1", response.getContentAsString());
+		assertEquals("text/plain", response.getContentType());
+		assertEquals("public, max-age=60", response.getHeader("Cache-Control"));
+		assertEquals("bar", response.getHeader("X-Foo"));
+		assertEquals("0", response.getHeader("Age"));
+		assertEquals(7, response.getContentLength());
+		assertEquals(1, chain.count.get());
+
+		response = execute(new MockHttpServletRequest("GET", "/hotels?page=2"), chain);
+		assertEquals("Hello 2", response.getContentAsString());
+		assertEquals(2, chain.count.get());
+	}
+
+	@Test
+	public void cacheKeyIncludesSchemeHostAndPort() throws Exception {
+		CountingFilterChain chain = new CountingFilterChain("max-age=60");
+		execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.setServerName("example.org");
+		assertEquals("Hello 2", execute(request, chain).getContentAsString());
+
+		request = new MockHttpServletRequest("GET", "/hotels");
+		request.setScheme("https");
+		request.setServerPort(443);
+		assertEquals("Hello 3", execute(request, chain).getContentAsString());
+
+		assertEquals("Hello 1", execute(new MockHttpServletRequest("GET", "/hotels"), chain).getContentAsString());
+		assertEquals(3, chain.count.get());
+		assertNotNull(cache.get("GET https://localhost:443/hotels"));
+	}
+
+	@Test
+	public void cacheManagerAndCacheNames() throws Exception {
+		ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("local", "shared");
+		filter = new ResponseCacheFilter();
+		filter.setCacheManager(cacheManager);
+		filter.setCacheNames("local", "shared");
+		filter.init(new MockFilterConfig());
+		CountingFilterChain chain = new CountingFilterChain("max-age=60");
+
+		execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		assertNotNull(cacheManager.getCache("local").get(KEY));
+		assertNotNull(cacheManager.getCache("shared").get(KEY));
+	}
+
+	@Test
+	public void promotesEntryToEarlierCache() throws Exception {
+		Cache local = new ConcurrentMapCache("local");
+		filter.setCaches(local, cache);
+		CountingFilterChain chain = new CountingFilterChain("max-age=60");
+
+		execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		local.clear();
+
+		MockHttpServletResponse response = execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		assertEquals("Hello 1", response.getContentAsString());
+		assertEquals(1, chain.count.get());
+		assertNotNull(local.get(KEY));
+	}
+
+	@Test
+	public void defaultTimeToLive() throws Exception {
+		CountingFilterChain chain = new CountingFilterChain(null);
+		execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		assertEquals(2, chain.count.get());
+
+		filter.setDefaultTimeToLive(60);
+		execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		assertEquals(3, chain.count.get());
+	}
+
+	@Test
+	public void nonCacheableResponses() throws Exception {
+		assertNotCached(new CountingFilterChain("no-store"));
+		assertNotCached(new CountingFilterChain("no-cache"));
+		assertNotCached(new CountingFilterChain("private, max-age=60"));
+		assertNotCached(new CountingFilterChain("max-age=0"));
+
+		CountingFilterChain chain = new CountingFilterChain("max-age=60");
+		chain.status = HttpServletResponse.SC_NOT_FOUND;
+		assertNotCached(chain);
+
+		chain = new CountingFilterChain("max-age=60");
+		chain.headerName = "Set-Cookie";
+		chain.headerValue = "session=1";
+		assertNotCached(chain);
+
+		chain = new CountingFilterChain("max-age=60");
+		chain.headerName = "Vary";
+		chain.headerValue = "*";
+		assertNotCached(chain);
+	}
+
+	@Test
+	public void nonCacheableRequests() throws Exception {
+		CountingFilterChain chain = new CountingFilterChain("max-age=60");
+		execute(new MockHttpServletRequest("POST", "/hotels"), chain);
+		execute(new MockHttpServletRequest("POST", "/hotels"), chain);
+		assertEquals(2, chain.count.get());
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Authorization", "Basic Zm9vOmJhcg==");
+		execute(request, chain);
+		assertEquals(3, chain.count.get());
+		assertNull(cache.get(KEY));
+
+		request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Cache-Control", "no-store");
+		execute(request, chain);
+		assertNull(cache.get(KEY));
+	}
+
+	@Test
+	public void disableResponseCaching() throws Exception {
+		CountingFilterChain chain = new CountingFilterChain("max-age=60") {
+			@Override
+			public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+				ResponseCacheFilter.disableResponseCaching(request);
+				super.doFilter(request, response);
+			}
+		};
+		assertNotCached(chain);
+	}
+
+	@Test
+	public void requestNoCacheRegeneratesEntry() throws Exception {
+		CountingFilterChain chain = new CountingFilterChain("max-age=60");
+		execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Cache-Control", "no-cache");
+		MockHttpServletResponse response = execute(request, chain);
+		assertEquals("Hello 2", response.getContentAsString());
+
+		response = execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		assertEquals("Hello 2", response.getContentAsString());
+		assertEquals(2, chain.count.get());
+	}
+
+	@Test
+	public void varyHeader() throws Exception {
+		CountingFilterChain chain = new CountingFilterChain("max-age=60");
+		chain.headerName = "Vary";
+		chain.headerValue = "Accept-Language";
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Language", "en");
+		assertEquals("Hello 1", execute(request, chain).getContentAsString());
+
+		request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Language", "de");
+		assertEquals("Hello 2", execute(request, chain).getContentAsString());
+
+		request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Language", "en");
+		MockHttpServletResponse response = execute(request, chain);
+		assertEquals("Hello 1", response.getContentAsString());
+		assertEquals("Accept-Language", response.getHeader("Vary"));
+		assertEquals(2, chain.count.get());
+	}
+
+	@Test
+	public void largeResponseStreamedThrough() throws Exception {
+		filter.setMaxBodySize(4);
+		CountingFilterChain chain = new CountingFilterChain("max-age=60");
+
+		assertEquals("Hello 1", execute(new MockHttpServletRequest("GET", "/hotels"), chain).getContentAsString());
+		assertEquals("Hello 2", execute(new MockHttpServletRequest("GET", "/hotels"), chain).getContentAsString());
+	}
+
+	@Test
+	public void staleWhileRevalidate() throws Exception {
+		BlockingFilterChain chain = new BlockingFilterChain("max-age=1, stale-while-revalidate=60", 2);
+		execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		Thread.sleep(1100);
+
+		RequestThread regenerating = new RequestThread(chain);
+		regenerating.start();
+		assertTrue(chain.started.await(5, TimeUnit.SECONDS));
+
+		MockHttpServletResponse response = execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		assertEquals("Hello 1", response.getContentAsString());
+		assertEquals("1", response.getHeader("Age"));
+		assertTrue(regenerating.isAlive());
+
+		chain.proceed.countDown();
+		regenerating.join(5000);
+		assertEquals("Hello 2", regenerating.response.getContentAsString());
+		assertEquals("Hello 2", execute(new MockHttpServletRequest("GET", "/hotels"), chain).getContentAsString());
+		assertEquals(2, chain.invocations.get());
+	}
+
+	@Test
+	public void coalescesConcurrentRequests() throws Exception {
+		BlockingFilterChain chain = new BlockingFilterChain("max-age=60", 1);
+		RequestThread regenerating = new RequestThread(chain);
+		regenerating.start();
+		assertTrue(chain.started.await(5, TimeUnit.SECONDS));
+
+		releaseLater(chain);
+		MockHttpServletResponse response = execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		regenerating.join(5000);
+
+		assertEquals("Hello 1", response.getContentAsString());
+		assertEquals("Hello 1", regenerating.response.getContentAsString());
+		assertEquals(1, chain.invocations.get());
+	}
+
+	@Test
+	public void hitForPass() throws Exception {
+		BlockingFilterChain chain = new BlockingFilterChain("private, max-age=60", 1);
+		RequestThread regenerating = new RequestThread(chain);
+		regenerating.start();
+		assertTrue(chain.started.await(5, TimeUnit.SECONDS));
+
+		releaseLater(chain);
+		MockHttpServletResponse response = execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		regenerating.join(5000);
+		assertEquals("Hello 1", regenerating.response.getContentAsString());
+		assertEquals("Hello 2", response.getContentAsString());
+		assertNotNull(cache.get(KEY));
+
+		// Subsequent requests proceed without waiting for each other
+		chain = new BlockingFilterChain("private, max-age=60", 1);
+		regenerating = new RequestThread(chain);
+		regenerating.start();
+		assertTrue(chain.started.await(5, TimeUnit.SECONDS));
+		response = execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		assertEquals("Hello 1", response.getContentAsString());
+		assertTrue(regenerating.isAlive());
+
+		chain.proceed.countDown();
+		regenerating.join(5000);
+		assertEquals("Hello 2", regenerating.response.getContentAsString());
+	}
+
+	@Test
+	public void hitForPassPerVariant() throws Exception {
+		final AtomicInteger count = new AtomicInteger();
+		FilterChain chain = new FilterChain() {
+			@Override
+			public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+				HttpServletResponse httpResponse = (HttpServletResponse) response;
+				boolean de = "de".equals(((HttpServletRequest) request).getHeader("Accept-Language"));
+				httpResponse.setHeader("Cache-Control", (de ? "private, max-age=60" : "max-age=60"));
+				httpResponse.setHeader("Vary", "Accept-Language");
+				httpResponse.getWriter().write("Hello " + count.incrementAndGet());
+			}
+		};
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Language", "en");
+		assertEquals("Hello 1", execute(request, chain).getContentAsString());
+		request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Language", "de");
+		assertEquals("Hello 2", execute(request, chain).getContentAsString());
+
+		// The pass marker for "de" leaves the cached "en" variant reachable
+		request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Language", "en");
+		assertEquals("Hello 1", execute(request, chain).getContentAsString());
+		request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Language", "de");
+		assertEquals("Hello 3", execute(request, chain).getContentAsString());
+		assertEquals(3, count.get());
+	}
+
+	@Test
+	public void coalescesConcurrentRequestsPerVariant() throws Exception {
+		BlockingFilterChain chain = new BlockingFilterChain("max-age=60", 2);
+		CountingFilterChain countingChain = chain;
+		countingChain.headerName = "Vary";
+		countingChain.headerValue = "Accept-Language";
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Language", "en");
+		assertEquals("Hello 1", execute(request, chain).getContentAsString());
+
+		RequestThread regenerating = new RequestThread(chain);
+		regenerating.start();
+		assertTrue(chain.started.await(5, TimeUnit.SECONDS));
+
+		// A request for a different variant does not wait for the regenerating one
+		request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("Accept-Language", "de");
+		assertEquals("Hello 2", execute(request, chain).getContentAsString());
+		assertTrue(regenerating.isAlive());
+
+		chain.proceed.countDown();
+		regenerating.join(5000);
+		assertEquals("Hello 3", regenerating.response.getContentAsString());
+	}
+
+	@Test
+	public void hitForPassDisabled() throws Exception {
+		filter.setHitForPassTime(0);
+		assertNotCached(new CountingFilterChain("private, max-age=60"));
+		assertNull(cache.get(KEY));
+	}
+
+
+	private MockHttpServletResponse execute(MockHttpServletRequest request, FilterChain chain) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+	private void assertNotCached(CountingFilterChain chain) throws Exception {
+		cache.clear();
+		execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		MockHttpServletResponse response = execute(new MockHttpServletRequest("GET", "/hotels"), chain);
+		assertEquals("Hello 2", response.getContentAsString());
+		assertEquals(2, chain.count.get());
+	}
+
+	private void releaseLater(final BlockingFilterChain chain) {
+		Thread releasing = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(200);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				chain.proceed.countDown();
+			}
+		};
+		releasing.start();
+	}
+
+
+	private static class CountingFilterChain implements FilterChain {
+
+		private final String cacheControl;
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		private int status = HttpServletResponse.SC_OK;
+
+		private String headerName = "X-Foo";
+
+		private String headerValue = "bar";
+
+		public CountingFilterChain(String cacheControl) {
+			this.cacheControl = cacheControl;
+		}
+
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+			HttpServletResponse httpResponse = (HttpServletResponse) response;
+			httpResponse.setStatus(this.status);
+			httpResponse.setContentType("text/plain");
+			if (this.cacheControl != null) {
+				httpResponse.setHeader("Cache-Control", this.cacheControl);
+			}
+			httpResponse.addHeader(this.headerName, this.headerValue);
+			httpResponse.getWriter().write("Hello " + this.count.incrementAndGet());
+		}
+	}
+
+
+	/**
+	 * Blocks the given invocation until released.
+	 */
+	private static class BlockingFilterChain extends CountingFilterChain {
+
+		private final int blockingInvocation;
+
+		private final AtomicInteger invocations = new AtomicInteger();
+
+		private final CountDownLatch started = new CountDownLatch(1);
+
+		private final CountDownLatch proceed = new CountDownLatch(1);
+
+		public BlockingFilterChain(String cacheControl, int blockingInvocation) {
+			super(cacheControl);
+			this.blockingInvocation = blockingInvocation;
+		}
+
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+			if (this.invocations.incrementAndGet() == this.blockingInvocation) {
+				this.started.countDown();
+				try {
+					this.proceed.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			super.doFilter(request, response);
+		}
+	}
+
+
+	private class RequestThread extends Thread {
+
+		private final FilterChain chain;
+
+		private volatile MockHttpServletResponse response;
+
+		public RequestThread(FilterChain chain) {
+			this.chain = chain;
+		}
+
+		@Override
+		public void run() {
+			try {
+				this.response = execute(new MockHttpServletRequest("GET", "/hotels"), this.chain);
+			}
+			catch (Exception ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+	}
+
+}
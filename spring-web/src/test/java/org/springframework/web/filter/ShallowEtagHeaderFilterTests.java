@@ -136,4 +136,99 @@ public class ShallowEtagHeaderFilterTests {
 		assertArrayEquals("Invalid content", new byte[0], response.getContentAsByteArray());
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void filterStreamingModeMatch() throws Exception {
+		filter.setStreamingThreshold(1024);
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("If-None-Match", "\"0b10a8db164e0754105b7a99be72e3fe5\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = new FilterChain() {
+
+			@Override
+			public void doFilter(ServletRequest filterRequest, ServletResponse filterResponse)
+					throws IOException, ServletException {
+				FileCopyUtils.copy("Hello World", filterResponse.getWriter());
+			}
+		};
+
+		filter.doFilter(request, response, filterChain);
+
+		assertEquals("Invalid status", 304, response.getStatus());
+		assertEquals("Invalid ETag header", "\"0b10a8db164e0754105b7a99be72e3fe5\"", response.getHeader("ETag"));
+		assertArrayEquals("Invalid content", new byte[0], response.getContentAsByteArray());
+	}
+
+	@Test
+	public void filterStreamingModeNoMatch() throws Exception {
+		filter.setStreamingThreshold(1024);
+		for (int i = 0; i < 2; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			final byte[] responseBody = "Hello World".getBytes("UTF-8");
+			FilterChain filterChain = new FilterChain() {
+
+				@Override
+				public void doFilter(ServletRequest filterRequest, ServletResponse filterResponse)
+						throws IOException, ServletException {
+					filterResponse.setContentLength(responseBody.length);
+					FileCopyUtils.copy(responseBody, filterResponse.getOutputStream());
+				}
+			};
+
+			filter.doFilter(request, response, filterChain);
+
+			assertEquals("Invalid status", 200, response.getStatus());
+			assertEquals("Invalid ETag header", "\"0b10a8db164e0754105b7a99be72e3fe5\"", response.getHeader("ETag"));
+			assertEquals("Invalid Content-Length header", responseBody.length, response.getContentLength());
+			assertArrayEquals("Invalid content", responseBody, response.getContentAsByteArray());
+		}
+	}
+
+	@Test
+	public void filterStreamingModeAboveThreshold() throws Exception {
+		filter.setStreamingThreshold(5);
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		request.addHeader("If-None-Match", "\"0b10a8db164e0754105b7a99be72e3fe5\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = new FilterChain() {
+
+			@Override
+			public void doFilter(ServletRequest filterRequest, ServletResponse filterResponse)
+					throws IOException, ServletException {
+				filterResponse.getOutputStream().write("Hel".getBytes("UTF-8"));
+				filterResponse.getOutputStream().write("lo World".getBytes("UTF-8"));
+			}
+		};
+
+		filter.doFilter(request, response, filterChain);
+
+		assertEquals("Invalid status", 200, response.getStatus());
+		assertNull("Unexpected ETag header", response.getHeader("ETag"));
+		assertEquals("Invalid content", "Hello World", response.getContentAsString());
+	}
+
+	@Test
+	public void filterWithDisabledContentCaching() throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hotels");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		FilterChain filterChain = new FilterChain() {
+
+			@Override
+			public void doFilter(ServletRequest filterRequest, ServletResponse filterResponse)
+					throws IOException, ServletException {
+				ShallowEtagHeaderFilter.disableContentCaching(filterRequest);
+				FileCopyUtils.copy("Hello World", filterResponse.getWriter());
+			}
+		};
+
+		filter.doFilter(request, response, filterChain);
+
+		assertEquals("Invalid status", 200, response.getStatus());
+		assertNull("Unexpected ETag header", response.getHeader("ETag"));
+		assertEquals("Invalid content", "Hello World", response.getContentAsString());
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,8 @@ package org.springframework.web.multipart.commons;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
@@ -26,6 +28,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
@@ -55,11 +58,15 @@ import org.springframework.mock.web.test.MockHttpServletResponse;
 import org.springframework.mock.web.test.MockServletContext;
 import org.springframework.mock.web.test.PassThroughFilterChain;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.ServletRequestDataBinder;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.multipart.StreamingMultipartFile;
+import org.springframework.web.multipart.StreamingMultipartHttpServletRequest;
 import org.springframework.web.multipart.support.ByteArrayMultipartFileEditor;
 import org.springframework.web.multipart.support.MultipartFilter;
 import org.springframework.web.multipart.support.StringMultipartFileEditor;
@@ -267,6 +274,65 @@ public class CommonsMultipartResolverTests {
 		assertTrue(mtb2.getField2().length() == 0);
 	}
 
+	@Test
+	public void withStreamingResolution() throws Exception {
+		CommonsMultipartResolver resolver = new CommonsMultipartResolver();
+		resolver.setResolveStreaming(true);
+		String boundary = "----spring-test-boundary";
+		String body = "--" + boundary + "\r\n" +
+				"Content-Disposition: form-data; name=\"field1\"\r\n\r\n" +
+				"value1\r\n" +
+				"--" + boundary + "\r\n" +
+				"Content-Disposition: form-data; name=\"file1\"; filename=\"test1.txt\"\r\n" +
+				"Content-Type: text/plain\r\n\r\n" +
+				"Hello World\r\n" +
+				"--" + boundary + "\r\n" +
+				"Content-Disposition: form-data; name=\"field2\"\r\n\r\n" +
+				"value2\r\n" +
+				"--" + boundary + "--\r\n";
+		MockHttpServletRequest originalRequest = new MockHttpServletRequest();
+		originalRequest.setMethod("POST");
+		originalRequest.setContentType("multipart/form-data; boundary=" + boundary);
+		originalRequest.setContent(body.getBytes("ISO-8859-1"));
+		assertTrue(resolver.isMultipart(originalRequest));
+
+		MultipartHttpServletRequest request = resolver.resolveMultipart(originalRequest);
+		assertTrue(request instanceof StreamingMultipartHttpServletRequest);
+		Iterator<StreamingMultipartFile> fileIter = ((StreamingMultipartHttpServletRequest) request).getFileIterator();
+		assertTrue(fileIter.hasNext());
+		StreamingMultipartFile file = fileIter.next();
+		assertEquals("value1", request.getParameter("field1"));
+		assertNull(request.getParameter("field2"));
+		assertEquals("file1", file.getName());
+		assertEquals("test1.txt", file.getOriginalFilename());
+		assertEquals("text/plain", file.getContentType());
+		assertEquals("text/plain", file.getHeaders().getFirst("Content-Type"));
+		assertEquals("Hello World", StreamUtils.copyToString(file.getInputStream(), Charset.forName("ISO-8859-1")));
+		assertFalse(fileIter.hasNext());
+		assertEquals("value2", request.getParameter("field2"));
+		assertNull(request.getFile("file1"));
+		resolver.cleanupMultipart(request);
+	}
+
+	@Test(expected = MaxUploadSizeExceededException.class)
+	public void withStreamingResolutionAndMaxUploadSize() throws Exception {
+		CommonsMultipartResolver resolver = new CommonsMultipartResolver();
+		resolver.setResolveStreaming(true);
+		resolver.setMaxUploadSize(10);
+		String boundary = "----spring-test-boundary";
+		String body = "--" + boundary + "\r\n" +
+				"Content-Disposition: form-data; name=\"file1\"; filename=\"test1.txt\"\r\n\r\n" +
+				"Hello World\r\n" +
+				"--" + boundary + "--\r\n";
+		MockHttpServletRequest originalRequest = new MockHttpServletRequest();
+		originalRequest.setMethod("POST");
+		originalRequest.setContentType("multipart/form-data; boundary=" + boundary);
+		originalRequest.setContent(body.getBytes("ISO-8859-1"));
+
+		MultipartHttpServletRequest request = resolver.resolveMultipart(originalRequest);
+		((StreamingMultipartHttpServletRequest) request).getFileIterator();
+	}
+
 	@Test
 	public void withServletContextAndFilter() throws Exception {
 		StaticWebApplicationContext wac = new StaticWebApplicationContext();
@@ -93,6 +93,8 @@ public class UriUtilsTests {
 	public void decode() throws UnsupportedEncodingException {
 		assertEquals("Invalid encoded URI", "", UriUtils.decode("", ENC));
 		assertEquals("Invalid encoded URI", "foobar", UriUtils.decode("foobar", ENC));
+		String plain = "/foo/bar";
+		assertSame("Unencoded URI copied", plain, UriUtils.decode(plain, ENC));
 		assertEquals("Invalid encoded URI", "foo bar", UriUtils.decode("foo%20bar", ENC));
 		assertEquals("Invalid encoded URI", "foo+bar", UriUtils.decode("foo%2bbar", ENC));
 		assertEquals("Invalid encoded result", "T\u014dky\u014d", UriUtils.decode("T%C5%8Dky%C5%8D", ENC));
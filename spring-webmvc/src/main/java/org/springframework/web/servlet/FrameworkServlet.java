@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -953,7 +953,8 @@ public abstract class FrameworkServlet extends HttpServletBean implements Applic
 		ServletRequestAttributes requestAttributes = buildRequestAttributes(request, response, previousAttributes);
 
 		WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
-		asyncManager.registerCallableInterceptor(FrameworkServlet.class.getName(), new RequestBindingInterceptor());
+		asyncManager.registerCallableInterceptor(FrameworkServlet.class.getName(),
+				new RequestBindingInterceptor(localeContext, requestAttributes));
 
 		initContextHolders(request, localeContext, requestAttributes);
 
@@ -976,7 +977,14 @@ public abstract class FrameworkServlet extends HttpServletBean implements Applic
 		finally {
 			resetContextHolders(request, previousLocaleContext, previousAttributes);
 			if (requestAttributes != null) {
-				requestAttributes.requestCompleted();
+				if (asyncManager.isConcurrentHandlingStarted()) {
+					// Complete once concurrent handling is done, however it was started.
+					asyncManager.getAsyncWebRequest().addCompletionHandler(
+							new RequestCompletionHandler(requestAttributes));
+				}
+				else {
+					requestAttributes.requestCompleted();
+				}
 			}
 
 			if (logger.isDebugEnabled()) {
@@ -1114,15 +1122,30 @@ public abstract class FrameworkServlet extends HttpServletBean implements Applic
 	/**
 	 * CallableProcessingInterceptor implementation that initializes and resets
 	 * FrameworkServlet's context holders, i.e. LocaleContextHolder and RequestContextHolder.
+	 * <p>Binds the same LocaleContext and RequestAttributes as the original request
+	 * thread, so that request-scoped beans are shared with the concurrent handler.
 	 */
 	private class RequestBindingInterceptor extends CallableProcessingInterceptorAdapter {
 
+		private final LocaleContext localeContext;
+
+		private final ServletRequestAttributes requestAttributes;
+
+		public RequestBindingInterceptor(LocaleContext localeContext, ServletRequestAttributes requestAttributes) {
+			this.localeContext = localeContext;
+			this.requestAttributes = requestAttributes;
+		}
+
 		@Override
 		public <T> void preProcess(NativeWebRequest webRequest, Callable<T> task) {
 			HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
 			if (request != null) {
-				HttpServletResponse response = webRequest.getNativeRequest(HttpServletResponse.class);
-				initContextHolders(request, buildLocaleContext(request), buildRequestAttributes(request, response, null));
+				ServletRequestAttributes attributes = this.requestAttributes;
+				if (attributes == null) {
+					HttpServletResponse response = webRequest.getNativeRequest(HttpServletResponse.class);
+					attributes = buildRequestAttributes(request, response, null);
+				}
+				initContextHolders(request, this.localeContext, attributes);
 			}
 		}
 		@Override
@@ -1134,4 +1157,23 @@ public abstract class FrameworkServlet extends HttpServletBean implements Applic
 		}
 	}
 
+
+	/**
+	 * AsyncWebRequest completion handler that completes the original request's
+	 * RequestAttributes once concurrent handling is done.
+	 */
+	private static class RequestCompletionHandler implements Runnable {
+
+		private final ServletRequestAttributes requestAttributes;
+
+		public RequestCompletionHandler(ServletRequestAttributes requestAttributes) {
+			this.requestAttributes = requestAttributes;
+		}
+
+		@Override
+		public void run() {
+			this.requestAttributes.requestCompleted();
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.servlet.resource.ResourceResolver;
 
 /**
  * Encapsulates information required to create a resource handlers.
@@ -43,6 +44,8 @@ public class ResourceHandlerRegistration {
 
 	private Integer cachePeriod;
 
+	private List<ResourceResolver> resourceResolvers;
+
 	/**
 	 * Create a {@link ResourceHandlerRegistration} instance.
 	 * @param resourceLoader a resource loader for turning a String location into a {@link Resource}
@@ -82,6 +85,20 @@ public class ResourceHandlerRegistration {
 		return this;
 	}
 
+	/**
+	 * Configure the list of {@link ResourceResolver}s to use for resolving resources,
+	 * e.g. for adding in-memory caching, pre-compressed variants or content-based versions.
+	 * By default only the configured locations are checked for a matching resource.
+	 * @param resourceResolvers the resolvers to use
+	 * @return the same {@link ResourceHandlerRegistration} instance for chained method invocation
+	 * @since 4.1
+	 * @see ResourceHttpRequestHandler#setResourceResolvers
+	 */
+	public ResourceHandlerRegistration setResourceResolvers(List<ResourceResolver> resourceResolvers) {
+		this.resourceResolvers = resourceResolvers;
+		return this;
+	}
+
 	/**
 	 * Returns the URL path patterns for the resource handler.
 	 */
@@ -99,6 +116,9 @@ public class ResourceHandlerRegistration {
 		if (cachePeriod != null) {
 			requestHandler.setCacheSeconds(cachePeriod);
 		}
+		if (resourceResolvers != null) {
+			requestHandler.setResourceResolvers(resourceResolvers);
+		}
 		return requestHandler;
 	}
 
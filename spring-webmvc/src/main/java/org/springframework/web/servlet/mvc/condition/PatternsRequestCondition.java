@@ -24,7 +24,9 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.util.AntPathMatcher;
@@ -53,6 +55,9 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 
 	private final List<String> fileExtensions = new ArrayList<String>();
 
+	/** Compiled patterns by pattern String, shared with derived conditions; null unless using an AntPathMatcher */
+	private final Map<String, AntPathMatcher.CompiledPattern> compiledPatterns;
+
 
 	/**
 	 * Creates a new instance with the given URL patterns.
@@ -60,7 +65,7 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 * @param patterns 0 or more URL patterns; if 0 the condition will match to every request.
 	 */
 	public PatternsRequestCondition(String... patterns) {
-		this(asList(patterns), null, null, true, true, null);
+		this(asList(patterns), null, null, true, true, null, null);
 	}
 
 	/**
@@ -75,7 +80,7 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	public PatternsRequestCondition(String[] patterns, UrlPathHelper urlPathHelper, PathMatcher pathMatcher,
 			boolean useSuffixPatternMatch, boolean useTrailingSlashMatch) {
 
-		this(asList(patterns), urlPathHelper, pathMatcher, useSuffixPatternMatch, useTrailingSlashMatch, null);
+		this(asList(patterns), urlPathHelper, pathMatcher, useSuffixPatternMatch, useTrailingSlashMatch, null, null);
 	}
 
 	/**
@@ -92,7 +97,8 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 			PathMatcher pathMatcher, boolean useSuffixPatternMatch, boolean useTrailingSlashMatch,
 			List<String> fileExtensions) {
 
-		this(asList(patterns), urlPathHelper, pathMatcher, useSuffixPatternMatch, useTrailingSlashMatch, fileExtensions);
+		this(asList(patterns), urlPathHelper, pathMatcher, useSuffixPatternMatch, useTrailingSlashMatch,
+				fileExtensions, null);
 	}
 
 	/**
@@ -100,7 +106,7 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 	 */
 	private PatternsRequestCondition(Collection<String> patterns, UrlPathHelper urlPathHelper,
 			PathMatcher pathMatcher, boolean useSuffixPatternMatch, boolean useTrailingSlashMatch,
-			List<String> fileExtensions) {
+			List<String> fileExtensions, Map<String, AntPathMatcher.CompiledPattern> compiledPatterns) {
 
 		this.patterns = Collections.unmodifiableSet(prependLeadingSlash(patterns));
 		this.pathHelper = urlPathHelper != null ? urlPathHelper : new UrlPathHelper();
@@ -115,6 +121,10 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 				this.fileExtensions.add(fileExtension);
 			}
 		}
+		if (compiledPatterns == null && this.pathMatcher instanceof AntPathMatcher) {
+			compiledPatterns = new ConcurrentHashMap<String, AntPathMatcher.CompiledPattern>(16);
+		}
+		this.compiledPatterns = compiledPatterns;
 	}
 
 
@@ -180,7 +190,7 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 			result.add("");
 		}
 		return new PatternsRequestCondition(result, this.pathHelper, this.pathMatcher, this.useSuffixPatternMatch,
-				this.useTrailingSlashMatch, this.fileExtensions);
+				this.useTrailingSlashMatch, this.fileExtensions, this.compiledPatterns);
 	}
 
 	/**
@@ -211,7 +221,7 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 
 		return matches.isEmpty() ? null :
 			new PatternsRequestCondition(matches, this.pathHelper, this.pathMatcher, this.useSuffixPatternMatch,
-					this.useTrailingSlashMatch, this.fileExtensions);
+					this.useTrailingSlashMatch, this.fileExtensions, this.compiledPatterns);
 	}
 
 	/**
@@ -243,29 +253,47 @@ public final class PatternsRequestCondition extends AbstractRequestCondition<Pat
 		if (this.useSuffixPatternMatch) {
 			if (!this.fileExtensions.isEmpty() && lookupPath.indexOf('.') != -1) {
 				for (String extension : this.fileExtensions) {
-					if (this.pathMatcher.match(pattern + extension, lookupPath)) {
+					if (match(pattern + extension, lookupPath)) {
 						return pattern + extension;
 					}
 				}
 			}
 			else {
 				boolean hasSuffix = pattern.indexOf('.') != -1;
-				if (!hasSuffix && this.pathMatcher.match(pattern + ".*", lookupPath)) {
+				if (!hasSuffix && match(pattern + ".*", lookupPath)) {
 					return pattern + ".*";
 				}
 			}
 		}
-		if (this.pathMatcher.match(pattern, lookupPath)) {
+		if (match(pattern, lookupPath)) {
 			return pattern;
 		}
 		if (this.useTrailingSlashMatch) {
-			if (!pattern.endsWith("/") && this.pathMatcher.match(pattern + "/", lookupPath)) {
+			if (!pattern.endsWith("/") && match(pattern + "/", lookupPath)) {
 				return pattern +"/";
 			}
 		}
 		return null;
 	}
 
+	/**
+	 * Match the given lookup path against the given pattern, using a compiled
+	 * pattern in case of an {@link AntPathMatcher}. The compiled patterns are
+	 * bounded by the patterns of this condition and their suffix and trailing
+	 * slash variants.
+	 */
+	private boolean match(String pattern, String lookupPath) {
+		if (this.compiledPatterns == null) {
+			return this.pathMatcher.match(pattern, lookupPath);
+		}
+		AntPathMatcher.CompiledPattern compiledPattern = this.compiledPatterns.get(pattern);
+		if (compiledPattern == null) {
+			compiledPattern = ((AntPathMatcher) this.pathMatcher).compile(pattern);
+			this.compiledPatterns.put(pattern, compiledPattern);
+		}
+		return compiledPattern.match(lookupPath);
+	}
+
 	/**
 	 * Compare the two conditions based on the URL patterns they contain.
 	 * Patterns are compared one at a time, from top to bottom via
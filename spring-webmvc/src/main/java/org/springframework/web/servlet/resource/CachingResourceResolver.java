@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * A {@link ResourceResolver} that caches the results of the rest of the chain in
+ * memory, so that the potentially expensive resolution of a request path to a
+ * {@link Resource} (e.g. checking several locations, computing content hashes)
+ * happens only once per path.
+ *
+ * <p>The cache is bounded: once the {@link #setCacheLimit cache limit} is reached,
+ * the least recently cached entries are evicted. Only successfully resolved
+ * resources and URL paths are cached.
+ *
+ * <p>This resolver is expected to be configured as the first resolver in a chain.
+ *
+ * @since 4.1
+ */
+public class CachingResourceResolver implements ResourceResolver {
+
+	/** Default maximum number of entries for the cache: 1024 */
+	public static final int DEFAULT_CACHE_LIMIT = 1024;
+
+	public static final String RESOLVED_RESOURCE_CACHE_KEY_PREFIX = "resolvedResource:";
+
+	public static final String RESOLVED_URL_PATH_CACHE_KEY_PREFIX = "resolvedUrlPath:";
+
+	private static final Log logger = LogFactory.getLog(CachingResourceResolver.class);
+
+
+	/** The maximum number of entries in the cache */
+	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
+
+	/** Fast access cache, returning already cached entries without a global lock */
+	private final Map<String, Object> accessCache = new ConcurrentHashMap<String, Object>(DEFAULT_CACHE_LIMIT);
+
+	/** Map from cache key to cached entry, synchronized for cache maintenance (LRU eviction) */
+	@SuppressWarnings("serial")
+	private final Map<String, Object> evictionCache =
+			new LinkedHashMap<String, Object>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+					if (size() > getCacheLimit()) {
+						accessCache.remove(eldest.getKey());
+						return true;
+					}
+					else {
+						return false;
+					}
+				}
+			};
+
+
+	/**
+	 * Specify the maximum number of entries for the cache.
+	 * Default is 1024.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
+	}
+
+	/**
+	 * Return the maximum number of entries for the cache.
+	 */
+	public int getCacheLimit() {
+		return this.cacheLimit;
+	}
+
+
+	@Override
+	public Resource resolveResource(HttpServletRequest request, String requestPath,
+			List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		String key = computeKey(request, requestPath);
+		Resource resource = (Resource) this.accessCache.get(key);
+		if (resource != null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Found match");
+			}
+			return resource;
+		}
+
+		resource = chain.resolveResource(request, requestPath, locations);
+		if (resource != null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Putting resolved resource in cache");
+			}
+			put(key, resource);
+		}
+		return resource;
+	}
+
+	/**
+	 * Compute the cache key for the given request and path. Requests that accept
+	 * gzip encoding are cached separately, since they may resolve to a different
+	 * (pre-compressed) variant of the resource.
+	 */
+	protected String computeKey(HttpServletRequest request, String requestPath) {
+		StringBuilder key = new StringBuilder(RESOLVED_RESOURCE_CACHE_KEY_PREFIX);
+		key.append(requestPath);
+		if (request != null && GzipResourceResolver.isGzipAccepted(request)) {
+			key.append("+encoding=gzip");
+		}
+		return key.toString();
+	}
+
+	@Override
+	public String resolveUrlPath(String resourceUrlPath, List<? extends Resource> locations, ResourceResolverChain chain) {
+		String key = RESOLVED_URL_PATH_CACHE_KEY_PREFIX + resourceUrlPath;
+		String resolvedUrlPath = (String) this.accessCache.get(key);
+		if (resolvedUrlPath != null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Found match");
+			}
+			return resolvedUrlPath;
+		}
+
+		resolvedUrlPath = chain.resolveUrlPath(resourceUrlPath, locations);
+		if (resolvedUrlPath != null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Putting resolved resource URL path in cache");
+			}
+			put(key, resolvedUrlPath);
+		}
+		return resolvedUrlPath;
+	}
+
+	private void put(String key, Object value) {
+		if (getCacheLimit() <= 0) {
+			return;
+		}
+		synchronized (this.evictionCache) {
+			this.accessCache.put(key, value);
+			this.evictionCache.put(key, value);
+		}
+	}
+
+	/**
+	 * Clear the cache, e.g. after resources have been modified.
+	 */
+	public void clearCache() {
+		synchronized (this.evictionCache) {
+			this.accessCache.clear();
+			this.evictionCache.clear();
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * A default implementation of {@link ResourceResolverChain} for invoking a list
+ * of {@link ResourceResolver}s.
+ *
+ * <p>Each invocation of a resolver is given a new chain instance pointing at the
+ * next resolver, so a chain may be shared between concurrent requests.
+ *
+ * @since 4.1
+ */
+class DefaultResourceResolverChain implements ResourceResolverChain {
+
+	private final List<ResourceResolver> resolvers;
+
+	private final int index;
+
+
+	public DefaultResourceResolverChain(List<? extends ResourceResolver> resolvers) {
+		this(new ArrayList<ResourceResolver>(resolvers), 0);
+	}
+
+	private DefaultResourceResolverChain(List<ResourceResolver> resolvers, int index) {
+		this.resolvers = resolvers;
+		this.index = index;
+	}
+
+
+	@Override
+	public Resource resolveResource(HttpServletRequest request, String requestPath, List<? extends Resource> locations) {
+		if (this.index >= this.resolvers.size()) {
+			return null;
+		}
+		ResourceResolver resolver = this.resolvers.get(this.index);
+		return resolver.resolveResource(request, requestPath, locations, getNextChain());
+	}
+
+	@Override
+	public String resolveUrlPath(String resourcePath, List<? extends Resource> locations) {
+		if (this.index >= this.resolvers.size()) {
+			return null;
+		}
+		ResourceResolver resolver = this.resolvers.get(this.index);
+		return resolver.resolveUrlPath(resourcePath, locations, getNextChain());
+	}
+
+	private ResourceResolverChain getNextChain() {
+		return new DefaultResourceResolverChain(this.resolvers, this.index + 1);
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.Resource;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * A {@link ResourceResolver} that resolves request paths containing an additional
+ * MD5 hash of the resource content in the file name, e.g.
+ * "css/main-e36d2e05253c6c7085a91522ce43a0b4.css" for "css/main.css".
+ *
+ * <p>Since the URL of such a resource changes whenever its content changes,
+ * fingerprinted resources can be served with far-future cache headers.
+ * {@link #resolveUrlPath} inserts the current hash into a resource path, for use
+ * when rendering links to the resource.
+ *
+ * <p>Note that computing the hash requires reading the resource content, so
+ * this resolver is best combined with a {@link CachingResourceResolver} that
+ * precedes it in the chain.
+ *
+ * @since 4.1
+ */
+public class FingerprintResourceResolver implements ResourceResolver {
+
+	private static final Log logger = LogFactory.getLog(FingerprintResourceResolver.class);
+
+	private static final Pattern pattern = Pattern.compile("-([0-9a-f]{32})(?=\\.[^/.]*$|$)");
+
+
+	@Override
+	public Resource resolveResource(HttpServletRequest request, String requestPath,
+			List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		Resource resolved = chain.resolveResource(request, requestPath, locations);
+		if (resolved != null) {
+			return resolved;
+		}
+
+		String hash = extractHash(requestPath);
+		if (hash == null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("No hash found in request path [" + requestPath + "]");
+			}
+			return null;
+		}
+
+		String simplePath = StringUtils.delete(requestPath, "-" + hash);
+		Resource baseResource = chain.resolveResource(request, simplePath, locations);
+		if (baseResource == null) {
+			logger.debug("Failed to find resource after removing fingerprint: " + simplePath);
+			return null;
+		}
+
+		String candidateHash = calculateHash(baseResource);
+		if (hash.equals(candidateHash)) {
+			return baseResource;
+		}
+		else {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Potential resource found for [" + requestPath + "], but fingerprint doesn't match");
+			}
+			return null;
+		}
+	}
+
+	@Override
+	public String resolveUrlPath(String resourcePath, List<? extends Resource> locations, ResourceResolverChain chain) {
+		String baseUrl = chain.resolveUrlPath(resourcePath, locations);
+		if (StringUtils.hasText(baseUrl)) {
+			Resource original = chain.resolveResource(null, resourcePath, locations);
+			if (original == null) {
+				return baseUrl;
+			}
+			String hash = calculateHash(original);
+			if (hash == null) {
+				return baseUrl;
+			}
+			String extension = StringUtils.getFilenameExtension(baseUrl);
+			String filename = StringUtils.getFilename(baseUrl);
+			if (extension == null || filename == null || filename.indexOf('.') == 0) {
+				return baseUrl + "-" + hash;
+			}
+			return StringUtils.stripFilenameExtension(baseUrl) + "-" + hash + "." + extension;
+		}
+		return baseUrl;
+	}
+
+	private String extractHash(String path) {
+		Matcher matcher = pattern.matcher(path);
+		return (matcher.find() ? matcher.group(1) : null);
+	}
+
+	private String calculateHash(Resource resource) {
+		try {
+			InputStream in = resource.getInputStream();
+			try {
+				return DigestUtils.md5DigestAsHex(in);
+			}
+			finally {
+				try {
+					in.close();
+				}
+				catch (IOException ex) {
+				}
+			}
+		}
+		catch (IOException ex) {
+			logger.error("Failed to calculate hash for resource [" + resource + "]", ex);
+			return null;
+		}
+	}
+
+}
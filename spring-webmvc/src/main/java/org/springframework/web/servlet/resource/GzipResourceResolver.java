@@ -0,0 +1,166 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * A {@link ResourceResolver} that delegates to the chain to locate a resource
+ * and then attempts to find a pre-compressed variant with a ".gz" extension
+ * next to it, e.g. "main.css.gz" for "main.css".
+ *
+ * <p>The gzipped variant is only returned if the client accepts the "gzip"
+ * content coding, as indicated by its "Accept-Encoding" request header.
+ * The resolved resource implements {@link EncodedResource}, allowing the
+ * {@link ResourceHttpRequestHandler} to set the "Content-Encoding" header.
+ *
+ * <p>This resolver should be configured before any resolver that modifies the
+ * request path, such as a {@link FingerprintResourceResolver}, so that it
+ * operates on the actual resource found for the request.
+ *
+ * @since 4.1
+ */
+public class GzipResourceResolver implements ResourceResolver {
+
+	private static final Log logger = LogFactory.getLog(GzipResourceResolver.class);
+
+
+	@Override
+	public Resource resolveResource(HttpServletRequest request, String requestPath,
+			List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		Resource resource = chain.resolveResource(request, requestPath, locations);
+		if (resource == null || (request != null && !isGzipAccepted(request))) {
+			return resource;
+		}
+		try {
+			Resource gzipped = new GzippedResource(resource);
+			if (gzipped.exists()) {
+				return gzipped;
+			}
+		}
+		catch (IOException ex) {
+			logger.trace("No gzipped resource for [" + resource.getFilename() + "]", ex);
+		}
+		return resource;
+	}
+
+	@Override
+	public String resolveUrlPath(String resourcePath, List<? extends Resource> locations, ResourceResolverChain chain) {
+		return chain.resolveUrlPath(resourcePath, locations);
+	}
+
+	/**
+	 * Whether the given request accepts the "gzip" content coding.
+	 */
+	static boolean isGzipAccepted(HttpServletRequest request) {
+		String value = request.getHeader("Accept-Encoding");
+		return (value != null && value.toLowerCase().contains("gzip"));
+	}
+
+
+	/**
+	 * A gzipped variant of an existing resource, located next to it.
+	 */
+	private static final class GzippedResource extends AbstractResource implements EncodedResource {
+
+		private final Resource original;
+
+		private final Resource gzipped;
+
+		public GzippedResource(Resource original) throws IOException {
+			this.original = original;
+			this.gzipped = original.createRelative(original.getFilename() + ".gz");
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			return this.gzipped.getInputStream();
+		}
+
+		@Override
+		public boolean exists() {
+			return this.gzipped.exists();
+		}
+
+		@Override
+		public boolean isReadable() {
+			return this.gzipped.isReadable();
+		}
+
+		@Override
+		public URL getURL() throws IOException {
+			return this.gzipped.getURL();
+		}
+
+		@Override
+		public URI getURI() throws IOException {
+			return this.gzipped.getURI();
+		}
+
+		@Override
+		public File getFile() throws IOException {
+			return this.gzipped.getFile();
+		}
+
+		@Override
+		public long contentLength() throws IOException {
+			return this.gzipped.contentLength();
+		}
+
+		@Override
+		public long lastModified() throws IOException {
+			return this.gzipped.lastModified();
+		}
+
+		@Override
+		public Resource createRelative(String relativePath) throws IOException {
+			return this.gzipped.createRelative(relativePath);
+		}
+
+		/**
+		 * Return the filename of the original resource, for determining the media type.
+		 */
+		@Override
+		public String getFilename() {
+			return this.original.getFilename();
+		}
+
+		@Override
+		public String getDescription() {
+			return this.gzipped.getDescription();
+		}
+
+		@Override
+		public String getContentEncoding() {
+			return "gzip";
+		}
+	}
+
+}
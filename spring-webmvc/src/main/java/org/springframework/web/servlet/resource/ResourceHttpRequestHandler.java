@@ -16,9 +16,12 @@
 
 package org.springframework.web.servlet.resource;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import javax.activation.FileTypeMap;
 import javax.activation.MimetypesFileTypeMap;
 import javax.servlet.ServletException;
@@ -35,6 +38,9 @@ import org.springframework.http.MediaType;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.ResourceUtils;
 import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.HttpRequestHandler;
@@ -61,7 +67,22 @@ import org.springframework.web.servlet.support.WebContentGenerator;
  * <p>To ensure that users with a primed browser cache get the latest changes to application-specific
  * resources upon deployment of new versions of the application, it is recommended that a version string
  * is used in the URL  mapping pattern that selects this handler. Such patterns can be easily parameterized
- * using Spring EL. See the reference manual for further examples of this approach.
+ * using Spring EL. See the reference manual for further examples of this approach. Alternatively, a
+ * {@link FingerprintResourceResolver} allows for content-based versions in the resource URLs themselves.
+ *
+ * <p>The actual lookup of resources is delegated to a chain of {@linkplain #setResourceResolvers
+ * resource resolvers}, by default a single {@link PathResourceResolver}. Further resolvers add
+ * in-memory caching of resolved resources ({@link CachingResourceResolver}), serving of pre-compressed
+ * variants ({@link GzipResourceResolver}) and content-based versioning ({@link FingerprintResourceResolver}).
+ *
+ * <p>The handler sends an {@code ETag} header derived from the resource's content length and
+ * last-modified timestamp (or, if {@linkplain #setUseContentETags configured}, from an MD5 digest
+ * of the resource content) and supports conditional requests based on it, as well as single byte range requests
+ * ({@code Range} and {@code If-Range} headers), responding with {@code 206 Partial Content}.
+ *
+ * <p>On Tomcat with sendfile support, larger resources that reside in the file system are
+ * handed over to the container's sendfile mechanism, which copies them to the socket without
+ * passing through the JVM heap. All other content is streamed to the response.
  *
  * <p>Rather than being directly configured as a bean, this handler will typically be configured
  * through use of the {@code <mvc:resources/>} XML configuration element.
@@ -78,11 +99,34 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 	private static final boolean jafPresent =
 			ClassUtils.isPresent("javax.activation.FileTypeMap", ResourceHttpRequestHandler.class.getClassLoader());
 
+	private static final String BYTES_UNIT_PREFIX = "bytes=";
+
+	private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+	private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+	private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+	private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+	/** Minimum content length for using sendfile; smaller files are cheaper to write directly */
+	private static final long SENDFILE_MIN_LENGTH = 48 * 1024;
+
 	private List<Resource> locations;
 
+	private final List<ResourceResolver> resourceResolvers = new ArrayList<ResourceResolver>(4);
+
+	private boolean useETags = true;
+
+	private boolean useContentETags = false;
+
+	/** ETags computed from resource content, keyed by resource */
+	private final Map<Resource, ETagHolder> eTagCache = new ConcurrentReferenceHashMap<Resource, ETagHolder>(256);
+
 
 	public ResourceHttpRequestHandler() {
 		super(METHOD_GET, METHOD_HEAD);
+		this.resourceResolvers.add(new PathResourceResolver());
 	}
 
 	/**
@@ -94,6 +138,82 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 		this.locations = locations;
 	}
 
+	/**
+	 * Return the {@code List} of {@code Resource} paths to use as sources
+	 * for serving static resources.
+	 */
+	public List<Resource> getLocations() {
+		return this.locations;
+	}
+
+	/**
+	 * Configure the list of {@link ResourceResolver}s to use to resolve the
+	 * {@code Resource} for a request path, replacing the default
+	 * {@link PathResourceResolver}.
+	 * <p>A typical chain consists of a {@link CachingResourceResolver}, followed by a
+	 * {@link GzipResourceResolver}, a {@link FingerprintResourceResolver} and finally
+	 * a {@link PathResourceResolver} that performs the actual lookup in the
+	 * configured {@link #setLocations locations}.
+	 * @param resourceResolvers the list of resolvers to use
+	 * @since 4.1
+	 */
+	public void setResourceResolvers(List<ResourceResolver> resourceResolvers) {
+		Assert.notEmpty(resourceResolvers, "ResourceResolver list must not be empty");
+		this.resourceResolvers.clear();
+		this.resourceResolvers.addAll(resourceResolvers);
+	}
+
+	/**
+	 * Return the list of configured resource resolvers.
+	 * @since 4.1
+	 */
+	public List<ResourceResolver> getResourceResolvers() {
+		return this.resourceResolvers;
+	}
+
+	/**
+	 * Set whether an {@code ETag} header should be sent, supporting conditional
+	 * requests via {@code If-None-Match} as well as {@code If-Range}.
+	 * <p>Default is "true". The ETag is derived from the content length and the
+	 * last-modified timestamp of the resource, unless {@link #setUseContentETags
+	 * content-based ETags} have been requested.
+	 * @since 4.1
+	 */
+	public void setUseETags(boolean useETags) {
+		this.useETags = useETags;
+	}
+
+	/**
+	 * Return whether an {@code ETag} header should be sent.
+	 * @since 4.1
+	 */
+	public boolean isUseETags() {
+		return this.useETags;
+	}
+
+	/**
+	 * Set whether the {@code ETag} header should be based on an MD5 digest of
+	 * the resource content instead of its content length and last-modified
+	 * timestamp. The digest is computed once per resource and last-modified
+	 * timestamp.
+	 * <p>Default is "false". Switch this on to get ETags that remain stable
+	 * across deployments which do not preserve file timestamps; note that the
+	 * first request for each resource reads its full content for computing
+	 * the digest, which is costly for very large resources.
+	 * @since 4.1
+	 */
+	public void setUseContentETags(boolean useContentETags) {
+		this.useContentETags = useContentETags;
+	}
+
+	/**
+	 * Return whether the {@code ETag} header is based on the resource content.
+	 * @since 4.1
+	 */
+	public boolean isUseContentETags() {
+		return this.useContentETags;
+	}
+
 	@Override
 	public void afterPropertiesSet() throws Exception {
 		if (logger.isWarnEnabled() && CollectionUtils.isEmpty(this.locations)) {
@@ -106,11 +226,10 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 	 * <p>Checks for the existence of the requested resource in the configured list of locations.
 	 * If the resource does not exist, a {@code 404} response will be returned to the client.
 	 * If the resource exists, the request will be checked for the presence of the
-	 * {@code Last-Modified} header, and its value will be compared against the last-modified
-	 * timestamp of the given resource, returning a {@code 304} status code if the
-	 * {@code Last-Modified} value  is greater. If the resource is newer than the
-	 * {@code Last-Modified} value, or the header is not present, the content resource
-	 * of the resource will be written to the response with caching headers
+	 * {@code If-None-Match} and {@code Last-Modified} headers, and their values will be compared
+	 * against the ETag and last-modified timestamp of the given resource, returning a {@code 304}
+	 * status code if the resource has not been modified. Otherwise the content of the resource
+	 * (or the requested byte range of it) will be written to the response with caching headers
 	 * set to expire one year in the future.
 	 */
 	@Override
@@ -141,7 +260,8 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 		}
 
 		// header phase
-		if (new ServletWebRequest(request, response).checkNotModified(resource.lastModified())) {
+		String eTag = (this.useETags ? getETag(resource) : null);
+		if (checkNotModified(request, response, resource, eTag)) {
 			logger.debug("Resource not modified - returning 304");
 			return;
 		}
@@ -152,7 +272,23 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 			logger.trace("HEAD request - skipping content");
 			return;
 		}
-		writeContent(response, resource);
+		long[] range = getRange(request, resource, eTag);
+		if (range == null) {
+			if (!sendFile(request, response, resource, 0, resource.contentLength() - 1)) {
+				writeContent(response, resource);
+			}
+		}
+		else if (range.length == 0) {
+			logger.debug("Requested range not satisfiable - returning 416");
+			response.setHeader("Content-Range", "bytes */" + resource.contentLength());
+			response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+		}
+		else {
+			prepareForPartialContent(response, resource, range[0], range[1]);
+			if (!sendFile(request, response, resource, range[0], range[1])) {
+				writePartialContent(response, resource, range[0], range[1]);
+			}
+		}
 	}
 
 	protected Resource getResource(HttpServletRequest request) {
@@ -169,27 +305,12 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 			return null;
 		}
 
-		for (Resource location : this.locations) {
-			try {
-				if (logger.isDebugEnabled()) {
-					logger.debug("Trying relative path [" + path + "] against base location: " + location);
-				}
-				Resource resource = location.createRelative(path);
-				if (resource.exists() && resource.isReadable()) {
-					if (logger.isDebugEnabled()) {
-						logger.debug("Found matching resource: " + resource);
-					}
-					return resource;
-				}
-				else if (logger.isTraceEnabled()) {
-					logger.trace("Relative resource doesn't exist or isn't readable: " + resource);
-				}
-			}
-			catch (IOException ex) {
-				logger.debug("Failed to create relative resource - trying next resource location", ex);
-			}
+		ResourceResolverChain chain = new DefaultResourceResolverChain(getResourceResolvers());
+		Resource resource = chain.resolveResource(request, path, getLocations());
+		if (resource != null && logger.isDebugEnabled()) {
+			logger.debug("Found matching resource: " + resource);
 		}
-		return null;
+		return resource;
 	}
 
 	/**
@@ -223,6 +344,65 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 		return mediaType;
 	}
 
+	/**
+	 * Determine an ETag for the given resource.
+	 * <p>The default implementation combines the resource's content length and
+	 * last-modified timestamp, or uses an MD5 digest of its content if
+	 * {@link #setUseContentETags "useContentETags"} is switched on. Digests are
+	 * cached per resource and recomputed once the resource's last-modified
+	 * timestamp changes.
+	 * @param resource the identified resource (never {@code null})
+	 * @return the quoted ETag value
+	 * @throws IOException in case of errors while reading the resource
+	 * @since 4.1
+	 */
+	protected String getETag(Resource resource) throws IOException {
+		long lastModified = resource.lastModified();
+		if (!this.useContentETags) {
+			return "\"" + Long.toHexString(resource.contentLength()) + "-" + Long.toHexString(lastModified) + "\"";
+		}
+		ETagHolder holder = this.eTagCache.get(resource);
+		if (holder == null || holder.lastModified != lastModified) {
+			InputStream in = resource.getInputStream();
+			try {
+				holder = new ETagHolder("\"" + DigestUtils.md5DigestAsHex(in) + "\"", lastModified);
+			}
+			finally {
+				try {
+					in.close();
+				}
+				catch (IOException ex) {
+				}
+			}
+			this.eTagCache.put(resource, holder);
+		}
+		return holder.eTag;
+	}
+
+	/**
+	 * Check the given request against the ETag and last-modified timestamp of the
+	 * resource, setting the corresponding response headers or the {@code 304} status.
+	 * <p>A present {@code If-None-Match} header takes precedence over
+	 * {@code If-Modified-Since}, as mandated by HTTP/1.1.
+	 * @return {@code true} if the resource has not been modified
+	 */
+	private boolean checkNotModified(HttpServletRequest request, HttpServletResponse response,
+			Resource resource, String eTag) throws IOException {
+
+		ServletWebRequest webRequest = new ServletWebRequest(request, response);
+		long lastModified = resource.lastModified();
+		if (eTag != null) {
+			if (webRequest.checkNotModified(eTag)) {
+				return true;
+			}
+			if (request.getHeader("If-None-Match") != null) {
+				response.setDateHeader("Last-Modified", lastModified);
+				return false;
+			}
+		}
+		return webRequest.checkNotModified(lastModified);
+	}
+
 	/**
 	 * Set headers on the given servlet response.
 	 * Called for GET requests as well as HEAD requests.
@@ -232,15 +412,90 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 	 * @throws IOException in case of errors while setting the headers
 	 */
 	protected void setHeaders(HttpServletResponse response, Resource resource, MediaType mediaType) throws IOException {
-		long length = resource.contentLength();
-		if (length > Integer.MAX_VALUE) {
-			throw new IOException("Resource content too long (beyond Integer.MAX_VALUE): " + resource);
-		}
-		response.setContentLength((int) length);
+		setContentLength(response, resource.contentLength());
 
 		if (mediaType != null) {
 			response.setContentType(mediaType.toString());
 		}
+
+		if (resource instanceof EncodedResource) {
+			response.setHeader("Content-Encoding", ((EncodedResource) resource).getContentEncoding());
+			response.setHeader("Vary", "Accept-Encoding");
+		}
+
+		response.setHeader("Accept-Ranges", "bytes");
+	}
+
+	private void setContentLength(HttpServletResponse response, long length) {
+		if (length > Integer.MAX_VALUE) {
+			response.setHeader("Content-Length", Long.toString(length));
+		}
+		else {
+			response.setContentLength((int) length);
+		}
+	}
+
+	/**
+	 * Determine the byte range requested via the {@code Range} header, if any.
+	 * <p>Only a single range is supported; requests for multiple ranges as well
+	 * as ranges that do not match the {@code If-Range} precondition are served
+	 * with the full content.
+	 * @return {@code null} to serve the full content, an empty array if the
+	 * requested range is not satisfiable, or the first and last byte position
+	 */
+	private long[] getRange(HttpServletRequest request, Resource resource, String eTag) throws IOException {
+		String rangeHeader = request.getHeader("Range");
+		if (rangeHeader == null || !rangeHeader.startsWith(BYTES_UNIT_PREFIX) || rangeHeader.indexOf(',') != -1) {
+			return null;
+		}
+		String ifRange = request.getHeader("If-Range");
+		if (ifRange != null && !ifRange.equals(eTag)) {
+			long ifRangeDate = -1;
+			try {
+				ifRangeDate = request.getDateHeader("If-Range");
+			}
+			catch (IllegalArgumentException ex) {
+				// an ETag that does not match
+			}
+			if (ifRangeDate == -1 || resource.lastModified() / 1000 * 1000 > ifRangeDate) {
+				return null;
+			}
+		}
+
+		String spec = rangeHeader.substring(BYTES_UNIT_PREFIX.length()).trim();
+		int dashIndex = spec.indexOf('-');
+		if (dashIndex == -1) {
+			return null;
+		}
+		long length = resource.contentLength();
+		long start;
+		long end;
+		try {
+			if (dashIndex == 0) {
+				// suffix range: the last n bytes
+				long suffixLength = Long.parseLong(spec.substring(1));
+				start = Math.max(length - suffixLength, 0);
+				end = length - 1;
+				if (suffixLength == 0) {
+					return new long[0];
+				}
+			}
+			else {
+				start = Long.parseLong(spec.substring(0, dashIndex));
+				String endSpec = spec.substring(dashIndex + 1);
+				end = (endSpec.length() > 0 ? Math.min(Long.parseLong(endSpec), length - 1) : length - 1);
+			}
+		}
+		catch (NumberFormatException ex) {
+			return null;
+		}
+		if (start >= length) {
+			return new long[0];
+		}
+		if (start < 0 || start > end) {
+			return null;
+		}
+		return new long[] {start, end};
 	}
 
 	/**
@@ -264,6 +519,102 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 		}
 	}
 
+	private void prepareForPartialContent(HttpServletResponse response, Resource resource, long start, long end)
+			throws IOException {
+
+		response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + resource.contentLength());
+		setContentLength(response, end - start + 1);
+	}
+
+	/**
+	 * Write the given byte range of the resource's content out to the given
+	 * servlet response. The {@code 206 Partial Content} status and the
+	 * corresponding headers have already been set at this point.
+	 * @param response current servlet response
+	 * @param resource the identified resource (never {@code null})
+	 * @param start the first byte position of the range
+	 * @param end the last byte position of the range (inclusive)
+	 * @throws IOException in case of errors while writing the content
+	 * @since 4.1
+	 */
+	protected void writePartialContent(HttpServletResponse response, Resource resource, long start, long end)
+			throws IOException {
+
+		InputStream in = resource.getInputStream();
+		try {
+			StreamUtils.copyRange(in, response.getOutputStream(), start, end);
+		}
+		finally {
+			try {
+				in.close();
+			}
+			catch (IOException ex) {
+			}
+		}
+	}
+
+	/**
+	 * Return the file that the given resource is backed by, if any.
+	 */
+	private File getFile(Resource resource) {
+		try {
+			if (ResourceUtils.isFileURL(resource.getURL())) {
+				return resource.getFile();
+			}
+		}
+		catch (IOException ex) {
+			// not resolvable in the file system
+		}
+		return null;
+	}
+
+	/**
+	 * Hand the given range of a file-based resource over to the container's
+	 * sendfile support, if available for the current request.
+	 * <p>Only applies to unwrapped Tomcat requests and responses, since sendfile
+	 * bypasses any response wrappers that might otherwise process the content.
+	 * @return {@code true} if the content will be written by the container
+	 */
+	private boolean sendFile(HttpServletRequest request, HttpServletResponse response,
+			Resource resource, long start, long end) throws IOException {
+
+		if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE)) ||
+				end - start + 1 < SENDFILE_MIN_LENGTH ||
+				!request.getClass().getName().equals("org.apache.catalina.connector.RequestFacade") ||
+				!response.getClass().getName().equals("org.apache.catalina.connector.ResponseFacade")) {
+			return false;
+		}
+		File file = getFile(resource);
+		if (file == null) {
+			return false;
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Using sendfile for " + resource);
+		}
+		request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getCanonicalPath());
+		request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+		// end position is exclusive for Tomcat
+		request.setAttribute(SENDFILE_END_ATTRIBUTE, end + 1);
+		return true;
+	}
+
+
+	/**
+	 * Holder for a computed ETag along with the resource timestamp it is valid for.
+	 */
+	private static class ETagHolder {
+
+		private final String eTag;
+
+		private final long lastModified;
+
+		public ETagHolder(String eTag, long lastModified) {
+			this.eTag = eTag;
+			this.lastModified = lastModified;
+		}
+	}
+
 
 	/**
 	 * Inner class to avoid hard-coded JAF dependency.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -33,6 +34,17 @@ import org.springframework.web.servlet.ViewResolver;
  * once resolved: This means that view resolution won't be a performance problem,
  * no matter how costly initial view retrieval is.
  *
+ * <p>View creation happens under a lock per cache key, so that cache misses
+ * for different view names (or locales) can be served in parallel while
+ * concurrent misses for the same key create the View only once. Note that
+ * this only holds for views that actually end up in the cache: unresolved
+ * view names with {@link #setCacheUnresolved "cacheUnresolved"} switched off
+ * as well as views with a {@link #setCacheSeconds "cacheSeconds"} value of 0
+ * may get created again by any thread arriving after the current creation.
+ * Cached views may optionally expire after a given number of seconds
+ * (see {@link #setCacheSeconds}), e.g. for picking up template changes
+ * during development without switching off the cache completely.
+ *
  * <p>Subclasses need to implement the {@link #loadView} template method,
  * building the View object for a specific view name and locale.
  *
@@ -60,13 +72,22 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 	/** The maximum number of entries in the cache */
 	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
 
+	/** Number of milliseconds after which a cached view expires: -1 for no expiration */
+	private volatile long cacheMillis = -1;
+
 	/** Whether we should refrain from resolving views again if unresolved once */
 	private boolean cacheUnresolved = true;
 
 	/** Fast access cache for Views, returning already cached instances without a global lock */
 	private final Map<Object, View> viewAccessCache = new ConcurrentHashMap<Object, View>(DEFAULT_CACHE_LIMIT);
 
-	/** Map from view key to View instance, synchronized for View creation */
+	/** Map from view key to the time at which the View instance has been cached */
+	private final Map<Object, Long> viewCacheTimestamps = new ConcurrentHashMap<Object, Long>(DEFAULT_CACHE_LIMIT);
+
+	/** Map from view key to the lock object guarding the creation of that particular View */
+	private final ConcurrentMap<Object, Object> viewCreationLocks = new ConcurrentHashMap<Object, Object>(16);
+
+	/** Map from view key to View instance, synchronized for cache maintenance (LRU eviction) */
 	@SuppressWarnings("serial")
 	private final Map<Object, View> viewCreationCache =
 			new LinkedHashMap<Object, View>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
@@ -74,6 +95,7 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 				protected boolean removeEldestEntry(Map.Entry<Object, View> eldest) {
 					if (size() > getCacheLimit()) {
 						viewAccessCache.remove(eldest.getKey());
+						viewCacheTimestamps.remove(eldest.getKey());
 						return true;
 					}
 					else {
@@ -116,6 +138,34 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 		return (this.cacheLimit > 0);
 	}
 
+	/**
+	 * Set the number of seconds to cache resolved views for.
+	 * <ul>
+	 * <li>Default is "-1", indicating to cache views forever (until they are
+	 * explicitly removed or evicted because of the {@link #setCacheLimit cache limit}).
+	 * <li>A positive number will cache a view for the given number of seconds,
+	 * after which the next request for it leads to the View being created again.
+	 * This is essentially the interval between view refreshes, e.g. for picking up
+	 * modified templates during development while keeping the cache switched on.
+	 * <li>A value of "0" will create the View on every access, including
+	 * concurrent accesses: the created View is never shared between requests.
+	 * <b>Do not use this in a production environment!</b>
+	 * </ul>
+	 * <p>Note that this setting only applies if the general {@link #setCache "cache"}
+	 * flag is kept at its default of "true".
+	 */
+	public void setCacheSeconds(int cacheSeconds) {
+		this.cacheMillis = (cacheSeconds < 0 ? -1 : cacheSeconds * 1000L);
+	}
+
+	/**
+	 * Return the number of seconds to cache resolved views for,
+	 * or "-1" for caching them forever.
+	 */
+	public int getCacheSeconds() {
+		return (this.cacheMillis < 0 ? -1 : (int) (this.cacheMillis / 1000));
+	}
+
 	/**
 	 * Whether a view name once resolved to {@code null} should be cached and
 	 * automatically resolved to {@code null} subsequently.
@@ -147,30 +197,73 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 		}
 		else {
 			Object cacheKey = getCacheKey(viewName, locale);
-			View view = this.viewAccessCache.get(cacheKey);
+			View view = getCachedView(cacheKey);
 			if (view == null) {
-				synchronized (this.viewCreationCache) {
-					view = this.viewCreationCache.get(cacheKey);
-					if (view == null) {
-						// Ask the subclass to create the View object.
-						view = createView(viewName, locale);
-						if (view == null && this.cacheUnresolved) {
-							view = UNRESOLVED_VIEW;
-						}
-						if (view != null) {
-							this.viewAccessCache.put(cacheKey, view);
-							this.viewCreationCache.put(cacheKey, view);
-							if (logger.isTraceEnabled()) {
-								logger.trace("Cached view [" + cacheKey + "]");
+				Object creationLock = getCreationLock(cacheKey);
+				try {
+					synchronized (creationLock) {
+						view = getCachedView(cacheKey);
+						if (view == null) {
+							// Ask the subclass to create the View object.
+							view = createView(viewName, locale);
+							if (view == null && this.cacheUnresolved) {
+								view = UNRESOLVED_VIEW;
+							}
+							if (view != null) {
+								putCachedView(cacheKey, view);
 							}
 						}
 					}
 				}
+				finally {
+					this.viewCreationLocks.remove(cacheKey, creationLock);
+				}
 			}
 			return (view != UNRESOLVED_VIEW ? view : null);
 		}
 	}
 
+	/**
+	 * Return the cached View for the given cache key, if any and not expired yet.
+	 */
+	private View getCachedView(Object cacheKey) {
+		View view = this.viewAccessCache.get(cacheKey);
+		if (view != null && this.cacheMillis >= 0) {
+			Long timestamp = this.viewCacheTimestamps.get(cacheKey);
+			if (timestamp == null || System.currentTimeMillis() - timestamp >= this.cacheMillis) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Cached view [" + cacheKey + "] expired");
+				}
+				return null;
+			}
+		}
+		return view;
+	}
+
+	/**
+	 * Store the given View in the cache, replacing any expired instance.
+	 */
+	private void putCachedView(Object cacheKey, View view) {
+		synchronized (this.viewCreationCache) {
+			this.viewAccessCache.put(cacheKey, view);
+			this.viewCacheTimestamps.put(cacheKey, System.currentTimeMillis());
+			this.viewCreationCache.put(cacheKey, view);
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Cached view [" + cacheKey + "]");
+		}
+	}
+
+	/**
+	 * Obtain the lock object for creating the View with the given cache key,
+	 * shared by all threads that concurrently miss the cache for that key.
+	 */
+	private Object getCreationLock(Object cacheKey) {
+		Object lock = new Object();
+		Object existingLock = this.viewCreationLocks.putIfAbsent(cacheKey, lock);
+		return (existingLock != null ? existingLock : lock);
+	}
+
 	/**
 	 * Return the cache key for the given view name and the given locale.
 	 * <p>Default is a String consisting of view name and locale suffix.
@@ -200,6 +293,7 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 			Object cachedView;
 			synchronized (this.viewCreationCache) {
 				this.viewAccessCache.remove(cacheKey);
+				this.viewCacheTimestamps.remove(cacheKey);
 				cachedView = this.viewCreationCache.remove(cacheKey);
 			}
 			if (logger.isDebugEnabled()) {
@@ -222,6 +316,7 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 		logger.debug("Clearing entire view cache");
 		synchronized (this.viewCreationCache) {
 			this.viewAccessCache.clear();
+			this.viewCacheTimestamps.clear();
 			this.viewCreationCache.clear();
 		}
 	}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.mock.web.test.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import static org.junit.Assert.*;
+
+public class FrameworkServletTests {
+
+	@Test
+	public void requestContextSharedWithCallableThread() throws Exception {
+		final List<String> destroyed = new ArrayList<String>();
+		final Object[] contexts = new Object[4];
+
+		FrameworkServlet servlet = new FrameworkServlet() {
+			@Override
+			protected void doService(HttpServletRequest request, HttpServletResponse response) throws Exception {
+				RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+				attributes.registerDestructionCallback("bean", new Runnable() {
+					@Override
+					public void run() {
+						destroyed.add("bean");
+					}
+				}, RequestAttributes.SCOPE_REQUEST);
+				contexts[0] = attributes;
+				contexts[1] = LocaleContextHolder.getLocaleContext();
+
+				WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+				asyncManager.setTaskExecutor(new SimpleAsyncTaskExecutor());
+				asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+				asyncManager.startCallableProcessing(new Callable<Object>() {
+					@Override
+					public Object call() {
+						contexts[2] = RequestContextHolder.getRequestAttributes();
+						contexts[3] = LocaleContextHolder.getLocaleContext();
+						return "result";
+					}
+				});
+			}
+		};
+		servlet.setPublishEvents(false);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo");
+		request.setAsyncSupported(true);
+		request.addPreferredLocale(Locale.CANADA);
+		servlet.service(request, new MockHttpServletResponse());
+
+		WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+		for (int i = 0; i < 100 && !asyncManager.hasConcurrentResult(); i++) {
+			Thread.sleep(50);
+		}
+		assertEquals("result", asyncManager.getConcurrentResult());
+		assertNull(RequestContextHolder.getRequestAttributes());
+		assertSame(contexts[0], contexts[2]);
+		assertSame(contexts[1], contexts[3]);
+		assertEquals(Locale.CANADA, ((LocaleContext) contexts[3]).getLocale());
+		assertTrue("Request attributes completed before async processing finished", destroyed.isEmpty());
+
+		request.getAsyncContext().complete();
+		assertEquals(1, destroyed.size());
+	}
+
+	@Test
+	public void requestAttributesCompletedAfterDeferredResult() throws Exception {
+		final List<String> destroyed = new ArrayList<String>();
+		final DeferredResult<String> deferredResult = new DeferredResult<String>();
+
+		FrameworkServlet servlet = new FrameworkServlet() {
+			@Override
+			protected void doService(HttpServletRequest request, HttpServletResponse response) throws Exception {
+				registerDestructionCallback(destroyed);
+				WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+				asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+				asyncManager.startDeferredResultProcessing(deferredResult);
+			}
+		};
+		servlet.setPublishEvents(false);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo");
+		request.setAsyncSupported(true);
+		servlet.service(request, new MockHttpServletResponse());
+		assertNull(RequestContextHolder.getRequestAttributes());
+		assertTrue("Request attributes completed before async processing finished", destroyed.isEmpty());
+
+		deferredResult.setResult("result");
+		assertEquals("result", WebAsyncUtils.getAsyncManager(request).getConcurrentResult());
+		assertTrue("Request attributes completed before async processing finished", destroyed.isEmpty());
+
+		request.getAsyncContext().complete();
+		assertEquals(1, destroyed.size());
+	}
+
+	@Test
+	public void requestAttributesCompletedAfterAsyncStartedWithoutInterceptors() throws Exception {
+		final List<String> destroyed = new ArrayList<String>();
+
+		FrameworkServlet servlet = new FrameworkServlet() {
+			@Override
+			protected void doService(HttpServletRequest request, HttpServletResponse response) throws Exception {
+				registerDestructionCallback(destroyed);
+				StandardServletAsyncWebRequest asyncWebRequest = new StandardServletAsyncWebRequest(request, response);
+				WebAsyncUtils.getAsyncManager(request).setAsyncWebRequest(asyncWebRequest);
+				asyncWebRequest.startAsync();
+			}
+		};
+		servlet.setPublishEvents(false);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo");
+		request.setAsyncSupported(true);
+		servlet.service(request, new MockHttpServletResponse());
+		assertTrue("Request attributes completed before async processing finished", destroyed.isEmpty());
+
+		request.getAsyncContext().complete();
+		assertEquals(1, destroyed.size());
+	}
+
+
+	private static void registerDestructionCallback(final List<String> destroyed) {
+		RequestContextHolder.getRequestAttributes().registerDestructionCallback("bean", new Runnable() {
+			@Override
+			public void run() {
+				destroyed.add("bean");
+			}
+		}, RequestAttributes.SCOPE_REQUEST);
+	}
+
+}
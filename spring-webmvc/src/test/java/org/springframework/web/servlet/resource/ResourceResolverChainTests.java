@@ -0,0 +1,144 @@
+/*
+ * Copyright 2002-2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileCopyUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ResourceResolver} implementations arranged in a
+ * {@link ResourceResolverChain}.
+ */
+public class ResourceResolverChainTests {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private List<Resource> locations;
+
+	private String hash;
+
+
+	@Before
+	public void setUp() throws Exception {
+		this.locations = new ArrayList<Resource>();
+		this.locations.add(new ClassPathResource("test/", getClass()));
+		this.locations.add(new ClassPathResource("testalternatepath/", getClass()));
+		this.hash = DigestUtils.md5DigestAsHex("h1 { color:red; }".getBytes("UTF-8"));
+	}
+
+
+	@Test
+	public void resolvePath() {
+		ResourceResolverChain chain = createChain(new PathResourceResolver());
+		Resource resource = chain.resolveResource(new MockHttpServletRequest(), "bar.css", this.locations);
+		assertEquals(new ClassPathResource("test/bar.css", getClass()), resource);
+		assertEquals(new ClassPathResource("testalternatepath/baz.css", getClass()),
+				chain.resolveResource(new MockHttpServletRequest(), "baz.css", this.locations));
+		assertNull(chain.resolveResource(new MockHttpServletRequest(), "not-there.css", this.locations));
+		assertEquals("bar.css", chain.resolveUrlPath("bar.css", this.locations));
+		assertNull(chain.resolveUrlPath("not-there.css", this.locations));
+	}
+
+	@Test
+	public void resolveFingerprint() {
+		ResourceResolverChain chain = createChain(new FingerprintResourceResolver(), new PathResourceResolver());
+		String path = "foo-" + this.hash + ".css";
+		assertEquals(new ClassPathResource("test/foo.css", getClass()),
+				chain.resolveResource(new MockHttpServletRequest(), path, this.locations));
+		assertEquals(path, chain.resolveUrlPath("foo.css", this.locations));
+		assertNull(chain.resolveResource(new MockHttpServletRequest(),
+				"foo-" + DigestUtils.md5DigestAsHex(new byte[0]) + ".css", this.locations));
+	}
+
+	@Test
+	public void resolveGzipped() throws Exception {
+		File file = this.folder.newFile("foo.css");
+		FileCopyUtils.copy("h1 { color:red; }".getBytes("UTF-8"), file);
+		OutputStream out = new GZIPOutputStream(new FileOutputStream(new File(this.folder.getRoot(), "foo.css.gz")));
+		FileCopyUtils.copy("h1 { color:red; }".getBytes("UTF-8"), out);
+		List<Resource> locations = Collections.<Resource>singletonList(
+				new FileSystemResource(this.folder.getRoot().getPath() + "/"));
+
+		ResourceResolverChain chain = createChain(
+				new GzipResourceResolver(), new FingerprintResourceResolver(), new PathResourceResolver());
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		Resource resource = chain.resolveResource(request, "foo.css", locations);
+		assertFalse(resource instanceof EncodedResource);
+
+		request.addHeader("Accept-Encoding", "gzip, deflate");
+		resource = chain.resolveResource(request, "foo-" + this.hash + ".css", locations);
+		assertTrue(resource instanceof EncodedResource);
+		assertEquals("gzip", ((EncodedResource) resource).getContentEncoding());
+		assertEquals("foo.css", resource.getFilename());
+		assertEquals(new File(this.folder.getRoot(), "foo.css.gz").length(), resource.contentLength());
+	}
+
+	@Test
+	public void resolveCached() {
+		final List<String> resolvedPaths = new ArrayList<String>();
+		ResourceResolver recordingResolver = new PathResourceResolver() {
+			@Override
+			protected Resource getResource(String resourcePath, Resource location) throws java.io.IOException {
+				resolvedPaths.add(resourcePath);
+				return super.getResource(resourcePath, location);
+			}
+		};
+		CachingResourceResolver cachingResolver = new CachingResourceResolver();
+		ResourceResolverChain chain = createChain(cachingResolver, recordingResolver);
+
+		Resource resource = chain.resolveResource(new MockHttpServletRequest(), "bar.css", this.locations);
+		assertSame(resource, chain.resolveResource(new MockHttpServletRequest(), "bar.css", this.locations));
+		assertEquals(1, resolvedPaths.size());
+
+		cachingResolver.setCacheLimit(1);
+		chain.resolveResource(new MockHttpServletRequest(), "foo.css", this.locations);
+		chain.resolveResource(new MockHttpServletRequest(), "bar.css", this.locations);
+		assertEquals(3, resolvedPaths.size());
+
+		cachingResolver.clearCache();
+		chain.resolveResource(new MockHttpServletRequest(), "bar.css", this.locations);
+		assertEquals(4, resolvedPaths.size());
+	}
+
+
+	private ResourceResolverChain createChain(ResourceResolver... resolvers) {
+		return new DefaultResourceResolverChain(Arrays.asList(resolvers));
+	}
+
+}
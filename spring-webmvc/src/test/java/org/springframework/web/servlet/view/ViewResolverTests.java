@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2014 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,8 @@ import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletContext;
@@ -535,6 +537,72 @@ public class ViewResolverTests {
 		assertEquals(3, count.intValue());
 	}
 
+	@Test
+	public void testCacheMissesForDifferentViewsDoNotBlockEachOther() throws Exception {
+		final CountDownLatch slowViewStarted = new CountDownLatch(1);
+		final CountDownLatch slowViewRelease = new CountDownLatch(1);
+		final AbstractCachingViewResolver viewResolver = new AbstractCachingViewResolver() {
+			@Override
+			protected View loadView(String viewName, Locale locale) throws Exception {
+				if ("slow".equals(viewName)) {
+					slowViewStarted.countDown();
+					slowViewRelease.await(10, TimeUnit.SECONDS);
+				}
+				return new InternalResourceView(viewName);
+			}
+		};
+
+		Thread slowThread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					viewResolver.resolveViewName("slow", Locale.getDefault());
+				}
+				catch (Exception ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+		};
+		slowThread.start();
+		assertTrue(slowViewStarted.await(10, TimeUnit.SECONDS));
+
+		View fast = viewResolver.resolveViewName("fast", Locale.getDefault());
+		assertNotNull(fast);
+		assertSame(fast, viewResolver.resolveViewName("fast", Locale.getDefault()));
+
+		slowViewRelease.countDown();
+		slowThread.join(10000);
+		assertNotNull(viewResolver.resolveViewName("slow", Locale.getDefault()));
+	}
+
+	@Test
+	public void testCacheSeconds() throws Exception {
+		final AtomicInteger count = new AtomicInteger();
+		AbstractCachingViewResolver viewResolver = new AbstractCachingViewResolver() {
+			@Override
+			protected View loadView(String viewName, Locale locale) throws Exception {
+				count.incrementAndGet();
+				return new InternalResourceView(viewName);
+			}
+		};
+		assertEquals(-1, viewResolver.getCacheSeconds());
+
+		View view = viewResolver.resolveViewName("view", Locale.getDefault());
+		assertSame(view, viewResolver.resolveViewName("view", Locale.getDefault()));
+		assertEquals(1, count.intValue());
+
+		viewResolver.setCacheSeconds(0);
+		assertEquals(0, viewResolver.getCacheSeconds());
+		View recreated = viewResolver.resolveViewName("view", Locale.getDefault());
+		assertNotSame(view, recreated);
+		assertEquals(2, count.intValue());
+
+		viewResolver.setCacheSeconds(60);
+		assertSame(recreated, viewResolver.resolveViewName("view", Locale.getDefault()));
+		assertSame(recreated, viewResolver.resolveViewName("view", Locale.getDefault()));
+		assertEquals(2, count.intValue());
+	}
+
 
 	public static class TestView extends InternalResourceView {
 